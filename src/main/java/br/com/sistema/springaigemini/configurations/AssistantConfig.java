@@ -2,16 +2,19 @@ package br.com.sistema.springaigemini.configurations;
 
 import java.io.IOException;
 import java.security.GeneralSecurityException;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.client.RestTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.api.services.gmail.Gmail;
 
+import br.com.sistema.springaigemini.core.ChatUsageMetrics;
 import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
 import lombok.extern.log4j.Log4j2;
 
@@ -27,6 +30,9 @@ public class AssistantConfig {
 
     @Autowired
     private GmailAuthSetup gmailAuthSetup; // Injetando a classe que lida com o Refresh Token
+
+    @Autowired
+    private ChatUsageMetrics chatUsageMetrics; // Tokens e latência de cada chamada ao modelo
     
     // ==================== 1. MODELO DE IA ====================
     
@@ -36,12 +42,14 @@ public class AssistantConfig {
         return GoogleAiGeminiChatModel.builder()
                 .apiKey(geminiApiKey)
                 .modelName(geminiModel)
+                .listeners(List.of(chatUsageMetrics))
                 .build();
     }
     
     // ==================== 2. GMAIL API (CORRIGIDO) ====================
     
     @Bean
+    @Profile("!gmail-stub") // no perfil gmail-stub (só nos testes), o bean vem do GmailStubConfig
     public Gmail gmailService() throws GeneralSecurityException, IOException {
         log.info("========================================");
         log.info("Iniciando Gmail API via GmailAuthSetup");
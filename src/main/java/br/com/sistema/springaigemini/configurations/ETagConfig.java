@@ -0,0 +1,30 @@
+package br.com.sistema.springaigemini.configurations;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.ShallowEtagHeaderFilter;
+
+/**
+ * Configuração de ETag para o GitHub File Selector
+ * 
+ * Os endpoints de um repositório (/files, /files-tree) calculam o ETag a partir
+ * do SHA do último commit, antes de montar a resposta (ver controller).
+ * 
+ * A lista de repositórios (/repos) não tem um SHA único, então usa o
+ * ShallowEtagHeaderFilter (hash do corpo): evita o download repetido,
+ * mas ainda monta a resposta.
+ */
+@Configuration
+public class ETagConfig {
+
+    @Bean
+    public FilterRegistrationBean<ShallowEtagHeaderFilter> reposETagFilter() {
+        FilterRegistrationBean<ShallowEtagHeaderFilter> registration =
+                new FilterRegistrationBean<>(new ShallowEtagHeaderFilter());
+        registration.addUrlPatterns("/api/v1/github-selector/repos");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -1,6 +1,9 @@
 package br.com.sistema.springaigemini.configurations;
 
 import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -16,9 +19,30 @@ import com.google.api.client.util.store.MemoryDataStoreFactory;
 import com.google.api.services.gmail.Gmail;
 import com.google.api.services.gmail.GmailScopes;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
-
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Autenticação OAuth do Gmail.
+ * 
+ * A credencial é única e compartilhada pelo bean Gmail: a própria Credential
+ * serializa o acesso ao token com um lock interno. O refresher agendado renova o
+ * access token antes de expirar, fora do caminho das requisições (o interceptor
+ * da Credential só renova quando faltam menos de 60s).
+ * 
+ * O refresher roda numa thread própria: o agendador padrão do Spring tem uma só
+ * thread, e uma sincronização longa (GmailSyncService) atrasaria a renovação.
+ * 
+ * Métricas: gmail.auth.refresh (latência por resultado), gmail.auth.refresh.failures
+ * e gmail.auth.token.expires.seconds.
+ */
 @Component
+@Slf4j
 public class GmailAuthSetup {
 
 	@Value("${gmail.client-id}")
@@ -35,8 +59,31 @@ public class GmailAuthSetup {
 
 	private static final String APPLICATION_NAME = "Gmail API Client";
 	private static final JacksonFactory JSON_FACTORY = JacksonFactory.getDefaultInstance();
+	@Value("${gmail.auth.refresh-ahead-seconds:300}")
+	private long refreshAheadSeconds;
+
+	@Value("${gmail.auth.refresh-check-ms:30000}")
+	private long refreshCheckMillis;
+
 	private GoogleAuthorizationCodeFlow flow;
 	private HttpTransport transport;
+	private volatile Credential credential;
+	private ScheduledExecutorService refresher;
+
+	private final MeterRegistry meterRegistry;
+	private final Timer refreshSuccess;
+	private final Timer refreshFailure;
+	private final Counter refreshFailures;
+
+	public GmailAuthSetup(MeterRegistry meterRegistry) {
+		this.meterRegistry = meterRegistry;
+		this.refreshSuccess = Timer.builder("gmail.auth.refresh").tag("result", "success")
+				.description("Latência da renovação do access token do Gmail").register(meterRegistry);
+		this.refreshFailure = Timer.builder("gmail.auth.refresh").tag("result", "failure")
+				.description("Latência da renovação do access token do Gmail").register(meterRegistry);
+		this.refreshFailures = Counter.builder("gmail.auth.refresh.failures")
+				.description("Falhas na renovação do access token do Gmail").register(meterRegistry);
+	}
 
 	@PostConstruct
 	public void init() throws Exception {
@@ -46,9 +93,26 @@ public class GmailAuthSetup {
 				.setWeb(new GoogleClientSecrets.Details().setClientId(clientId).setClientSecret(clientSecret)
 						.setRedirectUris(Collections.singletonList(redirectUri)));
 
+		// GMAIL_MODIFY: ler, alterar labels, enviar e mover para a lixeira; remoção permanente
+		// (delete/batchDelete) exigiria o escopo total do Gmail e não é usada em massa
 		this.flow = new GoogleAuthorizationCodeFlow.Builder(transport, JSON_FACTORY, clientSecrets,
 				Collections.singletonList(GmailScopes.GMAIL_MODIFY))
 				.setDataStoreFactory(MemoryDataStoreFactory.getDefaultInstance()).setAccessType("offline").build();
+
+		Gauge.builder("gmail.auth.token.expires.seconds", this, GmailAuthSetup::expiresInSeconds)
+				.description("Segundos até o access token do Gmail expirar").register(meterRegistry);
+
+		refresher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+				.name("gmail-token-refresher").daemon(true).factory());
+		refresher.scheduleWithFixedDelay(this::refreshAhead, refreshCheckMillis, refreshCheckMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void stop() {
+		if (refresher != null) {
+			refresher.shutdownNow();
+		}
 	}
 
 	public Gmail getGmailService() throws Exception {
@@ -71,13 +135,64 @@ public class GmailAuthSetup {
 		try {
 			if (credential.getAccessToken() == null
 					|| (credential.getExpiresInSeconds() != null && credential.getExpiresInSeconds() < 60)) {
-				credential.refreshToken();
+				refresh(credential);
 			}
 		} catch (Exception e) {
 			// Se falhar aqui, o Refresh Token pode estar inválido ou revogado
 			throw new RuntimeException("Erro ao renovar token do Gmail. Verifique o Refresh Token. " + e.getMessage());
 		}
 
+		// 4. A mesma credencial fica com o refresher agendado
+		this.credential = credential;
+
 		return new Gmail.Builder(transport, JSON_FACTORY, credential).setApplicationName(APPLICATION_NAME).build();
 	}
+
+	/**
+	 * Renova o access token quando faltar menos que "refresh-ahead-seconds" para expirar.
+	 * 
+	 * Em caso de falha, tenta de novo na próxima execução; até lá o token atual
+	 * continua válido e o interceptor da Credential segue como última alternativa.
+	 */
+	public void refreshAhead() {
+		Credential current = this.credential;
+		if (current == null) {
+			return;
+		}
+
+		Long expiresIn = current.getExpiresInSeconds();
+		if (current.getAccessToken() != null && expiresIn != null && expiresIn > refreshAheadSeconds) {
+			return;
+		}
+
+		try {
+			refresh(current);
+			log.info("🔑 Access token do Gmail renovado (expira em {}s)", current.getExpiresInSeconds());
+		} catch (Exception e) {
+			log.warn("⚠️ Falha ao renovar access token do Gmail (nova tentativa em breve): {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Renova o token registrando latência e falhas
+	 */
+	private void refresh(Credential target) throws Exception {
+		long start = System.nanoTime();
+		try {
+			if (!target.refreshToken()) {
+				throw new IllegalStateException("Servidor OAuth não renovou o token");
+			}
+			refreshSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		} catch (Exception e) {
+			refreshFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			refreshFailures.increment();
+			throw e;
+		}
+	}
+
+	private double expiresInSeconds() {
+		Credential current = this.credential;
+		Long expiresIn = current != null ? current.getExpiresInSeconds() : null;
+		return expiresIn != null ? expiresIn : Double.NaN;
+	}
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package br.com.sistema.springaigemini.configurations;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita tarefas agendadas (@Scheduled), como a sincronização do Gmail
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
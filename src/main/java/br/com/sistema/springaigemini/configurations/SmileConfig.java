@@ -0,0 +1,50 @@
+package br.com.sistema.springaigemini.configurations;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Configuração do formato binário Smile (Jackson)
+ * 
+ * Clientes que enviam "Accept: application/x-jackson-smile" recebem a resposta
+ * em Smile em vez de JSON. JSON continua sendo o padrão.
+ * 
+ * Back-references habilitadas para nomes de campos E valores repetidos
+ * (ex: "type": "file", "extension": "java" se repetem milhares de vezes na árvore)
+ */
+@Log4j2
+@Configuration
+public class SmileConfig {
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    @Bean
+    public SmileFactory smileFactory() {
+        log.info("Inicializando SmileFactory com back-references de nomes e valores");
+        return SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_NAMES)
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+    }
+
+    /**
+     * Registrado como bean para o Spring Boot incluir na lista de converters
+     * (content negotiation via header Accept)
+     * 
+     * O ObjectMapper vem do builder do Spring Boot (spring.jackson.*, módulos, JavaTimeModule...):
+     * a resposta em Smile tem os mesmos campos e formatos da resposta em JSON
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(SmileFactory smileFactory,
+            Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(smileFactory).build());
+    }
+}
@@ -1,17 +1,29 @@
 package br.com.sistema.springaigemini.controllers;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import br.com.sistema.springaigemini.configurations.SmileConfig;
 import br.com.sistema.springaigemini.dtos.request.github.AnalyzeGitHubFilesRequest;
 import br.com.sistema.springaigemini.dtos.response.github.GitHubFilesResponse;
 import br.com.sistema.springaigemini.dtos.response.github.GitHubRepoResponse;
+import br.com.sistema.springaigemini.serializers.FileTreeJsonWriter;
 import br.com.sistema.springaigemini.services.GitHubDataStructureService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -25,8 +37,10 @@ import lombok.extern.log4j.Log4j2;
  * ✅ COMPLETO E CORRIGIDO
  * - Injeta GitHubDataStructureService
  * - Tem endpoint /files (lista linear)
- * - Tem endpoint /files-tree (árvore com children)
+ * - Tem endpoint /files-tree (árvore com children, em streaming)
  * - Usa records corretamente para DTOs
+ * - Responde em Smile (binário) com "Accept: application/x-jackson-smile"
+ * - ETag pelo SHA do último commit: If-None-Match responde 304 sem montar a resposta
  */
 @RestController
 @RequestMapping("/api/v1/github-selector")
@@ -36,6 +50,7 @@ import lombok.extern.log4j.Log4j2;
 public class GitHubFileSelectorController {
 
     private final GitHubDataStructureService gitHubDataStructureService;
+    private final FileTreeJsonWriter fileTreeJsonWriter;
 
     /**
      * GET /api/v1/github-selector/repos
@@ -72,16 +87,23 @@ public class GitHubFileSelectorController {
     @Operation(summary = "Listar arquivos (lista linear)")
     public ResponseEntity<?> getRepositoryFiles(
             @Parameter(description = "Nome do repositório")
-            @PathVariable(name = "name") String repositoryName) {
+            @PathVariable(name = "name") String repositoryName,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
 
         try {
             log.info("📂 Listando: {} | path: RAIZ", repositoryName);
-            log.info("📂 Retornando RAIZ");
+
+            String etag = buildETag(repositoryName, "files", accept);
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                log.info("✅ Não modificado (304): {}", repositoryName);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
 
             GitHubFilesResponse response = gitHubDataStructureService.getRepositoryFiles(repositoryName);
 
             log.info("✅ {} arquivos retornados", response.getFiles().size());
-            return ResponseEntity.ok(response);
+            return withETag(ResponseEntity.ok(), etag).body(response);
 
         } catch (Exception e) {
             log.error("❌ Erro ao obter arquivos", e);
@@ -93,29 +115,48 @@ public class GitHubFileSelectorController {
     /**
      * GET /api/v1/github-selector/repos/{name}/files-tree
      * 
-     * ✅ NOVO: Retorna árvore COMPLETA com children preenchido (recursão)
+     * ✅ NOVO: Retorna árvore COMPLETA com children preenchido
      * 
      * Diferente de /files que retorna lista linear,
-     * este endpoint retorna a árvore hierárquica com todos os filhos
+     * este endpoint retorna a árvore hierárquica com todos os filhos.
+     * A árvore é escrita em streaming pelo FileTreeJsonWriter (sem recursão)
      */
     @GetMapping("/repos/{name}/files-tree")
     @Operation(summary = "Listar arquivos em árvore (com children preenchido)")
-    public ResponseEntity<?> getRepositoryFilesAsTree(
+    public ResponseEntity<StreamingResponseBody> getRepositoryFilesAsTree(
             @Parameter(description = "Nome do repositório")
-            @PathVariable(name = "name") String repositoryName) {
+            @PathVariable(name = "name") String repositoryName,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            WebRequest webRequest) {
 
         try {
             log.info("🌳 Obtendo árvore: {}", repositoryName);
 
+            String etag = buildETag(repositoryName, "files-tree", accept);
+            if (etag != null && webRequest.checkNotModified(etag)) {
+                log.info("✅ Árvore não modificada (304): {}", repositoryName);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+            }
+
             GitHubFilesResponse response = gitHubDataStructureService.getRepositoryFilesAsTree(repositoryName);
 
             log.info("✅ Árvore retornada com {} items", response.getFiles().size());
-            return ResponseEntity.ok(response);
+
+            if (prefersSmile(accept)) {
+                return withETag(ResponseEntity.ok(), etag)
+                        .contentType(SmileConfig.APPLICATION_SMILE)
+                        .body(out -> fileTreeJsonWriter.writeSmile(response, out));
+            }
+            return withETag(ResponseEntity.ok(), etag)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> fileTreeJsonWriter.write(response, out));
 
         } catch (Exception e) {
             log.error("❌ Erro ao obter arquivos em árvore", e);
+            String erro = "Erro ao obter arquivos em árvore: " + e.getMessage();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Erro ao obter arquivos em árvore: " + e.getMessage());
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write(erro.getBytes(StandardCharsets.UTF_8)));
         }
     }
 
@@ -179,4 +220,88 @@ public class GitHubFileSelectorController {
                     .body("Erro ao analisar arquivos: " + e.getMessage());
         }
     }
+
+    /**
+     * Verifica se o header Accept pede Smile antes de JSON
+     * 
+     * Cada formato recebe o q-value da entrada mais específica do Accept que o inclui
+     * (application/x-jackson-smile vale mais que application/*, que vale mais que * / *).
+     * Vence o maior q-value; no empate, Smile só se foi pedido explicitamente antes de JSON.
+     * Wildcards, ausência do header ou header inválido mantêm JSON como padrão.
+     */
+    static boolean prefersSmile(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return false;
+        }
+
+        try {
+            List<MediaType> listed = MediaType.parseMediaTypes(accept);
+            MediaType smile = mostSpecific(listed, SmileConfig.APPLICATION_SMILE);
+            MediaType json = mostSpecific(listed, MediaType.APPLICATION_JSON);
+            if (smile == null || smile.getQualityValue() == 0) {
+                return false;
+            }
+            if (json == null) {
+                return true;
+            }
+            if (smile.getQualityValue() != json.getQualityValue()) {
+                return smile.getQualityValue() > json.getQualityValue();
+            }
+            return smile.isConcrete() && listed.indexOf(smile) < listed.indexOf(json);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Entrada mais específica do Accept que inclui o formato (null = não aceito);
+     * entre entradas igualmente específicas, a primeira listada
+     */
+    private static MediaType mostSpecific(List<MediaType> types, MediaType format) {
+        MediaType best = null;
+        for (MediaType type : types) {
+            if (type.includes(format) && (best == null || specificity(type) > specificity(best))) {
+                best = type;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 0 para * / *, 1 para tipo/*, 2 para tipo concreto
+     */
+    private static int specificity(MediaType type) {
+        if (type.isWildcardType()) {
+            return 0;
+        }
+        return type.isWildcardSubtype() ? 1 : 2;
+    }
+
+    /**
+     * Monta um ETag forte a partir do SHA do último commit e dos parâmetros
+     * da requisição (endpoint e Accept, pois JSON e Smile são variantes diferentes)
+     * 
+     * Retorna null se não for possível obter o SHA (resposta segue sem ETag).
+     */
+    private String buildETag(String repositoryName, String endpoint, String accept) {
+        try {
+            String sha = gitHubDataStructureService.getRepositoryVersion(repositoryName);
+            String variant = DigestUtils.md5DigestAsHex(
+                    (endpoint + "|" + repositoryName + "|" + accept).getBytes(StandardCharsets.UTF_8));
+            return "\"" + sha + "-" + variant.substring(0, 12) + "\"";
+        } catch (Exception e) {
+            log.warn("⚠️ Não foi possível obter a versão de {}: {}", repositoryName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Adiciona ETag e Vary: Accept na resposta (quando houver ETag)
+     */
+    private ResponseEntity.BodyBuilder withETag(ResponseEntity.BodyBuilder builder, String etag) {
+        if (etag == null) {
+            return builder;
+        }
+        return builder.eTag(etag).varyBy(HttpHeaders.ACCEPT);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,368 @@
+package br.com.sistema.springaigemini.controllers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.services.gmail.model.Message;
+
+import br.com.sistema.springaigemini.enums.AgrupamentoEmail;
+import br.com.sistema.springaigemini.mappers.response.email.EmailResponseMapper;
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import br.com.sistema.springaigemini.models.OutboundEmail;
+import br.com.sistema.springaigemini.services.GmailAttachmentSpool;
+import br.com.sistema.springaigemini.services.GmailEmailService;
+import br.com.sistema.springaigemini.services.GmailFetchService;
+import br.com.sistema.springaigemini.services.GmailLabelCounters;
+import br.com.sistema.springaigemini.services.GmailOutboxService;
+import br.com.sistema.springaigemini.services.GmailPageIterator;
+import br.com.sistema.springaigemini.services.GmailMailboxStore;
+import br.com.sistema.springaigemini.services.MailAnalyticsSnapshot;
+import br.com.sistema.springaigemini.services.MailPriorityClassifier;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Controller com acesso direto aos emails do Gmail (sem passar pelo LLM)
+ * 
+ * - /emails: listagem, busca e leitura em JSON estruturado (EmailResponseMapper), paginadas
+ * - /messages/stream: listagem em streaming (NDJSON), página a página
+ * - /messages/{id}/attachments: anexos (download servido do spool em disco)
+ * - /outbox: status da fila de envio
+ * - /analytics: estatísticas da caixa (snapshot colunar), em milissegundos e sem chamar a API
+ * - /labels/{label}/counts: total e não lidos de uma label (contadores em cache)
+ * - /priority: emails ordenados pelo classificador local de prioridade
+ *
+ * /analytics e /priority só enxergam os emails sincronizados: o header X-Mailbox-Complete
+ * diz se a sincronização trouxe a caixa inteira.
+ */
+@RestController
+@RequestMapping("/api/v1/gmail")
+@RequiredArgsConstructor
+@Log4j2
+@Tag(name = "Gmail", description = "APIs de acesso direto aos emails do Gmail")
+public class GmailController {
+
+    private static final int STREAM_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String MAILBOX_COMPLETE_HEADER = "X-Mailbox-Complete";
+
+    private final GmailFetchService gmailFetchService;
+    private final GmailEmailService gmailEmailService;
+    private final EmailResponseMapper emailResponseMapper;
+    private final GmailAttachmentSpool attachmentSpool;
+    private final GmailOutboxService outboxService;
+    private final MailAnalyticsSnapshot analyticsSnapshot;
+    private final GmailLabelCounters labelCounters;
+    private final GmailMailboxStore mailboxStore;
+    private final MailPriorityClassifier priorityClassifier;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * GET /api/v1/gmail/emails
+     * 
+     * Lista paginada de emails (mais recentes primeiro), sem passar pelo LLM
+     */
+    @GetMapping("/emails")
+    @Operation(summary = "Listar emails (JSON paginado)")
+    public ResponseEntity<?> listEmails(
+            @Parameter(description = "Token da página (nextPageToken da resposta anterior)")
+            @RequestParam(name = "pageToken", required = false) String pageToken,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @Parameter(description = "Somente não lidos")
+            @RequestParam(name = "unread", defaultValue = "false") boolean unreadOnly) {
+
+        try {
+            log.info("📧 Listando emails | pageToken: {} | size: {} | unread: {}", pageToken, size, unreadOnly);
+            GmailEmailService.EmailPage page = gmailEmailService.list(pageToken, clampSize(size), unreadOnly);
+            return ResponseEntity.ok(emailResponseMapper.toEmailPageResponse(page.emails(), page.nextPageToken()));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            log.error("❌ Erro ao listar emails", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao listar emails: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET /api/v1/gmail/emails/search?q=
+     * 
+     * Palavras-chave usam o índice local (se sincronizado); operadores do Gmail vão para a API
+     */
+    @GetMapping("/emails/search")
+    @Operation(summary = "Buscar emails (JSON paginado)")
+    public ResponseEntity<?> searchEmails(
+            @Parameter(description = "Palavras-chave ou busca do Gmail (ex: from:joao@email.com)")
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "pageToken", required = false) String pageToken,
+            @RequestParam(name = "size", defaultValue = "20") int size) {
+
+        try {
+            log.info("🔎 Buscando emails | q: {} | pageToken: {}", query, pageToken);
+            GmailEmailService.EmailPage page = gmailEmailService.search(query, pageToken, clampSize(size));
+            return ResponseEntity.ok(emailResponseMapper.toEmailPageResponse(page.emails(), page.nextPageToken()));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            log.error("❌ Erro ao buscar emails", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao buscar emails: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET /api/v1/gmail/emails/{messageId}
+     */
+    @GetMapping("/emails/{messageId}")
+    @Operation(summary = "Obter email completo (JSON)")
+    public ResponseEntity<?> getEmail(@PathVariable String messageId) {
+        try {
+            GmailEmailService.EmailDetail detail = gmailEmailService.get(messageId);
+            return ResponseEntity.ok(emailResponseMapper.toEmailDetailResponse(
+                    detail.email(), detail.threadId(), detail.body()));
+
+        } catch (Exception e) {
+            log.error("❌ Erro ao obter email", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao obter email: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET /api/v1/gmail/messages/stream
+     * 
+     * Emite uma linha JSON (MessageMetadata) por mensagem, conforme as páginas chegam.
+     * A próxima página é buscada enquanto a atual é escrita; a memória fica limitada
+     * a uma página, independente do total.
+     */
+    @GetMapping(value = "/messages/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Listar emails em streaming (NDJSON)")
+    public ResponseEntity<StreamingResponseBody> streamMessages(
+            @Parameter(description = "Busca do Gmail (ex: is:unread)")
+            @RequestParam(name = "q", required = false) String query,
+            @Parameter(description = "Total máximo de emails")
+            @RequestParam(name = "max", defaultValue = "1000") int maxMessages) {
+
+        log.info("📨 Streaming de emails | q: {} | max: {}", query, maxMessages);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> writeMessages(query, maxMessages, out));
+    }
+
+    /**
+     * GET /api/v1/gmail/messages/{messageId}/attachments
+     */
+    @GetMapping("/messages/{messageId}/attachments")
+    @Operation(summary = "Listar anexos de um email")
+    public ResponseEntity<?> listAttachments(@PathVariable String messageId) {
+        try {
+            List<GmailAttachmentSpool.AttachmentInfo> attachments = attachmentSpool.list(messageId);
+            log.info("✅ {} anexos no email {}", attachments.size(), messageId);
+            return ResponseEntity.ok(attachments);
+
+        } catch (Exception e) {
+            log.error("❌ Erro ao listar anexos", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao listar anexos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET /api/v1/gmail/messages/{messageId}/attachments/{partId}
+     * 
+     * O anexo é gravado no spool (se ainda não estiver) e enviado a partir do
+     * arquivo mapeado em memória, sem carregar o conteúdo no heap.
+     */
+    @GetMapping("/messages/{messageId}/attachments/{partId}")
+    @Operation(summary = "Baixar anexo de um email")
+    public ResponseEntity<StreamingResponseBody> downloadAttachment(
+            @PathVariable String messageId,
+            @PathVariable String partId) {
+
+        log.info("📎 Download de anexo {} do email {}", partId, messageId);
+
+        GmailAttachmentSpool.SpooledAttachment attachment;
+        try {
+            attachment = attachmentSpool.fetch(messageId, partId);
+        } catch (Exception e) {
+            log.error("❌ Erro ao baixar anexo", e);
+            String erro = "Erro ao baixar anexo: " + e.getMessage();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .contentType(MediaType.TEXT_PLAIN)
+                    .body(out -> out.write(erro.getBytes(StandardCharsets.UTF_8)));
+        }
+
+        return ResponseEntity.ok()
+                .contentType(attachmentType(attachment.mimeType()))
+                // O tipo vem do remetente do email: o navegador não deve adivinhar outro
+                .header("X-Content-Type-Options", "nosniff")
+                .contentLength(attachment.size())
+                .eTag("\"" + attachment.sha256() + "\"")
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(attachment.filename(), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .body(out -> {
+                    MappedByteBuffer buffer = attachmentSpool.map(attachment);
+                    WritableByteChannel channel = Channels.newChannel(out);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    out.flush();
+                });
+    }
+
+    /**
+     * GET /api/v1/gmail/outbox
+     * 
+     * Últimos emails da fila de envio (qualquer status)
+     */
+    @GetMapping("/outbox")
+    @Operation(summary = "Listar a fila de envio")
+    public ResponseEntity<List<OutboundEmail>> listOutbox(
+            @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        return ResponseEntity.ok(outboxService.recent(limit));
+    }
+
+    /**
+     * GET /api/v1/gmail/outbox/{id}
+     */
+    @GetMapping("/outbox/{id}")
+    @Operation(summary = "Status de um email da fila de envio")
+    public ResponseEntity<OutboundEmail> getOutbox(@PathVariable String id) {
+        OutboundEmail email = outboxService.get(id);
+        return email != null ? ResponseEntity.ok(email) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * GET /api/v1/gmail/analytics
+     * 
+     * Contagem de emails agrupada por remetente, dia, dia_semana, hora ou label
+     * 
+     * Com labelFilter=UNTRACKED a label está fora das 64 rastreadas pelo snapshot
+     * (matched=0 não significa nenhum email): o total está em /labels/{label}/counts
+     */
+    @GetMapping("/analytics")
+    @Operation(summary = "Estatísticas da caixa de email (sem passar pelo LLM)")
+    public ResponseEntity<?> analytics(
+            @Parameter(description = "remetente, dia, dia_semana, hora ou label")
+            @RequestParam(name = "groupBy", defaultValue = "remetente") String groupBy,
+            @Parameter(description = "Últimos N dias (0 = todos)")
+            @RequestParam(name = "days", defaultValue = "0") int days,
+            @Parameter(description = "Só emails com esta label, ex: UNREAD")
+            @RequestParam(name = "label", required = false) String label,
+            @RequestParam(name = "top", defaultValue = "10") int top) {
+
+        if (!analyticsSnapshot.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Caixa de email ainda não sincronizada");
+        }
+
+        Long since = days > 0 ? System.currentTimeMillis() - Duration.ofDays(days).toMillis() : null;
+        return ResponseEntity.ok()
+                .header(MAILBOX_COMPLETE_HEADER, String.valueOf(mailboxStore.isComplete()))
+                .body(analyticsSnapshot.groupBy(AgrupamentoEmail.fromString(groupBy), since, label, clampSize(top)));
+    }
+
+    /**
+     * GET /api/v1/gmail/labels/{label}/counts
+     */
+    @GetMapping("/labels/{label}/counts")
+    @Operation(summary = "Total de emails e de não lidos de uma label")
+    public ResponseEntity<?> labelCounts(@PathVariable String label) {
+        try {
+            return ResponseEntity.ok(labelCounters.get(label));
+
+        } catch (Exception e) {
+            log.error("❌ Erro ao obter contadores da label {}", label, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Erro ao obter contadores: " + e.getMessage());
+        }
+    }
+
+    /**
+     * GET /api/v1/gmail/priority
+     * 
+     * Emails com maior probabilidade de serem importantes (classificador local, sem LLM)
+     */
+    @GetMapping("/priority")
+    @Operation(summary = "Emails mais provavelmente importantes (classificador local)")
+    public ResponseEntity<?> priority(
+            @RequestParam(name = "top", defaultValue = "20") int top,
+            @Parameter(description = "Só emails não lidos")
+            @RequestParam(name = "unread", defaultValue = "false") boolean unread) {
+
+        if (!mailboxStore.isReady() || !priorityClassifier.isTrained()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body("Classificador de prioridade ainda não treinado");
+        }
+        return ResponseEntity.ok()
+                .header(MAILBOX_COMPLETE_HEADER, String.valueOf(mailboxStore.isComplete()))
+                .body(priorityClassifier.top(mailboxStore, clampSize(top),
+                        unread ? MessageMetadata::isUnread : m -> true));
+    }
+
+    private int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    private void writeMessages(String query, int maxMessages, OutputStream out) throws IOException {
+        int count = 0;
+
+        try (GmailPageIterator pages = gmailFetchService.pages(query, STREAM_PAGE_SIZE, maxMessages)) {
+            while (pages.hasNext()) {
+                for (Message message : pages.next()) {
+                    out.write(objectMapper.writeValueAsBytes(GmailFetchService.toMetadata(message)));
+                    out.write('\n');
+                    count++;
+                }
+                out.flush();
+            }
+        }
+
+        log.info("✅ Streaming concluído: {} emails", count);
+    }
+
+    /**
+     * Content-Type do anexo; tipo ausente, genérico (*) ou malformado (definido por quem
+     * enviou o email) vira octet-stream
+     */
+    private static MediaType attachmentType(String mimeType) {
+        if (mimeType == null) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(mimeType);
+            return type.isConcrete() ? type : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (InvalidMediaTypeException e) {
+            log.warn("⚠️ Tipo de anexo inválido '{}', enviado como octet-stream", mimeType);
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
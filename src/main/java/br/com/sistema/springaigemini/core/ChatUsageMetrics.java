@@ -0,0 +1,92 @@
+package br.com.sistema.springaigemini.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.stereotype.Component;
+
+import br.com.sistema.springaigemini.serializers.ToolOutputFormatter;
+import dev.langchain4j.model.chat.listener.ChatModelErrorContext;
+import dev.langchain4j.model.chat.listener.ChatModelListener;
+import dev.langchain4j.model.chat.listener.ChatModelRequestContext;
+import dev.langchain4j.model.chat.listener.ChatModelResponseContext;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Métricas de uso do modelo por chamada (listener do GoogleAiGeminiChatModel)
+ *
+ * Registra tokens de entrada/saída e latência de cada chamada ao Gemini, com a tag
+ * "output" indicando o formato de saída das tools (compact ou rich). Rodando o mesmo
+ * conjunto de conversas nos dois modos, a diferença aparece em /actuator/metrics:
+ * - assistant.chat.tokens?tag=type:input&tag=output:compact
+ * - assistant.chat.latency?tag=output:rich
+ */
+@Component
+@Log4j2
+public class ChatUsageMetrics implements ChatModelListener {
+
+    private static final String START_NANOS = "assistant.chat.start-nanos";
+
+    private final DistributionSummary inputTokens;
+    private final DistributionSummary outputTokens;
+    private final Timer latency;
+    private final Timer errors;
+
+    public ChatUsageMetrics(MeterRegistry meterRegistry, ToolOutputFormatter toolOutput) {
+        String mode = toolOutput.mode();
+        this.inputTokens = DistributionSummary.builder("assistant.chat.tokens")
+                .description("Tokens por chamada ao modelo")
+                .baseUnit("tokens")
+                .tags("type", "input", "output", mode)
+                .register(meterRegistry);
+        this.outputTokens = DistributionSummary.builder("assistant.chat.tokens")
+                .description("Tokens por chamada ao modelo")
+                .baseUnit("tokens")
+                .tags("type", "output", "output", mode)
+                .register(meterRegistry);
+        this.latency = Timer.builder("assistant.chat.latency")
+                .description("Latência de cada chamada ao modelo")
+                .tags("result", "success", "output", mode)
+                .register(meterRegistry);
+        this.errors = Timer.builder("assistant.chat.latency")
+                .description("Latência de cada chamada ao modelo")
+                .tags("result", "error", "output", mode)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onRequest(ChatModelRequestContext requestContext) {
+        requestContext.attributes().put(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void onResponse(ChatModelResponseContext responseContext) {
+        record(latency, responseContext.attributes().get(START_NANOS));
+
+        TokenUsage usage = responseContext.chatResponse().tokenUsage();
+        if (usage == null) {
+            return;
+        }
+        if (usage.inputTokenCount() != null) {
+            inputTokens.record(usage.inputTokenCount());
+        }
+        if (usage.outputTokenCount() != null) {
+            outputTokens.record(usage.outputTokenCount());
+        }
+        log.debug("🔢 Tokens: entrada={} saída={}", usage.inputTokenCount(), usage.outputTokenCount());
+    }
+
+    @Override
+    public void onError(ChatModelErrorContext errorContext) {
+        record(errors, errorContext.attributes().get(START_NANOS));
+    }
+
+    private void record(Timer timer, Object startNanos) {
+        if (startNanos instanceof Long start) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
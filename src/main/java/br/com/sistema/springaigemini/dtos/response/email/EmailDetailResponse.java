@@ -0,0 +1,10 @@
+package br.com.sistema.springaigemini.dtos.response.email;
+
+/**
+ * Response para um email completo (metadados + corpo em texto)
+ */
+public record EmailDetailResponse(
+    EmailInfoResponse email,
+    String threadId,
+    String corpo
+) {}
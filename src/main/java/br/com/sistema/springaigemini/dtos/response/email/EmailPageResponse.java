@@ -0,0 +1,14 @@
+package br.com.sistema.springaigemini.dtos.response.email;
+
+import java.util.List;
+
+/**
+ * Response para uma página de emails
+ * 
+ * nextPageToken é nulo na última página
+ */
+public record EmailPageResponse(
+    Integer total,
+    List<EmailInfoResponse> emails,
+    String nextPageToken
+) {}
@@ -15,7 +15,8 @@ public class FileNode {
     private String path;              // Caminho completo (ex: "src/main/java")
     private String type;              // "file" ou "folder"
     private String extension;         // Extensão do arquivo (ex: "java", "xml")
-    private Long size;                // Tamanho em bytes (null para pastas)
+    private Long size;                // Tamanho em bytes (na árvore, pastas trazem o total agregado)
+    private Integer fileCount;        // Total de arquivos abaixo da pasta (null para arquivos)
     private List<FileNode> children;  // Sub-itens (null para arquivos)
     
     // ==================== CONSTRUTORES ====================
@@ -77,6 +78,14 @@ public class FileNode {
         this.size = size;
     }
     
+    public Integer getFileCount() {
+        return fileCount;
+    }
+    
+    public void setFileCount(Integer fileCount) {
+        this.fileCount = fileCount;
+    }
+    
     public List<FileNode> getChildren() {
         return children;
     }
@@ -124,11 +133,16 @@ public class FileNode {
     
     /**
      * Conta recursivamente o total de arquivos (não pastas)
+     * 
+     * Se a pasta já tiver o total agregado (fileCount), usa direto sem recursão.
      */
     public int countFiles() {
         if (this.isFile()) {
             return 1;
         }
+        if (this.fileCount != null) {
+            return this.fileCount;
+        }
         
         int count = 0;
         if (this.children != null) {
@@ -147,6 +161,7 @@ public class FileNode {
                 ", type='" + type + '\'' +
                 ", extension='" + extension + '\'' +
                 ", size=" + size +
+                ", fileCount=" + fileCount +
                 ", children=" + (children != null ? children.size() : 0) +
                 '}';
     }
@@ -0,0 +1,44 @@
+package br.com.sistema.springaigemini.enums;
+
+/**
+ * Enum para as dimensões de agrupamento das estatísticas da caixa de email
+ */
+public enum AgrupamentoEmail {
+    REMETENTE("remetente", "Remetente"),
+    DIA("dia", "Dia"),
+    DIA_SEMANA("dia_semana", "Dia da semana"),
+    HORA("hora", "Hora do dia"),
+    LABEL("label", "Label");
+
+    private final String valor;
+    private final String descricao;
+
+    AgrupamentoEmail(String valor, String descricao) {
+        this.valor = valor;
+        this.descricao = descricao;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    /**
+     * Indica se os grupos seguem a ordem da própria chave (tempo) e não a contagem
+     */
+    public boolean isTemporal() {
+        return this == DIA || this == DIA_SEMANA || this == HORA;
+    }
+
+    public static AgrupamentoEmail fromString(String valor) {
+        for (AgrupamentoEmail agrupamento : AgrupamentoEmail.values()) {
+            if (agrupamento.valor.equalsIgnoreCase(valor) || agrupamento.name().equalsIgnoreCase(valor)) {
+                return agrupamento;
+            }
+        }
+        return REMETENTE;
+    }
+}
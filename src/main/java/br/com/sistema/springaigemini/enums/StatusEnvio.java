@@ -0,0 +1,34 @@
+package br.com.sistema.springaigemini.enums;
+
+/**
+ * Enum para o status de um email na fila de envio
+ */
+public enum StatusEnvio {
+    NA_FILA("na_fila", "Aguardando envio"),
+    ENVIANDO("enviando", "Envio em andamento"),
+    ENVIADO("enviado", "Enviado pelo Gmail"),
+    FALHOU("falhou", "Falha definitiva no envio");
+
+    private final String valor;
+    private final String descricao;
+
+    StatusEnvio(String valor, String descricao) {
+        this.valor = valor;
+        this.descricao = descricao;
+    }
+
+    public String getValor() {
+        return valor;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    /**
+     * Indica se o envio ainda pode acontecer (não é estado final)
+     */
+    public boolean isPendente() {
+        return this == NA_FILA || this == ENVIANDO;
+    }
+}
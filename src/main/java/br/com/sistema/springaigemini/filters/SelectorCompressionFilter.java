@@ -0,0 +1,454 @@
+package br.com.sistema.springaigemini.filters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Filtro de compressão e contagem de bytes do GitHub File Selector
+ * 
+ * Para requisições em /api/v1/github-selector/**:
+ * - Comprime em gzip quando o cliente aceita (Accept-Encoding com q > 0) e o corpo passa de min-size bytes
+ * - Respostas menores saem sem compressão (decisão tomada após bufferizar min-size bytes)
+ * - Mantém o ETag forte: a variante gzip recebe o sufixo "-gzip" (também no 304 de
+ *   uma requisição gzip) e o sufixo é removido do If-None-Match antes de chegar no controller
+ * - Funciona com StreamingResponseBody (finaliza no async dispatch)
+ * 
+ * Métricas (Micrometer, em /actuator/metrics):
+ * - github.selector.response.bytes{encoding=identity|gzip} - bytes enviados
+ * - github.selector.response.body.bytes - bytes do corpo antes da compressão
+ * - github.selector.response.not.modified - respostas 304
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@Log4j2
+public class SelectorCompressionFilter extends OncePerRequestFilter {
+
+    private static final String PATH_PREFIX = "/api/v1/github-selector/";
+    private static final String WRAPPER_ATTRIBUTE = SelectorCompressionFilter.class.getName() + ".WRAPPER";
+    private static final String GZIP_SUFFIX = "-gzip\"";
+
+    private final boolean enabled;
+    private final int minSize;
+    private final Counter identityBytes;
+    private final Counter gzipBytes;
+    private final Counter bodyBytes;
+    private final Counter notModified;
+
+    public SelectorCompressionFilter(
+            @Value("${github-selector.compression.enabled:true}") boolean enabled,
+            @Value("${github-selector.compression.min-size:2048}") int minSize,
+            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minSize = minSize;
+        this.identityBytes = meterRegistry.counter("github.selector.response.bytes", "encoding", "identity");
+        this.gzipBytes = meterRegistry.counter("github.selector.response.bytes", "encoding", "gzip");
+        this.bodyBytes = meterRegistry.counter("github.selector.response.body.bytes");
+        this.notModified = meterRegistry.counter("github.selector.response.not.modified");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(PATH_PREFIX);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // Necessário para finalizar respostas em streaming (StreamingResponseBody)
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        if (isAsyncDispatch(request)) {
+            chain.doFilter(request, response);
+            finishIfComplete(request);
+            return;
+        }
+
+        boolean gzipAccepted = enabled && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(response, gzipAccepted,
+                request.getHeader(HttpHeaders.IF_NONE_MATCH));
+        request.setAttribute(WRAPPER_ATTRIBUTE, wrapper);
+
+        chain.doFilter(new ETagRequestWrapper(request), wrapper);
+        finishIfComplete(request);
+    }
+
+    /**
+     * Interpreta o Accept-Encoding com q-values: "gzip;q=0" recusa gzip e "*" vale
+     * para gzip quando ele não aparece explicitamente
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.split(";");
+            String coding = params[0].trim().toLowerCase();
+            double q = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.length() > 2 && (param.startsWith("q=") || param.startsWith("Q="))) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0; // q inválido: codificação ignorada
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return wildcard != null && wildcard > 0;
+    }
+
+    /**
+     * ETag com o sufixo da variante gzip (null se não for um ETag forte entre aspas)
+     */
+    static String gzipETag(String etag) {
+        if (etag == null || !etag.startsWith("\"") || !etag.endsWith("\"") || etag.endsWith(GZIP_SUFFIX)) {
+            return null;
+        }
+        return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX;
+    }
+
+    /**
+     * Finaliza a resposta se o processamento não continuou de forma assíncrona
+     */
+    private void finishIfComplete(HttpServletRequest request) throws IOException {
+        if (isAsyncStarted(request)) {
+            return;
+        }
+
+        CompressingResponseWrapper wrapper = (CompressingResponseWrapper) request.getAttribute(WRAPPER_ATTRIBUTE);
+        if (wrapper != null) {
+            request.removeAttribute(WRAPPER_ATTRIBUTE);
+            wrapper.finish();
+        }
+    }
+
+    // ==================== WRAPPERS ====================
+
+    /**
+     * Remove o sufixo "-gzip" dos ETags do If-None-Match, para o controller
+     * (e o ShallowEtagHeaderFilter) compararem com o ETag original
+     */
+    private static class ETagRequestWrapper extends HttpServletRequestWrapper {
+
+        ETagRequestWrapper(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public String getHeader(String name) {
+            String value = super.getHeader(name);
+            return HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) && value != null ? stripGzip(value) : value;
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (!HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name)) {
+                return super.getHeaders(name);
+            }
+            List<String> values = new ArrayList<>();
+            Enumeration<String> original = super.getHeaders(name);
+            while (original.hasMoreElements()) {
+                values.add(stripGzip(original.nextElement()));
+            }
+            return Collections.enumeration(values);
+        }
+
+        private static String stripGzip(String value) {
+            return value.replace(GZIP_SUFFIX, "\"");
+        }
+    }
+
+    /**
+     * Bufferiza os primeiros min-size bytes para decidir se comprime
+     */
+    private class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+        private final boolean gzipAccepted;
+        private final String ifNoneMatch;     // Original, com o sufixo "-gzip" que o cliente guardou
+        private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private OutputStream target;          // Definido após a decisão (raw ou gzip)
+        private CountingOutputStream counter; // Conta bytes efetivamente enviados
+        private boolean compressing;
+        private boolean finished;
+        private long written;
+        private ServletOutputStream outputStream;
+        private PrintWriter writer;
+
+        CompressingResponseWrapper(HttpServletResponse response, boolean gzipAccepted, String ifNoneMatch) {
+            super(response);
+            this.gzipAccepted = gzipAccepted;
+            this.ifNoneMatch = ifNoneMatch;
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            // Ignorado: o tamanho final depende da compressão
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            // Ignorado: o tamanho final depende da compressão
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.setHeader(name, value);
+            }
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.addHeader(name, value);
+            }
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                super.setIntHeader(name, value);
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (outputStream == null) {
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        write(new byte[] { (byte) b }, 0, 1);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        writeBody(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        flushBody();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    /**
+                     * A escrita vai para um buffer/GZIPOutputStream e nunca bloqueia
+                     * (isReady() é sempre true): o listener pode escrever imediatamente
+                     */
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        try {
+                            listener.onWritePossible();
+                        } catch (IOException | RuntimeException e) {
+                            listener.onError(e);
+                        }
+                    }
+                };
+            }
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            flushBody();
+        }
+
+        private void writeBody(byte[] b, int off, int len) throws IOException {
+            written += len;
+            if (target != null) {
+                target.write(b, off, len);
+                return;
+            }
+            pending.write(b, off, len);
+            if (pending.size() >= minSize) {
+                start(gzipAccepted);
+            }
+        }
+
+        private void flushBody() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            // Abaixo do limite ainda não há decisão; o flush fica para depois
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        /**
+         * Decide a codificação, ajusta headers e descarrega o buffer pendente
+         */
+        private void start(boolean compress) throws IOException {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            counter = new CountingOutputStream(response.getOutputStream());
+            compressing = compress;
+
+            if (compress) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                String etag = gzipETag(response.getHeader(HttpHeaders.ETAG));
+                if (etag != null) {
+                    response.setHeader(HttpHeaders.ETAG, etag);
+                }
+                target = new GZIPOutputStream(counter, 8192, true);
+            } else {
+                target = counter;
+            }
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+            pending.writeTo(target);
+            pending.reset();
+        }
+
+        /**
+         * Fecha a resposta: escreve o que sobrou e registra as métricas
+         */
+        void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            finished = true;
+
+            if (writer != null) {
+                writer.flush();
+            }
+
+            if (getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+                notModified.increment();
+                tagNotModified();
+            }
+
+            if (target == null) {
+                if (written == 0) {
+                    return;
+                }
+                // Corpo inteiro abaixo do limite: envia sem compressão e com tamanho conhecido
+                getResponse().setContentLengthLong(pending.size());
+                start(false);
+            }
+
+            if (compressing) {
+                ((GZIPOutputStream) target).finish();
+            }
+            target.flush();
+
+            bodyBytes.increment(written);
+            (compressing ? gzipBytes : identityBytes).increment(counter.count);
+            log.debug("📦 Resposta {}: {} bytes de corpo, {} bytes enviados ({})", getStatus(), written,
+                    counter.count, compressing ? "gzip" : "identity");
+        }
+
+        /**
+         * O 304 não tem corpo, mas o ETag deve ser o da variante que o cliente guardou:
+         * numa requisição gzip recebe o sufixo, salvo se o cliente tem a variante sem
+         * compressão (corpo abaixo de min-size)
+         */
+        private void tagNotModified() {
+            if (!gzipAccepted) {
+                return;
+            }
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            String etag = response.getHeader(HttpHeaders.ETAG);
+            String gzipEtag = gzipETag(etag);
+            if (gzipEtag == null) {
+                return;
+            }
+            boolean identityCached = ifNoneMatch != null && ifNoneMatch.contains(etag)
+                    && !ifNoneMatch.contains(gzipEtag);
+            if (!identityCached) {
+                response.setHeader(HttpHeaders.ETAG, gzipEtag);
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+        }
+    }
+
+    /**
+     * OutputStream que conta os bytes repassados (sem fechar o destino)
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private final OutputStream delegate;
+        private long count;
+
+        CountingOutputStream(OutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            // O container fecha o stream da resposta
+            flush();
+        }
+    }
+}
@@ -5,7 +5,9 @@ import java.util.List;
 import org.mapstruct.Mapper;
 import org.mapstruct.factory.Mappers;
 
+import br.com.sistema.springaigemini.dtos.response.email.EmailDetailResponse;
 import br.com.sistema.springaigemini.dtos.response.email.EmailInfoResponse;
+import br.com.sistema.springaigemini.dtos.response.email.EmailPageResponse;
 import br.com.sistema.springaigemini.dtos.response.email.EmailResponse;
 import br.com.sistema.springaigemini.dtos.response.email.RemetenteResponse;
 import br.com.sistema.springaigemini.models.Email;
@@ -45,4 +47,19 @@ public interface EmailResponseMapper {
         
         return new EmailResponse(emailsResponse.size(), emailsResponse);
     }
+    
+    /**
+     * Converte uma página de Emails para EmailPageResponse
+     */
+    default EmailPageResponse toEmailPageResponse(List<Email> emails, String nextPageToken) {
+        EmailResponse response = toEmailResponse(emails);
+        return new EmailPageResponse(response.total(), response.emails(), nextPageToken);
+    }
+    
+    /**
+     * Converte Email + corpo para EmailDetailResponse
+     */
+    default EmailDetailResponse toEmailDetailResponse(Email email, String threadId, String corpo) {
+        return new EmailDetailResponse(toEmailInfoResponse(email), threadId, corpo);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package br.com.sistema.springaigemini.models;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.*;
+
+/**
+ * Metadados de uma mensagem do Gmail guardados localmente pela sincronização.
+ * 
+ * Só o necessário para listagens (sem corpo nem anexos).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class MessageMetadata {
+    
+    private String id; // ID da mensagem no Gmail
+    private String threadId;
+    private List<String> labelIds; // Ex: INBOX, UNREAD, IMPORTANT
+    private String subject;
+    private String from;
+    private String date; // Header Date original
+    private String snippet;
+    private Long internalDate; // Epoch em ms (ordenação)
+    
+    @JsonIgnore
+    public boolean isUnread() {
+        return labelIds != null && labelIds.contains("UNREAD");
+    }
+}
@@ -0,0 +1,29 @@
+package br.com.sistema.springaigemini.models;
+
+import br.com.sistema.springaigemini.enums.StatusEnvio;
+import lombok.*;
+
+/**
+ * Email na fila de envio (GmailOutboxService).
+ * 
+ * Cada mudança de estado é gravada como uma linha no journal da fila.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class OutboundEmail {
+
+    private String id; // ID local da fila
+    private String idempotencyKey; // Envios com a mesma chave são deduplicados
+    private String to;
+    private String subject;
+    private String body;
+    private StatusEnvio status;
+    private int attempts;
+    private Long nextAttemptAt; // Epoch em ms
+    private String gmailMessageId; // Preenchido após o envio
+    private String lastError;
+    private Long createdAt; // Epoch em ms
+    private Long updatedAt; // Epoch em ms
+}
@@ -0,0 +1,170 @@
+package br.com.sistema.springaigemini.serializers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import br.com.sistema.springaigemini.dtos.response.github.FileNode;
+import br.com.sistema.springaigemini.dtos.response.github.GitHubFilesResponse;
+
+/**
+ * Serializador em streaming para a árvore de arquivos (GitHubFilesResponse)
+ * 
+ * Diferente do Jackson padrão, que desce recursivamente pelos children,
+ * este writer percorre a árvore com uma pilha explícita:
+ * - Profundidade da árvore não consome pilha da thread
+ * - Escreve direto no OutputStream da resposta com JsonGenerator
+ * - Não aloca nada por nó (apenas a pilha, que cresce com a profundidade)
+ * - Faz flush a cada FLUSH_EVERY nós, para o cliente receber os primeiros bytes cedo
+ * 
+ * O JSON gerado tem os mesmos campos da serialização padrão de FileNode
+ * (NON_NULL), com children sempre por último. O mesmo percurso gera Smile
+ * quando o cliente pede application/x-jackson-smile.
+ */
+@Component
+public class FileTreeJsonWriter {
+
+    private static final int FLUSH_EVERY = 2048;  // Nós escritos entre flushes
+    private static final int INITIAL_DEPTH = 16;  // Profundidade inicial da pilha
+
+    private final JsonFactory jsonFactory;
+    private final SmileFactory smileFactory;
+
+    public FileTreeJsonWriter(ObjectMapper objectMapper, SmileFactory smileFactory) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.smileFactory = smileFactory;
+    }
+
+    /**
+     * Escreve a resposta completa em JSON no OutputStream (que não é fechado)
+     */
+    public void write(GitHubFilesResponse response, OutputStream out) throws IOException {
+        write(response, out, jsonFactory);
+    }
+
+    /**
+     * Escreve a resposta completa em Smile (binário) no OutputStream
+     */
+    public void writeSmile(GitHubFilesResponse response, OutputStream out) throws IOException {
+        write(response, out, smileFactory);
+    }
+
+    private void write(GitHubFilesResponse response, OutputStream out, JsonFactory factory) throws IOException {
+        try (JsonGenerator gen = factory.createGenerator(out, JsonEncoding.UTF8)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            gen.writeStartObject();
+            gen.writeStringField("repositoryName", response.getRepositoryName());
+
+            gen.writeFieldName("totalFiles");
+            if (response.getTotalFiles() != null) {
+                gen.writeNumber(response.getTotalFiles());
+            } else {
+                gen.writeNull();
+            }
+
+            gen.writeFieldName("files");
+            writeNodes(gen, response.getFiles());
+
+            gen.writeEndObject();
+            gen.flush();
+        }
+    }
+
+    /**
+     * Escreve a lista de nós raiz e todos os descendentes sem recursão
+     * 
+     * A pilha guarda, por nível, a lista de irmãos e a posição atual nela.
+     * Ao entrar numa pasta, empilha seus children; ao esgotar um nível,
+     * fecha o array e o objeto da pasta dona dele.
+     */
+    @SuppressWarnings("unchecked")
+    private void writeNodes(JsonGenerator gen, List<FileNode> roots) throws IOException {
+        if (roots == null) {
+            gen.writeNull();
+            return;
+        }
+
+        List<FileNode>[] levels = new List[INITIAL_DEPTH];
+        int[] positions = new int[INITIAL_DEPTH];
+        int depth = 0;
+        int written = 0;
+
+        levels[0] = roots;
+        gen.writeStartArray();
+
+        while (depth >= 0) {
+            List<FileNode> level = levels[depth];
+
+            // Nível esgotado: fecha o array e o objeto da pasta que o contém
+            if (positions[depth] == level.size()) {
+                gen.writeEndArray();
+                levels[depth] = null;
+                depth--;
+                if (depth >= 0) {
+                    gen.writeEndObject();
+                }
+                continue;
+            }
+
+            FileNode node = level.get(positions[depth]++);
+
+            gen.writeStartObject();
+            writeFields(gen, node);
+
+            if (node.getChildren() != null) {
+                gen.writeFieldName("children");
+                gen.writeStartArray();
+
+                depth++;
+                if (depth == levels.length) {
+                    levels = Arrays.copyOf(levels, depth * 2);
+                    positions = Arrays.copyOf(positions, depth * 2);
+                }
+                levels[depth] = node.getChildren();
+                positions[depth] = 0;
+            } else {
+                gen.writeEndObject();
+            }
+
+            if (++written % FLUSH_EVERY == 0) {
+                gen.flush();
+            }
+        }
+    }
+
+    /**
+     * Campos simples do nó (mesma regra NON_NULL do FileNode)
+     */
+    private void writeFields(JsonGenerator gen, FileNode node) throws IOException {
+        if (node.getName() != null) {
+            gen.writeStringField("name", node.getName());
+        }
+        if (node.getPath() != null) {
+            gen.writeStringField("path", node.getPath());
+        }
+        if (node.getType() != null) {
+            gen.writeStringField("type", node.getType());
+        }
+        if (node.getExtension() != null) {
+            gen.writeStringField("extension", node.getExtension());
+        }
+        if (node.getSize() != null) {
+            gen.writeNumberField("size", node.getSize());
+        }
+        if (node.getFileCount() != null) {
+            gen.writeNumberField("fileCount", node.getFileCount());
+        }
+        gen.writeBooleanField("folder", node.isFolder());
+        gen.writeBooleanField("file", node.isFile());
+    }
+}
@@ -0,0 +1,139 @@
+package br.com.sistema.springaigemini.serializers;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Formato de saída das tools (o texto que volta para o modelo como resultado da ferramenta)
+ *
+ * Tudo que uma tool retorna entra de novo no contexto do Gemini e é pago em tokens
+ * de entrada a cada turno seguinte da conversa. Emojis, negrito e rótulos repetidos
+ * ("📌 **De:** ... **Assunto:** ...") custam tokens sem acrescentar informação.
+ *
+ * Modos (assistant.tools.output):
+ * - compact (padrão): formato estável e enxuto
+ * - rich: o Markdown decorado de antes
+ *
+ * Formato compacto:
+ * - Listas: linha "@tipo chave=valor ...", cabeçalho com as colunas e uma linha por item,
+ *   separados por TAB (TSV)
+ * - Registros: linha "@tipo", uma linha "chave=valor" por campo e, se houver,
+ *   "--" seguido do texto livre (corpo, prévia), sem nenhuma alteração
+ * - Mensagens curtas: sem emojis, negrito e recuos
+ */
+@Component
+public class ToolOutputFormatter {
+
+    public static final String MODE_COMPACT = "compact";
+    public static final String MODE_RICH = "rich";
+
+    private static final Pattern EMOJI = Pattern.compile(
+            "[\\x{1F000}-\\x{1FAFF}\\x{2600}-\\x{27BF}\\x{2B00}-\\x{2BFF}\\x{FE0F}\\x{200D}]\\s?");
+    private static final Pattern CELL_BREAKS = Pattern.compile("[\\t\\r\\n]+");
+
+    private final boolean compact;
+
+    public ToolOutputFormatter(@Value("${assistant.tools.output:compact}") String mode) {
+        this.compact = !MODE_RICH.equalsIgnoreCase(mode.trim());
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public String mode() {
+        return compact ? MODE_COMPACT : MODE_RICH;
+    }
+
+    // ==================== COMPACTO ====================
+
+    /**
+     * Lista em TSV
+     *
+     * @param kind tipo do resultado (ex: "emails")
+     * @param columns nomes das colunas
+     * @param rows valores de cada linha, na ordem das colunas (null = vazio)
+     * @param meta atributos da lista em pares chave, valor (ex: "total", 10)
+     */
+    public String table(String kind, List<String> columns, List<? extends List<?>> rows, Object... meta) {
+        StringBuilder sb = new StringBuilder(64 + rows.size() * 64);
+        header(sb, kind, meta);
+        sb.append(String.join("\t", columns)).append('\n');
+
+        for (List<?> row : rows) {
+            for (int i = 0; i < row.size(); i++) {
+                if (i > 0) {
+                    sb.append('\t');
+                }
+                sb.append(cell(row.get(i)));
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Registro chave=valor, com texto livre opcional no fim
+     *
+     * @param kind tipo do resultado (ex: "email")
+     * @param text texto livre (corpo, prévia) ou null
+     * @param fields campos em pares chave, valor (valores null são omitidos)
+     */
+    public String record(String kind, String text, Object... fields) {
+        StringBuilder sb = new StringBuilder(64 + (text != null ? text.length() : 0));
+        sb.append('@').append(kind).append('\n');
+        for (int i = 0; i + 1 < fields.length; i += 2) {
+            if (fields[i + 1] != null) {
+                sb.append(fields[i]).append('=').append(cell(fields[i + 1])).append('\n');
+            }
+        }
+        if (text != null) {
+            sb.append("--\n").append(text);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Mensagem curta (confirmações, erros): no modo compacto, sem emojis,
+     * negrito, recuos e linhas em branco
+     */
+    public String text(String message) {
+        if (!compact || message == null) {
+            return message;
+        }
+
+        String lean = EMOJI.matcher(message).replaceAll("").replace("**", "");
+        StringBuilder sb = new StringBuilder(lean.length());
+        for (String line : lean.split("\n")) {
+            String trimmed = line.strip();
+            if (!trimmed.isEmpty()) {
+                sb.append(trimmed).append('\n');
+            }
+        }
+        return sb.toString().stripTrailing();
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    private void header(StringBuilder sb, String kind, Object[] meta) {
+        sb.append('@').append(kind);
+        for (int i = 0; i + 1 < meta.length; i += 2) {
+            if (meta[i + 1] != null) {
+                String text = cell(meta[i + 1]);
+                sb.append(' ').append(meta[i]).append('=')
+                        .append(text.indexOf(' ') >= 0 ? '"' + text.replace('"', '\'') + '"' : text);
+            }
+        }
+        sb.append('\n');
+    }
+
+    private String cell(Object value) {
+        if (value == null) {
+            return "";
+        }
+        return CELL_BREAKS.matcher(value.toString()).replaceAll(" ").strip();
+    }
+}
@@ -119,6 +119,7 @@ public class AssistantGithubService extends BaseAssistantService {
      * - getRepositoryInfo(repoName) - Informações do repo
      * - searchRepository(searchTerm) - Buscar repo
      * - getRepositoryLanguages(repoName) - Linguagens usadas
+     * - createFiles(repoName, filePaths, contents, message) - Vários arquivos em um commit
      */
     @AiService
     public interface GithubAiServiceInterface {
@@ -194,6 +195,12 @@ public class AssistantGithubService extends BaseAssistantService {
                     - Exemplo: "Quais linguagens tem em 'projeto'?"
                     - Retorna: Linguagens com percentual
                 
+                13. createFiles(repoName, filePaths, contents, message)
+                    - Uso: Quando quer criar VÁRIOS arquivos de uma vez
+                    - Exemplo: "Crie a estrutura inicial de um projeto Spring em 'novo-app'"
+                    - Retorna: Confirmação com o commit único criado
+                    - filePaths e contents devem estar na mesma ordem
+                
                 ========== REGRAS IMPORTANTES ==========
                 
                 ✓ LISTAR REPOSITÓRIOS:
@@ -207,6 +214,7 @@ public class AssistantGithubService extends BaseAssistantService {
                 ✓ CRIAR/ATUALIZAR ARQUIVOS:
                   - Sempre peça confirmação
                   - Inclua mensagem de commit descritiva
+                  - Para mais de um arquivo, use createFiles (um único commit)
                 
                 ✓ COM LINGUAGEM NATURAL:
                   - Se não souber exatamente qual tool usar, pergunte
@@ -217,6 +225,11 @@ public class AssistantGithubService extends BaseAssistantService {
                   - Use formatação Markdown
                   - Inclua links quando disponível
                 
+                ✓ FORMATO DOS RESULTADOS DAS TOOLS:
+                  - Listas: linha "@tipo chave=valor", cabeçalho e uma linha por item, separados por TAB
+                  - Registros: linha "@tipo", linhas "chave=valor" e, após "--", o texto livre
+                  - Esse formato é só para você: ao usuário, responda sempre em Markdown legível
+                
                 ========== EXEMPLOS DE INTERAÇÃO ==========
                 
                 EXEMPLO 1 - Listar Repos:
@@ -23,6 +23,12 @@ import lombok.extern.slf4j.Slf4j;
  * - Obter conteúdo completo de emails
  * - Listar emails não lidos
  * - Buscar emails por palavra-chave
+ * - Listar e baixar anexos
+ * - Marcar como lido/não lido e deletar em massa
+ * - Listar e ler conversas (threads)
+ * - Resumir os últimos emails (digest)
+ * - Estatísticas da caixa (remetentes, dias, horas, labels)
+ * - Contar emails e não lidos por label
  * 
  * INTEGRAÇÃO:
  * ===========
@@ -116,6 +122,17 @@ public class AssistantGmailService extends BaseAssistantService {
      * - getEmailContent(messageId) - Obter conteúdo
      * - listUnreadEmails(maxResults) - Listar não lidos
      * - searchEmails(query, maxResults) - Buscar por palavra-chave
+     * - listAttachments(messageId) - Listar anexos
+     * - getAttachment(messageId, partId) - Baixar anexo
+     * - markAsReadBulk / markAsUnreadBulk(messageIds, query) - Lido/não lido em massa
+     * - trashEmailsBulk(messageIds, query) - Mover para a lixeira em massa
+     * - getSendStatus(outboundId) - Status da fila de envio
+     * - listThreads(query, maxResults) - Listar conversas
+     * - getThreadConversation(threadId) - Conversa inteira
+     * - digestEmails(maxMessages, query) - Digest dos últimos emails
+     * - analyzeInbox(groupBy, lastDays, labelId, topK) - Estatísticas da caixa
+     * - countEmails(label) - Total e não lidos de uma label
+     * - listPriorityEmails(maxResults, onlyUnread) - Candidatos a importantes (classificador local)
      */
     @AiService
     public interface GmailAiServiceInterface {
@@ -140,7 +157,8 @@ public class AssistantGmailService extends BaseAssistantService {
                 2. sendEmail(to, subject, body)
                    - Uso: Quando o usuário quer enviar um email
                    - Exemplo: "Envie um email para joao@email.com com assunto 'Reunião' e corpo 'Vamos?'"
-                   - Retorna: Confirmação de envio com ID da mensagem
+                   - Retorna: Confirmação de que o email entrou na fila de envio, com o ID na fila
+                   - O envio acontece em segundo plano; não chame de novo para o mesmo email
                 
                 3. deleteEmail(messageId)
                    - Uso: Quando o usuário quer deletar um email
@@ -173,11 +191,74 @@ public class AssistantGmailService extends BaseAssistantService {
                    - Exemplo: "Busque emails que contenham 'importante'"
                    - Retorna: Lista de emails que correspondeu à busca
                 
+                9. listAttachments(messageId)
+                   - Uso: Quando o usuário quer saber quais anexos um email tem
+                   - Exemplo: "Quais anexos tem o email abc123?"
+                   - Retorna: Nome, tipo, tamanho e partId de cada anexo
+                
+                10. getAttachment(messageId, partId)
+                   - Uso: Quando o usuário quer baixar ou ler um anexo
+                   - Exemplo: "Baixe o PDF do email abc123"
+                   - Retorna: Caminho local do arquivo e prévia (se for texto)
+                   - Use o partId retornado por listAttachments
+                
+                11. markAsReadBulk(messageIds, query) / markAsUnreadBulk(messageIds, query)
+                   - Uso: Quando o usuário quer marcar vários emails de uma vez
+                   - Exemplo: "Marque todas as newsletters como lidas"
+                   - Aceita lista de IDs, busca do Gmail (ex: "from:news@site.com is:unread") ou ambos
+                   - Retorna: Total processado e resultado por bloco
+                
+                12. trashEmailsBulk(messageIds, query)
+                   - Uso: Quando o usuário quer deletar vários emails de uma vez
+                   - Aceita lista de IDs, busca do Gmail ou ambos
+                   - Move para a lixeira (recuperável por 30 dias); mostre a busca e peça confirmação antes
+                
+                13. getSendStatus(outboundId)
+                   - Uso: Quando o usuário pergunta se um email já foi enviado
+                   - Exemplo: "O email para o João já foi?"
+                   - Retorna: Status do envio (ou dos últimos envios, se o ID ficar vazio)
+                
+                14. listThreads(query, maxResults)
+                   - Uso: Quando o usuário quer ver conversas, inclusive com uma pessoa
+                   - Exemplo: "Quais conversas tenho com joao@email.com?" → query "from:joao@email.com OR to:joao@email.com"
+                   - Retorna: Assunto, participantes, nº de mensagens e Thread ID
+                
+                15. getThreadConversation(threadId)
+                   - Uso: Quando o usuário quer entender uma conversa inteira
+                   - Exemplo: "O que está rolando na conversa com a Maria?"
+                   - Retorna: Todas as mensagens da conversa, sem citações repetidas
+                   - Prefira esta tool a chamar getEmailContent para cada mensagem
+                
+                16. digestEmails(maxMessages, query)
+                   - Uso: Quando o usuário quer um resumo de vários emails
+                   - Exemplo: "Resuma meus últimos 100 emails"
+                   - Retorna: Digest agrupado por tema (o que exige ação primeiro)
+                   - Prefira esta tool a ler cada email com getEmailContent
+                
+                17. analyzeInbox(groupBy, lastDays, labelId, topK)
+                   - Uso: Perguntas de contagem/estatística sobre a caixa
+                   - groupBy: remetente, dia, dia_semana, hora ou label
+                   - Exemplo: "Quem mais me envia emails?" → analyzeInbox("remetente", 0, "", 10)
+                   - Exemplo: "Quantos emails por dia no último mês?" → analyzeInbox("dia", 30, "", 31)
+                   - Não lê nenhuma mensagem: prefira esta tool a listar emails para contar
+                
+                18. countEmails(label)
+                   - Uso: "Quantos emails não lidos eu tenho?", "Quantos emails tenho na label Trabalho?"
+                   - label: ID ou nome (vazio = caixa de entrada)
+                   - Retorna: total de emails/conversas e quantos estão não lidos
+                   - Para contar, use esta tool e NÃO listUnreadEmails
+                
+                19. listPriorityEmails(maxResults, onlyUnread)
+                   - Uso: "Quais emails são importantes?", "O que preciso ver primeiro?"
+                   - Retorna: os candidatos mais prováveis (classificador local), com prévia e prioridade (%)
+                   - Decida a partir desses candidatos; NÃO liste a caixa inteira para escolher
+                
                 ========== REGRAS IMPORTANTES ==========
                 
                 ✓ ANTES DE DELETAR:
                   - Sempre peça confirmação do usuário antes de deletar
                   - Seja claro sobre a operação permanente
+                  - Em massa: informe quantos emails serão deletados e confirme
                 
                 ✓ ANTES DE ENVIAR:
                   - Confirme os detalhes (para, assunto, corpo)
@@ -193,6 +274,11 @@ public class AssistantGmailService extends BaseAssistantService {
                   - Formatar em Markdown
                   - Explicar o resultado de forma amigável
                 
+                ✓ FORMATO DOS RESULTADOS DAS TOOLS:
+                  - Listas: linha "@tipo chave=valor", cabeçalho e uma linha por item, separados por TAB
+                  - Registros: linha "@tipo", linhas "chave=valor" e, após "--", o texto livre
+                  - Esse formato é só para você: ao usuário, responda sempre em Markdown legível
+                
                 ========== EXEMPLOS DE INTERAÇÃO ==========
                 
                 EXEMPLO 1 - Listar Emails:
@@ -213,7 +299,7 @@ public class AssistantGmailService extends BaseAssistantService {
                 
                 EXEMPLO 5 - Marcar Como Lido:
                 Usuário: "Marca todos meus emails não lidos como lido"
-                IA: Chama listUnreadEmails(10), depois markAsRead() para cada um
+                IA: Chama markAsReadBulk([], "is:unread") em uma única chamada
                 
                 ========== DICAS IMPORTANTES ==========
                 
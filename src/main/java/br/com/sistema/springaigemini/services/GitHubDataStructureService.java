@@ -1,8 +1,15 @@
 package br.com.sistema.springaigemini.services;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import br.com.sistema.springaigemini.dtos.response.github.FileNode;
@@ -19,7 +26,7 @@ import lombok.extern.log4j.Log4j2;
  * ✅ VERSÃO FINAL - Usando setters em vez de constructor
  * - Compatível com qualquer estrutura de GitHubFilesResponse
  * - Usa setters para setar valores (mais seguro)
- * - Método getRepositoryFilesAsTree() com recursão completa
+ * - Método getRepositoryFilesAsTree() em passada única com totais por pasta
  */
 @Service
 @RequiredArgsConstructor
@@ -28,6 +35,52 @@ public class GitHubDataStructureService {
 
 	private final GithubAssistantTools githubTools;
 
+	/**
+	 * SHA do último commit por repositório, guardado por version-ttl-ms: cada
+	 * requisição condicional (ETag) consultaria o GitHub de novo
+	 */
+	private final Map<String, CachedVersion> versions = new ConcurrentHashMap<>();
+
+	@Value("${github-selector.etag.version-ttl-ms:5000}")
+	private long versionTtlMillis;
+
+	private record CachedVersion(String sha, long fetchedAt) {}
+
+	/**
+	 * Ordena por nome mantendo pastas antes dos arquivos
+	 */
+	private static final Comparator<FileNode> FOLDERS_FIRST = (a, b) -> {
+		if (a.isFolder() && !b.isFolder())
+			return -1;
+		if (!a.isFolder() && b.isFolder())
+			return 1;
+		// Se mesmo tipo, ordena por nome
+		return a.getName().compareTo(b.getName());
+	};
+
+	/**
+	 * Ordena por path tratando '/' como o menor caractere, para que todo o
+	 * conteúdo de uma pasta fique contíguo logo após ela
+	 * (ex: "a", "a/b", "a-c" em vez de "a", "a-c", "a/b")
+	 */
+	private static final Comparator<FileNode> PATH_ORDER = (a, b) -> {
+		String pa = a.getPath();
+		String pb = b.getPath();
+		int len = Math.min(pa.length(), pb.length());
+		for (int i = 0; i < len; i++) {
+			char ca = pa.charAt(i);
+			char cb = pb.charAt(i);
+			if (ca != cb) {
+				if (ca == '/')
+					return -1;
+				if (cb == '/')
+					return 1;
+				return ca - cb;
+			}
+		}
+		return pa.length() - pb.length();
+	};
+
 	/**
 	 * Obter lista de repositórios
 	 */
@@ -56,33 +109,60 @@ public class GitHubDataStructureService {
 	}
 
 	/**
-	 * ✅ NOVO: Obter árvore completa com children preenchido (recursão)
+	 * ✅ NOVO: Obter árvore completa com children preenchido
 	 * 
 	 * Este método:
 	 * 1. Obtém lista linear de todos os arquivos
-	 * 2. Constrói a árvore com children recursivamente
-	 * 3. Retorna apenas os nós raiz
+	 * 2. Ordena por path e constrói a árvore em uma única passada
+	 * 3. Preenche tamanho e total de arquivos agregados de cada pasta
+	 * 4. Retorna apenas os nós raiz
 	 */
 	public GitHubFilesResponse getRepositoryFilesAsTree(String repositoryName) {
 		log.info("🌳 Obtendo árvore completa (com children) do repositório: {}", repositoryName);
 
-		// Primeiro, obter lista linear de todos os arquivos
-		//GitHubFilesResponse flatFiles = getRepositoryFiles(repositoryName);
+		// Primeiro, obter lista linear de todos os arquivos (sem a ordenação pastas/arquivos)
 		String responseRepository = githubTools.listRepositoryFilesRecursively(repositoryName);
-		GitHubFilesResponse flatFiles = parseFiles(responseRepository, repositoryName);
-		
-		// Depois, converter para árvore com children
-		List<FileNode> treeStructure = buildTreeStructure(flatFiles.getFiles());
+		List<FileNode> flatFiles = parseFileLines(responseRepository, repositoryName);
+
+		// Depois, ordenar por path e converter para árvore com children
+		flatFiles.sort(PATH_ORDER);
+		List<FileNode> treeStructure = buildTreeStructure(flatFiles);
+
+		int totalFiles = 0;
+		for (FileNode root : treeStructure) {
+			totalFiles += root.countFiles();
+		}
 
 		// ✅ Criar resposta usando setters (seguro com qualquer estrutura)
 		GitHubFilesResponse response = new GitHubFilesResponse();
 		response.setRepositoryName(repositoryName);
 		response.setFiles(treeStructure);
-		response.setTotalFiles(flatFiles.getTotalFiles());
+		response.setTotalFiles(totalFiles);
 		
 		return response;
 	}
 
+	/**
+	 * Versão atual do repositório (SHA do último commit do branch padrão)
+	 * 
+	 * Bem mais barato que montar a listagem: usado para ETag/304.
+	 * Reaproveita o SHA consultado há menos de version-ttl-ms (um push leva até
+	 * esse tempo para invalidar o ETag).
+	 */
+	public String getRepositoryVersion(String repositoryName) throws IOException {
+		long now = System.currentTimeMillis();
+		CachedVersion cached = versions.get(repositoryName);
+		if (cached != null && now - cached.fetchedAt() < versionTtlMillis) {
+			return cached.sha();
+		}
+
+		String sha = githubTools.getHeadCommitSha(repositoryName);
+		if (versionTtlMillis > 0) {
+			versions.put(repositoryName, new CachedVersion(sha, now));
+		}
+		return sha;
+	}
+
 	/**
 	 * Ler conteúdo de um arquivo
 	 */
@@ -155,20 +235,31 @@ public class GitHubDataStructureService {
 	 * Parse de arquivos em lista linear
 	 */
 	private GitHubFilesResponse parseFiles(String response, String repositoryName) {
+		List<FileNode> files = parseFileLines(response, repositoryName);
+
+		// Ordenar: pastas primeiro, depois arquivos
+		files.sort(FOLDERS_FIRST);
+
+		// ✅ Usar setters
+		GitHubFilesResponse result = new GitHubFilesResponse();
+		result.setRepositoryName(repositoryName);
+		result.setFiles(files);
+		result.setTotalFiles(files.size());
+		return result;
+	}
+
+	/**
+	 * Parse das linhas "type|name|path|size" em nós soltos, na ordem recebida
+	 */
+	private List<FileNode> parseFileLines(String response, String repositoryName) {
 		log.debug("Parseando arquivos de: {}", repositoryName);
-		log.debug("Response recebida: {}", response);
 
 		List<FileNode> files = new ArrayList<>();
 
 		try {
 			if (response == null || response.isEmpty()) {
 				log.warn("Resposta vazia para: {}", repositoryName);
-				// ✅ Usar setters
-				GitHubFilesResponse result = new GitHubFilesResponse();
-				result.setRepositoryName(repositoryName);
-				result.setFiles(new ArrayList<>());
-				result.setTotalFiles(0);
-				return result;
+				return files;
 			}
 
 			// Parse linha por linha
@@ -179,14 +270,11 @@ public class GitHubDataStructureService {
 				if (line.trim().isEmpty())
 					continue;
 
-				log.debug("Parseando linha: {}", line);
-
 				// ✅ Usar split com limite: pega só os primeiros 4 campos
 				String[] parts = line.split("\\|", 4);
-				log.debug("Parts: {}", java.util.Arrays.toString(parts));
 
 				if (parts.length < 3) {
-					log.debug("Linha ignorada (menos de 3 partes)");
+					log.debug("Linha ignorada (menos de 3 partes): {}", line);
 					continue;
 				}
 
@@ -194,8 +282,6 @@ public class GitHubDataStructureService {
 				String name = parts[1].trim();
 				String path = parts[2].trim();
 
-				log.debug("type={}, name={}, path={}", type, name, path);
-
 				FileNode node = null;
 
 				if ("folder".equals(type) || "directory".equals(type)) {
@@ -218,100 +304,119 @@ public class GitHubDataStructureService {
 				}
 
 				if (node != null) {
-					log.debug("Node criado: {}", node.getName());
 					files.add(node);
 				} else {
 					log.debug("Node não foi criado para: {}", name);
 				}
 			}
 
-			// Ordenar: pastas primeiro, depois arquivos
-			files.sort((a, b) -> {
-				// ✅ Usar isFolder() para verificar tipo
-				if (a.isFolder() && !b.isFolder())
-					return -1;
-				if (!a.isFolder() && b.isFolder())
-					return 1;
-				// Se mesmo tipo, ordena por nome
-				return a.getName().compareTo(b.getName());
-			});
-
 			log.info("✅ {} arquivos parseados", files.size());
 
 		} catch (Exception e) {
 			log.error("❌ Erro ao fazer parse dos arquivos", e);
 		}
 
-		// ✅ Usar setters
-		GitHubFilesResponse result = new GitHubFilesResponse();
-		result.setRepositoryName(repositoryName);
-		result.setFiles(files);
-		result.setTotalFiles(files.size());
-		return result;
+		return files;
 	}
 
 	// ==================== TREE BUILDING METHODS ====================
 
 	/**
 	 * Constrói a árvore hierárquica com children a partir de lista linear
+	 * ordenada por path (ver PATH_ORDER)
 	 * 
-	 * Algoritmo:
-	 * 1. Cria um mapa de todos os nós por path
-	 * 2. Para cada nó, encontra seu pai (baseado no path)
-	 * 3. Adiciona à lista de children do pai
-	 * 4. Retorna apenas os nós raiz (sem pai)
+	 * Algoritmo (uma única passada, sem mapa):
+	 * 1. Mantém uma pilha com as pastas "abertas" (ancestrais do nó atual)
+	 * 2. Para cada nó, fecha as pastas que não são ancestrais dele
+	 * 3. Adiciona o nó como filho da pasta do topo (ou como raiz)
+	 * 4. Ao fechar uma pasta, ordena os filhos e soma tamanho/arquivos no pai
 	 */
-	private List<FileNode> buildTreeStructure(List<FileNode> flatFiles) {
-		log.debug("🔨 Construindo árvore a partir de {} arquivos", flatFiles.size());
-
-		if (flatFiles == null || flatFiles.isEmpty()) {
+	private List<FileNode> buildTreeStructure(List<FileNode> sortedFiles) {
+		if (sortedFiles == null || sortedFiles.isEmpty()) {
 			return new ArrayList<>();
 		}
 
-		// Criar mapa de path -> FileNode para acesso rápido
-		java.util.Map<String, FileNode> nodeMap = new java.util.HashMap<>();
+		log.debug("🔨 Construindo árvore a partir de {} arquivos", sortedFiles.size());
+
 		List<FileNode> rootNodes = new ArrayList<>();
+		Deque<FileNode> openFolders = new ArrayDeque<>();
 
-		// Primeiro passo: adicionar todos os nós ao mapa
-		for (FileNode node : flatFiles) {
-			nodeMap.put(node.getPath(), node);
-			// Inicializar children como lista vazia se for folder
-			if (node.isFolder() && node.getChildren() == null) {
-				node.setChildren(new ArrayList<>());
+		for (FileNode node : sortedFiles) {
+			String path = node.getPath();
+
+			// Fechar pastas que não contêm este nó
+			while (!openFolders.isEmpty() && !isAncestor(openFolders.peek().getPath(), path)) {
+				closeFolder(openFolders.pop(), openFolders.peek());
 			}
-		}
 
-		// Segundo passo: construir a hierarquia
-		for (FileNode node : flatFiles) {
-			String parentPath = getParentPath(node.getPath());
+			FileNode parent = openFolders.peek();
+			String parentPath = getParentPath(path);
 
 			if (parentPath == null) {
 				// É um nó raiz (sem pai)
 				rootNodes.add(node);
-				log.debug("  ├─ 📍 Raiz: {}", node.getName());
+			} else if (parent != null && parentPath.equals(parent.getPath())) {
+				// Adicionar este nó como filho do pai
+				parent.addChild(node);
 			} else {
-				// Encontrar o pai
-				FileNode parent = nodeMap.get(parentPath);
+				// Pai não encontrado, tratar como raiz
+				log.warn("  ⚠️  Pai não encontrado para: {} (pai esperado: {})", node.getName(), parentPath);
+				rootNodes.add(node);
+			}
 
-				if (parent != null) {
-					// Adicionar este nó como filho do pai
-					if (parent.getChildren() == null) {
-						parent.setChildren(new ArrayList<>());
-					}
-					parent.addChild(node);
-					log.debug("  ├─ 📍 {} → filho de {}", node.getName(), parent.getName());
-				} else {
-					// Pai não encontrado, tratar como raiz
-					log.warn("  ⚠️  Pai não encontrado para: {} (pai esperado: {})", node.getName(), parentPath);
-					rootNodes.add(node);
+			if (node.isFolder()) {
+				if (node.getChildren() == null) {
+					node.setChildren(new ArrayList<>());
 				}
+				node.setSize(0L);
+				node.setFileCount(0);
+				openFolders.push(node);
+			} else if (parent != null && parentPath != null && parentPath.equals(parent.getPath())) {
+				// Arquivo conta direto na pasta do topo; as demais recebem no fechamento
+				parent.setSize(parent.getSize() + (node.getSize() != null ? node.getSize() : 0L));
+				parent.setFileCount(parent.getFileCount() + 1);
 			}
 		}
 
+		// Fechar pastas restantes
+		while (!openFolders.isEmpty()) {
+			closeFolder(openFolders.pop(), openFolders.peek());
+		}
+
+		rootNodes.sort(FOLDERS_FIRST);
+
 		log.info("✅ Árvore construída: {} nós raiz", rootNodes.size());
 		return rootNodes;
 	}
 
+	/**
+	 * Finaliza uma pasta: ordena os filhos e propaga os totais para o pai
+	 * (somente se a pasta foi anexada a ele)
+	 */
+	private void closeFolder(FileNode folder, FileNode parent) {
+		if (folder.getChildren().size() > 1) {
+			folder.getChildren().sort(FOLDERS_FIRST);
+		}
+
+		if (parent != null && parent.getPath().equals(getParentPath(folder.getPath()))) {
+			parent.setSize(parent.getSize() + folder.getSize());
+			parent.setFileCount(parent.getFileCount() + folder.getFileCount());
+		}
+	}
+
+	/**
+	 * Verifica se "folderPath" é ancestral de "path"
+	 * 
+	 * Exemplos:
+	 * - ("src", "src/main/App.java") → true
+	 * - ("src", "src-old/App.java") → false
+	 */
+	private boolean isAncestor(String folderPath, String path) {
+		return path.length() > folderPath.length()
+				&& path.charAt(folderPath.length()) == '/'
+				&& path.startsWith(folderPath);
+	}
+
 	/**
 	 * Obtém o path do pai de um arquivo
 	 * 
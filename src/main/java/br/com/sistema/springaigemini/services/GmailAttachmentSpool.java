@@ -0,0 +1,363 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.Base64Variants;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePart;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spool local de anexos do Gmail.
+ *
+ * - O corpo do anexo é lido do JSON da API em streaming e decodificado (base64url)
+ *   direto para um arquivo temporário, sem passar por String/byte[] no heap
+ * - Arquivos endereçados por conteúdo (SHA-256): anexos repetidos ocupam espaço uma vez
+ * - Tamanho total limitado; os menos acessados recentemente são removidos primeiro
+ * - Leitura posterior por memória mapeada (MappedByteBuffer), fora do heap
+ */
+@Component
+@Slf4j
+public class GmailAttachmentSpool {
+
+    private static final String EXTENSION = ".bin";
+    /**
+     * Níveis de "parts" com a mesma máscara (o fields da API não tem recursão).
+     * Abaixo disso a estrutura vem sem máscara, com os dados das partes: mais bytes,
+     * mas o anexo ainda é encontrado. Emails reais raramente passam de 4 níveis.
+     */
+    private static final int MASKED_PART_DEPTH = 8;
+    private static final String PARTS_FIELDS = "id,payload(" + partFields(MASKED_PART_DEPTH) + ")";
+    private static final Base64Variant GMAIL_BASE64 = Base64Variants.MODIFIED_FOR_URL.withPaddingAllowed();
+
+    private final Gmail gmailService;
+    private final GmailRequestExecutor requestExecutor;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Path spoolDir;
+    private final long maxSpoolBytes;
+
+    /** messageId/partId → arquivo no spool */
+    private final Map<String, SpooledAttachment> spooled = new ConcurrentHashMap<>();
+
+    public GmailAttachmentSpool(
+            Gmail gmailService,
+            GmailRequestExecutor requestExecutor,
+            @Value("${gmail.attachments.spool-dir:${user.home}/.assistant-ai/attachments}") String spoolDir,
+            @Value("${gmail.attachments.max-spool-bytes:536870912}") long maxSpoolBytes) {
+        this.gmailService = gmailService;
+        this.requestExecutor = requestExecutor;
+        this.spoolDir = Path.of(spoolDir);
+        this.maxSpoolBytes = maxSpoolBytes;
+    }
+
+    /**
+     * Anexo declarado em uma mensagem (ainda não baixado)
+     */
+    public record AttachmentInfo(String messageId, String partId, String filename, String mimeType, long size) {}
+
+    /**
+     * Anexo gravado no spool
+     */
+    public record SpooledAttachment(String sha256, String filename, String mimeType, long size, Path path) {}
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(spoolDir);
+        // Temporários de downloads interrompidos
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            for (Path file : files.filter(p -> p.getFileName().toString().endsWith(".tmp")).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        evictIfNeeded(null);
+    }
+
+    // ==================== LISTAGEM ====================
+
+    /**
+     * Lista os anexos de uma mensagem (somente a estrutura MIME, sem os dados)
+     */
+    public List<AttachmentInfo> list(String messageId) throws IOException {
+        Message message = structure(messageId);
+
+        List<AttachmentInfo> attachments = new ArrayList<>();
+        if (message.getPayload() == null) {
+            return attachments;
+        }
+
+        Deque<MessagePart> stack = new ArrayDeque<>();
+        stack.push(message.getPayload());
+        while (!stack.isEmpty()) {
+            MessagePart part = stack.pop();
+            if (part.getParts() != null) {
+                for (int i = part.getParts().size() - 1; i >= 0; i--) {
+                    stack.push(part.getParts().get(i));
+                }
+            }
+            if (part.getFilename() != null && !part.getFilename().isEmpty() && part.getBody() != null
+                    && part.getBody().getAttachmentId() != null) {
+                long size = part.getBody().getSize() != null ? part.getBody().getSize() : 0;
+                attachments.add(new AttachmentInfo(messageId, part.getPartId(), part.getFilename(),
+                        part.getMimeType(), size));
+            }
+        }
+        return attachments;
+    }
+
+    // ==================== DOWNLOAD ====================
+
+    /**
+     * Garante o anexo no spool e devolve o arquivo.
+     *
+     * O attachmentId do Gmail muda a cada leitura da mensagem, por isso a chave
+     * é messageId + partId e o ID é obtido na hora do download.
+     */
+    public SpooledAttachment fetch(String messageId, String partId) throws IOException {
+        String key = messageId + "/" + partId;
+
+        SpooledAttachment cached = spooled.get(key);
+        if (cached != null && Files.exists(cached.path())) {
+            touch(cached.path());
+            return cached;
+        }
+
+        MessagePart part = findPart(messageId, partId);
+        String attachmentId = part.getBody().getAttachmentId();
+
+        SpooledAttachment attachment = requestExecutor.execute(GmailRequestExecutor.UNITS_GET, () -> {
+            HttpResponse response = gmailService.users()
+                    .messages()
+                    .attachments()
+                    .get("me", messageId, attachmentId)
+                    .setFields("data")
+                    .executeUnparsed();
+            try (InputStream in = response.getContent()) {
+                return store(in, part.getFilename(), part.getMimeType());
+            } finally {
+                response.disconnect();
+            }
+        });
+
+        spooled.put(key, attachment);
+        log.info("📎 Anexo gravado no spool: {} ({} bytes, {})", attachment.filename(), attachment.size(),
+                attachment.sha256().substring(0, 12));
+        evictIfNeeded(attachment.path());
+        return attachment;
+    }
+
+    /**
+     * Mapeia o arquivo do spool em memória (somente leitura, fora do heap)
+     */
+    public MappedByteBuffer map(SpooledAttachment attachment) throws IOException {
+        try (FileChannel channel = FileChannel.open(attachment.path(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Prévia em texto de anexos text/* (lida do arquivo mapeado, até "maxChars")
+     */
+    public String textPreview(SpooledAttachment attachment, int maxChars) throws IOException {
+        if (attachment.mimeType() == null || !attachment.mimeType().startsWith("text/")) {
+            return null;
+        }
+
+        MappedByteBuffer buffer = map(attachment);
+        // UTF-8 usa no máximo 4 bytes por caractere
+        int bytes = (int) Math.min(buffer.capacity(), (long) maxChars * 4);
+        ByteBuffer slice = buffer.slice(0, bytes);
+
+        CharBuffer chars = CharBuffer.allocate(maxChars);
+        StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(slice, chars, true);
+        chars.flip();
+        return chars.toString();
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    /**
+     * Campos de uma parte e, aninhados, das suas partes até "depth" níveis
+     */
+    private static String partFields(int depth) {
+        String fields = "partId,filename,mimeType,body(attachmentId,size),parts";
+        return depth > 0 ? fields + "(" + partFields(depth - 1) + ")" : fields;
+    }
+
+    /**
+     * Estrutura MIME da mensagem, sem os dados das partes
+     */
+    private Message structure(String messageId) throws IOException {
+        return requestExecutor.execute(GmailRequestExecutor.UNITS_GET, () -> gmailService.users()
+                .messages()
+                .get("me", messageId)
+                .setFormat("full")
+                .setFields(PARTS_FIELDS)
+                .execute());
+    }
+
+    private MessagePart findPart(String messageId, String partId) throws IOException {
+        Message message = structure(messageId);
+
+        Deque<MessagePart> stack = new ArrayDeque<>();
+        if (message.getPayload() != null) {
+            stack.push(message.getPayload());
+        }
+        while (!stack.isEmpty()) {
+            MessagePart part = stack.pop();
+            if (partId.equals(part.getPartId()) && part.getBody() != null
+                    && part.getBody().getAttachmentId() != null) {
+                return part;
+            }
+            if (part.getParts() != null) {
+                part.getParts().forEach(stack::push);
+            }
+        }
+        throw new IOException("Anexo " + partId + " não encontrado na mensagem " + messageId);
+    }
+
+    /**
+     * Lê o JSON {"data": "..."} em streaming e decodifica o base64 direto para o disco,
+     * calculando o SHA-256 no caminho. O arquivo final é nomeado pelo hash.
+     */
+    private SpooledAttachment store(InputStream json, String filename, String mimeType) throws IOException {
+        Files.createDirectories(spoolDir);
+        Path temp = Files.createTempFile(spoolDir, "attachment-", ".tmp");
+
+        try {
+            MessageDigest digest = sha256();
+            long size;
+
+            try (JsonParser parser = jsonFactory.createParser(json);
+                 OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                size = -1;
+                JsonToken token;
+                while ((token = parser.nextToken()) != null) {
+                    if (token == JsonToken.FIELD_NAME && "data".equals(parser.currentName())) {
+                        parser.nextToken();
+                        size = parser.readBinaryValue(GMAIL_BASE64, out);
+                        break;
+                    }
+                }
+            }
+            if (size < 0) {
+                throw new IOException("Resposta do Gmail sem dados do anexo");
+            }
+
+            String sha = HexFormat.of().formatHex(digest.digest());
+            Path target = spoolDir.resolve(sha + EXTENSION);
+            if (Files.exists(target)) {
+                Files.delete(temp);
+                touch(target);
+            } else {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new SpooledAttachment(sha, filename, mimeType, size, target);
+
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    /**
+     * Remove os arquivos acessados há mais tempo até caber no limite do spool
+     * (preservando "keep", o arquivo recém-gravado)
+     */
+    private synchronized void evictIfNeeded(Path keep) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(spoolDir)) {
+            files = stream.filter(p -> p.getFileName().toString().endsWith(EXTENSION)).toList();
+        }
+
+        long total = 0;
+        for (Path file : files) {
+            total += Files.size(file);
+        }
+        if (total <= maxSpoolBytes) {
+            return;
+        }
+
+        List<Path> oldestFirst = new ArrayList<>(files);
+        oldestFirst.sort(Comparator.comparing(this::lastModified));
+
+        for (Path file : oldestFirst) {
+            if (total <= maxSpoolBytes) {
+                break;
+            }
+            if (file.equals(keep)) {
+                continue;
+            }
+            long size = Files.size(file);
+            Files.deleteIfExists(file);
+            total -= size;
+            spooled.values().removeIf(a -> a.path().equals(file));
+            log.debug("🧹 Anexo removido do spool: {}", file.getFileName());
+        }
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Marca o arquivo como usado recentemente (ordem de remoção do spool)
+     */
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("Não foi possível atualizar o acesso de {}", file, e);
+        }
+    }
+
+    private MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,576 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePart;
+import com.google.api.services.gmail.model.MessagePartHeader;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Extrai o corpo de mensagens do Gmail (format=full).
+ *
+ * Compartilhado entre a tool getEmailContent e o índice de busca local.
+ *
+ * - Percorre multiparts aninhados (alternative dentro de mixed/related)
+ * - Prefere text/plain; sem ele, converte text/html em texto
+ * - Decodifica base64url em streaming, em buffers reaproveitados
+ * - Para de ler ao atingir o limite de caracteres
+ */
+@Component
+@Slf4j
+public class GmailBodyExtractor {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int POOL_SIZE = 32;
+    private static final String TRUNCATED = "\n[... conteúdo truncado]";
+
+    /** Buffers de leitura reaproveitados entre chamadas (inclusive em virtual threads) */
+    private final BlockingQueue<char[]> bufferPool = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    @Value("${gmail.body.max-chars:20000}")
+    private int defaultMaxChars = 20_000;
+
+    /**
+     * Extrai o corpo/conteúdo da mensagem com o limite padrão de caracteres.
+     * Texto cortado no limite termina com um aviso de truncamento.
+     *
+     * @param message mensagem do Gmail
+     * @return conteúdo decodificado ou null se não houver corpo
+     */
+    public String extract(Message message) {
+        return extract(message, defaultMaxChars, true);
+    }
+
+    /**
+     * Extrai o corpo/conteúdo da mensagem, cortando silenciosamente no limite
+     * (uso interno, ex: indexação).
+     *
+     * @param message mensagem do Gmail
+     * @param maxChars limite de caracteres do texto retornado
+     * @return conteúdo decodificado ou null se não houver corpo
+     */
+    public String extractText(Message message, int maxChars) {
+        return extract(message, maxChars, false);
+    }
+
+    private String extract(Message message, int maxChars, boolean markTruncation) {
+        MessagePart payload = message.getPayload();
+        if (payload == null) {
+            return null;
+        }
+
+        MessagePart plain = findPart(payload, "text/plain");
+        if (plain != null) {
+            return decode(plain, false, maxChars, markTruncation);
+        }
+
+        MessagePart html = findPart(payload, "text/html");
+        if (html != null) {
+            return decode(html, true, maxChars, markTruncation);
+        }
+
+        // Sem parte de texto identificável: primeira parte com dados que não seja anexo
+        MessagePart any = findPart(payload, null);
+        return any != null ? decode(any, isHtml(any), maxChars, markTruncation) : null;
+    }
+
+    // ==================== PERCURSO MIME ====================
+
+    /**
+     * Busca em profundidade (ordem do documento) a primeira parte inline com dados
+     * do tipo informado. Anexos (com filename) são ignorados.
+     */
+    private MessagePart findPart(MessagePart root, String mimeType) {
+        Deque<MessagePart> stack = new ArrayDeque<>();
+        stack.push(root);
+
+        while (!stack.isEmpty()) {
+            MessagePart part = stack.pop();
+
+            List<MessagePart> children = part.getParts();
+            if (children != null && !children.isEmpty()) {
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(children.get(i));
+                }
+                continue;
+            }
+
+            if (!hasData(part) || isAttachment(part)) {
+                continue;
+            }
+            if (mimeType == null || mimeType.equalsIgnoreCase(baseType(part))) {
+                return part;
+            }
+        }
+        return null;
+    }
+
+    private boolean hasData(MessagePart part) {
+        return part.getBody() != null && part.getBody().getData() != null && !part.getBody().getData().isEmpty();
+    }
+
+    private boolean isAttachment(MessagePart part) {
+        return part.getFilename() != null && !part.getFilename().isEmpty();
+    }
+
+    private boolean isHtml(MessagePart part) {
+        return "text/html".equalsIgnoreCase(baseType(part));
+    }
+
+    private String baseType(MessagePart part) {
+        String type = part.getMimeType();
+        if (type == null) {
+            return "";
+        }
+        int semicolon = type.indexOf(';');
+        return (semicolon >= 0 ? type.substring(0, semicolon) : type).trim();
+    }
+
+    /**
+     * Charset declarado no Content-Type da parte (padrão UTF-8)
+     */
+    private Charset charsetOf(MessagePart part) {
+        if (part.getHeaders() == null) {
+            return StandardCharsets.UTF_8;
+        }
+        for (MessagePartHeader header : part.getHeaders()) {
+            if (!"Content-Type".equalsIgnoreCase(header.getName()) || header.getValue() == null) {
+                continue;
+            }
+            String value = header.getValue();
+            int index = value.toLowerCase(Locale.ROOT).indexOf("charset=");
+            if (index < 0) {
+                break;
+            }
+            String name = value.substring(index + 8).split(";", 2)[0].trim().replace("\"", "");
+            try {
+                return Charset.forName(name);
+            } catch (Exception e) {
+                log.debug("Charset desconhecido '{}', usando UTF-8", name);
+            }
+            break;
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    // ==================== DECODIFICAÇÃO ====================
+
+    /**
+     * Decodifica a parte em streaming: base64url → bytes → chars → texto,
+     * sem materializar o array de bytes inteiro.
+     */
+    private String decode(MessagePart part, boolean html, int maxChars, boolean markTruncation) {
+        String data = part.getBody().getData();
+        // Estimativa: base64 ocupa ~4/3 dos bytes originais
+        int expected = Math.min(maxChars, data.length() * 3 / 4);
+        StringBuilder out = new StringBuilder(Math.max(expected, 16));
+        TextSink sink = html ? new HtmlTextSink(out, maxChars) : new PlainTextSink(out, maxChars);
+
+        char[] buffer = borrowBuffer();
+        try (Reader reader = new InputStreamReader(
+                Base64.getUrlDecoder().wrap(new AsciiInputStream(data)), charsetOf(part))) {
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                if (!sink.write(buffer, read)) {
+                    break;
+                }
+            }
+            sink.finish();
+        } catch (IOException e) {
+            throw new IllegalStateException("Falha ao decodificar corpo do email: " + e.getMessage(), e);
+        } finally {
+            releaseBuffer(buffer);
+        }
+
+        String text = html ? out.toString().strip() : out.toString();
+        return markTruncation && sink.truncated() ? text + TRUNCATED : text;
+    }
+
+    private char[] borrowBuffer() {
+        char[] buffer = bufferPool.poll();
+        return buffer != null ? buffer : new char[BUFFER_SIZE];
+    }
+
+    private void releaseBuffer(char[] buffer) {
+        bufferPool.offer(buffer);
+    }
+
+    /**
+     * Expõe os caracteres ASCII do base64 como bytes, sem copiar a String
+     */
+    private static final class AsciiInputStream extends InputStream {
+
+        private final String data;
+        private int position;
+
+        AsciiInputStream(String data) {
+            this.data = data;
+        }
+
+        @Override
+        public int read() {
+            return position < data.length() ? data.charAt(position++) & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= data.length()) {
+                return -1;
+            }
+            int count = Math.min(len, data.length() - position);
+            for (int i = 0; i < count; i++) {
+                b[off + i] = (byte) data.charAt(position++);
+            }
+            return count;
+        }
+    }
+
+    // ==================== SAÍDA DE TEXTO ====================
+
+    interface TextSink {
+
+        /** @return false quando o limite de caracteres foi atingido */
+        boolean write(char[] buffer, int length);
+
+        /** Fim do texto: descarrega o que ainda estiver pendente */
+        default void finish() {
+        }
+
+        boolean truncated();
+    }
+
+    /**
+     * Copia o texto como está, até o limite
+     */
+    private static final class PlainTextSink implements TextSink {
+
+        private final StringBuilder out;
+        private final int maxChars;
+        private boolean truncated;
+
+        PlainTextSink(StringBuilder out, int maxChars) {
+            this.out = out;
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public boolean write(char[] buffer, int length) {
+            int room = maxChars - out.length();
+            if (length > room) {
+                out.append(buffer, 0, room);
+                truncated = true;
+                return false;
+            }
+            out.append(buffer, 0, length);
+            return true;
+        }
+
+        @Override
+        public boolean truncated() {
+            return truncated;
+        }
+    }
+
+    /**
+     * Removedor de tags em passada única (máquina de estados).
+     *
+     * - Descarta tags, comentários e o conteúdo de script/style/title
+     * - Quebra linha em tags de bloco (p, div, br, li, tr, h1..h6)
+     * - Colapsa espaços e decodifica entidades comuns (&amp;, &nbsp;, &#NN;)
+     *
+     * O estado sobrevive entre buffers, então tags e entidades podem cruzar
+     * a fronteira de leitura.
+     */
+    static final class HtmlTextSink implements TextSink {
+
+        private static final int TEXT = 0;
+        private static final int TAG = 1;
+        private static final int COMMENT = 2;
+        private static final int ENTITY = 3;
+
+        private static final int MAX_TAG_NAME = 16;
+        private static final Map<String, Character> NAMED_ENTITIES = Map.ofEntries(
+                Map.entry("aacute", 'á'), Map.entry("eacute", 'é'), Map.entry("iacute", 'í'),
+                Map.entry("oacute", 'ó'), Map.entry("uacute", 'ú'), Map.entry("atilde", 'ã'),
+                Map.entry("otilde", 'õ'), Map.entry("ccedil", 'ç'), Map.entry("acirc", 'â'),
+                Map.entry("ecirc", 'ê'), Map.entry("ocirc", 'ô'), Map.entry("agrave", 'à'),
+                Map.entry("Aacute", 'Á'), Map.entry("Eacute", 'É'), Map.entry("Ccedil", 'Ç'),
+                Map.entry("Atilde", 'Ã'), Map.entry("hellip", '…'), Map.entry("mdash", '—'),
+                Map.entry("ndash", '–'), Map.entry("laquo", '«'), Map.entry("raquo", '»'),
+                Map.entry("rsquo", '’'), Map.entry("lsquo", '‘'), Map.entry("rdquo", '”'),
+                Map.entry("ldquo", '“'), Map.entry("copy", '©'), Map.entry("reg", '®'),
+                Map.entry("euro", '€'), Map.entry("ordm", 'º'), Map.entry("ordf", 'ª'),
+                Map.entry("bull", '•'), Map.entry("middot", '·'), Map.entry("trade", '™'),
+                Map.entry("rarr", '→'));
+        private static final int MAX_ENTITY = 10;
+
+        private final StringBuilder out;
+        private final int maxChars;
+        private final StringBuilder tagName = new StringBuilder(MAX_TAG_NAME);
+        private final StringBuilder entity = new StringBuilder(MAX_ENTITY);
+
+        private int state = TEXT;
+        private boolean readingName;
+        private boolean closingTag;
+        private String skipUntil;
+        private boolean pendingSpace;
+        private int dashes;
+        private boolean truncated;
+
+        HtmlTextSink(StringBuilder out, int maxChars) {
+            this.out = out;
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public boolean write(char[] buffer, int length) {
+            for (int i = 0; i < length; i++) {
+                char c = buffer[i];
+                switch (state) {
+                    case TAG -> onTagChar(c);
+                    case COMMENT -> onCommentChar(c);
+                    case ENTITY -> onEntityChar(c);
+                    default -> onTextChar(c);
+                }
+                if (out.length() >= maxChars) {
+                    out.setLength(maxChars);
+                    truncated = true;
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void finish() {
+            // Entidade sem ";" no fim do texto (ex: "AT&T"): devolve o literal
+            if (state == ENTITY && !truncated) {
+                state = TEXT;
+                emitLiteralEntity();
+                if (out.length() > maxChars) {
+                    out.setLength(maxChars);
+                    truncated = true;
+                }
+            }
+        }
+
+        @Override
+        public boolean truncated() {
+            return truncated;
+        }
+
+        private void onTextChar(char c) {
+            if (c == '<') {
+                state = TAG;
+                readingName = true;
+                closingTag = false;
+                tagName.setLength(0);
+            } else if (skipUntil != null) {
+                // dentro de script/style/head: ignora o conteúdo
+            } else if (c == '&') {
+                state = ENTITY;
+                entity.setLength(0);
+            } else if (Character.isWhitespace(c)) {
+                pendingSpace = true;
+            } else {
+                emit(c);
+            }
+        }
+
+        private void onTagChar(char c) {
+            if (c == '>') {
+                state = TEXT;
+                endTag();
+                return;
+            }
+            if (c == '<') {
+                // "<" solto (ex: "a<b" em script): recomeça a tag
+                readingName = true;
+                closingTag = false;
+                tagName.setLength(0);
+                return;
+            }
+            if (!readingName) {
+                return;
+            }
+            if (tagName.length() == 0 && c == '/') {
+                closingTag = true;
+            } else if (Character.isLetterOrDigit(c) || c == '!' || c == '-') {
+                if (tagName.length() < MAX_TAG_NAME) {
+                    tagName.append(Character.toLowerCase(c));
+                }
+                if (tagName.length() == 3 && "!--".contentEquals(tagName)) {
+                    state = COMMENT;
+                    dashes = 0;
+                }
+            } else {
+                readingName = false;
+            }
+        }
+
+        private void onCommentChar(char c) {
+            if (c == '>' && dashes >= 2) {
+                state = TEXT;
+            }
+            dashes = c == '-' ? dashes + 1 : 0;
+        }
+
+        private void onEntityChar(char c) {
+            if (c == ';') {
+                state = TEXT;
+                emitEntity(entity.toString());
+            } else if ((Character.isLetterOrDigit(c) || c == '#') && entity.length() < MAX_ENTITY) {
+                entity.append(c);
+            } else {
+                // Não era entidade: devolve o texto literal e reprocessa o caractere
+                state = TEXT;
+                emitLiteralEntity();
+                onTextChar(c);
+            }
+        }
+
+        private void emitLiteralEntity() {
+            emit('&');
+            for (int i = 0; i < entity.length(); i++) {
+                emit(entity.charAt(i));
+            }
+        }
+
+        private void endTag() {
+            String name = tagName.toString();
+
+            if (skipUntil != null) {
+                if (closingTag && name.equals(skipUntil)) {
+                    skipUntil = null;
+                }
+                return;
+            }
+
+            switch (name) {
+                case "script", "style", "title" -> {
+                    if (!closingTag) {
+                        skipUntil = name;
+                    }
+                }
+                case "br" -> newLine(false);
+                case "p", "div", "tr", "table", "h1", "h2", "h3", "h4", "h5", "h6", "blockquote", "ul", "ol" ->
+                        newLine(true);
+                case "li" -> {
+                    newLine(false);
+                    if (!closingTag) {
+                        out.append("- ");
+                    }
+                }
+                case "td", "th" -> pendingSpace = true;
+                default -> {
+                    // tags inline (a, span, b, img...) não alteram o layout
+                }
+            }
+        }
+
+        private void emitEntity(String name) {
+            switch (name) {
+                case "amp" -> emit('&');
+                case "lt" -> emit('<');
+                case "gt" -> emit('>');
+                case "quot" -> emit('"');
+                case "apos" -> emit('\'');
+                case "nbsp" -> pendingSpace = true;
+                case "zwnj", "shy" -> {
+                    // espaçadores invisíveis comuns em newsletters
+                }
+                default -> {
+                    Character named = NAMED_ENTITIES.get(name);
+                    if (named != null) {
+                        emit(named);
+                        return;
+                    }
+                    int codePoint = parseNumericEntity(name);
+                    if (codePoint > 0) {
+                        if (Character.isWhitespace(codePoint) || codePoint == 0xA0) {
+                            pendingSpace = true;
+                        } else {
+                            flushSpace();
+                            out.appendCodePoint(codePoint);
+                        }
+                    } else {
+                        emit('&');
+                        for (int i = 0; i < name.length(); i++) {
+                            emit(name.charAt(i));
+                        }
+                        emit(';');
+                    }
+                }
+            }
+        }
+
+        private int parseNumericEntity(String name) {
+            if (name.length() < 2 || name.charAt(0) != '#') {
+                return -1;
+            }
+            try {
+                int codePoint = name.charAt(1) == 'x' || name.charAt(1) == 'X'
+                        ? Integer.parseInt(name.substring(2), 16)
+                        : Integer.parseInt(name.substring(1));
+                return Character.isValidCodePoint(codePoint) ? codePoint : -1;
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        private void emit(char c) {
+            flushSpace();
+            out.append(c);
+        }
+
+        private void flushSpace() {
+            if (pendingSpace) {
+                pendingSpace = false;
+                int last = out.length() - 1;
+                if (last >= 0 && out.charAt(last) != ' ' && out.charAt(last) != '\n') {
+                    out.append(' ');
+                }
+            }
+        }
+
+        /**
+         * Quebra de linha sem acumular linhas em branco
+         */
+        private void newLine(boolean paragraph) {
+            pendingSpace = false;
+            int length = out.length();
+            while (length > 0 && out.charAt(length - 1) == ' ') {
+                length--;
+            }
+            out.setLength(length);
+            if (length == 0) {
+                return;
+            }
+            int trailing = 0;
+            while (trailing < length && out.charAt(length - 1 - trailing) == '\n') {
+                trailing++;
+            }
+            for (int target = paragraph ? 2 : 1; trailing < target; trailing++) {
+                out.append('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.BatchModifyMessagesRequest;
+import com.google.api.services.gmail.model.ListMessagesResponse;
+import com.google.api.services.gmail.model.Message;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Operações em massa na caixa de email.
+ *
+ * - IDs informados diretamente ou resolvidos por uma busca do Gmail (só IDs, sem detalhes)
+ * - Divide em blocos de até 1000 IDs (limite do batchModify)
+ * - Cada bloco é uma chamada (cota + retry pelo GmailRequestExecutor);
+ *   a falha de um bloco não interrompe os demais
+ * - Blocos bem-sucedidos já atualizam o GmailMailboxStore
+ *
+ * Não há remoção permanente em massa: o escopo GMAIL_MODIFY não permite batchDelete,
+ * e uma busca errada apagaria milhares de emails sem volta. "Deletar" em massa é mover
+ * para a lixeira (o Gmail esvazia a lixeira sozinho após 30 dias).
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GmailBulkService {
+
+    public static final int MAX_IDS_PER_CALL = 1000;
+    private static final long LIST_PAGE_SIZE = 500L;
+
+    private final Gmail gmailService;
+    private final GmailRequestExecutor requestExecutor;
+    private final GmailMailboxStore mailboxStore;
+
+    /**
+     * Resultado de um bloco
+     */
+    public record ChunkResult(int chunk, int size, boolean success, String error) {}
+
+    /**
+     * Junta os IDs informados com os encontrados pela busca (sem duplicados, na ordem)
+     *
+     * @param ids IDs explícitos (pode ser null)
+     * @param query busca do Gmail (pode ser null)
+     * @param maxMessages limite de IDs vindos da busca
+     */
+    public List<String> resolveIds(List<String> ids, String query, int maxMessages) throws IOException {
+        LinkedHashSet<String> resolved = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(id -> id != null && !id.isBlank()).map(String::trim).forEach(resolved::add);
+        }
+        if (query == null || query.isBlank()) {
+            return new ArrayList<>(resolved);
+        }
+
+        String pageToken = null;
+        int found = 0;
+        do {
+            String token = pageToken;
+            long pageSize = Math.min(LIST_PAGE_SIZE, maxMessages - found);
+            ListMessagesResponse response = requestExecutor.execute(GmailRequestExecutor.UNITS_LIST,
+                    () -> gmailService.users()
+                            .messages()
+                            .list("me")
+                            .setQ(query)
+                            .setMaxResults(pageSize)
+                            .setPageToken(token)
+                            .setFields("messages/id,nextPageToken")
+                            .execute());
+
+            if (response.getMessages() != null) {
+                for (Message message : response.getMessages()) {
+                    resolved.add(message.getId());
+                    found++;
+                }
+            }
+            pageToken = response.getNextPageToken();
+        } while (pageToken != null && found < maxMessages);
+
+        log.info("🔎 Busca '{}' resolveu {} mensagens", query, found);
+        return new ArrayList<>(resolved);
+    }
+
+    /**
+     * Adiciona/remove labels em massa (users.messages.batchModify)
+     */
+    public List<ChunkResult> batchModify(List<String> ids, List<String> addLabelIds, List<String> removeLabelIds) {
+        return forEachChunk(ids, chunk -> {
+            BatchModifyMessagesRequest request = new BatchModifyMessagesRequest()
+                    .setIds(chunk)
+                    .setAddLabelIds(addLabelIds)
+                    .setRemoveLabelIds(removeLabelIds);
+
+            requestExecutor.execute(GmailRequestExecutor.UNITS_BATCH_MODIFY, () -> gmailService.users()
+                    .messages()
+                    .batchModify("me", request)
+                    .execute());
+
+            for (String id : chunk) {
+                if (addLabelIds != null) {
+                    addLabelIds.forEach(label -> mailboxStore.toggleLabel(id, label, true));
+                }
+                if (removeLabelIds != null) {
+                    removeLabelIds.forEach(label -> mailboxStore.toggleLabel(id, label, false));
+                }
+            }
+        });
+    }
+
+    /**
+     * Move mensagens para a lixeira em massa (batchModify: +TRASH, -INBOX)
+     */
+    public List<ChunkResult> trash(List<String> ids) {
+        return batchModify(ids, List.of("TRASH"), List.of("INBOX"));
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    @FunctionalInterface
+    private interface ChunkOperation {
+        void apply(List<String> chunk) throws IOException;
+    }
+
+    private List<ChunkResult> forEachChunk(List<String> ids, ChunkOperation operation) {
+        List<ChunkResult> results = new ArrayList<>();
+
+        for (int start = 0, chunk = 1; start < ids.size(); start += MAX_IDS_PER_CALL, chunk++) {
+            List<String> slice = new ArrayList<>(ids.subList(start, Math.min(ids.size(), start + MAX_IDS_PER_CALL)));
+            try {
+                operation.apply(slice);
+                results.add(new ChunkResult(chunk, slice.size(), true, null));
+                log.info("✅ Bloco {} processado: {} mensagens", chunk, slice.size());
+            } catch (IOException e) {
+                results.add(new ChunkResult(chunk, slice.size(), false, e.getMessage()));
+                log.error("❌ Falha no bloco {} ({} mensagens): {}", chunk, slice.size(), e.getMessage());
+            }
+        }
+        return results;
+    }
+}
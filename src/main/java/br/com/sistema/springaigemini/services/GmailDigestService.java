@@ -0,0 +1,307 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.api.services.gmail.model.Message;
+
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Resumo (digest) da caixa de email em map-reduce.
+ *
+ * - Agrupamento: emails quase idênticos (MailNearDuplicates) viram um grupo; só o
+ *   representante de cada grupo é resumido, e o digest recebe a contagem do grupo
+ * - Map: emails resumidos em lotes, com chamadas paralelas ao modelo (concorrência limitada)
+ * - Cache: o resumo de cada email é guardado por messageId (mensagens não mudam)
+ *   e persistido em disco (Smile); pedir o digest de novo só paga pelos emails novos
+ * - Reduce: os resumos viram um digest único; com muitos emails, a redução é feita em camadas
+ */
+@Service
+@Slf4j
+public class GmailDigestService {
+
+    private static final int BODY_CHARS = 3000;
+    private static final int REDUCE_FAN_IN = 50;
+
+    private final GoogleAiGeminiChatModel chatModel;
+    private final GmailFetchService gmailFetchService;
+    private final GmailMailboxStore mailboxStore;
+    private final GmailBodyExtractor bodyExtractor;
+    private final MailNearDuplicates nearDuplicates;
+    private final ObjectMapper mapper;
+    private final Path cachePath;
+    private final int batchSize;
+    private final int maxConcurrency;
+    private final int cacheSize;
+
+    /** messageId → resumo (ordem de inserção: os mais antigos saem primeiro) */
+    private final Map<String, String> summaries;
+
+    public GmailDigestService(
+            GoogleAiGeminiChatModel chatModel,
+            GmailFetchService gmailFetchService,
+            GmailMailboxStore mailboxStore,
+            GmailBodyExtractor bodyExtractor,
+            MailNearDuplicates nearDuplicates,
+            SmileFactory smileFactory,
+            @Value("${gmail.digest.cache-path:${user.home}/.assistant-ai/gmail-summaries.smile}") String cachePath,
+            @Value("${gmail.digest.batch-size:10}") int batchSize,
+            @Value("${gmail.digest.max-concurrency:4}") int maxConcurrency,
+            @Value("${gmail.digest.cache-size:5000}") int cacheSize) {
+        this.chatModel = chatModel;
+        this.gmailFetchService = gmailFetchService;
+        this.mailboxStore = mailboxStore;
+        this.bodyExtractor = bodyExtractor;
+        this.nearDuplicates = nearDuplicates;
+        this.mapper = new ObjectMapper(smileFactory);
+        this.cachePath = Path.of(cachePath);
+        this.batchSize = batchSize;
+        this.maxConcurrency = maxConcurrency;
+        this.cacheSize = cacheSize;
+        this.summaries = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > GmailDigestService.this.cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Resultado do digest
+     *
+     * @param clusters grupos de emails quase idênticos (um resumo por grupo)
+     */
+    public record Digest(int messages, int clusters, int newlySummarized, String text) {}
+
+    @PostConstruct
+    public void load() {
+        if (!Files.exists(cachePath)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(cachePath)) {
+            summaries.putAll(mapper.readValue(in, new TypeReference<LinkedHashMap<String, String>>() {}));
+            log.info("✅ Cache de resumos carregado: {} emails", summaries.size());
+        } catch (IOException e) {
+            log.warn("⚠️ Cache de resumos inválido, será recriado: {}", e.getMessage());
+        }
+    }
+
+    // ==================== DIGEST ====================
+
+    /**
+     * Gera o digest dos emails mais recentes
+     *
+     * @param maxMessages quantidade de emails
+     * @param query busca do Gmail (null = caixa inteira)
+     */
+    public Digest digest(int maxMessages, String query) throws IOException {
+        List<MessageMetadata> emails = selectEmails(maxMessages, query);
+        if (emails.isEmpty()) {
+            return new Digest(0, 0, 0, null);
+        }
+
+        // Agrupa quase idênticos: só o representante de cada grupo vai ao modelo
+        List<MailNearDuplicates.Cluster<MessageMetadata>> clusters = nearDuplicates.cluster(emails,
+                m -> orEmpty(m.getFrom()) + " " + orEmpty(m.getSubject()) + " " + orEmpty(m.getSnippet()));
+        List<MessageMetadata> representatives = clusters.stream()
+                .map(MailNearDuplicates.Cluster::representative)
+                .toList();
+
+        // MAP: só os representantes sem resumo em cache
+        List<MessageMetadata> missing = representatives.stream()
+                .filter(m -> !summaries.containsKey(m.getId()))
+                .toList();
+        if (!missing.isEmpty()) {
+            summarizeAll(missing);
+            persist();
+        }
+        log.info("📝 Digest de {} emails em {} grupos ({} resumidos agora, {} do cache)",
+                emails.size(), clusters.size(), missing.size(), representatives.size() - missing.size());
+
+        // REDUCE
+        List<String> lines = new ArrayList<>(clusters.size());
+        for (MailNearDuplicates.Cluster<MessageMetadata> cluster : clusters) {
+            MessageMetadata email = cluster.representative();
+            String summary = summaries.getOrDefault(email.getId(), email.getSnippet());
+            lines.add(String.format("- [%s] %s: %s%s", orEmpty(email.getFrom()), orEmpty(email.getSubject()),
+                    orEmpty(summary), cluster.size() > 1 ? " (×" + cluster.size() + " emails semelhantes)" : ""));
+        }
+        return new Digest(emails.size(), clusters.size(), missing.size(), reduce(lines));
+    }
+
+    // ==================== MAP ====================
+
+    private void summarizeAll(List<MessageMetadata> emails) throws IOException {
+        List<Message> messages = gmailFetchService.getMessages(emails.stream().map(MessageMetadata::getId).toList());
+        Map<String, MessageMetadata> byId = new HashMap<>();
+        emails.forEach(e -> byId.put(e.getId(), e));
+
+        List<List<Message>> batches = new ArrayList<>();
+        List<Message> available = messages.stream().filter(Objects::nonNull).toList();
+        for (int i = 0; i < available.size(); i += batchSize) {
+            batches.add(available.subList(i, Math.min(available.size(), i + batchSize)));
+        }
+
+        Semaphore permits = new Semaphore(maxConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Map<String, String>>> futures = new ArrayList<>(batches.size());
+            for (List<Message> batch : batches) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return summarizeBatch(batch, byId);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            for (Future<Map<String, String>> future : futures) {
+                try {
+                    summaries.putAll(future.get());
+                } catch (ExecutionException e) {
+                    // Lote com falha fica sem resumo (o digest usa o snippet) e é tentado de novo na próxima vez
+                    log.warn("⚠️ Lote de resumos falhou: {}", e.getCause().getMessage());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Resumo interrompido");
+        }
+    }
+
+    /**
+     * Uma chamada ao modelo por lote: responde "ID|resumo", uma linha por email
+     */
+    private Map<String, String> summarizeBatch(List<Message> batch, Map<String, MessageMetadata> byId) {
+        StringBuilder prompt = new StringBuilder("""
+                Resuma cada email abaixo em uma frase curta (no máximo 25 palavras), em português.
+                Responda somente com uma linha por email, no formato: ID|resumo
+
+                """);
+
+        for (Message message : batch) {
+            MessageMetadata meta = byId.get(message.getId());
+            String body = bodyExtractor.extractText(message, BODY_CHARS);
+            prompt.append("### ID: ").append(message.getId()).append('\n')
+                    .append("De: ").append(meta != null ? orEmpty(meta.getFrom()) : "").append('\n')
+                    .append("Assunto: ").append(meta != null ? orEmpty(meta.getSubject()) : "").append('\n')
+                    .append(body != null ? body : orEmpty(message.getSnippet())).append("\n\n");
+        }
+
+        String response = chatModel.chat(prompt.toString());
+
+        Map<String, String> result = new HashMap<>();
+        for (String line : response.split("\\r?\\n")) {
+            int separator = line.indexOf('|');
+            if (separator <= 0) {
+                continue;
+            }
+            String id = line.substring(0, separator).replace("ID:", "").trim();
+            String summary = line.substring(separator + 1).trim();
+            if (byId.containsKey(id) && !summary.isEmpty()) {
+                result.put(id, summary);
+            }
+        }
+        return result;
+    }
+
+    // ==================== REDUCE ====================
+
+    /**
+     * Junta os resumos em um digest; acima de REDUCE_FAN_IN linhas, reduz por partes antes
+     */
+    private String reduce(List<String> lines) {
+        if (lines.size() <= REDUCE_FAN_IN) {
+            return chatModel.chat("""
+                    Abaixo estão resumos de emails recentes (remetente, assunto e resumo).
+                    Escreva um digest em português, em Markdown, agrupando por tema:
+                    destaque o que exige ação ou resposta, depois o informativo, e por fim
+                    newsletters/promoções em uma linha. Seja conciso.
+
+                    """ + String.join("\n", lines));
+        }
+
+        List<String> partials = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i += REDUCE_FAN_IN) {
+            List<String> part = lines.subList(i, Math.min(lines.size(), i + REDUCE_FAN_IN));
+            partials.add("- " + chatModel.chat("""
+                    Condense os resumos de emails abaixo em no máximo 8 tópicos curtos, em português,
+                    mantendo remetentes e pedidos de ação importantes:
+
+                    """ + String.join("\n", part)).replace("\n", "\n  "));
+        }
+        return reduce(partials);
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    /**
+     * Sem busca e com a caixa sincronizada, os metadados vêm do armazenamento local
+     * (se ele tiver todos os emails pedidos)
+     */
+    private List<MessageMetadata> selectEmails(int maxMessages, String query) throws IOException {
+        if ((query == null || query.isBlank()) && mailboxStore.isReady()) {
+            List<MessageMetadata> latest = mailboxStore.latest(maxMessages);
+            if (mailboxStore.covers(latest.size(), maxMessages)) {
+                return latest;
+            }
+        }
+
+        List<MessageMetadata> emails = new ArrayList<>();
+        try (GmailPageIterator pages = gmailFetchService.pages(query, maxMessages, maxMessages)) {
+            while (pages.hasNext()) {
+                pages.next().forEach(message -> emails.add(GmailFetchService.toMetadata(message)));
+            }
+        }
+        return emails;
+    }
+
+    private void persist() {
+        try {
+            Files.createDirectories(cachePath.toAbsolutePath().getParent());
+            Path temp = cachePath.resolveSibling(cachePath.getFileName() + ".tmp");
+            Map<String, String> snapshot;
+            synchronized (summaries) {
+                snapshot = new LinkedHashMap<>(summaries);
+            }
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                mapper.writeValue(out, snapshot);
+            }
+            Files.move(temp, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("⚠️ Falha ao gravar cache de resumos: {}", e.getMessage());
+        }
+    }
+
+    private String orEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
@@ -0,0 +1,241 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.stereotype.Service;
+
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.ListMessagesResponse;
+import com.google.api.services.gmail.model.Message;
+
+import br.com.sistema.springaigemini.models.Email;
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import br.com.sistema.springaigemini.models.Remetente;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consulta de emails em formato estruturado (modelo Email), para os endpoints REST.
+ *
+ * Usa as mesmas fontes das tools: GmailMailboxStore e MailSearchIndex quando a
+ * caixa está sincronizada, senão a API pelo GmailFetchService (metadados em batch).
+ *
+ * A paginação é por token opaco: "local:<offset>" nas consultas locais,
+ * ou o nextPageToken do próprio Gmail. Com a caixa sincronizada só em parte, a página
+ * que passa do armazenamento local vem da API, com o mesmo token "local:<offset>".
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GmailEmailService {
+
+    private static final String LOCAL_TOKEN_PREFIX = "local:";
+    private static final long API_LIST_PAGE_SIZE = 500L;
+
+    private final Gmail gmailService;
+    private final GmailFetchService gmailFetchService;
+    private final GmailRequestExecutor requestExecutor;
+    private final GmailMailboxStore mailboxStore;
+    private final MailSearchIndex searchIndex;
+    private final GmailBodyExtractor bodyExtractor;
+
+    /**
+     * Página de emails
+     */
+    public record EmailPage(List<Email> emails, String nextPageToken) {}
+
+    /**
+     * Email completo
+     */
+    public record EmailDetail(Email email, String threadId, String body) {}
+
+    // ==================== CONSULTAS ====================
+
+    /**
+     * Lista os emails mais recentes (opcionalmente só os não lidos)
+     */
+    public EmailPage list(String pageToken, int size, boolean unreadOnly) throws IOException {
+        String query = unreadOnly ? "is:unread" : null;
+        if (mailboxStore.isReady() && isLocalToken(pageToken)) {
+            int offset = offsetOf(pageToken);
+            List<MessageMetadata> window = mailboxStore.latest(offset + size + 1,
+                    unreadOnly ? MessageMetadata::isUnread : m -> true);
+            // Caixa parcial e janela incompleta: o resto da página está fora do armazenamento
+            if (mailboxStore.covers(window.size(), offset + size + 1)) {
+                return localPage(window, offset, size);
+            }
+            return apiPageAt(query, offset, size);
+        }
+        // Token local de uma página anterior (ex: o armazenamento foi recarregado): nunca vai para o Gmail
+        if (hasLocalPrefix(pageToken)) {
+            return apiPageAt(query, offsetOf(pageToken), size);
+        }
+
+        return apiPage(query, pageToken, size);
+    }
+
+    /**
+     * Busca emails: índice local para palavras-chave, API para operadores do Gmail
+     * (e para o que o índice local não cobre)
+     */
+    public EmailPage search(String query, String pageToken, int size) throws IOException {
+        if (mailboxStore.isReady() && !MailSearchIndex.usesGmailOperators(query) && isLocalToken(pageToken)) {
+            int offset = offsetOf(pageToken);
+            List<MessageMetadata> window = searchIndex.search(query, offset + size + 1).stream()
+                    .map(hit -> mailboxStore.get(hit.messageId()))
+                    .filter(Objects::nonNull)
+                    .toList();
+            if (mailboxStore.coversSearch(window.size(), offset + size + 1)) {
+                return localPage(window, offset, size);
+            }
+            return apiPageAt(query, offset, size);
+        }
+        if (hasLocalPrefix(pageToken)) {
+            return apiPageAt(query, offsetOf(pageToken), size);
+        }
+
+        return apiPage(query, pageToken, size);
+    }
+
+    /**
+     * Email completo, com o corpo convertido em texto
+     */
+    public EmailDetail get(String messageId) throws IOException {
+        Message message = requestExecutor.execute(GmailRequestExecutor.UNITS_GET, () -> gmailService.users()
+                .messages()
+                .get("me", messageId)
+                .setFormat("full")
+                .execute());
+
+        return new EmailDetail(toEmail(GmailFetchService.toMetadata(message), null), message.getThreadId(),
+                bodyExtractor.extract(message));
+    }
+
+    // ==================== CONVERSÃO ====================
+
+    /**
+     * Converte metadados locais no modelo Email
+     */
+    public static Email toEmail(MessageMetadata metadata, Integer numero) {
+        List<String> labels = metadata.getLabelIds() != null ? metadata.getLabelIds() : List.of();
+        return Email.builder()
+                .id(metadata.getId())
+                .numero(numero)
+                .remetente(parseRemetente(metadata.getFrom()))
+                .assunto(metadata.getSubject())
+                .data(metadata.getInternalDate() != null
+                        ? Instant.ofEpochMilli(metadata.getInternalDate()).toString()
+                        : metadata.getDate())
+                .preview(metadata.getSnippet())
+                .naoLido(labels.contains("UNREAD"))
+                .importante(labels.contains("IMPORTANT"))
+                .build();
+    }
+
+    /**
+     * "Nome <email@dominio>" → Remetente(nome, email)
+     */
+    static Remetente parseRemetente(String from) {
+        if (from == null || from.isBlank()) {
+            return null;
+        }
+
+        int open = from.lastIndexOf('<');
+        int close = from.lastIndexOf('>');
+        if (open >= 0 && close > open) {
+            String nome = from.substring(0, open).trim().replaceAll("^\"|\"$", "");
+            String email = from.substring(open + 1, close).trim();
+            return new Remetente(nome.isEmpty() ? email : nome, email);
+        }
+        return new Remetente(from.trim(), from.trim());
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    private EmailPage apiPage(String query, String pageToken, int size) throws IOException {
+        GmailPageIterator.Page page = gmailFetchService.page(query, pageToken, size);
+
+        List<Email> emails = new ArrayList<>(page.messages().size());
+        for (Message message : page.messages()) {
+            emails.add(toEmail(GmailFetchService.toMetadata(message), emails.size() + 1));
+        }
+        return new EmailPage(emails, page.nextPageToken());
+    }
+
+    /**
+     * Página [offset, offset + size) pela API, mantendo a numeração e o pageToken local
+     * (a página seguinte também pode ser respondida localmente ou pela API)
+     */
+    private EmailPage apiPageAt(String query, int offset, int size) throws IOException {
+        List<String> ids = new ArrayList<>();
+        String pageToken = null;
+        do {
+            String token = pageToken;
+            long pageSize = Math.min(API_LIST_PAGE_SIZE, offset + size + 1 - ids.size());
+            ListMessagesResponse response = requestExecutor.execute(GmailRequestExecutor.UNITS_LIST,
+                    () -> gmailService.users()
+                            .messages()
+                            .list("me")
+                            .setQ(query)
+                            .setMaxResults(pageSize)
+                            .setPageToken(token)
+                            .setFields("messages/id,nextPageToken")
+                            .execute());
+            if (response.getMessages() != null) {
+                response.getMessages().forEach(m -> ids.add(m.getId()));
+            }
+            pageToken = response.getNextPageToken();
+        } while (pageToken != null && ids.size() <= offset + size);
+
+        List<String> slice = ids.subList(Math.min(offset, ids.size()), Math.min(ids.size(), offset + size));
+        List<Email> emails = new ArrayList<>(slice.size());
+        for (Message message : gmailFetchService.getMessagesMetadata(slice)) {
+            if (message != null) {
+                emails.add(toEmail(GmailFetchService.toMetadata(message), offset + emails.size() + 1));
+            }
+        }
+
+        String next = ids.size() > offset + size ? LOCAL_TOKEN_PREFIX + (offset + size) : null;
+        return new EmailPage(emails, next);
+    }
+
+    /**
+     * Recorta [offset, offset + size) de uma janela que tem até um item a mais
+     * (o item extra indica que existe próxima página)
+     */
+    private EmailPage localPage(List<MessageMetadata> window, int offset, int size) {
+        List<Email> emails = new ArrayList<>(size);
+        for (int i = offset; i < Math.min(window.size(), offset + size); i++) {
+            emails.add(toEmail(window.get(i), i + 1));
+        }
+
+        String next = window.size() > offset + size ? LOCAL_TOKEN_PREFIX + (offset + size) : null;
+        return new EmailPage(emails, next);
+    }
+
+    private boolean isLocalToken(String pageToken) {
+        return pageToken == null || pageToken.isBlank() || hasLocalPrefix(pageToken);
+    }
+
+    /**
+     * Token gerado por esta classe ("local:offset"), que o Gmail não conhece
+     */
+    private boolean hasLocalPrefix(String pageToken) {
+        return pageToken != null && pageToken.startsWith(LOCAL_TOKEN_PREFIX);
+    }
+
+    private int offsetOf(String pageToken) {
+        if (pageToken == null || pageToken.isBlank()) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(pageToken.substring(LOCAL_TOKEN_PREFIX.length())));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("pageToken inválido: " + pageToken);
+        }
+    }
+}
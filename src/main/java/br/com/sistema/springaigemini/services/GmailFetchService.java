@@ -0,0 +1,271 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.stereotype.Service;
+
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.ListMessagesResponse;
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePartHeader;
+
+import br.com.sistema.springaigemini.models.MessageMetadata;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Camada de busca de mensagens do Gmail.
+ * 
+ * Agrupa os messages().get() em batch requests do Gmail
+ * (até BATCH_SIZE sub-requisições por chamada HTTP):
+ * listar 50 emails passa de 51 round trips para 2 (list + 1 batch).
+ * 
+ * A ordem do resultado é sempre a mesma dos IDs informados; mensagens que não
+ * existem mais (404, ex: apagadas entre o list e o get) vêm como null.
+ * 
+ * Listagens usam getMessagesMetadata() (format=metadata + fields),
+ * que não baixa corpo nem anexos.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GmailFetchService {
+
+    private static final String USER_ID = "me";
+    private static final String BATCH_PATH = "batch/gmail/v1";
+    private static final int BATCH_SIZE = 50; // Recomendação do Gmail (máx. 100)
+    private static final int MAX_PAGE_SIZE = 500; // Máximo do messages().list()
+
+    /** Headers usados nas listagens (De, Assunto, Data) */
+    public static final List<String> LISTING_HEADERS = List.of("Subject", "From", "Date");
+
+    /** Partial response: só os campos usados nas listagens */
+    static final String METADATA_FIELDS = "id,threadId,labelIds,snippet,internalDate,payload/headers";
+
+    private final Gmail gmailService;
+    private final GmailRequestExecutor requestExecutor;
+
+    /**
+     * Busca as mensagens completas (formato padrão) pelos IDs, na mesma ordem.
+     * 
+     * @param ids IDs das mensagens
+     * @return mensagens na mesma ordem dos IDs
+     */
+    public List<Message> getMessages(List<String> ids) throws IOException {
+        return fetch(ids, this::fullRequest);
+    }
+
+    /**
+     * Busca apenas os metadados usados nas listagens (format=metadata).
+     * 
+     * Baixa só Subject/From/Date, labels, snippet e internalDate, sem o corpo
+     * nem anexos: ordem de grandeza menor em emails HTML grandes.
+     * 
+     * @param ids IDs das mensagens
+     * @return mensagens (sem corpo) na mesma ordem dos IDs
+     */
+    public List<Message> getMessagesMetadata(List<String> ids) throws IOException {
+        return fetch(ids, this::metadataRequest);
+    }
+
+    /**
+     * Percorre a listagem página a página (nextPageToken), com metadados em batch
+     * e a próxima página buscada enquanto a atual é processada.
+     * 
+     * @param query busca do Gmail (null = todas)
+     * @param pageSize mensagens por página (máx. 500)
+     * @param maxMessages total máximo de mensagens
+     * @return iterador de páginas (fechar após o uso)
+     */
+    public GmailPageIterator pages(String query, int pageSize, int maxMessages) {
+        return new GmailPageIterator((pageToken, size) -> page(query, pageToken, size),
+                Math.min(pageSize, MAX_PAGE_SIZE), maxMessages);
+    }
+
+    /**
+     * Uma página da listagem, com os metadados buscados em batch
+     * 
+     * @param query busca do Gmail (null = todas)
+     * @param pageToken token da página (null = primeira)
+     * @param pageSize mensagens por página (máx. 500)
+     * @return mensagens da página e o token da próxima
+     */
+    public GmailPageIterator.Page page(String query, String pageToken, int pageSize) throws IOException {
+        ListMessagesResponse response = requestExecutor.execute(GmailRequestExecutor.UNITS_LIST,
+                () -> gmailService.users().messages().list(USER_ID)
+                        .setQ(query)
+                        .setMaxResults((long) Math.min(pageSize, MAX_PAGE_SIZE))
+                        .setPageToken(pageToken)
+                        .execute());
+
+        List<Message> messages = response.getMessages() == null ? List.of()
+                : getMessagesMetadata(response.getMessages().stream().map(Message::getId).toList())
+                        .stream().filter(Objects::nonNull).toList();
+
+        return new GmailPageIterator.Page(messages, response.getNextPageToken());
+    }
+
+    /**
+     * Converte uma mensagem (format=metadata) em metadados locais
+     */
+    public static MessageMetadata toMetadata(Message message) {
+        return MessageMetadata.builder()
+                .id(message.getId())
+                .threadId(message.getThreadId())
+                .labelIds(message.getLabelIds() != null ? new ArrayList<>(message.getLabelIds()) : new ArrayList<>())
+                .subject(header(message, "Subject"))
+                .from(header(message, "From"))
+                .date(header(message, "Date"))
+                .snippet(message.getSnippet())
+                .internalDate(message.getInternalDate())
+                .build();
+    }
+
+    private static String header(Message message, String name) {
+        if (message.getPayload() == null || message.getPayload().getHeaders() == null) {
+            return null;
+        }
+        for (MessagePartHeader header : message.getPayload().getHeaders()) {
+            if (name.equalsIgnoreCase(header.getName())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    private Gmail.Users.Messages.Get fullRequest(String id) throws IOException {
+        return gmailService.users().messages().get(USER_ID, id);
+    }
+
+    private Gmail.Users.Messages.Get metadataRequest(String id) throws IOException {
+        return gmailService.users().messages().get(USER_ID, id)
+                .setFormat("metadata")
+                .setMetadataHeaders(LISTING_HEADERS)
+                .setFields(METADATA_FIELDS);
+    }
+
+    /**
+     * Busca em batches de BATCH_SIZE e mantém a ordem dos IDs.
+     * 
+     * Falha do batch inteiro (ex: 429/503 na requisição multipart) refaz o batch pelo
+     * GmailRequestExecutor, montado de novo só com as partes ainda sem resposta (o BatchRequest
+     * esvazia a fila ao executar). Sub-requisições que falharem dentro do batch são refeitas
+     * individualmente; se esgotarem os retries, a exceção é propagada.
+     */
+    private List<Message> fetch(List<String> ids, GetRequestFactory requestFactory) throws IOException {
+        Message[] results = new Message[ids.size()];
+        boolean[] notFound = new boolean[ids.size()];
+
+        for (int start = 0; start < ids.size(); start += BATCH_SIZE) {
+            int end = Math.min(start + BATCH_SIZE, ids.size());
+            executeBatch(ids, start, end, results, notFound, requestFactory);
+        }
+
+        // Refaz individualmente (em paralelo, com retry) o que falhou no batch
+        List<Integer> failed = new ArrayList<>();
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null && !notFound[i]) {
+                failed.add(i);
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            log.warn("Refazendo busca individual de {} mensagens", failed.size());
+            List<Message> retried = requestExecutor.executeAll(failed, GmailRequestExecutor.UNITS_GET,
+                    index -> getOrNull(requestFactory.create(ids.get(index))));
+            for (int i = 0; i < failed.size(); i++) {
+                results[failed.get(i)] = retried.get(i);
+            }
+        }
+
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * Executa um batch com as mensagens [start, end) e grava em results[i]
+     */
+    private void executeBatch(List<String> ids, int start, int end, Message[] results, boolean[] notFound,
+            GetRequestFactory requestFactory) throws IOException {
+        // A cota é reservada por parte, dentro da tentativa: cada reenvio do batch paga de novo
+        // o que reenvia, e um batch não esvazia o bucket numa reserva só
+        requestExecutor.execute(0, () -> {
+            BatchRequest batch = newBatch();
+
+            for (int i = start; i < end; i++) {
+                if (results[i] != null || notFound[i]) {
+                    continue;
+                }
+                requestExecutor.acquire(GmailRequestExecutor.UNITS_GET);
+                queue(batch, ids, i, results, notFound, requestFactory);
+            }
+
+            if (batch.size() > 0) {
+                log.debug("Executando batch com {} mensagens", batch.size());
+                batch.execute();
+            }
+            return null;
+        });
+    }
+
+    private void queue(BatchRequest batch, List<String> ids, int index, Message[] results, boolean[] notFound,
+            GetRequestFactory requestFactory) throws IOException {
+        requestFactory.create(ids.get(index))
+                .queue(batch, new JsonBatchCallback<Message>() {
+                    @Override
+                    public void onSuccess(Message message, HttpHeaders responseHeaders) {
+                        results[index] = message;
+                    }
+
+                    @Override
+                    public void onFailure(GoogleJsonError error, HttpHeaders responseHeaders) {
+                        if (error.getCode() == 404) {
+                            notFound[index] = true;
+                            return;
+                        }
+                        log.warn("Falha no batch para a mensagem {}: {} {}", ids.get(index),
+                                error.getCode(), error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Executa o get(); mensagem removida nesse meio tempo (404) retorna null
+     */
+    private Message getOrNull(Gmail.Users.Messages.Get request) throws IOException {
+        try {
+            return request.execute();
+        } catch (GoogleJsonResponseException e) {
+            if (e.getStatusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    private BatchRequest newBatch() {
+        BatchRequest batch = gmailService.batch();
+        batch.setBatchUrl(new GenericUrl(gmailService.getRootUrl() + BATCH_PATH));
+        return batch;
+    }
+
+    /**
+     * Cria a requisição get() de uma mensagem (formato/campos variam por uso)
+     */
+    @FunctionalInterface
+    private interface GetRequestFactory {
+        Gmail.Users.Messages.Get create(String id) throws IOException;
+    }
+}
@@ -0,0 +1,176 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Label;
+import com.google.api.services.gmail.model.ListLabelsResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Contadores de labels do Gmail em cache (users.labels.get).
+ *
+ * Uma chamada de 1 unidade devolve o total de mensagens/conversas da label e quantas
+ * estão não lidas: perguntas como "quantos emails não lidos eu tenho" não precisam
+ * listar nem buscar mensagens.
+ *
+ * - Cache por label, válido enquanto a versão do GmailMailboxStore não mudar
+ *   (sincronização ou ação do assistente) e por no máximo max-age
+ * - Após cada sincronização, os contadores em cache desatualizados (e as labels de
+ *   "warm", ex: INBOX e UNREAD) são buscados de novo, fora do caminho da pergunta
+ * - Aceita o ID ou o nome da label ("Trabalho" → "Label_123"), via labels.list em cache
+ */
+@Service
+@Slf4j
+public class GmailLabelCounters {
+
+    private static final String DEFAULT_LABEL = "INBOX";
+    private static final String LABEL_FIELDS = "id,name,type,messagesTotal,messagesUnread,threadsTotal,threadsUnread";
+
+    private final Gmail gmailService;
+    private final GmailRequestExecutor requestExecutor;
+    private final GmailMailboxStore mailboxStore;
+    private final Duration maxAge;
+    private final List<String> warmLabels;
+
+    private final Map<String, LabelCounts> counters = new ConcurrentHashMap<>();
+    /** nome da label em minúsculas → ID */
+    private final Map<String, String> idsByName = new ConcurrentHashMap<>();
+
+    public GmailLabelCounters(
+            Gmail gmailService,
+            GmailRequestExecutor requestExecutor,
+            GmailMailboxStore mailboxStore,
+            @Value("${gmail.labels.max-age-seconds:300}") long maxAgeSeconds,
+            @Value("${gmail.labels.warm:INBOX,UNREAD}") List<String> warmLabels) {
+        this.gmailService = gmailService;
+        this.requestExecutor = requestExecutor;
+        this.mailboxStore = mailboxStore;
+        this.maxAge = Duration.ofSeconds(maxAgeSeconds);
+        this.warmLabels = warmLabels;
+    }
+
+    /**
+     * Contadores de uma label
+     *
+     * @param version versão do GmailMailboxStore quando os contadores foram lidos
+     */
+    public record LabelCounts(String id, String name, String type, int messagesTotal, int messagesUnread,
+                              int threadsTotal, int threadsUnread, long version, Instant fetchedAt) {}
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Contadores da label (do cache quando ainda válidos)
+     *
+     * @param labelNameOrId ID ou nome da label (vazio = INBOX)
+     */
+    public LabelCounts get(String labelNameOrId) throws IOException {
+        String id = resolve(labelNameOrId);
+        LabelCounts cached = counters.get(id);
+        if (isFresh(cached)) {
+            return cached;
+        }
+        return fetch(id);
+    }
+
+    /**
+     * Chamado após a sincronização: atualiza os contadores desatualizados
+     */
+    public void refreshStale() {
+        Set<String> ids = new LinkedHashSet<>();
+        warmLabels.forEach(id -> ids.add(id.trim()));
+        ids.addAll(counters.keySet());
+
+        int refreshed = 0;
+        for (String id : ids) {
+            if (isFresh(counters.get(id))) {
+                continue;
+            }
+            try {
+                fetch(id);
+                refreshed++;
+            } catch (IOException e) {
+                counters.remove(id);
+                log.warn("⚠️ Contadores da label {} não atualizados: {}", id, e.getMessage());
+            }
+        }
+        if (refreshed > 0) {
+            log.debug("🏷️ {} contadores de labels atualizados", refreshed);
+        }
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    private boolean isFresh(LabelCounts counts) {
+        return counts != null
+                && counts.version() == mailboxStore.version()
+                && counts.fetchedAt().plus(maxAge).isAfter(Instant.now());
+    }
+
+    private LabelCounts fetch(String id) throws IOException {
+        // Versão lida antes da chamada: uma alteração durante a chamada invalida o resultado
+        long version = mailboxStore.version();
+        Label label = requestExecutor.execute(GmailRequestExecutor.UNITS_LABEL_GET, () -> gmailService.users()
+                .labels()
+                .get("me", id)
+                .setFields(LABEL_FIELDS)
+                .execute());
+
+        LabelCounts counts = new LabelCounts(label.getId(), label.getName(), label.getType(),
+                orZero(label.getMessagesTotal()), orZero(label.getMessagesUnread()),
+                orZero(label.getThreadsTotal()), orZero(label.getThreadsUnread()), version, Instant.now());
+        counters.put(label.getId(), counts);
+        return counts;
+    }
+
+    /**
+     * Nome ou ID → ID; nomes desconhecidos recarregam a lista de labels uma vez
+     */
+    private String resolve(String labelNameOrId) throws IOException {
+        if (labelNameOrId == null || labelNameOrId.isBlank()) {
+            return DEFAULT_LABEL;
+        }
+
+        String key = labelNameOrId.trim().toLowerCase(Locale.ROOT);
+        String id = idsByName.get(key);
+        if (id == null && !counters.containsKey(labelNameOrId.trim())) {
+            loadLabelNames();
+            id = idsByName.get(key);
+        }
+        return id != null ? id : labelNameOrId.trim();
+    }
+
+    private void loadLabelNames() throws IOException {
+        ListLabelsResponse response = requestExecutor.execute(GmailRequestExecutor.UNITS_LABEL_LIST,
+                () -> gmailService.users()
+                        .labels()
+                        .list("me")
+                        .setFields("labels(id,name)")
+                        .execute());
+
+        if (response.getLabels() != null) {
+            for (Label label : response.getLabels()) {
+                idsByName.put(label.getName().toLowerCase(Locale.ROOT), label.getId());
+                idsByName.put(label.getId().toLowerCase(Locale.ROOT), label.getId());
+            }
+        }
+        log.info("🏷️ {} labels carregadas", response.getLabels() != null ? response.getLabels().size() : 0);
+    }
+
+    private int orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,328 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Armazenamento local dos metadados da caixa de email.
+ * 
+ * - Mantém os metadados em memória (por ID)
+ * - Persiste um snapshot compacto (Smile) em disco após cada sincronização,
+ *   com escrita atômica (arquivo temporário + move)
+ * - Carrega o snapshot na inicialização: a sincronização continua do último historyId
+ * - Versão local: incrementada a cada alteração (sincronização ou ação do assistente),
+ *   para caches derivados saberem quando ficaram desatualizados
+ * - Só guarda emails visíveis: mensagens na lixeira (TRASH) ou no spam (SPAM) saem do
+ *   armazenamento, como na listagem padrão do Gmail
+ * - Cobertura: a sincronização completa para em full-max-messages; sem a caixa inteira,
+ *   uma consulta local só é confiável se encontrou tudo o que pediu (covers)
+ */
+@Component
+@Slf4j
+public class GmailMailboxStore {
+
+    private static final Comparator<MessageMetadata> NEWEST_FIRST = Comparator
+            .comparing((MessageMetadata m) -> m.getInternalDate() != null ? m.getInternalDate() : 0L)
+            .reversed();
+
+    private final Path storePath;
+    private final ObjectMapper mapper;
+    // Trocado inteiro na sincronização completa (replaceAll), nunca esvaziado no lugar:
+    // quem lê vê o conteúdo anterior ou o novo, não um mapa pela metade
+    private volatile Map<String, MessageMetadata> messages = new ConcurrentHashMap<>();
+    private volatile BigInteger historyId;
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean complete;
+
+    /**
+     * Labels que tiram a mensagem do armazenamento
+     */
+    public static final Set<String> HIDDEN_LABELS = Set.of("TRASH", "SPAM");
+
+    public GmailMailboxStore(
+            @Value("${gmail.sync.store-path:${user.home}/.assistant-ai/gmail-mailbox.smile}") String storePath,
+            SmileFactory smileFactory) {
+        this.storePath = Path.of(storePath);
+        this.mapper = new ObjectMapper(smileFactory)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    /**
+     * Snapshot persistido em disco
+     */
+    public record Snapshot(BigInteger historyId, List<MessageMetadata> messages, boolean complete) {}
+
+    @PostConstruct
+    public void load() {
+        if (!Files.exists(storePath)) {
+            log.info("📭 Nenhum snapshot local da caixa de email em {}", storePath);
+            return;
+        }
+
+        try (InputStream in = Files.newInputStream(storePath)) {
+            Snapshot snapshot = mapper.readValue(in, Snapshot.class);
+            messages = visible(snapshot.messages());
+            historyId = snapshot.historyId();
+            complete = snapshot.complete();
+            log.info("✅ Snapshot local carregado: {} mensagens (historyId {}{})", messages.size(), historyId,
+                    complete ? "" : ", caixa parcial");
+        } catch (IOException e) {
+            log.warn("⚠️ Snapshot local inválido, será feita sincronização completa: {}", e.getMessage());
+            messages = new ConcurrentHashMap<>();
+            historyId = null;
+        }
+    }
+
+    /**
+     * Grava o snapshot atual em disco (escrita atômica)
+     */
+    public synchronized void persist() throws IOException {
+        Files.createDirectories(storePath.toAbsolutePath().getParent());
+        Path temp = storePath.resolveSibling(storePath.getFileName() + ".tmp");
+
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            mapper.writeValue(out, new Snapshot(historyId, new ArrayList<>(messages.values()), complete));
+        }
+        Files.move(temp, storePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("💾 Snapshot gravado: {} mensagens", messages.size());
+    }
+
+    // ==================== LEITURA ====================
+
+    /**
+     * Indica se já houve ao menos uma sincronização completa
+     */
+    public boolean isReady() {
+        return historyId != null;
+    }
+
+    public BigInteger getHistoryId() {
+        return historyId;
+    }
+
+    /**
+     * Indica se a última sincronização completa trouxe a caixa inteira
+     * (false: só os full-max-messages emails mais recentes)
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Indica se uma consulta local que pediu "wanted" e encontrou "found" emails é confiável.
+     *
+     * Os emails fora do armazenamento são mais antigos que os sincronizados: com a caixa
+     * parcial, só dá para confiar na resposta local se ela encontrou tudo o que pediu
+     * (senão os que faltam podem estar na parte não sincronizada).
+     */
+    public boolean covers(int found, int wanted) {
+        return complete || found >= wanted;
+    }
+
+    /**
+     * Indica se o resultado de uma busca no índice local (que só conhece os emails
+     * sincronizados) pode ser a resposta: encontrou tudo o que pediu, ou a caixa está
+     * completa e houve algum resultado. Sem resultado, quem confere é a API (a busca do
+     * Gmail também casa anexos, endereços parciais...).
+     */
+    public boolean coversSearch(int hits, int wanted) {
+        return hits >= wanted || (complete && hits > 0);
+    }
+
+    /**
+     * Versão local do conteúdo (muda a cada alteração)
+     */
+    public long version() {
+        return version.get();
+    }
+
+    public MessageMetadata get(String id) {
+        return messages.get(id);
+    }
+
+    public int size() {
+        return messages.size();
+    }
+
+    /**
+     * IDs de todas as mensagens armazenadas
+     */
+    public Set<String> ids() {
+        return new HashSet<>(messages.keySet());
+    }
+
+    /**
+     * Todas as mensagens armazenadas (sem ordem definida)
+     */
+    public List<MessageMetadata> all() {
+        return new ArrayList<>(messages.values());
+    }
+
+    /**
+     * Mensagens mais recentes primeiro (até "limit")
+     */
+    public List<MessageMetadata> latest(int limit) {
+        return latest(limit, m -> true);
+    }
+
+    /**
+     * Mensagens mais recentes que atendem ao filtro (até "limit")
+     */
+    public List<MessageMetadata> latest(int limit, Predicate<MessageMetadata> filter) {
+        return messages.values().stream()
+                .filter(filter)
+                .sorted(NEWEST_FIRST)
+                .limit(limit)
+                .toList();
+    }
+
+    // ==================== ESCRITA ====================
+
+    /**
+     * Substitui todo o conteúdo (sincronização completa)
+     *
+     * O novo mapa é montado à parte e publicado de uma vez: durante a troca,
+     * isReady()/covers() continuam valendo para o conteúdo anterior, que segue inteiro.
+     *
+     * @param complete true se a listagem chegou ao fim da caixa
+     */
+    public synchronized void replaceAll(List<MessageMetadata> all, BigInteger newHistoryId, boolean complete) {
+        messages = visible(all);
+        historyId = newHistoryId;
+        this.complete = complete;
+        version.incrementAndGet();
+    }
+
+    /**
+     * Guarda uma mensagem (ou a remove, se estiver na lixeira/spam)
+     */
+    public void put(MessageMetadata message) {
+        if (isHidden(message.getLabelIds())) {
+            remove(message.getId());
+            return;
+        }
+        messages.put(message.getId(), message);
+        version.incrementAndGet();
+    }
+
+    public void remove(String id) {
+        if (messages.remove(id) != null) {
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Atualiza as labels de uma mensagem já conhecida
+     * (foi para a lixeira/spam: sai do armazenamento)
+     *
+     * @return true se a mensagem está no armazenamento
+     */
+    public boolean updateLabels(String id, List<String> labelIds) {
+        List<String> labels = labelIds != null ? new ArrayList<>(labelIds) : new ArrayList<>();
+        if (isHidden(labels)) {
+            remove(id);
+            return false;
+        }
+        return changeLabels(id, current -> labels);
+    }
+
+    /**
+     * Adiciona/remove uma label (ex: UNREAD após markAsRead)
+     */
+    public void toggleLabel(String id, String labelId, boolean present) {
+        if (present && HIDDEN_LABELS.contains(labelId)) {
+            remove(id);
+            return;
+        }
+        changeLabels(id, current -> {
+            List<String> labels = new ArrayList<>(current);
+            labels.remove(labelId);
+            if (present) {
+                labels.add(labelId);
+            }
+            return labels;
+        });
+    }
+
+    public void setHistoryId(BigInteger historyId) {
+        if (historyId != null && !historyId.equals(this.historyId)) {
+            version.incrementAndGet();
+        }
+        this.historyId = historyId;
+    }
+
+    /**
+     * Mensagem que não deve ficar no armazenamento (lixeira ou spam)
+     */
+    public static boolean isHidden(List<String> labelIds) {
+        if (labelIds == null) {
+            return false;
+        }
+        for (String label : labelIds) {
+            if (HIDDEN_LABELS.contains(label)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    /**
+     * Mapa por ID só com as mensagens visíveis (fora da lixeira/spam)
+     */
+    private static Map<String, MessageMetadata> visible(List<MessageMetadata> all) {
+        Map<String, MessageMetadata> visible = new ConcurrentHashMap<>(Math.max(16, all.size() * 4 / 3 + 1));
+        all.stream().filter(m -> !isHidden(m.getLabelIds())).forEach(m -> visible.put(m.getId(), m));
+        return visible;
+    }
+
+    /**
+     * Troca as labels de uma mensagem conhecida; a versão só muda se as labels mudaram
+     *
+     * @return true se a mensagem está no armazenamento
+     */
+    private boolean changeLabels(String id, UnaryOperator<List<String>> change) {
+        boolean[] changed = new boolean[1];
+        MessageMetadata message = messages.computeIfPresent(id, (key, m) -> {
+            List<String> current = m.getLabelIds() != null ? m.getLabelIds() : List.of();
+            List<String> labels = change.apply(current);
+            if (labels.equals(current)) {
+                return m;
+            }
+            changed[0] = true;
+            // Cópia em vez de alterar a instância que all()/latest() já entregaram a outras threads
+            return m.toBuilder().labelIds(List.copyOf(labels)).build();
+        });
+        if (changed[0]) {
+            version.incrementAndGet();
+        }
+        return message != null;
+    }
+}
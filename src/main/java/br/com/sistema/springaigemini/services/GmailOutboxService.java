@@ -0,0 +1,462 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+
+import br.com.sistema.springaigemini.enums.StatusEnvio;
+import br.com.sistema.springaigemini.models.OutboundEmail;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Message.RecipientType;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fila persistente de envio de emails.
+ *
+ * - enqueue() grava no journal e retorna na hora; o envio acontece em segundo plano
+ * - Journal append-only (uma linha JSON por mudança de estado), com fsync a cada gravação;
+ *   na inicialização o journal é reprocessado (último estado de cada email vence) e compactado
+ * - Workers limitados (virtual threads), com a cota do GmailRequestExecutor
+ * - Falhas temporárias voltam para a fila com backoff exponencial e jitter
+ * - Deduplicação por chave de idempotência: a informada, ou o hash de destinatário,
+ *   assunto e corpo dentro de uma janela de tempo
+ *
+ * Um email em ENVIANDO quando a aplicação parou volta para a fila (entrega "ao menos uma vez").
+ * Cada tentativa da fila faz um único users.messages.send, sem o retry do GmailRequestExecutor
+ * (send não é idempotente: repetir dentro da mesma tentativa multiplicaria os emails enviados).
+ *
+ * O journal guarda destinatário, assunto e corpo em texto puro: o arquivo é criado só com
+ * leitura/escrita para o dono (rw-------, em sistemas POSIX), e envios finalizados saem dele
+ * após retention-days.
+ */
+@Service
+@Slf4j
+public class GmailOutboxService {
+
+    private final Gmail gmailService;
+    private final GmailRequestExecutor requestExecutor;
+    private final ObjectMapper mapper;
+    private final Path journalPath;
+    private final int workers;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long dedupWindowMillis;
+    private final long retentionMillis;
+
+    private final Map<String, OutboundEmail> emails = new ConcurrentHashMap<>();
+    private final Map<String, String> idsByKey = new ConcurrentHashMap<>();
+
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private FileChannel journal;
+    private int journalLines;
+
+    private ExecutorService workerPool;
+    private ScheduledExecutorService retryScheduler;
+
+    private static final int COMPACT_MIN_LINES = 10_000;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    public GmailOutboxService(
+            Gmail gmailService,
+            GmailRequestExecutor requestExecutor,
+            ObjectMapper objectMapper,
+            @Value("${gmail.outbox.journal-path:${user.home}/.assistant-ai/gmail-outbox.ndjson}") String journalPath,
+            @Value("${gmail.outbox.workers:2}") int workers,
+            @Value("${gmail.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${gmail.outbox.base-backoff-ms:5000}") long baseBackoffMillis,
+            @Value("${gmail.outbox.max-backoff-ms:600000}") long maxBackoffMillis,
+            @Value("${gmail.outbox.dedup-window-minutes:10}") long dedupWindowMinutes,
+            @Value("${gmail.outbox.retention-days:7}") long retentionDays) {
+        this.gmailService = gmailService;
+        this.requestExecutor = requestExecutor;
+        this.mapper = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.journalPath = Path.of(journalPath);
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.dedupWindowMillis = TimeUnit.MINUTES.toMillis(dedupWindowMinutes);
+        this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(journalPath.toAbsolutePath().getParent());
+        replay();
+        compact();
+
+        workerPool = Executors.newFixedThreadPool(workers, Thread.ofVirtual().name("gmail-outbox-", 0).factory());
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("gmail-outbox-retry").daemon(true).factory());
+
+        List<OutboundEmail> pending = emails.values().stream().filter(e -> e.getStatus().isPendente()).toList();
+        pending.forEach(this::schedule);
+        if (!pending.isEmpty()) {
+            log.info("📤 {} emails pendentes retomados da fila", pending.size());
+        }
+    }
+
+    /**
+     * Para de agendar, espera os envios em andamento gravarem o resultado e só então fecha o journal
+     * (o que ficar pendente é retomado na próxima inicialização)
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        if (retryScheduler != null) {
+            retryScheduler.shutdownNow();
+        }
+        if (workerPool != null) {
+            workerPool.shutdown();
+            try {
+                if (!workerPool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("⚠️ Envios ainda em andamento após {}s, interrompendo", SHUTDOWN_TIMEOUT_SECONDS);
+                    workerPool.shutdownNow();
+                    workerPool.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                }
+            } catch (InterruptedException e) {
+                workerPool.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        journalLock.lock();
+        try {
+            if (journal != null) {
+                journal.close();
+                journal = null;
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // ==================== FILA ====================
+
+    /**
+     * Coloca um email na fila e retorna imediatamente.
+     *
+     * @param idempotencyKey chave de deduplicação (null = hash do conteúdo, válido na janela de dedup)
+     * @return o email enfileirado, ou o já existente com a mesma chave
+     */
+    public OutboundEmail enqueue(String to, String subject, String body, String idempotencyKey) throws IOException {
+        boolean derivedKey = idempotencyKey == null || idempotencyKey.isBlank();
+        String key = derivedKey ? contentKey(to, subject, body) : idempotencyKey;
+        long now = System.currentTimeMillis();
+
+        synchronized (idsByKey) {
+            OutboundEmail existing = findByKey(key);
+            if (existing != null && existing.getStatus() != StatusEnvio.FALHOU
+                    && (!derivedKey || now - existing.getCreatedAt() < dedupWindowMillis)) {
+                log.info("♻️ Email duplicado ignorado (chave {}), já na fila como {}", key, existing.getId());
+                return existing;
+            }
+
+            OutboundEmail email = OutboundEmail.builder()
+                    .id(UUID.randomUUID().toString())
+                    .idempotencyKey(key)
+                    .to(to)
+                    .subject(subject)
+                    .body(body)
+                    .status(StatusEnvio.NA_FILA)
+                    .attempts(0)
+                    .nextAttemptAt(now)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .build();
+
+            record(email);
+            log.info("📥 Email para {} na fila: {}", to, email.getId());
+            schedule(email);
+            return email;
+        }
+    }
+
+    public OutboundEmail get(String id) {
+        return emails.get(id);
+    }
+
+    /**
+     * Emails mais recentes da fila (qualquer status)
+     */
+    public List<OutboundEmail> recent(int limit) {
+        return emails.values().stream()
+                .sorted(Comparator.comparing(OutboundEmail::getCreatedAt).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    // ==================== ENTREGA ====================
+
+    private void schedule(OutboundEmail email) {
+        long delay = Math.max(0, email.getNextAttemptAt() - System.currentTimeMillis());
+        if (delay == 0) {
+            workerPool.execute(() -> deliver(email.getId()));
+        } else {
+            retryScheduler.schedule(() -> workerPool.execute(() -> deliver(email.getId())),
+                    delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void deliver(String id) {
+        OutboundEmail queued = emails.get(id);
+        if (queued == null || !queued.getStatus().isPendente()) {
+            return;
+        }
+
+        OutboundEmail sending = queued.toBuilder()
+                .status(StatusEnvio.ENVIANDO)
+                .attempts(queued.getAttempts() + 1)
+                .updatedAt(System.currentTimeMillis())
+                .build();
+
+        try {
+            record(sending);
+
+            // Só a cota: uma chamada por tentativa, o retry com backoff é o da própria fila
+            Message message = new Message().setRaw(buildRaw(sending));
+            requestExecutor.acquire(GmailRequestExecutor.UNITS_SEND);
+            Message sent = gmailService.users()
+                    .messages()
+                    .send("me", message)
+                    .execute();
+
+            record(sending.toBuilder()
+                    .status(StatusEnvio.ENVIADO)
+                    .gmailMessageId(sent.getId())
+                    .lastError(null)
+                    .updatedAt(System.currentTimeMillis())
+                    .build());
+            log.info("✅ Email {} enviado para {} (ID Gmail: {})", id, sending.getTo(), sent.getId());
+
+        } catch (IOException e) {
+            boolean retry = requestExecutor.isRetryable(e) && sending.getAttempts() < maxAttempts;
+            fail(sending, e.getMessage(), retry);
+        } catch (MessagingException | RuntimeException e) {
+            fail(sending, e.getMessage(), false);
+        }
+    }
+
+    private void fail(OutboundEmail email, String error, boolean retry) {
+        long now = System.currentTimeMillis();
+        OutboundEmail failed = email.toBuilder()
+                .status(retry ? StatusEnvio.NA_FILA : StatusEnvio.FALHOU)
+                .lastError(error)
+                .nextAttemptAt(retry ? now + backoffMillis(email.getAttempts()) : null)
+                .updatedAt(now)
+                .build();
+
+        try {
+            record(failed);
+        } catch (IOException e) {
+            log.error("Falha ao gravar journal da fila de envio", e);
+            emails.put(failed.getId(), failed);
+        }
+
+        if (retry) {
+            log.warn("⚠️ Envio {} falhou (tentativa {}/{}), nova tentativa em {} ms: {}", email.getId(),
+                    email.getAttempts(), maxAttempts, failed.getNextAttemptAt() - now, error);
+            schedule(failed);
+        } else {
+            log.error("❌ Envio {} falhou definitivamente: {}", email.getId(), error);
+        }
+    }
+
+    private String buildRaw(OutboundEmail outbound) throws MessagingException, IOException {
+        Session session = Session.getDefaultInstance(new Properties(), null);
+        MimeMessage email = new MimeMessage(session);
+
+        email.setFrom("me");
+        email.addRecipients(RecipientType.TO, outbound.getTo());
+        email.setSubject(outbound.getSubject());
+        email.setText(outbound.getBody());
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        email.writeTo(buffer);
+        return Base64.getUrlEncoder().encodeToString(buffer.toByteArray());
+    }
+
+    // ==================== JOURNAL ====================
+
+    /**
+     * Atualiza o estado em memória e acrescenta a linha no journal (com fsync)
+     */
+    private void record(OutboundEmail email) throws IOException {
+        byte[] line = mapper.writeValueAsBytes(email);
+
+        journalLock.lock();
+        try {
+            if (journal == null) {
+                throw new IOException("Fila de envio encerrada");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false);
+            journalLines++;
+
+            emails.put(email.getId(), email);
+            idsByKey.put(email.getIdempotencyKey(), email.getId());
+
+            if (journalLines > COMPACT_MIN_LINES && journalLines > emails.size() * 4) {
+                compact();
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Reconstrói o estado a partir do journal (a última linha de cada email vence)
+     */
+    private void replay() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+
+        int lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    OutboundEmail email = mapper.readValue(line, OutboundEmail.class);
+                    emails.put(email.getId(), email);
+                    lines++;
+                } catch (IOException e) {
+                    // Linha incompleta (queda durante a gravação): descartada
+                    log.warn("⚠️ Linha inválida no journal da fila ignorada: {}", e.getMessage());
+                }
+            }
+        }
+
+        for (OutboundEmail email : new ArrayList<>(emails.values())) {
+            if (email.getStatus() == StatusEnvio.ENVIANDO) {
+                emails.put(email.getId(), email.toBuilder().status(StatusEnvio.NA_FILA).build());
+            }
+        }
+        emails.values().forEach(e -> idsByKey.put(e.getIdempotencyKey(), e.getId()));
+        log.info("✅ Journal da fila carregado: {} linhas, {} emails", lines, emails.size());
+    }
+
+    /**
+     * Regrava o journal só com o estado atual, descartando envios finalizados antigos
+     * (escrita atômica: arquivo temporário + move)
+     */
+    private void compact() throws IOException {
+        journalLock.lock();
+        try {
+            long cutoff = System.currentTimeMillis() - retentionMillis;
+            emails.values().removeIf(e -> !e.getStatus().isPendente() && e.getUpdatedAt() < cutoff);
+            idsByKey.values().removeIf(id -> !emails.containsKey(id));
+
+            // Arquivo novo a cada compactação: as permissões restritas valem também para journals antigos
+            Path temp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+            Files.deleteIfExists(temp);
+            try (FileChannel out = FileChannel.open(temp, Set.of(StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE), ownerOnly())) {
+                for (OutboundEmail email : emails.values()) {
+                    byte[] line = mapper.writeValueAsBytes(email);
+                    ByteBuffer buffer = ByteBuffer.allocate(line.length + 1).put(line).put((byte) '\n').flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+                out.force(true);
+            }
+
+            if (journal != null) {
+                journal.close();
+            }
+            Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            journalLines = emails.size();
+            log.debug("🗜️ Journal da fila compactado: {} emails", emails.size());
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    /**
+     * rw------- onde houver permissões POSIX (o journal tem o conteúdo dos emails)
+     */
+    private static FileAttribute<?>[] ownerOnly() {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            return new FileAttribute<?>[0];
+        }
+        return new FileAttribute<?>[] {
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")) };
+    }
+
+    private OutboundEmail findByKey(String key) {
+        String id = idsByKey.get(key);
+        return id != null ? emails.get(id) : null;
+    }
+
+    private String contentKey(String to, String subject, String body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(to).trim().toLowerCase().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(subject).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(body).getBytes(StandardCharsets.UTF_8));
+            return "auto-" + HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Backoff exponencial com "full jitter" (mesma estratégia do GmailRequestExecutor)
+     */
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
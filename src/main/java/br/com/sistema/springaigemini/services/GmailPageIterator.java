@@ -0,0 +1,95 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.api.services.gmail.model.Message;
+
+/**
+ * Iterador de páginas de mensagens do Gmail (nextPageToken).
+ * 
+ * Ao entregar uma página, já dispara a busca da próxima em uma virtual thread:
+ * o processamento da página atual e o round trip da seguinte acontecem em paralelo.
+ * Só uma página fica em memória por vez (mais a que está chegando).
+ * 
+ * Criado pelo GmailFetchService.pages(); deve ser fechado (try-with-resources).
+ */
+public class GmailPageIterator implements Iterator<List<Message>>, AutoCloseable {
+
+    /**
+     * Uma página: mensagens e token da próxima (null na última)
+     */
+    public record Page(List<Message> messages, String nextPageToken) {}
+
+    /**
+     * Carrega uma página a partir do token (null = primeira), com até "size" mensagens
+     */
+    @FunctionalInterface
+    public interface PageLoader {
+        Page load(String pageToken, int size) throws IOException;
+    }
+
+    private final PageLoader loader;
+    private final int pageSize;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private CompletableFuture<Page> next;
+    private int remaining;
+
+    GmailPageIterator(PageLoader loader, int pageSize, int maxMessages) {
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.remaining = maxMessages;
+        this.next = maxMessages > 0 ? prefetch(null) : null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public List<Message> next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+
+        Page page;
+        try {
+            page = next.join();
+        } catch (CompletionException e) {
+            next = null;
+            throw e.getCause() instanceof UncheckedIOException io ? io : e;
+        }
+
+        remaining -= page.messages().size();
+        next = page.nextPageToken() != null && remaining > 0 ? prefetch(page.nextPageToken()) : null;
+        return page.messages();
+    }
+
+    private CompletableFuture<Page> prefetch(String pageToken) {
+        int size = Math.min(pageSize, remaining);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return loader.load(pageToken, size);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+    }
+
+    @Override
+    public void close() {
+        if (next != null) {
+            next.cancel(true);
+            next = null;
+        }
+        executor.shutdownNow();
+    }
+}
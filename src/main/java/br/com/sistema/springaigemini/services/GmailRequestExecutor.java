@@ -0,0 +1,217 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpResponseException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Executor das chamadas ao Gmail que não podem ser agrupadas em batch.
+ * 
+ * - Respeita a cota por usuário do Gmail (quota units/segundo) com um token bucket
+ * - Refaz 429, 5xx e 403 de rate limit com backoff exponencial e jitter
+ * - executeAll() roda em virtual threads, com concorrência limitada,
+ *   e devolve os resultados na mesma ordem da entrada
+ * 
+ * Custos em quota units: https://developers.google.com/gmail/api/reference/quota
+ */
+@Service
+@Slf4j
+public class GmailRequestExecutor {
+
+    // ==================== CUSTOS (QUOTA UNITS) ====================
+
+    public static final int UNITS_GET = 5;
+    public static final int UNITS_LIST = 5;
+    public static final int UNITS_MODIFY = 5;
+    public static final int UNITS_DELETE = 10;
+    public static final int UNITS_SEND = 100;
+    public static final int UNITS_BATCH_MODIFY = 50;
+    public static final int UNITS_THREAD_LIST = 10;
+    public static final int UNITS_THREAD_GET = 10;
+    public static final int UNITS_LABEL_GET = 1;
+    public static final int UNITS_LABEL_LIST = 1;
+
+    private final double unitsPerSecond;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Semaphore concurrency;
+
+    // Token bucket (pode ficar negativo: representa reservas aguardando)
+    private final ReentrantLock bucketLock = new ReentrantLock();
+    private double tokens;
+    private long lastRefillNanos;
+
+    public GmailRequestExecutor(
+            @Value("${gmail.quota.units-per-second:250}") double unitsPerSecond,
+            @Value("${gmail.retry.max-attempts:5}") int maxAttempts,
+            @Value("${gmail.retry.base-backoff-ms:500}") long baseBackoffMillis,
+            @Value("${gmail.retry.max-backoff-ms:32000}") long maxBackoffMillis,
+            @Value("${gmail.fetch.max-concurrency:10}") int maxConcurrency) {
+        this.unitsPerSecond = unitsPerSecond;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.concurrency = new Semaphore(maxConcurrency);
+        this.tokens = unitsPerSecond;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Chamada ao Gmail que pode lançar IOException
+     */
+    @FunctionalInterface
+    public interface GmailCall<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * Chamada ao Gmail parametrizada por um item (ex: ID da mensagem)
+     */
+    @FunctionalInterface
+    public interface GmailFunction<I, T> {
+        T apply(I item) throws IOException;
+    }
+
+    /**
+     * Executa uma chamada consumindo "units" da cota, com retry
+     */
+    public <T> T execute(int units, GmailCall<T> call) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            acquire(units);
+            try {
+                return call.call();
+            } catch (IOException e) {
+                if (attempt >= maxAttempts || !isRetryable(e)) {
+                    throw e;
+                }
+                long backoff = backoffMillis(attempt);
+                log.warn("Gmail: tentativa {}/{} falhou ({}), nova tentativa em {} ms",
+                        attempt, maxAttempts, e.getMessage(), backoff);
+                sleep(backoff);
+            }
+        }
+    }
+
+    /**
+     * Executa a chamada para cada item em paralelo (virtual threads).
+     * 
+     * O resultado mantém a ordem dos itens, para a numeração das tools não mudar.
+     * Se alguma chamada falhar (após os retries), a exceção é propagada.
+     */
+    public <I, T> List<T> executeAll(List<I> items, int unitsEach, GmailFunction<I, T> function)
+            throws IOException {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futures = new ArrayList<>(items.size());
+            for (I item : items) {
+                futures.add(executor.submit(() -> {
+                    concurrency.acquire();
+                    try {
+                        return execute(unitsEach, () -> function.apply(item));
+                    } finally {
+                        concurrency.release();
+                    }
+                }));
+            }
+
+            List<T> results = new ArrayList<>(futures.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Execução paralela interrompida");
+        }
+    }
+
+    /**
+     * Reserva "units" da cota, aguardando se o bucket estiver vazio.
+     * 
+     * Usado direto quando a cota é paga por parte (sub-requisições de um batch)
+     * ou quando a chamada não pode ser repetida (envio da fila).
+     */
+    public void acquire(int units) throws IOException {
+        long waitNanos;
+
+        bucketLock.lock();
+        try {
+            long now = System.nanoTime();
+            tokens = Math.min(unitsPerSecond, tokens + (now - lastRefillNanos) * unitsPerSecond / 1e9);
+            lastRefillNanos = now;
+            tokens -= units;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / unitsPerSecond * 1e9);
+        } finally {
+            bucketLock.unlock();
+        }
+
+        if (waitNanos > 0) {
+            log.debug("Gmail: aguardando {} ms pela cota", TimeUnit.NANOSECONDS.toMillis(waitNanos));
+            sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+    }
+
+    /**
+     * 429, 5xx e 403 por rate limit podem ser refeitos
+     * 
+     * Também usado pela fila de envio para decidir entre nova tentativa e falha definitiva.
+     */
+    public boolean isRetryable(IOException e) {
+        if (!(e instanceof HttpResponseException http)) {
+            return false;
+        }
+
+        int status = http.getStatusCode();
+        if (status == 429 || status >= 500) {
+            return true;
+        }
+
+        if (status == 403 && e instanceof GoogleJsonResponseException json && json.getDetails() != null) {
+            GoogleJsonError details = json.getDetails();
+            return details.getErrors() != null && details.getErrors().stream()
+                    .anyMatch(error -> "rateLimitExceeded".equals(error.getReason())
+                            || "userRateLimitExceeded".equals(error.getReason()));
+        }
+        return false;
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    /**
+     * Backoff exponencial com "full jitter": aleatório entre 0 e base * 2^(tentativa-1)
+     */
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Espera interrompida");
+        }
+    }
+}
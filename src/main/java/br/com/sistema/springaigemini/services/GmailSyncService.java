@@ -0,0 +1,312 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.History;
+import com.google.api.services.gmail.model.HistoryLabelAdded;
+import com.google.api.services.gmail.model.HistoryLabelRemoved;
+import com.google.api.services.gmail.model.HistoryMessageAdded;
+import com.google.api.services.gmail.model.HistoryMessageDeleted;
+import com.google.api.services.gmail.model.ListHistoryResponse;
+import com.google.api.services.gmail.model.ListMessagesResponse;
+import com.google.api.services.gmail.model.Message;
+
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sincronização incremental da caixa de email com o armazenamento local.
+ * 
+ * FLUXO:
+ * ======
+ * 1. Primeira vez: listagem completa (até full-max-messages) + metadados em batch
+ * 2. Depois: users.history.list a partir do último historyId
+ *    - messageAdded   → busca metadados das novas mensagens (batch)
+ *    - messageDeleted → remove do armazenamento
+ *    - labelAdded/Removed → atualiza as labels (TRASH/SPAM: remove do armazenamento;
+ *      saiu da lixeira/spam e não está no armazenamento: busca de novo)
+ * 3. historyId expirado (404) → nova sincronização completa
+ * 4. Índice de busca local (MailSearchIndex) atualizado com as mudanças
+ * 5. Snapshot colunar de estatísticas (MailAnalyticsSnapshot) reconstruído se a caixa mudou
+ * 6. Contadores de labels em cache (GmailLabelCounters) atualizados se ficaram desatualizados
+ * 7. Classificador local de prioridade (MailPriorityClassifier) treinado com as mudanças de labels
+ * 
+ * O custo na API do Gmail passa a acompanhar a atividade da caixa,
+ * e não o número de perguntas feitas ao assistente.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GmailSyncService {
+
+    private static final String USER_ID = "me";
+    private static final int UNITS_HISTORY = 2;
+    private static final int UNITS_PROFILE = 1;
+
+    private final Gmail gmailService;
+    private final GmailFetchService gmailFetchService;
+    private final GmailRequestExecutor requestExecutor;
+    private final GmailMailboxStore mailboxStore;
+    private final MailSearchIndex searchIndex;
+    private final GmailBodyExtractor bodyExtractor;
+    private final MailAnalyticsSnapshot analyticsSnapshot;
+    private final GmailLabelCounters labelCounters;
+    private final MailPriorityClassifier priorityClassifier;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+
+    @Value("${gmail.sync.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gmail.sync.full-max-messages:2000}")
+    private int fullMaxMessages;
+
+    @Value("${gmail.search.index-bodies:true}")
+    private boolean indexBodies;
+
+    private static final int INDEX_CHUNK = 200;
+    private static final int MAX_BODY_CHARS = 20_000;
+
+    /**
+     * Executado periodicamente fora do caminho das requisições
+     */
+    @Scheduled(initialDelayString = "${gmail.sync.initial-delay-ms:5000}",
+            fixedDelayString = "${gmail.sync.interval-ms:60000}")
+    public void scheduledSync() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            sync();
+        } catch (Exception e) {
+            log.error("❌ Erro na sincronização da caixa de email", e);
+        }
+    }
+
+    /**
+     * Sincroniza agora (completa ou incremental, conforme o estado local)
+     */
+    public void sync() throws IOException {
+        if (!syncLock.tryLock()) {
+            log.debug("Sincronização já em andamento");
+            return;
+        }
+        try {
+            if (!mailboxStore.isReady()) {
+                fullSync();
+            } else {
+                try {
+                    incrementalSync();
+                } catch (GoogleJsonResponseException e) {
+                    if (e.getStatusCode() != 404) {
+                        throw e;
+                    }
+                    log.warn("⚠️ historyId {} expirado, refazendo sincronização completa", mailboxStore.getHistoryId());
+                    fullSync();
+                }
+            }
+            mailboxStore.persist();
+            updateSearchIndex();
+            analyticsSnapshot.rebuildIfChanged(mailboxStore);
+            labelCounters.refreshStale();
+            priorityClassifier.train(mailboxStore);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    // ==================== SINCRONIZAÇÃO COMPLETA ====================
+
+    private void fullSync() throws IOException {
+        log.info("🔄 Sincronização completa da caixa de email (até {} mensagens)", fullMaxMessages);
+
+        // historyId lido ANTES da listagem: alterações durante a listagem são reaplicadas depois
+        BigInteger startHistoryId = requestExecutor.execute(UNITS_PROFILE,
+                () -> gmailService.users().getProfile(USER_ID).execute()).getHistoryId();
+
+        List<String> ids = new ArrayList<>();
+        String pageToken = null;
+        do {
+            final String token = pageToken;
+            ListMessagesResponse page = requestExecutor.execute(GmailRequestExecutor.UNITS_LIST,
+                    () -> gmailService.users().messages().list(USER_ID)
+                            .setMaxResults((long) Math.min(500, fullMaxMessages - ids.size()))
+                            .setPageToken(token)
+                            .execute());
+
+            if (page.getMessages() != null) {
+                page.getMessages().forEach(m -> ids.add(m.getId()));
+            }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null && ids.size() < fullMaxMessages);
+
+        // Sem próxima página: a caixa inteira cabe no limite e as consultas locais são completas
+        boolean complete = pageToken == null;
+        List<MessageMetadata> all = toMetadata(gmailFetchService.getMessagesMetadata(ids));
+        mailboxStore.replaceAll(all, startHistoryId, complete);
+
+        log.info("✅ Sincronização completa: {} mensagens (historyId {}{})", all.size(), startHistoryId,
+                complete ? "" : ", caixa parcial: consultas locais incompletas vão para a API");
+    }
+
+    // ==================== SINCRONIZAÇÃO INCREMENTAL ====================
+
+    private void incrementalSync() throws IOException {
+        BigInteger startHistoryId = mailboxStore.getHistoryId();
+        Set<String> added = new LinkedHashSet<>();
+        int changes = 0;
+
+        BigInteger latestHistoryId = startHistoryId;
+        String pageToken = null;
+        do {
+            final String token = pageToken;
+            ListHistoryResponse page = requestExecutor.execute(UNITS_HISTORY,
+                    () -> gmailService.users().history().list(USER_ID)
+                            .setStartHistoryId(startHistoryId)
+                            .setPageToken(token)
+                            .execute());
+
+            if (page.getHistory() != null) {
+                for (History history : page.getHistory()) {
+                    changes += apply(history, added);
+                }
+            }
+            if (page.getHistoryId() != null) {
+                latestHistoryId = page.getHistoryId();
+            }
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+
+        if (!added.isEmpty()) {
+            List<MessageMetadata> fetched = toMetadata(gmailFetchService.getMessagesMetadata(new ArrayList<>(added)));
+            fetched.forEach(mailboxStore::put);
+        }
+
+        mailboxStore.setHistoryId(latestHistoryId);
+
+        if (changes > 0) {
+            log.info("🔄 Sincronização incremental: {} alterações, {} novas mensagens (historyId {})",
+                    changes, added.size(), latestHistoryId);
+        }
+    }
+
+    /**
+     * Aplica um registro do histórico; mensagens novas vão para "added"
+     * para buscar os metadados em batch no final
+     */
+    private int apply(History history, Set<String> added) {
+        int changes = 0;
+
+        if (history.getMessagesAdded() != null) {
+            for (HistoryMessageAdded item : history.getMessagesAdded()) {
+                added.add(item.getMessage().getId());
+                changes++;
+            }
+        }
+        if (history.getMessagesDeleted() != null) {
+            for (HistoryMessageDeleted item : history.getMessagesDeleted()) {
+                String id = item.getMessage().getId();
+                added.remove(id);
+                mailboxStore.remove(id);
+                changes++;
+            }
+        }
+        if (history.getLabelsAdded() != null) {
+            for (HistoryLabelAdded item : history.getLabelsAdded()) {
+                mailboxStore.updateLabels(item.getMessage().getId(), item.getMessage().getLabelIds());
+                changes++;
+            }
+        }
+        if (history.getLabelsRemoved() != null) {
+            for (HistoryLabelRemoved item : history.getLabelsRemoved()) {
+                String id = item.getMessage().getId();
+                boolean stored = mailboxStore.updateLabels(id, item.getMessage().getLabelIds());
+                // Saiu da lixeira/spam: a mensagem foi removida do armazenamento e volta com os metadados
+                if (!stored && GmailMailboxStore.isHidden(item.getLabelIds())
+                        && !GmailMailboxStore.isHidden(item.getMessage().getLabelIds())) {
+                    added.add(id);
+                }
+                changes++;
+            }
+        }
+        return changes;
+    }
+
+    // ==================== ÍNDICE DE BUSCA ====================
+
+    /**
+     * Reconcilia o índice de busca com o armazenamento local:
+     * indexa só as mensagens novas (corpo buscado em batch) e remove as apagadas
+     */
+    private void updateSearchIndex() throws IOException {
+        Set<String> stored = mailboxStore.ids();
+        Set<String> indexed = searchIndex.indexedIds();
+
+        int removed = 0;
+        for (String id : indexed) {
+            if (!stored.contains(id)) {
+                searchIndex.remove(id);
+                removed++;
+            }
+        }
+
+        List<String> missing = stored.stream().filter(id -> !indexed.contains(id)).toList();
+        for (int start = 0; start < missing.size(); start += INDEX_CHUNK) {
+            List<String> chunk = missing.subList(start, Math.min(start + INDEX_CHUNK, missing.size()));
+            List<Message> bodies = indexBodies ? gmailFetchService.getMessages(chunk) : null;
+
+            for (int i = 0; i < chunk.size(); i++) {
+                MessageMetadata metadata = mailboxStore.get(chunk.get(i));
+                if (metadata == null) {
+                    continue;
+                }
+                searchIndex.add(metadata, bodies != null ? bodyText(bodies.get(i)) : null);
+            }
+        }
+
+        if (removed > 0 || !missing.isEmpty()) {
+            searchIndex.persist();
+            log.info("🔎 Índice de busca atualizado: +{} / -{} mensagens ({} no total)",
+                    missing.size(), removed, searchIndex.size());
+        }
+    }
+
+    private String bodyText(Message message) {
+        if (message == null) {
+            return null;
+        }
+        try {
+            return bodyExtractor.extractText(message, MAX_BODY_CHARS);
+        } catch (Exception e) {
+            log.debug("Corpo não indexado para {}: {}", message.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    // ==================== CONVERSÃO ====================
+
+    /**
+     * Converte mensagens (format=metadata) em metadados locais.
+     * Mensagens removidas entre o histórico e a busca (null) são ignoradas.
+     */
+    private List<MessageMetadata> toMetadata(List<Message> messages) {
+        return messages.stream()
+                .filter(Objects::nonNull)
+                .map(GmailFetchService::toMetadata)
+                .toList();
+    }
+}
@@ -0,0 +1,316 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.ListThreadsResponse;
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePartHeader;
+import com.google.api.services.gmail.model.Thread;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Conversas (threads) do Gmail.
+ *
+ * - Listagem via threads.list + threads.get (format=metadata) em paralelo
+ * - Transcrição da conversa inteira via um único threads.get (format=full)
+ * - Cache local por threadId, válido enquanto o historyId da thread não mudar
+ * - Transcrição compacta: citações de respostas anteriores ("> ...", "Em ... escreveu:",
+ *   "-----Original Message-----") removidas e mensagens repetidas descartadas
+ */
+@Service
+@Slf4j
+public class GmailThreadService {
+
+    private static final List<String> SUMMARY_HEADERS = List.of("Subject", "From", "Date");
+    private static final String SUMMARY_FIELDS = "id,historyId,messages(id,internalDate,labelIds,payload/headers)";
+
+    /**
+     * "On Mon, 1 Jan 2024 ... wrote:" / "Em seg., 1 de jan. ... escreveu:" (às vezes quebrado em 2 linhas).
+     * Exige a data: sem dígito é texto da própria mensagem ("Em resumo, ele escreveu:")
+     */
+    private static final Pattern REPLY_HEADER = Pattern.compile(
+            "^\\s*(On|Em|Le|El)\\s.*\\d.*(wrote|escreveu|a écrit|escribió):\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern REPLY_HEADER_START = Pattern.compile(
+            "^\\s*(On|Em|Le|El)\\s.*\\d.*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern REPLY_HEADER_END = Pattern.compile(
+            "^.*(wrote|escreveu|a écrit|escribió):\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FORWARD_SEPARATOR = Pattern.compile(
+            "^\\s*(-{2,}\\s*(Original Message|Mensagem original|Forwarded message|Mensagem encaminhada)\\s*-{2,}|_{10,})\\s*$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern OUTLOOK_FROM = Pattern.compile("^\\s*\\*?(From|De):\\*?\\s.+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern OUTLOOK_SENT = Pattern.compile(
+            "^\\s*\\*?(Sent|Enviado|Date|Data|Enviada em):\\*?\\s.+", Pattern.CASE_INSENSITIVE);
+
+    private final Gmail gmailService;
+    private final GmailRequestExecutor requestExecutor;
+    private final GmailBodyExtractor bodyExtractor;
+    private final int messageMaxChars;
+
+    /** threadId → conversa (LRU) */
+    private final Map<String, CachedThread> cache;
+
+    public GmailThreadService(
+            Gmail gmailService,
+            GmailRequestExecutor requestExecutor,
+            GmailBodyExtractor bodyExtractor,
+            @Value("${gmail.threads.cache-size:200}") int cacheSize,
+            @Value("${gmail.threads.message-max-chars:4000}") int messageMaxChars) {
+        this.gmailService = gmailService;
+        this.requestExecutor = requestExecutor;
+        this.bodyExtractor = bodyExtractor;
+        this.messageMaxChars = messageMaxChars;
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedThread> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Resumo de uma conversa para listagens
+     */
+    public record ThreadSummary(String threadId, String subject, List<String> participants,
+                                int messageCount, String lastDate, boolean unread, String snippet) {}
+
+    /**
+     * Uma mensagem da transcrição (texto já sem citações)
+     */
+    public record TranscriptEntry(String messageId, String from, String date, String text) {}
+
+    /**
+     * Conversa inteira em ordem cronológica
+     */
+    public record ThreadTranscript(String threadId, String subject, List<String> participants,
+                                   List<TranscriptEntry> entries, int skippedDuplicates) {}
+
+    private record CachedThread(BigInteger historyId, ThreadSummary summary, ThreadTranscript transcript) {}
+
+    // ==================== LISTAGEM ====================
+
+    /**
+     * Lista conversas (mais recentes primeiro)
+     *
+     * @param query busca do Gmail (ex: "from:joao@email.com"); null = todas
+     * @param maxResults máximo de conversas
+     */
+    public List<ThreadSummary> listThreads(String query, int maxResults) throws IOException {
+        ListThreadsResponse response = requestExecutor.execute(GmailRequestExecutor.UNITS_THREAD_LIST,
+                () -> gmailService.users()
+                        .threads()
+                        .list("me")
+                        .setQ(query)
+                        .setMaxResults((long) maxResults)
+                        .setFields("threads(id,historyId,snippet)")
+                        .execute());
+
+        if (response.getThreads() == null) {
+            return List.of();
+        }
+
+        // Só busca as threads que mudaram desde o último acesso
+        List<Thread> stale = response.getThreads().stream()
+                .filter(t -> cachedSummary(t.getId(), t.getHistoryId()) == null)
+                .toList();
+
+        List<Thread> fetched = requestExecutor.executeAll(stale, GmailRequestExecutor.UNITS_THREAD_GET,
+                thread -> gmailService.users()
+                        .threads()
+                        .get("me", thread.getId())
+                        .setFormat("metadata")
+                        .setMetadataHeaders(SUMMARY_HEADERS)
+                        .setFields(SUMMARY_FIELDS)
+                        .execute());
+
+        for (int i = 0; i < stale.size(); i++) {
+            Thread thread = fetched.get(i);
+            ThreadSummary summary = summarize(thread, stale.get(i).getSnippet());
+            CachedThread previous = cache.get(thread.getId());
+            ThreadTranscript transcript = previous != null && thread.getHistoryId().equals(previous.historyId())
+                    ? previous.transcript() : null;
+            cache.put(thread.getId(), new CachedThread(thread.getHistoryId(), summary, transcript));
+        }
+
+        log.info("🧵 {} conversas listadas ({} buscadas, {} do cache)", response.getThreads().size(),
+                stale.size(), response.getThreads().size() - stale.size());
+
+        return response.getThreads().stream()
+                .map(t -> cache.get(t.getId()))
+                .filter(c -> c != null && c.summary() != null)
+                .map(CachedThread::summary)
+                .toList();
+    }
+
+    // ==================== TRANSCRIÇÃO ====================
+
+    /**
+     * Conversa inteira, compacta e sem citações repetidas.
+     *
+     * Com a conversa no cache, uma consulta leve (format=minimal, só historyId)
+     * confirma que nada mudou antes de reaproveitá-la.
+     */
+    public ThreadTranscript getTranscript(String threadId) throws IOException {
+        CachedThread cached = cache.get(threadId);
+        if (cached != null && cached.transcript() != null) {
+            Thread current = requestExecutor.execute(GmailRequestExecutor.UNITS_THREAD_GET, () -> gmailService.users()
+                    .threads()
+                    .get("me", threadId)
+                    .setFormat("minimal")
+                    .setFields("id,historyId")
+                    .execute());
+            if (current.getHistoryId().equals(cached.historyId())) {
+                log.info("🧵 Conversa {} servida do cache", threadId);
+                return cached.transcript();
+            }
+        }
+
+        Thread thread = requestExecutor.execute(GmailRequestExecutor.UNITS_THREAD_GET, () -> gmailService.users()
+                .threads()
+                .get("me", threadId)
+                .setFormat("full")
+                .execute());
+
+        ThreadTranscript transcript = transcribe(thread);
+        cache.put(threadId, new CachedThread(thread.getHistoryId(), summarize(thread, thread.getSnippet()), transcript));
+
+        log.info("🧵 Conversa {} transcrita: {} mensagens ({} repetidas descartadas)", threadId,
+                transcript.entries().size(), transcript.skippedDuplicates());
+        return transcript;
+    }
+
+    private ThreadTranscript transcribe(Thread thread) {
+        List<Message> messages = thread.getMessages() != null ? thread.getMessages() : List.of();
+        List<TranscriptEntry> entries = new ArrayList<>(messages.size());
+        Set<String> seenBodies = new HashSet<>();
+        int skipped = 0;
+
+        for (Message message : messages) {
+            String body = bodyExtractor.extractText(message, messageMaxChars);
+            String text = stripQuoted(body != null ? body : message.getSnippet());
+
+            // Mesma mensagem repetida (ex: enviada para várias listas)
+            String fingerprint = text.replaceAll("\\s+", " ").trim().toLowerCase();
+            if (!fingerprint.isEmpty() && !seenBodies.add(fingerprint)) {
+                skipped++;
+                continue;
+            }
+
+            entries.add(new TranscriptEntry(message.getId(), header(message, "From"), header(message, "Date"), text));
+        }
+
+        return new ThreadTranscript(thread.getId(), subjectOf(messages), participantsOf(messages), entries, skipped);
+    }
+
+    /**
+     * Remove o histórico citado no fim de uma resposta.
+     *
+     * Corta a partir do cabeçalho de resposta ("Em ... escreveu:"), do separador de
+     * encaminhamento ou do bloco "De:/Enviado:" do Outlook; linhas iniciadas por ">" são descartadas.
+     */
+    static String stripQuoted(String text) {
+        if (text == null) {
+            return "";
+        }
+
+        String[] lines = text.split("\\r?\\n", -1);
+        StringBuilder out = new StringBuilder(text.length());
+        int blankRun = 0;
+
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i];
+
+            if (REPLY_HEADER.matcher(line).matches() || FORWARD_SEPARATOR.matcher(line).matches()) {
+                break;
+            }
+            if (i + 1 < lines.length && REPLY_HEADER_START.matcher(line).matches()
+                    && REPLY_HEADER_END.matcher(lines[i + 1]).matches()) {
+                break;
+            }
+            if (OUTLOOK_FROM.matcher(line).matches() && nextLinesMatch(lines, i + 1, OUTLOOK_SENT)) {
+                break;
+            }
+            if (line.stripLeading().startsWith(">")) {
+                continue;
+            }
+
+            if (line.isBlank()) {
+                if (++blankRun > 1) {
+                    continue;
+                }
+            } else {
+                blankRun = 0;
+            }
+            out.append(line.stripTrailing()).append('\n');
+        }
+        return out.toString().strip();
+    }
+
+    private static boolean nextLinesMatch(String[] lines, int from, Pattern pattern) {
+        for (int i = from; i < Math.min(lines.length, from + 3); i++) {
+            if (pattern.matcher(lines[i]).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    private ThreadSummary cachedSummary(String threadId, BigInteger historyId) {
+        CachedThread cached = cache.get(threadId);
+        return cached != null && cached.summary() != null && cached.historyId().equals(historyId)
+                ? cached.summary() : null;
+    }
+
+    private ThreadSummary summarize(Thread thread, String snippet) {
+        List<Message> messages = thread.getMessages() != null ? thread.getMessages() : List.of();
+        Message last = messages.isEmpty() ? null : messages.get(messages.size() - 1);
+        boolean unread = messages.stream()
+                .anyMatch(m -> m.getLabelIds() != null && m.getLabelIds().contains("UNREAD"));
+
+        return new ThreadSummary(thread.getId(), subjectOf(messages), participantsOf(messages), messages.size(),
+                last != null ? header(last, "Date") : null, unread, snippet);
+    }
+
+    private String subjectOf(List<Message> messages) {
+        return messages.isEmpty() ? null : header(messages.get(0), "Subject");
+    }
+
+    private List<String> participantsOf(List<Message> messages) {
+        Set<String> participants = new LinkedHashSet<>();
+        for (Message message : messages) {
+            String from = header(message, "From");
+            if (from != null) {
+                participants.add(from);
+            }
+        }
+        return new ArrayList<>(participants);
+    }
+
+    private String header(Message message, String name) {
+        if (message.getPayload() == null || message.getPayload().getHeaders() == null) {
+            return null;
+        }
+        for (MessagePartHeader header : message.getPayload().getHeaders()) {
+            if (name.equalsIgnoreCase(header.getName())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,431 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.TextStyle;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import br.com.sistema.springaigemini.enums.AgrupamentoEmail;
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import br.com.sistema.springaigemini.models.Remetente;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Snapshot colunar dos metadados da caixa de email, para estatísticas sem passar pelo modelo.
+ *
+ * - Uma linha por mensagem, em colunas de tipos primitivos:
+ *   timestamps (long), remetente (int, id no dicionário) e labels (long, bitset)
+ * - Dicionários: remetentes (endereço + nome) e labels por frequência; só as 64 mais
+ *   frequentes ganham um bit, as demais ficam no dicionário como "não rastreadas"
+ * - Reconstruído após a sincronização quando a caixa muda (historyId ou tamanho)
+ * - Persistido em disco e lido por memory-map: as consultas percorrem as colunas
+ *   direto do arquivo mapeado, sem objetos por mensagem
+ *
+ * Layout do arquivo:
+ * [versão][historyId][linhas][remetentes][labels][tamanho dos dicionários]
+ * [dicionários (UTF)][padding até 8 bytes][timestamps][labels][remetentes]
+ * em little-endian (a ordem nativa de x86 e ARM: as colunas são lidas sem conversão)
+ */
+@Component
+@Slf4j
+public class MailAnalyticsSnapshot {
+
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 8 + 4 + 4 + 4 + 4;
+    private static final int MAX_LABELS = Long.SIZE;
+    private static final long DAY_MILLIS = 86_400_000L;
+
+    private final Path snapshotPath;
+    private final ZoneId zone;
+
+    /** Colunas mapeadas atuais (trocadas por inteiro a cada reconstrução) */
+    private volatile Columns columns;
+
+    public MailAnalyticsSnapshot(
+            @Value("${gmail.analytics.snapshot-path:${user.home}/.assistant-ai/gmail-analytics.bin}") String snapshotPath,
+            @Value("${gmail.analytics.zone:}") String zone) {
+        this.snapshotPath = Path.of(snapshotPath);
+        this.zone = zone == null || zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone);
+    }
+
+    /**
+     * Grupo do resultado: chave estável, nome para exibição e quantidade de emails
+     */
+    public record Bucket(String key, String name, int count) {}
+
+    /**
+     * Como o filtro de label foi aplicado
+     *
+     * - NONE: sem filtro de label
+     * - TRACKED: label com bit no snapshot, contagem exata
+     * - UNTRACKED: label existe na caixa, mas fora das 64 com bit: o snapshot não sabe contar
+     * - UNKNOWN: nenhum email do snapshot tem esse ID (pode ser o nome da label, não o ID)
+     */
+    public enum LabelFilter { NONE, TRACKED, UNTRACKED, UNKNOWN }
+
+    /**
+     * Resultado de uma consulta
+     *
+     * @param matched emails que passaram pelos filtros (0 com UNTRACKED não significa "nenhum")
+     * @param rows emails no snapshot
+     */
+    public record Result(AgrupamentoEmail groupBy, List<Bucket> buckets, int matched, int rows, long elapsedMicros,
+                         LabelFilter labelFilter) {}
+
+    /**
+     * Colunas e dicionários de um snapshot
+     *
+     * @param labels todas as labels, das mais frequentes para as menos
+     * @param trackedLabels quantas das primeiras labels têm bit (até 64)
+     */
+    private record Columns(long historyId, int rows, LongBuffer timestamps, LongBuffer labelBits, IntBuffer senders,
+                           String[] senderAddresses, String[] senderNames, String[] labels, int trackedLabels) {}
+
+    @PostConstruct
+    public void load() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try {
+            columns = map();
+            log.info("✅ Snapshot de estatísticas carregado: {} mensagens, {} remetentes",
+                    columns.rows(), columns.senderAddresses().length);
+        } catch (IOException | RuntimeException e) {
+            log.warn("⚠️ Snapshot de estatísticas inválido, será reconstruído: {}", e.getMessage());
+        }
+    }
+
+    public boolean isReady() {
+        return columns != null;
+    }
+
+    public int size() {
+        Columns current = columns;
+        return current != null ? current.rows() : 0;
+    }
+
+    // ==================== CONSTRUÇÃO ====================
+
+    /**
+     * Reconstrói o snapshot a partir do armazenamento local, se a caixa mudou
+     */
+    public void rebuildIfChanged(GmailMailboxStore store) throws IOException {
+        BigInteger historyId = store.getHistoryId();
+        Columns current = columns;
+        if (historyId == null
+                || current != null && current.historyId() == historyId.longValue() && current.rows() == store.size()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        write(store.all(), historyId.longValue());
+        columns = map();
+        log.info("📊 Snapshot de estatísticas reconstruído: {} mensagens em {} ms",
+                columns.rows(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void write(List<MessageMetadata> messages, long historyId) throws IOException {
+        int rows = messages.size();
+
+        // Dicionário de remetentes (por endereço, na ordem em que aparecem)
+        Map<String, Integer> senderIds = new HashMap<>();
+        List<String> senderAddresses = new ArrayList<>();
+        List<String> senderNames = new ArrayList<>();
+        int[] senders = new int[rows];
+
+        // Labels mais frequentes primeiro (empate: por ID): as 64 primeiras ganham um bit
+        Map<String, Integer> labelFrequency = new HashMap<>();
+        for (MessageMetadata message : messages) {
+            if (message.getLabelIds() != null) {
+                message.getLabelIds().forEach(label -> labelFrequency.merge(label, 1, Integer::sum));
+            }
+        }
+        String[] labels = labelFrequency.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .map(Map.Entry::getKey)
+                .toArray(String[]::new);
+        Map<String, Integer> labelBit = new HashMap<>();
+        for (int i = 0; i < Math.min(labels.length, MAX_LABELS); i++) {
+            labelBit.put(labels[i], i);
+        }
+
+        long[] timestamps = new long[rows];
+        long[] labelBits = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            MessageMetadata message = messages.get(row);
+            timestamps[row] = message.getInternalDate() != null ? message.getInternalDate() : 0L;
+
+            Remetente remetente = GmailEmailService.parseRemetente(message.getFrom());
+            String address = remetente != null ? remetente.getEmail().toLowerCase(Locale.ROOT) : "";
+            senders[row] = senderIds.computeIfAbsent(address, key -> {
+                senderAddresses.add(key);
+                senderNames.add(remetente != null ? remetente.getNome() : "");
+                return senderAddresses.size() - 1;
+            });
+
+            long bits = 0L;
+            if (message.getLabelIds() != null) {
+                for (String label : message.getLabelIds()) {
+                    Integer bit = labelBit.get(label);
+                    if (bit != null) {
+                        bits |= 1L << bit;
+                    }
+                }
+            }
+            labelBits[row] = bits;
+        }
+
+        ByteArrayOutputStream dictionaryBytes = new ByteArrayOutputStream();
+        try (DataOutputStream dictionary = new DataOutputStream(dictionaryBytes)) {
+            for (int i = 0; i < senderAddresses.size(); i++) {
+                dictionary.writeUTF(senderAddresses.get(i));
+                dictionary.writeUTF(senderNames.get(i));
+            }
+            for (String label : labels) {
+                dictionary.writeUTF(label);
+            }
+        }
+
+        int columnsOffset = align8(HEADER_BYTES + dictionaryBytes.size());
+        ByteBuffer buffer = ByteBuffer.allocate(columnsOffset + rows * (Long.BYTES * 2 + Integer.BYTES))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(FORMAT_VERSION)
+                .putLong(historyId)
+                .putInt(rows)
+                .putInt(senderAddresses.size())
+                .putInt(labels.length)
+                .putInt(dictionaryBytes.size())
+                .put(dictionaryBytes.toByteArray())
+                .position(columnsOffset);
+        buffer.asLongBuffer().put(timestamps);
+        buffer.position(columnsOffset + rows * Long.BYTES).asLongBuffer().put(labelBits);
+        buffer.position(columnsOffset + rows * Long.BYTES * 2).asIntBuffer().put(senders);
+        buffer.position(0);
+
+        Files.createDirectories(snapshotPath.toAbsolutePath().getParent());
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Columns map() throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        if (buffer.getInt(0) != FORMAT_VERSION) {
+            throw new IOException("versão do snapshot incompatível");
+        }
+        long historyId = buffer.getLong(4);
+        int rows = buffer.getInt(12);
+        int senderCount = buffer.getInt(16);
+        int labelCount = buffer.getInt(20);
+        int dictionaryLength = buffer.getInt(24);
+
+        byte[] dictionaryBytes = new byte[dictionaryLength];
+        buffer.get(HEADER_BYTES, dictionaryBytes);
+        String[] senderAddresses = new String[senderCount];
+        String[] senderNames = new String[senderCount];
+        String[] labels = new String[labelCount];
+        try (DataInputStream dictionary = new DataInputStream(new ByteArrayInputStream(dictionaryBytes))) {
+            for (int i = 0; i < senderCount; i++) {
+                senderAddresses[i] = dictionary.readUTF();
+                senderNames[i] = dictionary.readUTF();
+            }
+            for (int i = 0; i < labelCount; i++) {
+                labels[i] = dictionary.readUTF();
+            }
+        }
+
+        int offset = align8(HEADER_BYTES + dictionaryLength);
+        LongBuffer timestamps = buffer.slice(offset, rows * Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        LongBuffer labelBits = buffer.slice(offset + rows * Long.BYTES, rows * Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+        IntBuffer senders = buffer.slice(offset + rows * Long.BYTES * 2, rows * Integer.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+
+        return new Columns(historyId, rows, timestamps, labelBits, senders, senderAddresses, senderNames, labels,
+                Math.min(labelCount, MAX_LABELS));
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Conta emails agrupados por uma dimensão
+     *
+     * @param groupBy dimensão (remetente, dia, dia da semana, hora ou label)
+     * @param sinceMillis só emails a partir deste instante (null = todos)
+     * @param labelId só emails com esta label, ex: "UNREAD" (null = todos); ver Result.labelFilter
+     * @param limit máximo de grupos: os maiores (remetente/label) ou os mais recentes (dia)
+     */
+    public Result groupBy(AgrupamentoEmail groupBy, Long sinceMillis, String labelId, int limit) {
+        long start = System.nanoTime();
+        Columns c = columns;
+        if (c == null) {
+            return new Result(groupBy, List.of(), 0, 0, 0, LabelFilter.NONE);
+        }
+
+        long since = sinceMillis != null ? sinceMillis : Long.MIN_VALUE;
+        long labelMask = 0L;
+        LabelFilter labelFilter = LabelFilter.NONE;
+        if (labelId != null && !labelId.isBlank()) {
+            int index = Arrays.asList(c.labels()).indexOf(labelId.trim().toUpperCase(Locale.ROOT));
+            if (index < 0) {
+                index = Arrays.asList(c.labels()).indexOf(labelId.trim());
+            }
+            if (index < 0 || index >= c.trackedLabels()) {
+                return new Result(groupBy, List.of(), 0, c.rows(), micros(start),
+                        index < 0 ? LabelFilter.UNKNOWN : LabelFilter.UNTRACKED);
+            }
+            labelMask = 1L << index;
+            labelFilter = LabelFilter.TRACKED;
+        }
+
+        int[] counts = switch (groupBy) {
+            case REMETENTE -> new int[c.senderAddresses().length];
+            case LABEL -> new int[c.trackedLabels()];
+            case DIA_SEMANA -> new int[7];
+            case HORA -> new int[24];
+            case DIA -> null;
+        };
+        Map<Long, int[]> days = groupBy == AgrupamentoEmail.DIA ? new HashMap<>() : null;
+        ZoneRules rules = zone.getRules();
+        boolean fixedOffset = rules.isFixedOffset();
+        long fixedOffsetMillis = rules.getOffset(Instant.EPOCH).getTotalSeconds() * 1000L;
+
+        int matched = 0;
+        for (int row = 0; row < c.rows(); row++) {
+            long timestamp = c.timestamps().get(row);
+            long bits = c.labelBits().get(row);
+            if (timestamp < since || (bits & labelMask) != labelMask) {
+                continue;
+            }
+            matched++;
+
+            switch (groupBy) {
+                case REMETENTE -> counts[c.senders().get(row)]++;
+                case LABEL -> {
+                    for (long remaining = bits; remaining != 0; remaining &= remaining - 1) {
+                        counts[Long.numberOfTrailingZeros(remaining)]++;
+                    }
+                }
+                default -> {
+                    long local = timestamp + (fixedOffset ? fixedOffsetMillis
+                            : rules.getOffset(Instant.ofEpochMilli(timestamp)).getTotalSeconds() * 1000L);
+                    long epochDay = Math.floorDiv(local, DAY_MILLIS);
+                    switch (groupBy) {
+                        case DIA -> days.computeIfAbsent(epochDay, key -> new int[1])[0]++;
+                        // 1970-01-01 foi uma quinta-feira (índice 3, com segunda = 0)
+                        case DIA_SEMANA -> counts[(int) Math.floorMod(epochDay + 3, 7L)]++;
+                        default -> counts[(int) (Math.floorMod(local, DAY_MILLIS) / 3_600_000L)]++;
+                    }
+                }
+            }
+        }
+
+        List<Bucket> buckets = switch (groupBy) {
+            case REMETENTE -> topK(counts, limit, i -> c.senderAddresses()[i], i -> c.senderNames()[i]);
+            case LABEL -> topK(counts, limit, i -> c.labels()[i], i -> c.labels()[i]);
+            case DIA_SEMANA -> ordered(counts, i -> DayOfWeek.of(i + 1).name(),
+                    i -> DayOfWeek.of(i + 1).getDisplayName(TextStyle.FULL, Locale.forLanguageTag("pt-BR")));
+            case HORA -> ordered(counts, i -> String.format("%02d", i), i -> String.format("%02dh", i));
+            case DIA -> days.entrySet().stream()
+                    .sorted(Map.Entry.<Long, int[]>comparingByKey().reversed())
+                    .limit(limit)
+                    .sorted(Map.Entry.comparingByKey())
+                    .map(e -> {
+                        String date = LocalDate.ofEpochDay(e.getKey()).toString();
+                        return new Bucket(date, date, e.getValue()[0]);
+                    })
+                    .toList();
+        };
+
+        return new Result(groupBy, buckets, matched, c.rows(), micros(start), labelFilter);
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    /**
+     * Os "limit" maiores contadores (seleção parcial, sem ordenar todos os grupos)
+     */
+    private List<Bucket> topK(int[] counts, int limit, IntFunction<String> key,
+                              IntFunction<String> name) {
+        int k = Math.max(1, limit);
+        PriorityQueue<Integer> heap = new PriorityQueue<>(k + 1,
+                Comparator.comparingInt((Integer i) -> counts[i]));
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (heap.size() < k) {
+                heap.add(i);
+            } else if (counts[i] > counts[heap.peek()]) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+
+        List<Bucket> buckets = new ArrayList<>(heap.size());
+        heap.stream()
+                .sorted(Comparator.comparingInt((Integer i) -> counts[i]).reversed())
+                .forEach(i -> buckets.add(new Bucket(key.apply(i), name.apply(i), counts[i])));
+        return buckets;
+    }
+
+    private List<Bucket> ordered(int[] counts, IntFunction<String> key,
+                                 IntFunction<String> name) {
+        List<Bucket> buckets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            buckets.add(new Bucket(key.apply(i), name.apply(i), counts[i]));
+        }
+        return buckets;
+    }
+
+    private static int align8(int offset) {
+        return (offset + 7) & ~7;
+    }
+
+    private static long micros(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000;
+    }
+}
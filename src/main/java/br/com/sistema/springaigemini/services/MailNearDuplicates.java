@@ -0,0 +1,199 @@
+package br.com.sistema.springaigemini.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Agrupamento de emails quase idênticos (alertas de CI, newsletters, notificações)
+ * antes de enviá-los ao modelo: o modelo vê um representante por grupo, com a contagem.
+ *
+ * - Texto normalizado: minúsculas, sem acentos, números trocados por "#", espaços colapsados
+ *   ("Build #1234 failed" e "Build #1235 failed" ficam iguais)
+ * - Assinatura MinHash (64 funções de hash) sobre shingles de 5 caracteres
+ * - LSH com 16 bandas de 4 linhas: emails que coincidem em alguma banda viram candidatos
+ * - Candidatos só entram no grupo se a similaridade estimada (Jaccard) passar do limiar
+ *
+ * Custo linear no número de emails: cada email é comparado só com o primeiro
+ * email de cada balde LSH em que cai, nunca com todos os outros.
+ */
+@Component
+public class MailNearDuplicates {
+
+    private static final int SHINGLE = 5;
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int HASHES = BANDS * ROWS;
+
+    private static final Pattern URLS = Pattern.compile("https?://\\S+");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}#]+");
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+
+    private static final long[] SEEDS = new long[HASHES];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < HASHES; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private final double similarity;
+
+    public MailNearDuplicates(@Value("${gmail.dedup.similarity:0.7}") double similarity) {
+        this.similarity = similarity;
+    }
+
+    /**
+     * Grupo de itens quase idênticos; o representante é o primeiro da lista de entrada
+     */
+    public record Cluster<T>(T representative, List<T> members) {
+        public int size() {
+            return members.size();
+        }
+    }
+
+    /**
+     * Agrupa os itens mantendo a ordem da entrada (grupo na posição do seu representante)
+     *
+     * @param items itens a agrupar (ex: emails, mais recentes primeiro)
+     * @param text texto de cada item usado na comparação (ex: remetente + assunto + snippet)
+     */
+    public <T> List<Cluster<T>> cluster(List<T> items, Function<T, String> text) {
+        int n = items.size();
+        long[][] signatures = new long[n][];
+        for (int i = 0; i < n; i++) {
+            signatures[i] = signature(normalize(text.apply(items.get(i))));
+        }
+
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+
+        // Por banda: hash das 4 linhas → primeiro item que caiu no balde
+        for (int band = 0; band < BANDS; band++) {
+            Map<Long, Integer> buckets = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                if (signatures[i] == null) {
+                    continue;
+                }
+                Integer first = buckets.putIfAbsent(bandHash(signatures[i], band), i);
+                if (first != null && estimate(signatures[first], signatures[i]) >= similarity) {
+                    union(parent, first, i);
+                }
+            }
+        }
+
+        Map<Integer, Cluster<T>> byRoot = new HashMap<>();
+        List<Cluster<T>> clusters = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, i);
+            Cluster<T> cluster = byRoot.get(root);
+            if (cluster == null) {
+                cluster = new Cluster<>(items.get(i), new ArrayList<>());
+                byRoot.put(root, cluster);
+                clusters.add(cluster);
+            }
+            cluster.members().add(items.get(i));
+        }
+        return clusters;
+    }
+
+    // ==================== MINHASH ====================
+
+    /**
+     * Assinatura MinHash do texto normalizado (null para textos vazios, que nunca se agrupam)
+     */
+    long[] signature(String normalized) {
+        if (normalized.isEmpty()) {
+            return null;
+        }
+
+        long[] minimums = new long[HASHES];
+        Arrays.fill(minimums, Long.MAX_VALUE);
+
+        int shingles = Math.max(1, normalized.length() - SHINGLE + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = 1125899906842597L;
+            for (int j = start; j < Math.min(normalized.length(), start + SHINGLE); j++) {
+                shingle = 31 * shingle + normalized.charAt(j);
+            }
+            for (int h = 0; h < HASHES; h++) {
+                long value = mix(shingle ^ SEEDS[h]);
+                if (value < minimums[h]) {
+                    minimums[h] = value;
+                }
+            }
+        }
+        return minimums;
+    }
+
+    /**
+     * Fração de posições iguais nas assinaturas (estimativa da similaridade de Jaccard)
+     */
+    static double estimate(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / HASHES;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String plain = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        plain = URLS.matcher(plain.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        plain = DIGITS.matcher(plain).replaceAll("#");
+        return NON_WORD.matcher(plain).replaceAll(" ").strip();
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    private static long bandHash(long[] signature, int band) {
+        long hash = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            hash = mix(hash * 31 + signature[row]);
+        }
+        return hash;
+    }
+
+    /** Finalizador do SplitMix64 */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            // A raiz fica sempre no menor índice: o representante é o primeiro da entrada
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+}
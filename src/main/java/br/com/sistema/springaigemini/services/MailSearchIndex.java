@@ -0,0 +1,500 @@
+package br.com.sistema.springaigemini.services;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice full-text local da caixa de email (assunto, remetente, snippet e corpo).
+ * 
+ * - Tokens normalizados: minúsculas, sem acentos ("reunião" = "reuniao"), sem stopwords em português
+ * - Postings comprimidos: por termo, pares (delta do docId, tf) em varint
+ * - Ranking BM25 (k1 = 1.2, b = 0.75); o assunto conta em dobro
+ * - Atualização incremental: documentos novos vão para o fim, removidos viram tombstone
+ * - Compactação ao gravar, quando os tombstones passam de compact-ratio dos documentos:
+ *   docIds renumerados e postings reescritos sem os removidos
+ * - Persistido em disco junto com o armazenamento local
+ */
+@Component
+@Slf4j
+public class MailSearchIndex {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "de", "da", "do", "das", "dos", "em", "no", "na", "nos", "nas", "um", "uma", "uns", "umas",
+            "para", "por", "com", "sem", "que", "se", "ao", "aos", "as", "os", "ou", "e", "o", "a",
+            "the", "and", "of", "to", "in", "for", "on", "is");
+
+    private final Path indexPath;
+    private final double compactRatio;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Documentos (docId = posição)
+    private final List<String> docMessageIds = new ArrayList<>();
+    private int[] docLengths = new int[1024];
+    private final BitSet deleted = new BitSet();
+    private final Map<String, Integer> docByMessageId = new HashMap<>();
+    private long totalLength;
+
+    // Dicionário e postings
+    private final Map<String, Postings> postings = new HashMap<>();
+
+    public MailSearchIndex(
+            @Value("${gmail.search.index-path:${user.home}/.assistant-ai/gmail-index.bin}") String indexPath,
+            @Value("${gmail.search.compact-ratio:0.25}") double compactRatio) {
+        this.indexPath = Path.of(indexPath);
+        this.compactRatio = compactRatio;
+    }
+
+    /**
+     * Resultado de busca: ID da mensagem e score BM25
+     */
+    public record Hit(String messageId, double score) {}
+
+    // ==================== CONSULTA ====================
+
+    public boolean contains(String messageId) {
+        lock.readLock().lock();
+        try {
+            return docByMessageId.containsKey(messageId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs de mensagens indexadas (para reconciliar com o armazenamento)
+     */
+    public Set<String> indexedIds() {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(docByMessageId.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docByMessageId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca BM25: retorna até "limit" mensagens, maior score primeiro
+     */
+    public List<Hit> search(String query, int limit) {
+        List<String> terms = new ArrayList<>(new HashSet<>(tokenize(query)));
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int liveDocs = docByMessageId.size();
+            if (liveDocs == 0) {
+                return List.of();
+            }
+            double avgLength = (double) totalLength / liveDocs;
+            Map<Integer, Double> scores = new HashMap<>();
+
+            for (String term : terms) {
+                Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+
+                // Decodifica uma vez, ignorando tombstones, para ter o df exato
+                int[] decoded = list.decode(deleted);
+                int df = decoded.length / 2;
+                if (df == 0) {
+                    continue;
+                }
+                double idf = Math.log(1 + (liveDocs - df + 0.5) / (df + 0.5));
+
+                for (int i = 0; i < decoded.length; i += 2) {
+                    int doc = decoded[i];
+                    int tf = decoded[i + 1];
+                    double norm = K1 * (1 - B + B * docLengths[doc] / avgLength);
+                    scores.merge(doc, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            PriorityQueue<Map.Entry<Integer, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+            for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<Integer, Double> entry = top.poll();
+                hits.add(new Hit(docMessageIds.get(entry.getKey()), entry.getValue()));
+            }
+            Collections.reverse(hits);
+            return hits;
+
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== ATUALIZAÇÃO ====================
+
+    /**
+     * Indexa (ou reindexa) uma mensagem
+     * 
+     * @param message metadados (assunto, remetente, snippet)
+     * @param body corpo decodificado (pode ser null)
+     */
+    public void add(MessageMetadata message, String body) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        int length = 0;
+        // Assunto conta em dobro
+        length += count(frequencies, message.getSubject(), 2);
+        length += count(frequencies, message.getFrom(), 1);
+        length += count(frequencies, message.getSnippet(), 1);
+        length += count(frequencies, body, 1);
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(message.getId());
+
+            int doc = docMessageIds.size();
+            docMessageIds.add(message.getId());
+            if (doc == docLengths.length) {
+                docLengths = Arrays.copyOf(docLengths, doc * 2);
+            }
+            docLengths[doc] = length;
+            docByMessageId.put(message.getId(), doc);
+            totalLength += length;
+
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), t -> new Postings()).append(doc, entry.getValue());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String messageId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(messageId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reescreve o índice sem os tombstones, se eles passaram de compact-ratio dos documentos
+     *
+     * @return true se o índice foi compactado
+     */
+    public boolean compactIfNeeded() {
+        lock.writeLock().lock();
+        try {
+            int docs = docMessageIds.size();
+            int tombstones = deleted.cardinality();
+            if (tombstones == 0 || tombstones < docs * compactRatio) {
+                return false;
+            }
+
+            // Renumeração na mesma ordem: os deltas dos postings continuam positivos
+            int[] remap = new int[docs];
+            List<String> liveIds = new ArrayList<>(docs - tombstones);
+            int[] liveLengths = new int[Math.max(1024, docs - tombstones)];
+            for (int doc = 0; doc < docs; doc++) {
+                if (deleted.get(doc)) {
+                    remap[doc] = -1;
+                    continue;
+                }
+                remap[doc] = liveIds.size();
+                liveLengths[liveIds.size()] = docLengths[doc];
+                liveIds.add(docMessageIds.get(doc));
+            }
+
+            Map<String, Postings> compacted = new HashMap<>();
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                int[] decoded = entry.getValue().decode(deleted);
+                if (decoded.length == 0) {
+                    continue;
+                }
+                Postings list = new Postings();
+                for (int i = 0; i < decoded.length; i += 2) {
+                    list.append(remap[decoded[i]], decoded[i + 1]);
+                }
+                compacted.put(entry.getKey(), list);
+            }
+
+            int terms = postings.size();
+            docMessageIds.clear();
+            docMessageIds.addAll(liveIds);
+            docLengths = liveLengths;
+            deleted.clear();
+            docByMessageId.clear();
+            for (int doc = 0; doc < liveIds.size(); doc++) {
+                docByMessageId.put(liveIds.get(doc), doc);
+            }
+            postings.clear();
+            postings.putAll(compacted);
+
+            log.info("🧹 Índice de busca compactado: {} documentos removidos, {} → {} termos",
+                    tombstones, terms, compacted.size());
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeInternal(String messageId) {
+        Integer doc = docByMessageId.remove(messageId);
+        if (doc != null) {
+            deleted.set(doc);
+            totalLength -= docLengths[doc];
+        }
+    }
+
+    /**
+     * Verifica se a busca usa operadores do Gmail (não suportados no índice local)
+     */
+    public static boolean usesGmailOperators(String query) {
+        return query.contains(":") || query.startsWith("-") || query.contains(" -") || query.contains("\"");
+    }
+
+    // ==================== TOKENIZAÇÃO ====================
+
+    /**
+     * Minúsculas, sem acentos, separando em letras/dígitos, sem stopwords
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase();
+
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String token = folded.substring(start, i);
+                if (token.length() > 1 && !STOPWORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private int count(Map<String, Integer> frequencies, String text, int weight) {
+        List<String> tokens = tokenize(text);
+        for (String token : tokens) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    // ==================== PERSISTÊNCIA ====================
+
+    @PostConstruct
+    public void load() {
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexPath)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                log.warn("⚠️ Versão do índice local incompatível, será reconstruído");
+                return;
+            }
+
+            int docs = in.readInt();
+            docLengths = new int[Math.max(1024, docs)];
+            for (int doc = 0; doc < docs; doc++) {
+                String messageId = in.readUTF();
+                docLengths[doc] = in.readInt();
+                docMessageIds.add(messageId);
+                if (in.readBoolean()) {
+                    deleted.set(doc);
+                } else {
+                    docByMessageId.put(messageId, doc);
+                }
+            }
+            totalLength = in.readLong();
+
+            int terms = in.readInt();
+            for (int i = 0; i < terms; i++) {
+                String term = in.readUTF();
+                postings.put(term, Postings.read(in));
+            }
+            log.info("✅ Índice de busca local carregado: {} mensagens, {} termos", docByMessageId.size(), terms);
+
+        } catch (IOException e) {
+            log.warn("⚠️ Índice local inválido, será reconstruído: {}", e.getMessage());
+            clearInternal();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Grava o índice em disco (escrita atômica), compactando antes se necessário
+     */
+    public void persist() throws IOException {
+        compactIfNeeded();
+        Files.createDirectories(indexPath.toAbsolutePath().getParent());
+        Path temp = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(docMessageIds.size());
+            for (int doc = 0; doc < docMessageIds.size(); doc++) {
+                out.writeUTF(docMessageIds.get(doc));
+                out.writeInt(docLengths[doc]);
+                out.writeBoolean(deleted.get(doc));
+            }
+            out.writeLong(totalLength);
+
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Postings> entry : postings.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().write(out);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void clearInternal() {
+        docMessageIds.clear();
+        docLengths = new int[1024];
+        deleted.clear();
+        docByMessageId.clear();
+        postings.clear();
+        totalLength = 0;
+    }
+
+    // ==================== POSTINGS ====================
+
+    /**
+     * Lista de postings de um termo: (delta do docId, tf) em varint
+     */
+    private static final class Postings {
+
+        private byte[] data = new byte[8];
+        private int size;
+        private int lastDoc;
+
+        void append(int doc, int tf) {
+            writeVarInt(doc - lastDoc);
+            writeVarInt(tf);
+            lastDoc = doc;
+        }
+
+        /**
+         * Decodifica em [doc, tf, doc, tf, ...] pulando documentos removidos
+         */
+        int[] decode(BitSet deleted) {
+            int[] out = new int[16];
+            int n = 0;
+            int pos = 0;
+            int doc = 0;
+            while (pos < size) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[pos++];
+                    delta |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+
+                int tf = 0;
+                shift = 0;
+                do {
+                    b = data[pos++];
+                    tf |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+
+                doc += delta;
+                if (!deleted.get(doc)) {
+                    if (n + 2 > out.length) {
+                        out = Arrays.copyOf(out, out.length * 2);
+                    }
+                    out[n++] = doc;
+                    out[n++] = tf;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+
+        private void writeVarInt(int value) {
+            if (size + 5 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + 5));
+            }
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeInt(lastDoc);
+            out.writeInt(size);
+            out.write(data, 0, size);
+        }
+
+        static Postings read(DataInputStream in) throws IOException {
+            Postings postings = new Postings();
+            postings.lastDoc = in.readInt();
+            postings.size = in.readInt();
+            postings.data = new byte[Math.max(8, postings.size)];
+            in.readFully(postings.data, 0, postings.size);
+            return postings;
+        }
+    }
+}
@@ -1,18 +1,31 @@
 package br.com.sistema.springaigemini.tools;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Comparator;
 import java.util.List;
-
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import org.kohsuke.github.GHCommit;
 import org.kohsuke.github.GHContent;
 import org.kohsuke.github.GHIssueState;
+import org.kohsuke.github.GHRef;
 import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GHTree;
+import org.kohsuke.github.GHTreeBuilder;
 import org.kohsuke.github.GitHub;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import br.com.sistema.springaigemini.core.AssistantTool;
+import br.com.sistema.springaigemini.serializers.ToolOutputFormatter;
 import dev.langchain4j.agent.tool.Tool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +35,10 @@ import lombok.extern.slf4j.Slf4j;
  * 
  * ✅ FINAL: Todos os métodos retornam formato parseável para o frontend
  * ✅ NOVO: listRepositoryFilesRecursively() para recursão completa
+ * 
+ * As listagens de arquivos/repositórios já usam linhas com "|" (lidas pelo frontend).
+ * As demais tools seguem o ToolOutputFormatter: registros chave=valor e TSV no modo
+ * compacto (padrão), Markdown no modo rich.
  */
 @Component
 @RequiredArgsConstructor
@@ -34,6 +51,12 @@ public class GithubAssistantTools implements AssistantTool {
 	@Value("${github.username}")
 	private String githubUsername;
 
+	// Criações simultâneas de blobs (acima disso o GitHub aplica o secondary rate limit)
+	@Value("${github.blobs.max-concurrency:6}")
+	private int blobMaxConcurrency;
+
+	private final ToolOutputFormatter output;
+
 	private GitHub github;
 
 	/**
@@ -315,6 +338,23 @@ public class GithubAssistantTools implements AssistantTool {
 		}
 	}
 
+	/**
+	 * Obtém o SHA do último commit do branch padrão
+	 * 
+	 * Usado como versão do repositório (ETag) pelo GitHub File Selector.
+	 * Não é uma tool: lança IOException em vez de formatar mensagem de erro.
+	 */
+	public String getHeadCommitSha(String repositoryName) throws IOException {
+		GitHub gh = getGitHub();
+		GHRepository repo = gh.getUser(githubUsername).getRepository(repositoryName);
+
+		if (repo == null) {
+			throw new IOException("Repositório não encontrado: " + repositoryName);
+		}
+
+		return repo.getBranch(repo.getDefaultBranch()).getSHA1();
+	}
+
 	/**
 	 * Obtém informações detalhadas de um repositório
 	 */
@@ -324,7 +364,7 @@ public class GithubAssistantTools implements AssistantTool {
 			log.info("📊 Obtendo info do repositório: {}", repositoryName);
 
 			if (repositoryName == null || repositoryName.trim().isEmpty()) {
-				return "❌ Erro: Nome do repositório não pode estar vazio";
+				return output.text("❌ Erro: Nome do repositório não pode estar vazio");
 			}
 
 			GitHub gh = getGitHub();
@@ -332,7 +372,15 @@ public class GithubAssistantTools implements AssistantTool {
 
 			if (repo == null) {
 				log.error("❌ Repositório não encontrado: {}", repositoryName);
-				return String.format("❌ Repositório '%s' não encontrado", repositoryName);
+				return output.text(String.format("❌ Repositório '%s' não encontrado", repositoryName));
+			}
+
+			if (output.isCompact()) {
+				return output.record("repositorio", null, "nome", repo.getName(), "descricao", repo.getDescription(),
+						"url", repo.getHtmlUrl(), "privado", repo.isPrivate(), "linguagem", repo.getLanguage(),
+						"stars", repo.getStargazersCount(), "forks", repo.getForksCount(),
+						"issues_abertas", repo.getOpenIssueCount(), "criado", repo.getCreatedAt(),
+						"atualizado", repo.getUpdatedAt());
 			}
 
 			String name = repo.getName();
@@ -368,27 +416,30 @@ public class GithubAssistantTools implements AssistantTool {
 			log.info("📖 Lendo arquivo: {} de {}", filePath, repositoryName);
 
 			if (repositoryName == null || repositoryName.trim().isEmpty()) {
-				return "❌ Erro: Nome do repositório não pode estar vazio";
+				return output.text("❌ Erro: Nome do repositório não pode estar vazio");
 			}
 			if (filePath == null || filePath.trim().isEmpty()) {
-				return "❌ Erro: Caminho do arquivo não pode estar vazio";
+				return output.text("❌ Erro: Caminho do arquivo não pode estar vazio");
 			}
 
 			GitHub gh = getGitHub();
 			GHRepository repo = gh.getUser(githubUsername).getRepository(repositoryName);
 
 			if (repo == null) {
-				return String.format("❌ Repositório '%s' não encontrado", repositoryName);
+				return output.text(String.format("❌ Repositório '%s' não encontrado", repositoryName));
 			}
 
 			GHContent content = repo.getFileContent(filePath);
 
 			if (content == null) {
-				return String.format("❌ Arquivo '%s' não encontrado", filePath);
+				return output.text(String.format("❌ Arquivo '%s' não encontrado", filePath));
 			}
 
 			String decodedContent = content.getContent();
 
+			if (output.isCompact()) {
+				return output.record("arquivo", decodedContent, "repositorio", repositoryName, "caminho", filePath);
+			}
 			return String.format("📄 **CONTEÚDO DE: %s**\n\n" + "```\n%s\n```", filePath, decodedContent);
 
 		} catch (IOException e) {
@@ -409,7 +460,7 @@ public class GithubAssistantTools implements AssistantTool {
 			GHRepository repo = gh.getUser(githubUsername).getRepository(repositoryName);
 
 			if (repo == null) {
-				return String.format("❌ Repositório '%s' não encontrado", repositoryName);
+				return output.text(String.format("❌ Repositório '%s' não encontrado", repositoryName));
 			}
 
 			String encodedContent = Base64.getEncoder().encodeToString(content.getBytes());
@@ -417,6 +468,10 @@ public class GithubAssistantTools implements AssistantTool {
 			repo.createContent().content(encodedContent).path(filePath).message(message).commit();
 
 			log.info("✅ Arquivo criado com sucesso");
+			if (output.isCompact()) {
+				return output.record("arquivo_criado", null, "repositorio", repositoryName, "caminho", filePath,
+						"mensagem", message);
+			}
 			return String.format("✅ **ARQUIVO CRIADO COM SUCESSO**\n\n" + "**Arquivo:** %s\n" + "**Repositório:** %s\n"
 					+ "**Mensagem:** %s", filePath, repositoryName, message);
 
@@ -426,6 +481,120 @@ public class GithubAssistantTools implements AssistantTool {
 		}
 	}
 
+	/**
+	 * ✅ Cria vários arquivos em um ÚNICO commit (Git Data API)
+	 * 
+	 * Diferente de createFile(), que faz um commit por arquivo:
+	 * 1. Cria os blobs em paralelo (virtual threads)
+	 * 2. Cria uma árvore sobre a árvore do último commit
+	 * 3. Cria um commit com essa árvore
+	 * 4. Avança o branch padrão (fast-forward, sem force)
+	 * 
+	 * O branch só muda no passo 4: se algo falhar antes (ou o branch tiver
+	 * avançado nesse meio tempo), nenhum arquivo é gravado.
+	 */
+	@Tool("Cria vários arquivos no repositório em um único commit (filePaths e contents na mesma ordem)")
+	public String createFiles(String repositoryName, List<String> filePaths, List<String> contents, String message) {
+		try {
+			log.info("✏️ Criando {} arquivos em {} (commit único)", filePaths != null ? filePaths.size() : 0,
+					repositoryName);
+
+			if (repositoryName == null || repositoryName.trim().isEmpty()) {
+				return output.text("❌ Erro: Nome do repositório não pode estar vazio");
+			}
+			if (filePaths == null || filePaths.isEmpty()) {
+				return output.text("❌ Erro: Informe ao menos um arquivo");
+			}
+			if (contents == null || contents.size() != filePaths.size()) {
+				return output.text("❌ Erro: filePaths e contents devem ter o mesmo tamanho");
+			}
+
+			GitHub gh = getGitHub();
+			GHRepository repo = gh.getUser(githubUsername).getRepository(repositoryName);
+
+			if (repo == null) {
+				return output.text(String.format("❌ Repositório '%s' não encontrado", repositoryName));
+			}
+
+			String branch = repo.getDefaultBranch();
+			GHRef ref = repo.getRef("heads/" + branch);
+			String parentSha = ref.getObject().getSha();
+			String baseTreeSha = repo.getCommit(parentSha).getTree().getSha();
+
+			// 1. Blobs em paralelo
+			List<String> blobShas = createBlobs(repo, contents);
+
+			// 2. Árvore única com todos os arquivos
+			GHTreeBuilder treeBuilder = repo.createTree().baseTree(baseTreeSha);
+			for (int i = 0; i < filePaths.size(); i++) {
+				treeBuilder.shaEntry(filePaths.get(i), blobShas.get(i), false);
+			}
+			GHTree tree = treeBuilder.create();
+
+			// 3. Commit
+			GHCommit commit = repo.createCommit().message(message).tree(tree.getSha()).parent(parentSha).create();
+
+			// 4. Fast-forward do branch (falha se o branch avançou)
+			ref.updateTo(commit.getSHA1(), false);
+
+			log.info("✅ {} arquivos criados no commit {}", filePaths.size(), commit.getSHA1());
+
+			if (output.isCompact()) {
+				return output.table("arquivos_criados", List.of("caminho"),
+						filePaths.stream().map(List::of).toList(), "repositorio", repositoryName, "branch", branch,
+						"commit", commit.getSHA1(), "total", filePaths.size());
+			}
+
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("✅ **%d ARQUIVOS CRIADOS EM UM ÚNICO COMMIT**\n\n", filePaths.size()));
+			sb.append(String.format("**Repositório:** %s\n", repositoryName));
+			sb.append(String.format("**Branch:** %s\n", branch));
+			sb.append(String.format("**Commit:** %s\n", commit.getSHA1()));
+			sb.append(String.format("**Mensagem:** %s\n\n", message));
+			for (String path : filePaths) {
+				sb.append("- ").append(path).append("\n");
+			}
+			return sb.toString();
+
+		} catch (IOException e) {
+			log.error("❌ Erro ao criar arquivos (nenhuma alteração aplicada ao branch)", e);
+			return formatErrorResponse(e);
+		}
+	}
+
+	/**
+	 * Cria os blobs em paralelo (no máximo blobMaxConcurrency por vez) e retorna os SHAs
+	 * na mesma ordem dos conteúdos
+	 */
+	private List<String> createBlobs(GHRepository repo, List<String> contents) throws IOException {
+		Semaphore permits = new Semaphore(Math.max(1, blobMaxConcurrency));
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<String>> futures = new ArrayList<>(contents.size());
+			for (String content : contents) {
+				futures.add(executor.submit(() -> {
+					permits.acquire();
+					try {
+						return repo.createBlob().textContent(content).create().getSha();
+					} finally {
+						permits.release();
+					}
+				}));
+			}
+
+			List<String> shas = new ArrayList<>(futures.size());
+			for (Future<String> future : futures) {
+				shas.add(future.get());
+			}
+			return shas;
+
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Criação de blobs interrompida", e);
+		}
+	}
+
 	/**
 	 * Lista todas as issues abertas
 	 */
@@ -435,32 +604,37 @@ public class GithubAssistantTools implements AssistantTool {
 			log.info("🐛 Listando issues de: {}", repositoryName);
 
 			if (repositoryName == null || repositoryName.trim().isEmpty()) {
-				return "❌ Erro: Nome do repositório não pode estar vazio";
+				return output.text("❌ Erro: Nome do repositório não pode estar vazio");
 			}
 
 			GitHub gh = getGitHub();
 			GHRepository repo = gh.getUser(githubUsername).getRepository(repositoryName);
 
 			if (repo == null) {
-				return String.format("❌ Repositório '%s' não encontrado", repositoryName);
+				return output.text(String.format("❌ Repositório '%s' não encontrado", repositoryName));
 			}
 
-			StringBuilder sb = new StringBuilder();
-			sb.append(String.format("🐛 **ISSUES ABERTAS DE: %s**\n\n", repositoryName));
-
-			int count = 0;
+			List<List<?>> issues = new ArrayList<>();
 			for (org.kohsuke.github.GHIssue issue : repo.getIssues(GHIssueState.OPEN)) {
-				sb.append(String.format("#%d - %s\n", issue.getNumber(), issue.getTitle()));
-				count++;
-				if (count >= 20)
+				issues.add(Arrays.asList(issue.getNumber(), issue.getTitle()));
+				if (issues.size() >= 20)
 					break;
 			}
 
-			if (count == 0) {
-				return "✅ Nenhuma issue aberta.";
+			if (issues.isEmpty()) {
+				return output.text("✅ Nenhuma issue aberta.");
 			}
 
-			log.info("✅ {} issues listadas", count);
+			log.info("✅ {} issues listadas", issues.size());
+			if (output.isCompact()) {
+				return output.table("issues", List.of("numero", "titulo"), issues, "repositorio", repositoryName);
+			}
+
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("🐛 **ISSUES ABERTAS DE: %s**\n\n", repositoryName));
+			for (List<?> issue : issues) {
+				sb.append(String.format("#%d - %s\n", issue.get(0), issue.get(1)));
+			}
 			return sb.toString();
 
 		} catch (IOException e) {
@@ -478,30 +652,40 @@ public class GithubAssistantTools implements AssistantTool {
 			log.info("📊 Obtendo stats de: {}", repositoryName);
 
 			if (repositoryName == null || repositoryName.trim().isEmpty()) {
-				return "❌ Erro: Nome do repositório não pode estar vazio";
+				return output.text("❌ Erro: Nome do repositório não pode estar vazio");
 			}
 
 			GitHub gh = getGitHub();
 			GHRepository repo = gh.getUser(githubUsername).getRepository(repositoryName);
 
 			if (repo == null) {
-				return String.format("❌ Repositório '%s' não encontrado", repositoryName);
+				return output.text(String.format("❌ Repositório '%s' não encontrado", repositoryName));
 			}
 
 			var languages = repo.listLanguages();
 
 			if (languages.isEmpty()) {
-				return "📭 Nenhuma linguagem detectada.";
+				return output.text("📭 Nenhuma linguagem detectada.");
 			}
 
-			StringBuilder sb = new StringBuilder();
-			sb.append(String.format("📊 **ESTATÍSTICAS DE LINGUAGEM: %s**\n\n", repositoryName));
-
 			long totalBytes = 0;
 			for (long bytes : languages.values()) {
 				totalBytes += bytes;
 			}
 
+			if (output.isCompact()) {
+				List<List<?>> rows = new ArrayList<>();
+				for (var entry : languages.entrySet()) {
+					rows.add(Arrays.asList(entry.getKey(), entry.getValue(),
+							String.format(Locale.ROOT, "%.1f", (entry.getValue() * 100.0) / totalBytes)));
+				}
+				return output.table("linguagens", List.of("linguagem", "bytes", "percentual"), rows,
+						"repositorio", repositoryName);
+			}
+
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("📊 **ESTATÍSTICAS DE LINGUAGEM: %s**\n\n", repositoryName));
+
 			for (var entry : languages.entrySet()) {
 				String lang = entry.getKey();
 				long bytes = entry.getValue();
@@ -526,19 +710,20 @@ public class GithubAssistantTools implements AssistantTool {
 		String errorMsg = e.getMessage() != null ? e.getMessage() : "Erro desconhecido";
 
 		if (errorMsg.contains("401") || errorMsg.contains("Unauthorized")) {
-			return "❌ Erro de autenticação:\n" + "- Token GitHub inválido ou expirado\n"
-					+ "- Verifique github.token em application.properties";
+			return output.text("❌ Erro de autenticação:\n" + "- Token GitHub inválido ou expirado\n"
+					+ "- Verifique github.token em application.properties");
 		}
 
 		if (errorMsg.contains("404") || errorMsg.contains("Not Found")) {
-			return "❌ Recurso não encontrado:\n" + "- Repositório não existe\n"
-					+ "- Você não tem permissão para acessá-lo";
+			return output.text("❌ Recurso não encontrado:\n" + "- Repositório não existe\n"
+					+ "- Você não tem permissão para acessá-lo");
 		}
 
 		if (errorMsg.contains("403") || errorMsg.contains("Forbidden")) {
-			return "❌ Acesso negado:\n" + "- Token sem permissão suficiente\n" + "- Repositório pode ser privado";
+			return output.text("❌ Acesso negado:\n" + "- Token sem permissão suficiente\n"
+					+ "- Repositório pode ser privado");
 		}
 
-		return "❌ Erro: " + errorMsg;
+		return output.text("❌ Erro: " + errorMsg);
 	}
 }
\ No newline at end of file
@@ -1,20 +1,37 @@
 package br.com.sistema.springaigemini.tools;
 
-import java.io.ByteArrayOutputStream;
-import java.util.Base64;
-import java.util.Properties;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
 
 import org.springframework.stereotype.Component;
 
 import com.google.api.services.gmail.Gmail;
 import com.google.api.services.gmail.model.Message;
-import com.google.api.services.gmail.model.MessagePart;
 
 import br.com.sistema.springaigemini.core.AssistantTool;
+import br.com.sistema.springaigemini.enums.AgrupamentoEmail;
+import br.com.sistema.springaigemini.enums.StatusEnvio;
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import br.com.sistema.springaigemini.models.OutboundEmail;
+import br.com.sistema.springaigemini.serializers.ToolOutputFormatter;
+import br.com.sistema.springaigemini.services.GmailAttachmentSpool;
+import br.com.sistema.springaigemini.services.GmailBodyExtractor;
+import br.com.sistema.springaigemini.services.GmailBulkService;
+import br.com.sistema.springaigemini.services.GmailDigestService;
+import br.com.sistema.springaigemini.services.GmailFetchService;
+import br.com.sistema.springaigemini.services.GmailLabelCounters;
+import br.com.sistema.springaigemini.services.GmailOutboxService;
+import br.com.sistema.springaigemini.services.GmailPageIterator;
+import br.com.sistema.springaigemini.services.GmailMailboxStore;
+import br.com.sistema.springaigemini.services.GmailRequestExecutor;
+import br.com.sistema.springaigemini.services.GmailThreadService;
+import br.com.sistema.springaigemini.services.MailAnalyticsSnapshot;
+import br.com.sistema.springaigemini.services.MailPriorityClassifier;
+import br.com.sistema.springaigemini.services.MailSearchIndex;
 import dev.langchain4j.agent.tool.Tool;
-import jakarta.mail.Message.RecipientType;
-import jakarta.mail.Session;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -23,12 +40,27 @@ import lombok.extern.slf4j.Slf4j;
  * 
  * Operações disponíveis:
  * - Listar emails da caixa de entrada
- * - Enviar novo email
+ * - Enviar novo email (fila de envio persistente) e consultar o status
  * - Deletar email
  * - Marcar email como lido
  * - Obter conteúdo completo de um email
+ * - Listar e baixar anexos (spool local em disco)
+ * - Marcar como lido/não lido e mover para a lixeira em massa (batchModify)
+ * - Listar conversas e ler uma conversa inteira (threads, com cache)
+ * - Digest dos últimos emails (map-reduce com cache de resumos)
+ * - Estatísticas da caixa (snapshot colunar: remetentes, dias, horas, labels)
+ * - Contagem de emails/não lidos por label (contadores em cache, sem buscar mensagens)
+ * - Candidatos a emails importantes (classificador local treinado com o histórico de labels)
  * 
  * Implementa AssistantTool para descoberta automática.
+ * 
+ * Chamadas individuais passam pelo GmailRequestExecutor (cota + retry);
+ * listagens buscam os detalhes em batch pelo GmailFetchService.
+ * Com a caixa sincronizada (GmailSyncService), listEmails e listUnreadEmails
+ * respondem do GmailMailboxStore, e searchEmails do MailSearchIndex, sem chamar a API.
+ * 
+ * O texto retornado segue o ToolOutputFormatter: no modo compacto (padrão), listas em
+ * TSV e registros chave=valor; no modo rich, o Markdown com emojis.
  */
 @Component
 @RequiredArgsConstructor
@@ -36,6 +68,29 @@ import lombok.extern.slf4j.Slf4j;
 public class GmailAssistantTools implements AssistantTool {
 
     private final Gmail gmailService;
+    private final GmailFetchService gmailFetchService;
+    private final GmailRequestExecutor requestExecutor;
+    private final GmailMailboxStore mailboxStore;
+    private final GmailBodyExtractor bodyExtractor;
+    private final MailSearchIndex searchIndex;
+    private final GmailAttachmentSpool attachmentSpool;
+    private final GmailBulkService bulkService;
+    private final GmailOutboxService outboxService;
+    private final GmailThreadService threadService;
+    private final GmailDigestService digestService;
+    private final MailAnalyticsSnapshot analyticsSnapshot;
+    private final GmailLabelCounters labelCounters;
+    private final MailPriorityClassifier priorityClassifier;
+    private final ToolOutputFormatter output;
+
+    private static final int ATTACHMENT_PREVIEW_CHARS = 2000;
+    private static final int BULK_QUERY_LIMIT = 5000;
+    private static final String PARTIAL_MAILBOX_NOTE =
+            "(considera só os emails sincronizados; os mais antigos ficaram de fora)\n\n";
+    private static final int ANALYTICS_MAX_GROUPS = 100;
+    private static final int PRIORITY_MAX_RESULTS = 50;
+    private static final List<String> EMAIL_COLUMNS = List.of("id", "de", "assunto", "data");
+    private static final List<String> PRIORITY_COLUMNS = List.of("id", "de", "assunto", "data", "prioridade", "previa");
 
     @Override
     public String getToolName() {
@@ -58,105 +113,129 @@ public class GmailAssistantTools implements AssistantTool {
         try {
             log.info("Listando últimos {} emails", maxResults);
             
-            var result = gmailService.users()
-                    .messages()
-                    .list("me")
-                    .setMaxResults((long) maxResults)
-                    .execute();
-
-            if (result.getMessages() == null || result.getMessages().isEmpty()) {
-                log.warn("Nenhum email encontrado");
-                return "📭 Nenhum email encontrado na caixa de entrada.";
+            // Caixa já sincronizada: responde do armazenamento local, sem chamar a API
+            // (caixa parcial e menos emails que o pedido: os que faltam só a API conhece)
+            if (mailboxStore.isReady()) {
+                List<MessageMetadata> emails = mailboxStore.latest(maxResults);
+                if (mailboxStore.covers(emails.size(), maxResults)) {
+                    if (emails.isEmpty()) {
+                        return output.text("📭 Nenhum email encontrado na caixa de entrada.");
+                    }
+                    log.info("✅ {} emails listados do armazenamento local", emails.size());
+                    return formatEmails("emails", "📧 **EMAILS DA CAIXA DE ENTRADA**\n",
+                            "Total de emails retornados: %d\n\n", "📌", emails);
+                }
             }
-
-            StringBuilder sb = new StringBuilder();
-            sb.append("📧 **EMAILS DA CAIXA DE ENTRADA**\n");
-            sb.append(String.format("Total de emails retornados: %d\n\n", result.getMessages().size()));
             
-            for (int i = 0; i < result.getMessages().size(); i++) {
-                Message message = result.getMessages().get(i);
-                
-                var full = gmailService.users()
-                        .messages()
-                        .get("me", message.getId())
-                        .execute();
-
-                String subject = getHeaderValue(full, "Subject");
-                String from = getHeaderValue(full, "From");
-                String date = getHeaderValue(full, "Date");
-                String messageId = message.getId();
+            // Percorre as páginas (nextPageToken) até maxResults, com metadados em batch
+            List<Message> details = new ArrayList<>();
+            try (GmailPageIterator pages = gmailFetchService.pages(null, maxResults, maxResults)) {
+                while (pages.hasNext()) {
+                    details.addAll(pages.next());
+                }
+            }
 
-                sb.append(String.format(
-                        "%d. 📌 **De:** %s\n" +
-                        "   **Assunto:** %s\n" +
-                        "   **Data:** %s\n" +
-                        "   **ID:** %s\n\n",
-                        i + 1, from, subject, date, messageId
-                ));
+            if (details.isEmpty()) {
+                log.warn("Nenhum email encontrado");
+                return output.text("📭 Nenhum email encontrado na caixa de entrada.");
             }
 
             log.info("✅ Listagem de emails realizada com sucesso");
-            return sb.toString();
+            return formatEmails("emails", "📧 **EMAILS DA CAIXA DE ENTRADA**\n",
+                    "Total de emails retornados: %d\n\n", "📌", toMetadata(details));
 
         } catch (Exception e) {
             log.error("Erro ao listar emails", e);
-            return "❌ Erro ao listar emails: " + e.getMessage();
+            return output.text("❌ Erro ao listar emails: " + e.getMessage());
         }
     }
 
     /**
      * Envia um novo email.
      * 
+     * O email entra na fila de envio (GmailOutboxService) e a resposta é imediata;
+     * a entrega acontece em segundo plano, com retry em falhas temporárias.
+     * 
      * @param to email destinatário (ex: joao@email.com)
      * @param subject assunto do email
      * @param body corpo/conteúdo do email
-     * @return confirmação de envio
+     * @return confirmação de que o email entrou na fila
      */
     @Tool("Envia um novo email para um destinatário específico")
     public String sendEmail(String to, String subject, String body) {
         try {
-            log.info("Enviando email para: {}", to);
-            
-            Properties props = new Properties();
-            Session session = Session.getDefaultInstance(props, null);
-            MimeMessage email = new MimeMessage(session);
-
-            email.setFrom("me");
-            email.addRecipients(RecipientType.TO, to);
-            email.setSubject(subject);
-            email.setText(body);
-
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            email.writeTo(buffer);
+            log.info("Enfileirando email para: {}", to);
 
-            byte[] emailBytes = buffer.toByteArray();
-            String encodedEmail = Base64.getUrlEncoder().encodeToString(emailBytes);
+            OutboundEmail queued = outboxService.enqueue(to, subject, body, null);
 
-            Message message = new Message();
-            message.setRaw(encodedEmail);
-
-            Message sentMessage = gmailService.users()
-                    .messages()
-                    .send("me", message)
-                    .execute();
-
-            log.info("✅ Email enviado com sucesso para: {} com ID: {}", to, sentMessage.getId());
-            
+            if (output.isCompact()) {
+                return output.record("envio", null, "id", queued.getId(), "status", queued.getStatus().getValor(),
+                        "para", to, "assunto", subject);
+            }
             return String.format(
-                    "✅ **EMAIL ENVIADO COM SUCESSO**\n\n" +
+                    "📤 **EMAIL NA FILA DE ENVIO**\n\n" +
                     "**Para:** %s\n" +
                     "**Assunto:** %s\n" +
-                    "**ID da Mensagem:** %s\n\n" +
+                    "**ID na fila:** %s\n" +
+                    "**Status:** %s\n\n" +
                     "Conteúdo:\n%s",
-                    to, subject, sentMessage.getId(), body
+                    to, subject, queued.getId(), queued.getStatus().getDescricao(), body
             );
 
         } catch (Exception e) {
-            log.error("Erro ao enviar email para: {}", to, e);
-            return "❌ Erro ao enviar email: " + e.getMessage();
+            log.error("Erro ao enfileirar email para: {}", to, e);
+            return output.text("❌ Erro ao enviar email: " + e.getMessage());
         }
     }
 
+    /**
+     * Consulta o status de envio de um email da fila.
+     * 
+     * @param outboundId ID na fila (retornado por sendEmail); vazio = últimos envios
+     * @return status, tentativas e ID do Gmail quando enviado
+     */
+    @Tool("Consulta o status de envio de um email enviado pelo assistente (ou dos últimos envios)")
+    public String getSendStatus(String outboundId) {
+        List<OutboundEmail> emails;
+        if (outboundId == null || outboundId.isBlank()) {
+            emails = outboxService.recent(10);
+        } else {
+            OutboundEmail email = outboxService.get(outboundId.trim());
+            if (email == null) {
+                return output.text("❌ Envio não encontrado na fila: " + outboundId);
+            }
+            emails = List.of(email);
+        }
+
+        if (emails.isEmpty()) {
+            return output.text("📭 Nenhum envio na fila.");
+        }
+
+        if (output.isCompact()) {
+            List<List<?>> rows = emails.stream()
+                    .<List<?>>map(email -> Arrays.asList(email.getId(), email.getStatus().getValor(), email.getTo(),
+                            email.getSubject(), email.getAttempts(), email.getGmailMessageId(),
+                            email.getStatus() != StatusEnvio.ENVIADO ? email.getLastError() : null))
+                    .toList();
+            return output.table("envios",
+                    List.of("id", "status", "para", "assunto", "tentativas", "gmail_id", "erro"), rows);
+        }
+
+        StringBuilder sb = new StringBuilder("📤 **STATUS DE ENVIO**\n\n");
+        for (OutboundEmail email : emails) {
+            sb.append(String.format(
+                    "- **Para:** %s | **Assunto:** %s\n" +
+                    "  **Status:** %s | Tentativas: %d%s%s\n" +
+                    "  **ID na fila:** %s\n",
+                    email.getTo(), email.getSubject(), email.getStatus().getDescricao(), email.getAttempts(),
+                    email.getGmailMessageId() != null ? " | ID Gmail: " + email.getGmailMessageId() : "",
+                    email.getLastError() != null && email.getStatus() != StatusEnvio.ENVIADO
+                            ? " | Erro: " + email.getLastError() : "",
+                    email.getId()));
+        }
+        return sb.toString();
+    }
+
     /**
      * Deleta um email específico.
      * 
@@ -170,12 +249,17 @@ public class GmailAssistantTools implements AssistantTool {
         try {
             log.info("Deletando email com ID: {}", messageId);
             
-            gmailService.users()
+            requestExecutor.execute(GmailRequestExecutor.UNITS_DELETE, () -> gmailService.users()
                     .messages()
                     .delete("me", messageId)
-                    .execute();
+                    .execute());
+
+            mailboxStore.remove(messageId);
 
             log.info("✅ Email deletado com sucesso: {}", messageId);
+            if (output.isCompact()) {
+                return output.record("deletado", null, "id", messageId);
+            }
             return String.format(
                     "✅ **EMAIL DELETADO COM SUCESSO**\n\n" +
                     "ID do email deletado: %s\n" +
@@ -185,7 +269,7 @@ public class GmailAssistantTools implements AssistantTool {
 
         } catch (Exception e) {
             log.error("Erro ao deletar email com ID: {}", messageId, e);
-            return "❌ Erro ao deletar email: " + e.getMessage();
+            return output.text("❌ Erro ao deletar email: " + e.getMessage());
         }
     }
 
@@ -206,12 +290,17 @@ public class GmailAssistantTools implements AssistantTool {
                     new com.google.api.services.gmail.model.ModifyMessageRequest()
                             .setRemoveLabelIds(java.util.List.of("UNREAD"));
 
-            gmailService.users()
+            requestExecutor.execute(GmailRequestExecutor.UNITS_MODIFY, () -> gmailService.users()
                     .messages()
                     .modify("me", messageId, mods)
-                    .execute();
+                    .execute());
+
+            mailboxStore.toggleLabel(messageId, "UNREAD", false);
 
             log.info("✅ Email marcado como lido: {}", messageId);
+            if (output.isCompact()) {
+                return output.record("lido", null, "id", messageId);
+            }
             return String.format(
                     "✅ **EMAIL MARCADO COMO LIDO**\n\n" +
                     "ID do email: %s\n" +
@@ -221,7 +310,7 @@ public class GmailAssistantTools implements AssistantTool {
 
         } catch (Exception e) {
             log.error("Erro ao marcar email como lido: {}", messageId, e);
-            return "❌ Erro ao marcar como lido: " + e.getMessage();
+            return output.text("❌ Erro ao marcar como lido: " + e.getMessage());
         }
     }
 
@@ -238,11 +327,11 @@ public class GmailAssistantTools implements AssistantTool {
         try {
             log.info("Obtendo conteúdo do email: {}", messageId);
             
-            var message = gmailService.users()
+            var message = requestExecutor.execute(GmailRequestExecutor.UNITS_GET, () -> gmailService.users()
                     .messages()
                     .get("me", messageId)
                     .setFormat("full")
-                    .execute();
+                    .execute());
 
             String subject = getHeaderValue(message, "Subject");
             String from = getHeaderValue(message, "From");
@@ -251,6 +340,10 @@ public class GmailAssistantTools implements AssistantTool {
 
             log.info("✅ Conteúdo obtido com sucesso para: {}", messageId);
 
+            if (output.isCompact()) {
+                return output.record("email", body, "id", messageId, "thread_id", message.getThreadId(),
+                        "de", from, "assunto", subject, "data", date);
+            }
             return String.format(
                     "📧 **CONTEÚDO COMPLETO DO EMAIL**\n\n" +
                     "**De:** %s\n" +
@@ -263,7 +356,84 @@ public class GmailAssistantTools implements AssistantTool {
 
         } catch (Exception e) {
             log.error("Erro ao obter conteúdo do email: {}", messageId, e);
-            return "❌ Erro ao obter conteúdo: " + e.getMessage();
+            return output.text("❌ Erro ao obter conteúdo: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lista os anexos de um email (nome, tipo e tamanho), sem baixá-los.
+     * 
+     * @param messageId ID do email
+     * @return lista de anexos com o partId de cada um
+     */
+    @Tool("Lista os anexos de um email específico")
+    public String listAttachments(String messageId) {
+        try {
+            log.info("Listando anexos do email: {}", messageId);
+
+            List<GmailAttachmentSpool.AttachmentInfo> attachments = attachmentSpool.list(messageId);
+            if (attachments.isEmpty()) {
+                return output.text("📭 O email " + messageId + " não possui anexos.");
+            }
+
+            log.info("✅ {} anexos encontrados em {}", attachments.size(), messageId);
+            if (output.isCompact()) {
+                List<List<?>> rows = attachments.stream()
+                        .<List<?>>map(a -> Arrays.asList(a.partId(), a.filename(), a.mimeType(), a.size()))
+                        .toList();
+                return output.table("anexos", List.of("part_id", "arquivo", "tipo", "bytes"), rows,
+                        "message_id", messageId);
+            }
+
+            StringBuilder result = new StringBuilder();
+            result.append("📎 **ANEXOS DO EMAIL**\n\n");
+            for (GmailAttachmentSpool.AttachmentInfo attachment : attachments) {
+                result.append(String.format("- **%s** (%s, %d bytes) | partId: %s\n",
+                        attachment.filename(), attachment.mimeType(), attachment.size(), attachment.partId()));
+            }
+            return result.toString();
+
+        } catch (Exception e) {
+            log.error("Erro ao listar anexos do email: {}", messageId, e);
+            return output.text("❌ Erro ao listar anexos: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Baixa um anexo para o spool local e devolve o caminho do arquivo.
+     * 
+     * Anexos de texto incluem uma prévia do conteúdo.
+     * 
+     * @param messageId ID do email
+     * @param partId partId do anexo (ver listAttachments)
+     * @return dados do arquivo salvo
+     */
+    @Tool("Baixa um anexo de um email para o disco local e mostra uma prévia se for texto")
+    public String getAttachment(String messageId, String partId) {
+        try {
+            log.info("Baixando anexo {} do email: {}", partId, messageId);
+
+            GmailAttachmentSpool.SpooledAttachment attachment = attachmentSpool.fetch(messageId, partId);
+            String preview = attachmentSpool.textPreview(attachment, ATTACHMENT_PREVIEW_CHARS);
+
+            log.info("✅ Anexo disponível: {}", attachment.path());
+            if (output.isCompact()) {
+                return output.record("anexo", preview, "arquivo", attachment.filename(),
+                        "tipo", attachment.mimeType(), "bytes", attachment.size(), "caminho", attachment.path());
+            }
+            return String.format(
+                    "📎 **ANEXO SALVO**\n\n" +
+                    "**Arquivo:** %s\n" +
+                    "**Tipo:** %s\n" +
+                    "**Tamanho:** %d bytes\n" +
+                    "**Caminho local:** %s%s",
+                    attachment.filename(), attachment.mimeType(), attachment.size(), attachment.path(),
+                    preview != null ? "\n\n**Prévia:**\n" + preview : ""
+            );
+
+        } catch (Exception e) {
+            log.error("Erro ao baixar anexo {} do email: {}", partId, messageId, e);
+            return output.text("❌ Erro ao baixar anexo: " + e.getMessage());
         }
     }
 
@@ -284,12 +454,17 @@ public class GmailAssistantTools implements AssistantTool {
                     new com.google.api.services.gmail.model.ModifyMessageRequest()
                             .setAddLabelIds(java.util.List.of("UNREAD"));
 
-            gmailService.users()
+            requestExecutor.execute(GmailRequestExecutor.UNITS_MODIFY, () -> gmailService.users()
                     .messages()
                     .modify("me", messageId, mods)
-                    .execute();
+                    .execute());
+
+            mailboxStore.toggleLabel(messageId, "UNREAD", true);
 
             log.info("✅ Email marcado como não lido: {}", messageId);
+            if (output.isCompact()) {
+                return output.record("nao_lido", null, "id", messageId);
+            }
             return String.format(
                     "✅ **EMAIL MARCADO COMO NÃO LIDO**\n\n" +
                     "ID do email: %s\n" +
@@ -299,7 +474,7 @@ public class GmailAssistantTools implements AssistantTool {
 
         } catch (Exception e) {
             log.error("Erro ao marcar email como não lido: {}", messageId, e);
-            return "❌ Erro ao marcar como não lido: " + e.getMessage();
+            return output.text("❌ Erro ao marcar como não lido: " + e.getMessage());
         }
     }
 
@@ -314,50 +489,41 @@ public class GmailAssistantTools implements AssistantTool {
         try {
             log.info("Listando últimos {} emails não lidos", maxResults);
             
-            var result = gmailService.users()
+            // Caixa já sincronizada: responde do armazenamento local, sem chamar a API
+            // (caixa parcial e menos emails que o pedido: pode haver não lidos mais antigos)
+            if (mailboxStore.isReady()) {
+                List<MessageMetadata> emails = mailboxStore.latest(maxResults, MessageMetadata::isUnread);
+                if (mailboxStore.covers(emails.size(), maxResults)) {
+                    if (emails.isEmpty()) {
+                        return output.text("✅ Parabéns! Você não tem emails não lidos.");
+                    }
+                    log.info("✅ {} emails listados do armazenamento local", emails.size());
+                    return formatEmails("nao_lidos", "📧 **EMAILS NÃO LIDOS**\n", "Total: %d\n\n", "🔴", emails);
+                }
+            }
+            
+            var result = requestExecutor.execute(GmailRequestExecutor.UNITS_LIST, () -> gmailService.users()
                     .messages()
                     .list("me")
                     .setQ("is:unread")
                     .setMaxResults((long) maxResults)
-                    .execute();
+                    .execute());
 
             if (result.getMessages() == null || result.getMessages().isEmpty()) {
                 log.info("Nenhum email não lido encontrado");
-                return "✅ Parabéns! Você não tem emails não lidos.";
+                return output.text("✅ Parabéns! Você não tem emails não lidos.");
             }
 
-            StringBuilder sb = new StringBuilder();
-            sb.append("📧 **EMAILS NÃO LIDOS**\n");
-            sb.append(String.format("Total: %d\n\n", result.getMessages().size()));
-            
-            for (int i = 0; i < result.getMessages().size(); i++) {
-                Message message = result.getMessages().get(i);
-                
-                var full = gmailService.users()
-                        .messages()
-                        .get("me", message.getId())
-                        .execute();
-
-                String subject = getHeaderValue(full, "Subject");
-                String from = getHeaderValue(full, "From");
-                String date = getHeaderValue(full, "Date");
-                String messageId = message.getId();
-
-                sb.append(String.format(
-                        "%d. 🔴 **De:** %s\n" +
-                        "   **Assunto:** %s\n" +
-                        "   **Data:** %s\n" +
-                        "   **ID:** %s\n\n",
-                        i + 1, from, subject, date, messageId
-                ));
-            }
+            // Busca só os metadados em batch (1 chamada HTTP a cada 50 emails)
+            List<Message> details = gmailFetchService.getMessagesMetadata(idsOf(result.getMessages()));
 
             log.info("✅ Listagem de emails não lidos realizada com sucesso");
-            return sb.toString();
+            return formatEmails("nao_lidos", "📧 **EMAILS NÃO LIDOS**\n", "Total: %d\n\n", "🔴",
+                    toMetadata(details));
 
         } catch (Exception e) {
             log.error("Erro ao listar emails não lidos", e);
-            return "❌ Erro ao listar emails não lidos: " + e.getMessage();
+            return output.text("❌ Erro ao listar emails não lidos: " + e.getMessage());
         }
     }
 
@@ -373,56 +539,540 @@ public class GmailAssistantTools implements AssistantTool {
         try {
             log.info("Buscando emails com query: {}", query);
             
-            var result = gmailService.users()
+            // Texto livre com a caixa sincronizada: busca no índice local (BM25), sem gastar cota.
+            // Operadores do Gmail (from:, is:unread, -palavra...) continuam indo para a API,
+            // assim como buscas sem resultado ou com menos resultados que o pedido numa caixa parcial.
+            if (mailboxStore.isReady() && query != null && !MailSearchIndex.usesGmailOperators(query)) {
+                List<MessageMetadata> emails = searchIndex.search(query, maxResults).stream()
+                        .map(hit -> mailboxStore.get(hit.messageId()))
+                        .filter(Objects::nonNull)
+                        .toList();
+                if (mailboxStore.coversSearch(emails.size(), maxResults)) {
+                    log.info("✅ {} emails encontrados no índice local", emails.size());
+                    return formatEmails("busca", String.format("🔍 **RESULTADOS DA BUSCA: '%s'**\n", query),
+                            "Total encontrado: %d\n\n", "📌", emails, "query", query);
+                }
+                log.info("Índice local com {} de {} resultados para '{}', buscando na API",
+                        emails.size(), maxResults, query);
+            }
+            
+            var result = requestExecutor.execute(GmailRequestExecutor.UNITS_LIST, () -> gmailService.users()
                     .messages()
                     .list("me")
                     .setQ(query)
                     .setMaxResults((long) maxResults)
-                    .execute();
+                    .execute());
 
             if (result.getMessages() == null || result.getMessages().isEmpty()) {
                 log.info("Nenhum email encontrado para a busca: {}", query);
-                return String.format("Nenhum email encontrado para: '%s'", query);
+                return output.text(String.format("Nenhum email encontrado para: '%s'", query));
+            }
+
+            // Busca só os metadados em batch (1 chamada HTTP a cada 50 emails)
+            List<Message> details = gmailFetchService.getMessagesMetadata(idsOf(result.getMessages()));
+
+            log.info("✅ Busca realizada com sucesso. {} resultados encontrados", 
+                    result.getMessages().size());
+            return formatEmails("busca", String.format("🔍 **RESULTADOS DA BUSCA: '%s'**\n", query),
+                    "Total encontrado: %d\n\n", "📌", toMetadata(details), "query", query);
+
+        } catch (Exception e) {
+            log.error("Erro ao buscar emails com query: {}", query, e);
+            return output.text("❌ Erro na busca: " + e.getMessage());
+        }
+    }
+
+    // ==================== CONVERSAS (THREADS) ====================
+
+    /**
+     * Lista conversas (threads), com assunto, participantes e número de mensagens.
+     * 
+     * @param query busca do Gmail, ex: "from:joao@email.com" (opcional)
+     * @param maxResults máximo de conversas
+     * @return lista de conversas com o threadId de cada uma
+     */
+    @Tool("Lista conversas (threads) do Gmail, opcionalmente filtradas por uma busca como from:pessoa@email.com")
+    public String listThreads(String query, int maxResults) {
+        try {
+            log.info("Listando conversas | query: {} | max: {}", query, maxResults);
+
+            List<GmailThreadService.ThreadSummary> threads = threadService.listThreads(
+                    query == null || query.isBlank() ? null : query, maxResults);
+            if (threads.isEmpty()) {
+                return output.text("📭 Nenhuma conversa encontrada.");
+            }
+
+            if (output.isCompact()) {
+                List<List<?>> rows = threads.stream()
+                        .<List<?>>map(t -> Arrays.asList(t.threadId(), t.subject(), String.join(", ", t.participants()),
+                                t.messageCount(), t.lastDate(), t.unread() ? 1 : 0))
+                        .toList();
+                return output.table("conversas",
+                        List.of("thread_id", "assunto", "participantes", "mensagens", "ultima", "nao_lida"), rows,
+                        "total", threads.size());
             }
 
             StringBuilder sb = new StringBuilder();
-            sb.append(String.format("🔍 **RESULTADOS DA BUSCA: '%s'**\n", query));
-            sb.append(String.format("Total encontrado: %d\n\n", result.getMessages().size()));
-            
-            for (int i = 0; i < result.getMessages().size(); i++) {
-                Message message = result.getMessages().get(i);
-                
-                var full = gmailService.users()
-                        .messages()
-                        .get("me", message.getId())
-                        .execute();
-
-                String subject = getHeaderValue(full, "Subject");
-                String from = getHeaderValue(full, "From");
-                String date = getHeaderValue(full, "Date");
-                String messageId = message.getId();
+            sb.append("🧵 **CONVERSAS**\n");
+            sb.append(String.format("Total: %d\n\n", threads.size()));
 
+            for (int i = 0; i < threads.size(); i++) {
+                GmailThreadService.ThreadSummary thread = threads.get(i);
                 sb.append(String.format(
-                        "%d. 📌 **De:** %s\n" +
-                        "   **Assunto:** %s\n" +
-                        "   **Data:** %s\n" +
-                        "   **ID:** %s\n\n",
-                        i + 1, from, subject, date, messageId
+                        "%d. %s **Assunto:** %s\n" +
+                        "   **Participantes:** %s\n" +
+                        "   **Mensagens:** %d | **Última:** %s\n" +
+                        "   **Thread ID:** %s\n\n",
+                        i + 1, thread.unread() ? "🔴" : "📌", orNA(thread.subject()),
+                        String.join(", ", thread.participants()), thread.messageCount(),
+                        orNA(thread.lastDate()), thread.threadId()
                 ));
             }
+            return sb.toString();
 
-            log.info("✅ Busca realizada com sucesso. {} resultados encontrados", 
-                    result.getMessages().size());
+        } catch (Exception e) {
+            log.error("Erro ao listar conversas", e);
+            return output.text("❌ Erro ao listar conversas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Obtém a conversa inteira em uma única transcrição compacta.
+     * 
+     * Citações de mensagens anteriores e mensagens repetidas são removidas.
+     * 
+     * @param threadId ID da conversa (ver listThreads ou o threadId de um email)
+     * @return transcrição em ordem cronológica
+     */
+    @Tool("Obtém uma conversa (thread) inteira do Gmail como transcrição compacta, sem citações repetidas")
+    public String getThreadConversation(String threadId) {
+        try {
+            log.info("Obtendo conversa: {}", threadId);
+
+            GmailThreadService.ThreadTranscript transcript = threadService.getTranscript(threadId);
+
+            if (output.isCompact()) {
+                StringBuilder text = new StringBuilder();
+                for (GmailThreadService.TranscriptEntry entry : transcript.entries()) {
+                    text.append("> ").append(orNA(entry.from())).append(" | ").append(orNA(entry.date())).append('\n')
+                            .append(entry.text()).append("\n\n");
+                }
+                return output.record("conversa", text.toString(), "thread_id", threadId,
+                        "assunto", transcript.subject(), "participantes", String.join(", ", transcript.participants()),
+                        "mensagens", transcript.entries().size());
+            }
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("🧵 **CONVERSA**\n\n");
+            sb.append(String.format("**Assunto:** %s\n", orNA(transcript.subject())));
+            sb.append(String.format("**Participantes:** %s\n", String.join(", ", transcript.participants())));
+            sb.append(String.format("**Mensagens:** %d\n\n", transcript.entries().size()));
+
+            for (GmailThreadService.TranscriptEntry entry : transcript.entries()) {
+                sb.append(String.format("--- **%s** (%s)\n%s\n\n",
+                        orNA(entry.from()), orNA(entry.date()), entry.text()));
+            }
             return sb.toString();
 
         } catch (Exception e) {
-            log.error("Erro ao buscar emails com query: {}", query, e);
-            return "❌ Erro na busca: " + e.getMessage();
+            log.error("Erro ao obter conversa: {}", threadId, e);
+            return output.text("❌ Erro ao obter conversa: " + e.getMessage());
+        }
+    }
+
+    // ==================== DIGEST ====================
+
+    /**
+     * Gera um resumo (digest) dos emails mais recentes.
+     * 
+     * Cada email é resumido uma única vez (cache por messageId); pedidos
+     * seguintes só resumem os emails que chegaram depois.
+     * 
+     * @param maxMessages quantidade de emails a considerar
+     * @param query busca do Gmail para filtrar (opcional)
+     * @return digest agrupado por tema
+     */
+    @Tool("Gera um resumo (digest) dos últimos emails, opcionalmente filtrados por uma busca do Gmail")
+    public String digestEmails(int maxMessages, String query) {
+        try {
+            log.info("Gerando digest | max: {} | query: {}", maxMessages, query);
+
+            GmailDigestService.Digest digest = digestService.digest(maxMessages,
+                    query == null || query.isBlank() ? null : query);
+            if (digest.messages() == 0) {
+                return output.text("📭 Nenhum email encontrado para resumir.");
+            }
+
+            if (output.isCompact()) {
+                return output.record("digest", digest.text(), "emails", digest.messages(),
+                        "grupos", digest.clusters(), "resumidos_agora", digest.newlySummarized(),
+                        "do_cache", digest.clusters() - digest.newlySummarized());
+            }
+            return String.format(
+                    "📰 **DIGEST DOS ÚLTIMOS %d EMAILS**\n" +
+                    "(%d grupos de emails semelhantes: %d resumidos agora, %d do cache)\n\n%s",
+                    digest.messages(), digest.clusters(), digest.newlySummarized(),
+                    digest.clusters() - digest.newlySummarized(), digest.text()
+            );
+
+        } catch (Exception e) {
+            log.error("Erro ao gerar digest", e);
+            return output.text("❌ Erro ao gerar digest: " + e.getMessage());
+        }
+    }
+
+    // ==================== ESTATÍSTICAS ====================
+
+    /**
+     * Quantidade de emails e de não lidos de uma label, sem listar nem buscar mensagens.
+     * 
+     * @param label ID ou nome da label, ex: INBOX, UNREAD, STARRED, "Trabalho" (vazio = INBOX)
+     * @return totais de mensagens e conversas, lidas e não lidas
+     */
+    @Tool("Conta emails e emails não lidos de uma label (padrão: caixa de entrada), sem ler as mensagens. "
+            + "Use para perguntas como 'quantos emails não lidos eu tenho'")
+    public String countEmails(String label) {
+        try {
+            GmailLabelCounters.LabelCounts counts = labelCounters.get(label);
+            log.info("🏷️ Contadores de {}: {} mensagens, {} não lidas", counts.id(), counts.messagesTotal(),
+                    counts.messagesUnread());
+
+            if (output.isCompact()) {
+                return output.record("contagem", null, "label", counts.id(), "nome", counts.name(),
+                        "mensagens", counts.messagesTotal(), "nao_lidas", counts.messagesUnread(),
+                        "conversas", counts.threadsTotal(), "conversas_nao_lidas", counts.threadsUnread());
+            }
+            return String.format(
+                    "🏷️ **%s**\n\n" +
+                    "**Emails:** %d (%d não lidos)\n" +
+                    "**Conversas:** %d (%d não lidas)",
+                    counts.name(), counts.messagesTotal(), counts.messagesUnread(),
+                    counts.threadsTotal(), counts.threadsUnread()
+            );
+
+        } catch (Exception e) {
+            log.error("Erro ao contar emails da label: {}", label, e);
+            return output.text("❌ Erro ao contar emails: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Estatísticas da caixa sem ler nenhuma mensagem (snapshot colunar local).
+     * 
+     * @param groupBy remetente, dia, dia_semana, hora ou label
+     * @param lastDays últimos N dias (0 = caixa inteira)
+     * @param labelId só emails com esta label, ex: UNREAD, INBOX, IMPORTANT (opcional)
+     * @param topK máximo de grupos (remetentes/labels com mais emails, ou dias mais recentes)
+     * @return contagem de emails por grupo
+     */
+    @Tool("Estatísticas da caixa de email sem ler as mensagens: conta emails agrupando por remetente, dia, "
+            + "dia_semana, hora ou label (ex: quem mais me envia emails, quantos emails por dia no último mês)")
+    public String analyzeInbox(String groupBy, int lastDays, String labelId, int topK) {
+        if (!analyticsSnapshot.isReady()) {
+            return output.text("⏳ A caixa de email ainda não foi sincronizada; tente novamente em instantes.");
+        }
+
+        AgrupamentoEmail agrupamento = AgrupamentoEmail.fromString(groupBy);
+        Long since = lastDays > 0 ? System.currentTimeMillis() - Duration.ofDays(lastDays).toMillis() : null;
+        String label = labelId == null || labelId.isBlank() ? null : labelId;
+        int limit = Math.max(1, Math.min(topK, ANALYTICS_MAX_GROUPS));
+        MailAnalyticsSnapshot.Result result = analyticsSnapshot.groupBy(agrupamento, since, label, limit);
+
+        // O snapshot guarda IDs: um nome de label ("Trabalho") é resolvido pelos contadores do Gmail
+        GmailLabelCounters.LabelCounts labelCounts = null;
+        if (result.labelFilter() == MailAnalyticsSnapshot.LabelFilter.UNKNOWN
+                || result.labelFilter() == MailAnalyticsSnapshot.LabelFilter.UNTRACKED) {
+            labelCounts = labelCountsOrNull(label);
+            if (labelCounts != null && result.labelFilter() == MailAnalyticsSnapshot.LabelFilter.UNKNOWN
+                    && !labelCounts.id().equals(label)) {
+                label = labelCounts.id();
+                result = analyticsSnapshot.groupBy(agrupamento, since, label, limit);
+            }
+        }
+        if (result.labelFilter() == MailAnalyticsSnapshot.LabelFilter.UNTRACKED) {
+            return untrackedLabel(label, labelCounts);
+        }
+
+        log.info("📊 Estatísticas por {} em {} µs ({} de {} emails)", agrupamento.getValor(),
+                result.elapsedMicros(), result.matched(), result.rows());
+
+        if (output.isCompact()) {
+            List<List<?>> rows = result.buckets().stream()
+                    .<List<?>>map(b -> Arrays.asList(b.key(), b.name(), b.count()))
+                    .toList();
+            return output.table("estatisticas", List.of("chave", "nome", "emails"), rows,
+                    "agrupamento", agrupamento.getValor(), "dias", lastDays > 0 ? lastDays : null,
+                    "label", label, "emails", result.matched(), "caixa", result.rows(),
+                    "caixa_parcial", mailboxStore.isComplete() ? null : true);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("📊 **EMAILS POR %s**\n", agrupamento.getDescricao().toUpperCase()));
+        sb.append(String.format("%d emails%s%s (de %d na caixa)\n", result.matched(),
+                lastDays > 0 ? " nos últimos " + lastDays + " dias" : "",
+                label != null ? " com a label " + label : "", result.rows()));
+        sb.append(mailboxStore.isComplete() ? "\n" : PARTIAL_MAILBOX_NOTE);
+        for (MailAnalyticsSnapshot.Bucket bucket : result.buckets()) {
+            sb.append(String.format("- **%s**%s: %d\n", bucket.name(),
+                    agrupamento == AgrupamentoEmail.REMETENTE && !bucket.key().equals(bucket.name())
+                            ? " <" + bucket.key() + ">" : "",
+                    bucket.count()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A label está fora das 64 que o snapshot rastreia: responder "0 emails" seria errado.
+     * Informa o total dos contadores do Gmail (sem filtro de período nem agrupamento), quando houver.
+     */
+    private String untrackedLabel(String label, GmailLabelCounters.LabelCounts counts) {
+        log.info("📊 Label {} fora do snapshot de estatísticas", label);
+        if (output.isCompact()) {
+            return output.record("label_nao_rastreada", null, "label", label,
+                    "mensagens", counts != null ? counts.messagesTotal() : null,
+                    "nao_lidas", counts != null ? counts.messagesUnread() : null);
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("⚠️ A label **%s** não está entre as %d mais frequentes do snapshot de "
+                + "estatísticas: não dá para agrupar nem filtrar por período com ela.\n",
+                counts != null ? counts.name() : label, Long.SIZE));
+        if (counts != null) {
+            sb.append(String.format("**Total na caixa (contadores do Gmail):** %d emails (%d não lidos)\n",
+                    counts.messagesTotal(), counts.messagesUnread()));
+        } else {
+            sb.append("Use countEmails para o total da label.\n");
+        }
+        return sb.toString();
+    }
+
+    private GmailLabelCounters.LabelCounts labelCountsOrNull(String label) {
+        try {
+            return labelCounters.get(label);
+        } catch (Exception e) {
+            log.debug("Label {} não encontrada nos contadores do Gmail: {}", label, e.getMessage());
+            return null;
+        }
+    }
+
+    // ==================== PRIORIDADE ====================
+
+    /**
+     * Candidatos a emails importantes, escolhidos pelo classificador local (sem chamar o modelo).
+     * 
+     * @param maxResults quantidade de candidatos (ex: 10)
+     * @param onlyUnread só emails não lidos
+     * @return emails com a probabilidade estimada de serem importantes
+     */
+    @Tool("Lista os emails mais provavelmente importantes, pré-selecionados por um classificador local "
+            + "treinado com o histórico de estrelas/importantes do usuário. Use para 'quais emails são importantes'")
+    public String listPriorityEmails(int maxResults, boolean onlyUnread) {
+        if (!mailboxStore.isReady() || !priorityClassifier.isTrained()) {
+            return output.text("⏳ O classificador de prioridade ainda não foi treinado; use listUnreadEmails.");
+        }
+
+        int limit = Math.max(1, Math.min(maxResults, PRIORITY_MAX_RESULTS));
+        List<MailPriorityClassifier.Scored> ranked = priorityClassifier.top(mailboxStore, limit,
+                onlyUnread ? MessageMetadata::isUnread : m -> true);
+        log.info("🎯 {} candidatos a importantes (modelo com {} exemplos)", ranked.size(),
+                priorityClassifier.examples());
+
+        if (ranked.isEmpty()) {
+            if (!mailboxStore.isComplete()) {
+                return output.text("📭 Nenhum email encontrado entre os sincronizados; use listUnreadEmails.");
+            }
+            return output.text(onlyUnread ? "✅ Parabéns! Você não tem emails não lidos." : "📭 Nenhum email encontrado");
+        }
+
+        if (output.isCompact()) {
+            List<List<?>> rows = ranked.stream()
+                    .<List<?>>map(s -> Arrays.asList(s.message().getId(), s.message().getFrom(), s.message().getSubject(),
+                            s.message().getDate(), Math.round(s.score() * 100), s.message().getSnippet()))
+                    .toList();
+            return output.table("prioridade", PRIORITY_COLUMNS, rows, "total", ranked.size(),
+                    "nao_lidos", onlyUnread, "exemplos_treino", priorityClassifier.examples(),
+                    "caixa_parcial", mailboxStore.isComplete() ? null : true);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("⭐ **EMAILS PROVAVELMENTE IMPORTANTES**\n");
+        sb.append(String.format("Total: %d\n", ranked.size()));
+        sb.append(mailboxStore.isComplete() ? "\n" : PARTIAL_MAILBOX_NOTE);
+        for (int i = 0; i < ranked.size(); i++) {
+            MessageMetadata email = ranked.get(i).message();
+            sb.append(String.format(
+                    "%d. ⭐ **De:** %s\n" +
+                    "   **Assunto:** %s\n" +
+                    "   **Data:** %s\n" +
+                    "   **Prioridade:** %d%%\n" +
+                    "   **Prévia:** %s\n" +
+                    "   **ID:** %s\n\n",
+                    i + 1, orNA(email.getFrom()), orNA(email.getSubject()), orNA(email.getDate()),
+                    Math.round(ranked.get(i).score() * 100), orNA(email.getSnippet()), email.getId()
+            ));
+        }
+        return sb.toString();
+    }
+
+    // ==================== OPERAÇÕES EM MASSA ====================
+
+    /**
+     * Marca vários emails como lidos de uma vez (batchModify, até 1000 por chamada).
+     * 
+     * @param messageIds IDs dos emails (opcional se houver query)
+     * @param query busca do Gmail, ex: "from:newsletter@site.com is:unread" (opcional)
+     * @return resultado por bloco
+     */
+    @Tool("Marca vários emails como lidos de uma vez, por lista de IDs e/ou por uma busca do Gmail")
+    public String markAsReadBulk(List<String> messageIds, String query) {
+        return modifyBulk("MARCADOS COMO LIDOS", messageIds, query, null, List.of("UNREAD"));
+    }
+
+    /**
+     * Marca vários emails como não lidos de uma vez.
+     * 
+     * @param messageIds IDs dos emails (opcional se houver query)
+     * @param query busca do Gmail (opcional)
+     * @return resultado por bloco
+     */
+    @Tool("Marca vários emails como não lidos de uma vez, por lista de IDs e/ou por uma busca do Gmail")
+    public String markAsUnreadBulk(List<String> messageIds, String query) {
+        return modifyBulk("MARCADOS COMO NÃO LIDOS", messageIds, query, List.of("UNREAD"), null);
+    }
+
+    /**
+     * Move vários emails para a lixeira de uma vez (batchModify, até 1000 por chamada).
+     * 
+     * Não é permanente: os emails podem ser recuperados da lixeira por 30 dias.
+     * 
+     * @param messageIds IDs dos emails (opcional se houver query)
+     * @param query busca do Gmail (opcional)
+     * @return resultado por bloco
+     */
+    @Tool("Move vários emails para a lixeira de uma vez, por lista de IDs e/ou por uma busca do Gmail")
+    public String trashEmailsBulk(List<String> messageIds, String query) {
+        try {
+            List<String> ids = bulkService.resolveIds(messageIds, query, BULK_QUERY_LIMIT);
+            if (ids.isEmpty()) {
+                return output.text("📭 Nenhum email encontrado para mover para a lixeira.");
+            }
+
+            log.info("Movendo {} emails para a lixeira em massa", ids.size());
+            return formatBulkResult("EMAILS MOVIDOS PARA A LIXEIRA", ids.size(), bulkService.trash(ids));
+
+        } catch (Exception e) {
+            log.error("Erro ao mover emails para a lixeira em massa", e);
+            return output.text("❌ Erro ao mover emails para a lixeira: " + e.getMessage());
         }
     }
 
     // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
 
+    private String modifyBulk(String title, List<String> messageIds, String query,
+                              List<String> addLabelIds, List<String> removeLabelIds) {
+        try {
+            List<String> ids = bulkService.resolveIds(messageIds, query, BULK_QUERY_LIMIT);
+            if (ids.isEmpty()) {
+                return output.text("📭 Nenhum email encontrado para a operação.");
+            }
+
+            log.info("Alterando {} emails em massa (+{} / -{})", ids.size(), addLabelIds, removeLabelIds);
+            return formatBulkResult(title, ids.size(), bulkService.batchModify(ids, addLabelIds, removeLabelIds));
+
+        } catch (Exception e) {
+            log.error("Erro na operação em massa", e);
+            return output.text("❌ Erro na operação em massa: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Resume o resultado de cada bloco da operação em massa
+     */
+    private String formatBulkResult(String title, int total, List<GmailBulkService.ChunkResult> chunks) {
+        int done = chunks.stream().filter(GmailBulkService.ChunkResult::success)
+                .mapToInt(GmailBulkService.ChunkResult::size).sum();
+
+        if (output.isCompact()) {
+            List<List<?>> rows = chunks.stream()
+                    .<List<?>>map(c -> Arrays.asList(c.chunk(), c.size(), c.success() ? 1 : 0, c.error()))
+                    .toList();
+            return output.table("lote", List.of("bloco", "emails", "ok", "erro"), rows,
+                    "operacao", title, "total", total, "concluidos", done);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(done == total ? "✅" : "⚠️").append(" **").append(title).append("**\n\n");
+        sb.append(String.format("Total: %d de %d emails\n\n", done, total));
+
+        for (GmailBulkService.ChunkResult chunk : chunks) {
+            sb.append(chunk.success()
+                    ? String.format("- Bloco %d: ✅ %d emails\n", chunk.chunk(), chunk.size())
+                    : String.format("- Bloco %d: ❌ %d emails (%s)\n", chunk.chunk(), chunk.size(), chunk.error()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formata uma listagem de emails (armazenamento local ou API)
+     * 
+     * @param kind tipo do resultado no formato compacto
+     * @param title título da listagem
+     * @param totalFormat linha de total (com %d)
+     * @param emoji marcador de cada email
+     * @param emails metadados, já ordenados
+     * @param meta atributos extras do formato compacto (pares chave, valor)
+     * @return lista formatada
+     */
+    private String formatEmails(String kind, String title, String totalFormat, String emoji,
+                                List<MessageMetadata> emails, Object... meta) {
+        if (output.isCompact()) {
+            List<List<?>> rows = emails.stream()
+                    .<List<?>>map(e -> Arrays.asList(e.getId(), e.getFrom(), e.getSubject(), e.getDate()))
+                    .toList();
+            Object[] header = Arrays.copyOf(new Object[] {"total", emails.size()}, 2 + meta.length);
+            System.arraycopy(meta, 0, header, 2, meta.length);
+            return output.table(kind, EMAIL_COLUMNS, rows, header);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(title);
+        sb.append(String.format(totalFormat, emails.size()));
+
+        for (int i = 0; i < emails.size(); i++) {
+            MessageMetadata email = emails.get(i);
+            sb.append(String.format(
+                    "%d. %s **De:** %s\n" +
+                    "   **Assunto:** %s\n" +
+                    "   **Data:** %s\n" +
+                    "   **ID:** %s\n\n",
+                    i + 1, emoji, orNA(email.getFrom()), orNA(email.getSubject()), orNA(email.getDate()), email.getId()
+            ));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Converte mensagens (metadados da API) para o modelo local, ignorando as que falharam
+     */
+    private List<MessageMetadata> toMetadata(List<Message> messages) {
+        return messages.stream()
+                .filter(Objects::nonNull)
+                .map(GmailFetchService::toMetadata)
+                .toList();
+    }
+
+    private String orNA(String value) {
+        return value != null ? value : "N/A";
+    }
+
+    /**
+     * Extrai os IDs de uma lista de mensagens (resultado do messages().list())
+     */
+    private List<String> idsOf(List<Message> messages) {
+        return messages.stream()
+                .map(Message::getId)
+                .toList();
+    }
+
     /**
      * Extrai um valor de header específico da mensagem.
      * 
@@ -431,7 +1081,7 @@ public class GmailAssistantTools implements AssistantTool {
      * @return valor do header ou "N/A" se não encontrado
      */
     private String getHeaderValue(Message message, String headerName) {
-        if (message.getPayload() == null || 
+        if (message == null || message.getPayload() == null || 
             message.getPayload().getHeaders() == null) {
             return "N/A";
         }
@@ -456,27 +1106,8 @@ public class GmailAssistantTools implements AssistantTool {
      */
     private String getBodyContent(Message message) {
         try {
-            MessagePart part = message.getPayload();
-            
-            // Tentar obter do corpo principal
-            if (part.getBody() != null && part.getBody().getData() != null) {
-                String data = part.getBody().getData();
-                byte[] decode = Base64.getUrlDecoder().decode(data);
-                return new String(decode, java.nio.charset.StandardCharsets.UTF_8);
-            }
-
-            // Tentar obter das partes (multipart)
-            if (part.getParts() != null) {
-                for (MessagePart p : part.getParts()) {
-                    if (p.getBody() != null && p.getBody().getData() != null) {
-                        String data = p.getBody().getData();
-                        byte[] decode = Base64.getUrlDecoder().decode(data);
-                        return new String(decode, java.nio.charset.StandardCharsets.UTF_8);
-                    }
-                }
-            }
-
-            return "Conteúdo não disponível ou é um email com anexos";
+            String body = bodyExtractor.extract(message);
+            return body != null ? body : "Conteúdo não disponível ou é um email com anexos";
         } catch (Exception e) {
             log.warn("Erro ao decodificar corpo do email", e);
             return "Erro ao decodificar conteúdo: " + e.getMessage();
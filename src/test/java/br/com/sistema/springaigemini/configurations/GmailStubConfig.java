@@ -0,0 +1,77 @@
+package br.com.sistema.springaigemini.configurations;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.gmail.Gmail;
+
+import br.com.sistema.springaigemini.stub.GmailStubMailbox;
+import br.com.sistema.springaigemini.stub.GmailStubServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * Perfil "gmail-stub": o bean Gmail aponta para o GmailStubServer local, com uma caixa
+ * gerada, em vez do Gmail real (sem OAuth nem rede).
+ *
+ * Serve para medir listagem, busca em batch e sincronização de forma reprodutível:
+ * mesma semente → mesma caixa e mesma sequência de falhas injetadas.
+ *
+ * Só existe no classpath de teste: @ActiveProfiles("gmail-stub") + @Import(GmailStubConfig.class)
+ * (parâmetros em src/test/resources/application-gmail-stub.properties; ver GmailSyncBenchmark)
+ */
+@Log4j2
+@TestConfiguration
+@Profile("gmail-stub")
+public class GmailStubConfig {
+
+    private static final String APPLICATION_NAME = "Gmail API Client (stub)";
+
+    @Bean
+    public GmailStubMailbox gmailStubMailbox(
+            @Value("${gmail.stub.messages:5000}") int messages,
+            @Value("${gmail.stub.seed:42}") long seed,
+            @Value("${gmail.stub.history-retention:20000}") int historyRetention,
+            @Value("${gmail.stub.arrivals-per-minute:0}") double arrivalsPerMinute) {
+        long start = System.nanoTime();
+        GmailStubMailbox mailbox = new GmailStubMailbox(messages, seed, historyRetention, arrivalsPerMinute);
+        log.info("🧪 Caixa do Gmail stub gerada: {} emails em {} ms", messages, (System.nanoTime() - start) / 1_000_000);
+        return mailbox;
+    }
+
+    @Bean(destroyMethod = "stop")
+    public GmailStubServer gmailStubServer(
+            GmailStubMailbox mailbox,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Value("${gmail.stub.port:0}") int port,
+            @Value("${gmail.stub.latency-ms:50}") long latencyMillis,
+            @Value("${gmail.stub.jitter-ms:30}") long jitterMillis,
+            @Value("${gmail.stub.batch-item-latency-ms:2}") long batchItemLatencyMillis,
+            @Value("${gmail.stub.quota-error-rate:0.01}") double quotaErrorRate,
+            @Value("${gmail.stub.server-error-rate:0.005}") double serverErrorRate,
+            @Value("${gmail.stub.units-per-second:250}") double unitsPerSecond,
+            @Value("${gmail.stub.seed:42}") long seed) throws IOException {
+        GmailStubServer server = new GmailStubServer(mailbox, objectMapper, meterRegistry,
+                new GmailStubServer.Settings(port, latencyMillis, jitterMillis, batchItemLatencyMillis,
+                        quotaErrorRate, serverErrorRate, unitsPerSecond, seed));
+        server.start();
+        return server;
+    }
+
+    @Bean
+    public Gmail gmailService(GmailStubServer server) {
+        log.info("Iniciando Gmail API apontando para o stub em {}", server.rootUrl());
+        return new Gmail.Builder(new NetHttpTransport(), JacksonFactory.getDefaultInstance(), null)
+                .setRootUrl(server.rootUrl())
+                .setApplicationName(APPLICATION_NAME)
+                .build();
+    }
+}
@@ -0,0 +1,45 @@
+package br.com.sistema.springaigemini.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class GitHubFileSelectorControllerTests {
+
+    @Test
+    void smileQuandoPedidoExplicitamente() {
+        assertThat(GitHubFileSelectorController.prefersSmile("application/x-jackson-smile")).isTrue();
+        assertThat(GitHubFileSelectorController.prefersSmile("application/x-jackson-smile, application/json")).isTrue();
+    }
+
+    @Test
+    void jsonPorPadrao() {
+        assertThat(GitHubFileSelectorController.prefersSmile(null)).isFalse();
+        assertThat(GitHubFileSelectorController.prefersSmile("")).isFalse();
+        assertThat(GitHubFileSelectorController.prefersSmile("*/*")).isFalse();
+        assertThat(GitHubFileSelectorController.prefersSmile("application/json")).isFalse();
+        assertThat(GitHubFileSelectorController.prefersSmile("application/json, application/x-jackson-smile")).isFalse();
+        assertThat(GitHubFileSelectorController.prefersSmile("não é um tipo")).isFalse();
+    }
+
+    @Test
+    void respeitaQValues() {
+        // Primeiro da lista, mas com q-value menor
+        assertThat(GitHubFileSelectorController.prefersSmile("application/json;q=0.1, application/x-jackson-smile"))
+                .isTrue();
+        assertThat(GitHubFileSelectorController.prefersSmile("application/x-jackson-smile;q=0.5, application/json"))
+                .isFalse();
+        assertThat(GitHubFileSelectorController.prefersSmile("application/x-jackson-smile;q=0, */*")).isFalse();
+    }
+
+    @Test
+    void entradaMaisEspecificaDecide() {
+        // JSON só pelo wildcard (0.5), Smile explícito (0.8)
+        assertThat(GitHubFileSelectorController.prefersSmile("application/x-jackson-smile;q=0.8, */*;q=0.5"))
+                .isTrue();
+        // Smile explícito com q baixo: o application/* mais alto vale só para JSON
+        assertThat(GitHubFileSelectorController.prefersSmile("application/*;q=0.9, application/x-jackson-smile;q=0.2"))
+                .isFalse();
+        assertThat(GitHubFileSelectorController.prefersSmile("application/*, application/json;q=0.3")).isTrue();
+    }
+}
@@ -0,0 +1,179 @@
+package br.com.sistema.springaigemini.filters;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class SelectorCompressionFilterTests {
+
+    private static final String URI = "/api/v1/github-selector/repos/projeto/files";
+    private static final String ETAG = "\"abc123-variante\"";
+    private static final String GZIP_ETAG = "\"abc123-variante-gzip\"";
+    private static final String BODY = "{\"arquivo\":\"src/main/Main.java\"}".repeat(200);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SelectorCompressionFilter filter = new SelectorCompressionFilter(true, 2048, meterRegistry);
+
+    @Test
+    void acceptEncodingRespeitaQValues() {
+        assertThat(SelectorCompressionFilter.acceptsGzip("gzip, deflate, br")).isTrue();
+        assertThat(SelectorCompressionFilter.acceptsGzip("br;q=1.0, gzip;q=0.8")).isTrue();
+        assertThat(SelectorCompressionFilter.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(SelectorCompressionFilter.acceptsGzip("gzip; q=0.0, identity")).isFalse();
+        assertThat(SelectorCompressionFilter.acceptsGzip("*")).isTrue();
+        assertThat(SelectorCompressionFilter.acceptsGzip("*;q=0.5, gzip;q=0")).isFalse();
+        assertThat(SelectorCompressionFilter.acceptsGzip("identity, *;q=0")).isFalse();
+        assertThat(SelectorCompressionFilter.acceptsGzip("deflate")).isFalse();
+        assertThat(SelectorCompressionFilter.acceptsGzip(null)).isFalse();
+    }
+
+    @Test
+    void corpoGrandeSaiEmGzipComEtagDaVariante() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("gzip"), response, ok(BODY));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(GZIP_ETAG);
+        assertThat(response.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT_ENCODING);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(BODY);
+        }
+        assertThat(meterRegistry.counter("github.selector.response.body.bytes").count()).isEqualTo(BODY.length());
+    }
+
+    @Test
+    void gzipComQZeroNaoComprime() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("gzip;q=0, identity"), response, ok(BODY));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+        assertThat(response.getContentAsString()).isEqualTo(BODY);
+    }
+
+    @Test
+    void corpoPequenoSaiSemCompressao() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request("gzip"), response, ok("{}"));
+
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+        assertThat(response.getContentLength()).isEqualTo(2);
+    }
+
+    @Test
+    void notModifiedDeRequisicaoGzipMantemOSufixo() throws Exception {
+        MockHttpServletRequest request = request("gzip");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, GZIP_ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> seenByController = new AtomicReference<>();
+
+        filter.doFilter(request, response, notModified(seenByController));
+
+        // O controller compara com o ETag original; o cliente recebe o da variante que guardou
+        assertThat(seenByController.get()).isEqualTo(ETAG);
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(GZIP_ETAG);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(meterRegistry.counter("github.selector.response.not.modified").count()).isEqualTo(1);
+    }
+
+    @Test
+    void notModifiedDaVarianteSemCompressaoNaoGanhaSufixo() throws Exception {
+        MockHttpServletRequest request = request("gzip");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, notModified(new AtomicReference<>()));
+
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+    }
+
+    @Test
+    void notModifiedSemGzipNaoGanhaSufixo() throws Exception {
+        MockHttpServletRequest request = request(null);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, notModified(new AtomicReference<>()));
+
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(ETAG);
+    }
+
+    @Test
+    void escritaPorWriteListenerSaiComprimida() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        filter.doFilter(request("gzip"), response, (req, res) -> {
+            HttpServletResponse wrapped = (HttpServletResponse) res;
+            wrapped.setHeader(HttpHeaders.ETAG, ETAG);
+            wrapped.setContentType("application/json");
+            ServletOutputStream out = wrapped.getOutputStream();
+            out.setWriteListener(new WriteListener() {
+                @Override
+                public void onWritePossible() throws IOException {
+                    assertThat(out.isReady()).isTrue();
+                    out.write(BODY.getBytes(StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    error.set(t);
+                }
+            });
+        });
+
+        assertThat(error.get()).isNull();
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(BODY);
+        }
+    }
+
+    private static MockHttpServletRequest request(String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", URI);
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return request;
+    }
+
+    private static FilterChain ok(String body) {
+        return (req, res) -> {
+            HttpServletResponse response = (HttpServletResponse) res;
+            response.setHeader(HttpHeaders.ETAG, ETAG);
+            response.setContentType("application/json");
+            response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static FilterChain notModified(AtomicReference<String> seenIfNoneMatch) {
+        return (req, res) -> {
+            seenIfNoneMatch.set(((HttpServletRequest) req).getHeader(HttpHeaders.IF_NONE_MATCH));
+            HttpServletResponse response = (HttpServletResponse) res;
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, ETAG);
+            response.flushBuffer();
+        };
+    }
+}
@@ -0,0 +1,171 @@
+package br.com.sistema.springaigemini.serializers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import br.com.sistema.springaigemini.dtos.response.github.FileNode;
+import br.com.sistema.springaigemini.dtos.response.github.GitHubFilesResponse;
+import br.com.sistema.springaigemini.services.GitHubDataStructureService;
+import br.com.sistema.springaigemini.support.RepositoryListings;
+import br.com.sistema.springaigemini.tools.GithubAssistantTools;
+
+class FileTreeJsonWriterTests {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final SmileFactory smileFactory = new SmileFactory();
+    private final FileTreeJsonWriter writer = new FileTreeJsonWriter(mapper, smileFactory);
+
+    @Test
+    void mesmoConteudoQueOObjectMapper() throws Exception {
+        FileNode readme = new FileNode("README", "README", "file");
+        FileNode main = new FileNode("Main.java", "src/Main.java", "file", "java");
+        main.setSize(120L);
+        FileNode src = folder("src", main);
+        src.setSize(120L);
+        src.setFileCount(1);
+        GitHubFilesResponse response = new GitHubFilesResponse("projeto", 2,
+                List.of(src, folder("vazia"), readme));
+
+        assertSameAsObjectMapper(response);
+    }
+
+    @Test
+    void mesmoConteudoParaArvoreGerada() throws Exception {
+        GithubAssistantTools tools = mock(GithubAssistantTools.class);
+        when(tools.listRepositoryFilesRecursively("repo")).thenReturn(RepositoryListings.generate(5_000, 3));
+        GitHubFilesResponse response = new GitHubDataStructureService(tools).getRepositoryFilesAsTree("repo");
+
+        assertSameAsObjectMapper(response);
+    }
+
+    @Test
+    void camposNulosDaRespostaComoNoObjectMapper() throws Exception {
+        assertSameAsObjectMapper(new GitHubFilesResponse());
+        assertSameAsObjectMapper(new GitHubFilesResponse("vazio", 0, List.of()));
+    }
+
+    @Test
+    void arvoreProfundaIgualAoObjectMapper() throws Exception {
+        // 300 níveis: 600 níveis de aninhamento JSON, dentro do limite padrão do parser
+        assertSameAsObjectMapper(new GitHubFilesResponse("fundo", 1, List.of(chain(300))));
+    }
+
+    @Test
+    void arvoreMuitoProfundaSemRecursao() throws Exception {
+        int depth = 2_000;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        writer.write(new GitHubFilesResponse("fundo", 1, List.of(chain(depth))), out);
+
+        // Lido em streaming com limite de aninhamento maior (o padrão do Jackson é 1000)
+        JsonFactory factory = JsonFactory.builder()
+                .streamReadConstraints(StreamReadConstraints.builder().maxNestingDepth(depth * 2 + 10).build())
+                .build();
+        int objects = 0;
+        int maxDepth = 0;
+        int current = 0;
+        try (JsonParser parser = factory.createParser(out.toByteArray())) {
+            for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                if (token == JsonToken.START_OBJECT) {
+                    objects++;
+                    maxDepth = Math.max(maxDepth, ++current);
+                } else if (token == JsonToken.END_OBJECT) {
+                    current--;
+                }
+            }
+        }
+        // Resposta + pastas + arquivo no fundo
+        assertThat(objects).isEqualTo(1 + depth + 1);
+        assertThat(maxDepth).isEqualTo(1 + depth + 1);
+        assertThat(current).isZero();
+    }
+
+    @Test
+    void smileComOMesmoConteudo() throws Exception {
+        GithubAssistantTools tools = mock(GithubAssistantTools.class);
+        when(tools.listRepositoryFilesRecursively("repo")).thenReturn(RepositoryListings.generate(2_000, 5));
+        GitHubFilesResponse response = new GitHubDataStructureService(tools).getRepositoryFilesAsTree("repo");
+
+        ByteArrayOutputStream smile = new ByteArrayOutputStream();
+        writer.writeSmile(response, smile);
+
+        JsonNode fromSmile = new ObjectMapper(smileFactory).readTree(smile.toByteArray());
+        assertThat(fromSmile).isEqualTo(mapper.readTree(mapper.writeValueAsBytes(response)));
+        assertThat(smile.size()).isLessThan(mapper.writeValueAsBytes(response).length);
+    }
+
+    @Test
+    void enviaOsPrimeirosBytesAntesDoFim() throws Exception {
+        List<FileNode> files = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            files.add(new FileNode("f" + i, "f" + i, "file"));
+        }
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        List<Integer> flushedAt = new ArrayList<>();
+        FilterOutputStream out = new FilterOutputStream(target) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target.write(b, off, len);
+            }
+
+            @Override
+            public void flush() {
+                flushedAt.add(target.size());
+            }
+        };
+
+        writer.write(new GitHubFilesResponse("muitos", files.size(), files), out);
+
+        // Flush a cada 2048 nós, além do final
+        assertThat(flushedAt).hasSizeGreaterThanOrEqualTo(5);
+        assertThat(flushedAt.get(0)).isPositive().isLessThan(target.size());
+    }
+
+    private void assertSameAsObjectMapper(GitHubFilesResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(response, out);
+
+        // Mesmos campos e valores (a ordem dos campos pode mudar: children vem por último)
+        assertThat(mapper.readTree(out.toByteArray()))
+                .isEqualTo(mapper.readTree(mapper.writeValueAsBytes(response)));
+    }
+
+    private static FileNode folder(String path, FileNode... children) {
+        FileNode folder = new FileNode(path.substring(path.lastIndexOf('/') + 1), path, "folder");
+        folder.setChildren(new ArrayList<>(List.of(children)));
+        return folder;
+    }
+
+    /**
+     * Pastas aninhadas "d/d/d/..." com um arquivo no fundo
+     */
+    private static FileNode chain(int depth) {
+        StringBuilder path = new StringBuilder("d");
+        for (int i = 1; i < depth; i++) {
+            path.append("/d");
+        }
+        FileNode node = new FileNode("fim.txt", path + "/fim.txt", "file", "txt");
+        for (int i = depth; i > 0; i--) {
+            node = folder(path.toString(), node);
+            path.setLength(Math.max(0, path.length() - 2));
+        }
+        return node;
+    }
+}
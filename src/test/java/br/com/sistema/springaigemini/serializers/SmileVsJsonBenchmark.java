@@ -0,0 +1,86 @@
+package br.com.sistema.springaigemini.serializers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import br.com.sistema.springaigemini.configurations.SmileConfig;
+import br.com.sistema.springaigemini.dtos.response.github.GitHubFilesResponse;
+import br.com.sistema.springaigemini.services.GitHubDataStructureService;
+import br.com.sistema.springaigemini.support.Benchmark;
+import br.com.sistema.springaigemini.support.RepositoryListings;
+import br.com.sistema.springaigemini.tools.GithubAssistantTools;
+
+/**
+ * Tamanho e tempo de serialização da árvore de arquivos em JSON e em Smile
+ * (com e sem gzip), pelos mesmos caminhos usados nos endpoints:
+ * ObjectMapper/converter (/files) e FileTreeJsonWriter (/files-tree).
+ */
+@Tag(Benchmark.TAG)
+class SmileVsJsonBenchmark {
+
+    private static final int FILES = 100_000;
+    private static final int WARMUP = 5;
+    private static final int RUNS = 20;
+
+    @Test
+    void arvoreEmJsonESmile() throws Exception {
+        GithubAssistantTools tools = mock(GithubAssistantTools.class);
+        when(tools.listRepositoryFilesRecursively("repo")).thenReturn(RepositoryListings.generate(FILES, 42));
+        GitHubFilesResponse tree = new GitHubDataStructureService(tools).getRepositoryFilesAsTree("repo");
+
+        SmileConfig config = new SmileConfig();
+        SmileFactory smileFactory = config.smileFactory();
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper smile = config.smileHttpMessageConverter(smileFactory, Jackson2ObjectMapperBuilder.json())
+                .getObjectMapper();
+        FileTreeJsonWriter writer = new FileTreeJsonWriter(json, smileFactory);
+
+        byte[] jsonBytes = json.writeValueAsBytes(tree);
+        byte[] smileBytes = smile.writeValueAsBytes(tree);
+        ByteArrayOutputStream streamedJson = new ByteArrayOutputStream();
+        writer.write(tree, streamedJson);
+        ByteArrayOutputStream streamedSmile = new ByteArrayOutputStream();
+        writer.writeSmile(tree, streamedSmile);
+
+        Benchmark.report("Árvore com " + FILES + " arquivos, JSON (ObjectMapper)", sizes(jsonBytes));
+        Benchmark.report("Árvore com " + FILES + " arquivos, Smile (converter)", sizes(smileBytes));
+        Benchmark.report("Árvore com " + FILES + " arquivos, JSON (FileTreeJsonWriter)",
+                sizes(streamedJson.toByteArray()));
+        Benchmark.report("Árvore com " + FILES + " arquivos, Smile (FileTreeJsonWriter)",
+                sizes(streamedSmile.toByteArray()));
+
+        Benchmark.measure("JSON (ObjectMapper)", WARMUP, RUNS, () -> json.writeValueAsBytes(tree));
+        Benchmark.measure("Smile (converter)", WARMUP, RUNS, () -> smile.writeValueAsBytes(tree));
+        Benchmark.measure("JSON (FileTreeJsonWriter)", WARMUP, RUNS,
+                () -> writer.write(tree, OutputStream.nullOutputStream()));
+        Benchmark.measure("Smile (FileTreeJsonWriter)", WARMUP, RUNS,
+                () -> writer.writeSmile(tree, OutputStream.nullOutputStream()));
+        Benchmark.measure("Leitura JSON", WARMUP, RUNS, () -> json.readValue(jsonBytes, GitHubFilesResponse.class));
+        Benchmark.measure("Leitura Smile", WARMUP, RUNS,
+                () -> smile.readValue(smileBytes, GitHubFilesResponse.class));
+
+        assertThat(smileBytes.length).isLessThan(jsonBytes.length);
+        assertThat(streamedSmile.size()).isLessThan(streamedJson.size());
+    }
+
+    private static String sizes(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        }
+        return String.format("%,d bytes (gzip: %,d bytes)", bytes.length, compressed.size());
+    }
+}
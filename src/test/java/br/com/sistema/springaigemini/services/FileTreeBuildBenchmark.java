@@ -0,0 +1,39 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import br.com.sistema.springaigemini.dtos.response.github.GitHubFilesResponse;
+import br.com.sistema.springaigemini.support.Benchmark;
+import br.com.sistema.springaigemini.support.RepositoryListings;
+import br.com.sistema.springaigemini.tools.GithubAssistantTools;
+
+/**
+ * Montagem da árvore de arquivos (parse da listagem, ordenação por path e passada
+ * única com os totais por pasta) com 100 mil e 1 milhão de entradas geradas.
+ */
+@Tag(Benchmark.TAG)
+class FileTreeBuildBenchmark {
+
+    @ParameterizedTest(name = "{0} arquivos")
+    @CsvSource({ "100000, 3, 10", "1000000, 1, 5" })
+    void montaArvore(int files, int warmup, int runs) throws Exception {
+        String listing = RepositoryListings.generate(files, 42);
+        GithubAssistantTools tools = mock(GithubAssistantTools.class);
+        when(tools.listRepositoryFilesRecursively("repo")).thenReturn(listing);
+        GitHubDataStructureService service = new GitHubDataStructureService(tools);
+
+        Benchmark.report("Listagem gerada", String.format("%,d arquivos, %,d pastas, %,d bytes", files,
+                listing.lines().filter(line -> line.startsWith("folder|")).count(), listing.length()));
+        Benchmark.measure("Árvore com " + files + " arquivos", warmup, runs,
+                () -> service.getRepositoryFilesAsTree("repo"));
+
+        GitHubFilesResponse tree = service.getRepositoryFilesAsTree("repo");
+        assertThat(tree.getTotalFiles()).isEqualTo(files);
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import br.com.sistema.springaigemini.dtos.response.github.FileNode;
+import br.com.sistema.springaigemini.dtos.response.github.GitHubFilesResponse;
+import br.com.sistema.springaigemini.support.RepositoryListings;
+import br.com.sistema.springaigemini.tools.GithubAssistantTools;
+
+class GitHubDataStructureServiceTests {
+
+    private final GithubAssistantTools tools = mock(GithubAssistantTools.class);
+    private final GitHubDataStructureService service = new GitHubDataStructureService(tools);
+
+    @Test
+    void arvoreComTotaisPorPasta() {
+        GitHubFilesResponse tree = tree(String.join("\n",
+                "file|README.md|README.md|10",
+                "file|Main.java|src/main/Main.java|100",
+                "folder|src|src",
+                "file|notas.md|src/notas.md|50",
+                "folder|main|src/main",
+                "file|App.java|src/main/App.java|30",
+                "folder|vazia|vazia"));
+
+        assertThat(tree.getTotalFiles()).isEqualTo(4);
+        // Pastas primeiro, depois por nome
+        assertThat(tree.getFiles()).extracting(FileNode::getPath).containsExactly("src", "vazia", "README.md");
+
+        FileNode src = tree.getFiles().get(0);
+        assertThat(src.getSize()).isEqualTo(180L);
+        assertThat(src.getFileCount()).isEqualTo(3);
+        assertThat(src.getChildren()).extracting(FileNode::getName).containsExactly("main", "notas.md");
+
+        FileNode main = src.getChildren().get(0);
+        assertThat(main.getSize()).isEqualTo(130L);
+        assertThat(main.getFileCount()).isEqualTo(2);
+        assertThat(main.getChildren()).extracting(FileNode::getName).containsExactly("App.java", "Main.java");
+
+        FileNode empty = tree.getFiles().get(1);
+        assertThat(empty.getSize()).isZero();
+        assertThat(empty.getFileCount()).isZero();
+        assertThat(empty.getChildren()).isEmpty();
+    }
+
+    @Test
+    void pastaComPrefixoDeOutraNaoMisturaConteudo() {
+        // Em ordem lexicográfica pura "a-c" ficaria entre "a" e "a/b"
+        GitHubFilesResponse tree = tree(String.join("\n",
+                "file|a-c|a-c|7",
+                "file|b|a/b|5",
+                "folder|a|a",
+                "folder|x|a/x",
+                "file|y|a/x/y|3",
+                "file|a.txt|a.txt|1"));
+
+        assertThat(tree.getFiles()).extracting(FileNode::getPath).containsExactly("a", "a-c", "a.txt");
+        FileNode a = tree.getFiles().get(0);
+        assertThat(a.getChildren()).extracting(FileNode::getPath).containsExactly("a/x", "a/b");
+        assertThat(a.getSize()).isEqualTo(8L);
+        assertThat(a.getFileCount()).isEqualTo(2);
+        assertThat(tree.getTotalFiles()).isEqualTo(4);
+    }
+
+    @Test
+    void arquivoSemPastaNaListagemViraRaiz() {
+        GitHubFilesResponse tree = tree(String.join("\n",
+                "folder|docs|docs",
+                "file|guia.md|docs/guia.md|20",
+                "file|perdido.txt|sem-pasta/perdido.txt|4",
+                "file|sem-tamanho.txt|docs/sem-tamanho.txt"));
+
+        assertThat(tree.getFiles()).extracting(FileNode::getPath)
+                .containsExactly("docs", "sem-pasta/perdido.txt");
+        assertThat(tree.getFiles().get(0).getSize()).isEqualTo(20L);
+        assertThat(tree.getFiles().get(0).getFileCount()).isEqualTo(2);
+        assertThat(tree.getTotalFiles()).isEqualTo(3);
+    }
+
+    @Test
+    void listagemVazia() {
+        GitHubFilesResponse tree = tree("");
+
+        assertThat(tree.getFiles()).isEmpty();
+        assertThat(tree.getTotalFiles()).isZero();
+    }
+
+    @Test
+    void totaisBatemComASomaDosFilhosEmListagemGerada() {
+        String listing = RepositoryListings.generate(5_000, 7);
+        GitHubFilesResponse tree = tree(listing);
+
+        long files = listing.lines().filter(line -> line.startsWith("file|")).count();
+        long bytes = listing.lines().filter(line -> line.startsWith("file|"))
+                .mapToLong(line -> Long.parseLong(line.substring(line.lastIndexOf('|') + 1))).sum();
+
+        assertThat(tree.getTotalFiles()).isEqualTo((int) files);
+        assertThat(tree.getFiles().stream().mapToLong(GitHubDataStructureServiceTests::checkRollup).sum())
+                .isEqualTo(bytes);
+    }
+
+    private GitHubFilesResponse tree(String listing) {
+        when(tools.listRepositoryFilesRecursively("repo")).thenReturn(listing);
+        return service.getRepositoryFilesAsTree("repo");
+    }
+
+    /**
+     * Confere size/fileCount de cada pasta recalculando pelos filhos; devolve o tamanho do nó
+     */
+    private static long checkRollup(FileNode node) {
+        if (node.isFile()) {
+            return node.getSize() != null ? node.getSize() : 0L;
+        }
+        List<FileNode> children = node.getChildren();
+        long size = 0;
+        int fileCount = 0;
+        for (FileNode child : children) {
+            size += checkRollup(child);
+            fileCount += child.isFile() ? 1 : child.getFileCount();
+            assertThat(child.getPath()).startsWith(node.getPath() + "/");
+        }
+        assertThat(node.getSize()).as(node.getPath()).isEqualTo(size);
+        assertThat(node.getFileCount()).as(node.getPath()).isEqualTo(fileCount);
+        return size;
+    }
+}
@@ -0,0 +1,95 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+
+import br.com.sistema.springaigemini.stub.GmailStubMailbox;
+import br.com.sistema.springaigemini.stub.GmailStubServer;
+import br.com.sistema.springaigemini.support.Benchmark;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Metadados dos mesmos N emails listados buscados um a um (messages.get sequencial,
+ * como a listagem fazia antes) e em batches pelo GmailFetchService, contra o
+ * GmailStubServer com latência por requisição ligada: o que pesa são as idas e voltas.
+ *
+ * Sem falhas injetadas nem cota no stub, para os dois caminhos fazerem o mesmo trabalho.
+ */
+@Tag(Benchmark.TAG)
+class GmailBatchFetchBenchmark {
+
+    private static final int MAILBOX = 2_000;
+    private static final int FETCH = 200;
+    private static final long LATENCY_MILLIS = 50;
+    private static final long BATCH_ITEM_LATENCY_MILLIS = 2;
+
+    private GmailStubServer server;
+    private Gmail gmail;
+    private GmailFetchService fetchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new GmailStubServer(new GmailStubMailbox(MAILBOX, 42, MAILBOX, 0), new ObjectMapper(),
+                new SimpleMeterRegistry(),
+                new GmailStubServer.Settings(0, LATENCY_MILLIS, 0, BATCH_ITEM_LATENCY_MILLIS, 0, 0, 0, 42));
+        server.start();
+        gmail = new Gmail.Builder(new NetHttpTransport(), JacksonFactory.getDefaultInstance(), null)
+                .setRootUrl(server.rootUrl())
+                .setApplicationName("Gmail API Client (benchmark)")
+                .build();
+        // Sem cota no stub: o token bucket do executor não deve interferir no tempo
+        fetchService = new GmailFetchService(gmail, new GmailRequestExecutor(1_000_000, 3, 10, 100, 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void sequencialContraBatch() throws Exception {
+        List<String> ids = gmail.users().messages().list("me").setMaxResults((long) FETCH).execute()
+                .getMessages().stream().map(Message::getId).toList();
+
+        Benchmark.Result sequential = Benchmark.measure("messages.get sequencial (" + ids.size() + " emails, "
+                + LATENCY_MILLIS + " ms por requisição)", 1, 3, () -> sequential(ids));
+        Benchmark.Result batched = Benchmark.measure("GmailFetchService em batches (" + ids.size() + " emails, "
+                + LATENCY_MILLIS + " ms por requisição)", 1, 3, () -> fetchService.getMessagesMetadata(ids));
+
+        Benchmark.report("Redução", String.format("%.1fx mais rápido em batches",
+                (double) sequential.medianNanos() / batched.medianNanos()));
+
+        // Mesmos emails nos dois caminhos
+        assertThat(fetchService.getMessagesMetadata(ids)).extracting(Message::getId)
+                .containsExactlyInAnyOrderElementsOf(sequential(ids).stream().map(Message::getId).toList());
+        assertThat(batched.medianNanos()).isLessThan(sequential.medianNanos());
+    }
+
+    /**
+     * Uma requisição por email, com o mesmo formato, headers e máscara da listagem
+     */
+    private List<Message> sequential(List<String> ids) throws Exception {
+        List<Message> messages = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            messages.add(gmail.users().messages().get("me", id)
+                    .setFormat("metadata")
+                    .setMetadataHeaders(GmailFetchService.LISTING_HEADERS)
+                    .setFields(GmailFetchService.METADATA_FIELDS)
+                    .execute());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePart;
+import com.google.api.services.gmail.model.MessagePartBody;
+
+import br.com.sistema.springaigemini.support.Benchmark;
+
+/**
+ * Extração do corpo de newsletters HTML grandes (só text/html, como a maioria
+ * das newsletters de lojas): decodificação completa em String, como era antes
+ * do GmailBodyExtractor, contra o streaming com conversão para texto.
+ *
+ * Tokens estimados em ~4 caracteres por token.
+ */
+@Tag(Benchmark.TAG)
+class GmailBodyExtractorBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 30;
+
+    @ParameterizedTest(name = "newsletter de {0} KB")
+    @CsvSource({ "100", "1000" })
+    void extraiNewsletter(int kilobytes) throws Exception {
+        String html = newsletter(kilobytes * 1024, 42);
+        String data = Base64.getUrlEncoder().encodeToString(html.getBytes(StandardCharsets.UTF_8));
+        Message message = new Message().setId("newsletter").setPayload(new MessagePart()
+                .setMimeType("multipart/alternative")
+                .setParts(List.of(new MessagePart().setMimeType("text/html").setFilename("")
+                        .setBody(new MessagePartBody().setData(data)))));
+        GmailBodyExtractor extractor = new GmailBodyExtractor();
+
+        String raw = decodeWhole(data);
+        String text = extractor.extract(message);
+        String fullText = extractor.extractText(message, Integer.MAX_VALUE);
+
+        Benchmark.report("HTML decodificado inteiro", describe(raw));
+        Benchmark.report("Texto com limite padrão", describe(text));
+        Benchmark.report("Texto sem limite", describe(fullText));
+
+        Benchmark.measure("Decodificação inteira (" + kilobytes + " KB)", WARMUP, RUNS, () -> decodeWhole(data));
+        Benchmark.measure("Streaming com limite padrão (" + kilobytes + " KB)", WARMUP, RUNS,
+                () -> extractor.extract(message));
+        Benchmark.measure("Streaming sem limite (" + kilobytes + " KB)", WARMUP, RUNS,
+                () -> extractor.extractText(message, Integer.MAX_VALUE));
+
+        assertThat(text.length()).isLessThan(raw.length());
+        assertThat(fullText.length()).isLessThan(raw.length() / 3);
+    }
+
+    /**
+     * Como o corpo era lido antes: base64url inteiro em bytes e depois em String
+     */
+    private static String decodeWhole(String data) {
+        return new String(Base64.getUrlDecoder().decode(data), StandardCharsets.UTF_8);
+    }
+
+    private static String describe(String text) {
+        return String.format("%,d caracteres (~%,d tokens)", text.length(), text.length() / 4);
+    }
+
+    /**
+     * Newsletter em tabelas com estilos inline, pixels de rastreamento e entidades,
+     * no formato típico de email marketing
+     */
+    private static String newsletter(int size, long seed) {
+        Random random = new Random(seed);
+        StringBuilder html = new StringBuilder(size + 4096);
+        html.append("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>Ofertas da semana</title>")
+                .append("<style>")
+                .append("body{margin:0;padding:0}table{border-collapse:collapse}.btn{background:#e60014;color:#fff}")
+                .append("@media only screen and (max-width:600px){.col{width:100%!important}}".repeat(20))
+                .append("</style></head><body>")
+                .append("<!--[if mso]><table><tr><td width=\"600\"><![endif]-->")
+                .append("<table role=\"presentation\" width=\"100%\" cellpadding=\"0\" cellspacing=\"0\">");
+
+        int item = 0;
+        while (html.length() < size) {
+            item++;
+            int price = 10 + random.nextInt(990);
+            html.append("<tr><td class=\"col\" style=\"padding:16px 24px;font-family:Arial,Helvetica,sans-serif;")
+                    .append("font-size:14px;line-height:20px;color:#333333\" align=\"left\" valign=\"top\">")
+                    .append("<a href=\"https://click.loja.com.br/?qs=").append(Long.toHexString(random.nextLong()))
+                    .append(Long.toHexString(random.nextLong())).append("\" target=\"_blank\" style=\"color:#333333;")
+                    .append("text-decoration:none\"><img src=\"https://cdn.loja.com.br/produtos/").append(item)
+                    .append(".jpg\" width=\"180\" height=\"180\" alt=\"Produto ").append(item)
+                    .append("\" style=\"display:block;border:0\"></a>")
+                    .append("<h3 style=\"margin:8px 0;font-size:16px\">Produto n&ordm; ").append(item)
+                    .append(" &ndash; edi&ccedil;&atilde;o limitada</h3>")
+                    .append("<p style=\"margin:0 0 8px\">De <s>R$&nbsp;").append(price + 50)
+                    .append(",90</s> por <b>R$&nbsp;").append(price).append(",90</b> &agrave; vista</p>")
+                    .append("<table role=\"presentation\"><tr><td class=\"btn\" style=\"border-radius:4px;")
+                    .append("padding:10px 20px\"><a href=\"https://click.loja.com.br/?qs=")
+                    .append(Long.toHexString(random.nextLong())).append("\" style=\"color:#ffffff\">Comprar")
+                    .append("&nbsp;&rarr;</a></td></tr></table>")
+                    .append("<img src=\"https://open.loja.com.br/pixel/").append(Long.toHexString(random.nextLong()))
+                    .append(".gif\" width=\"1\" height=\"1\" alt=\"\" style=\"display:none\">")
+                    .append("&zwnj;&nbsp;&zwnj;&nbsp;</td></tr>\n");
+        }
+
+        return html.append("</table><!--[if mso]></td></tr></table><![endif]-->")
+                .append("<p style=\"font-size:11px;color:#999\">Para n&atilde;o receber mais, ")
+                .append("<a href=\"https://loja.com.br/descadastro\">clique aqui</a>.</p></body></html>")
+                .toString();
+    }
+}
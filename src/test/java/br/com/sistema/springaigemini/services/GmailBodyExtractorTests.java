@@ -0,0 +1,215 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePart;
+import com.google.api.services.gmail.model.MessagePartBody;
+import com.google.api.services.gmail.model.MessagePartHeader;
+
+class GmailBodyExtractorTests {
+
+    private static final String NEWSLETTER = "<!DOCTYPE html><html><head><title>Novidades</title>"
+            + "<style>p { color: red; }</style></head><body>"
+            + "<!-- <p>oculto</p> --><h1>Ofertas da semana</h1>"
+            + "<table><tr><td>Caf&eacute;</td><td>R$&nbsp;10</td></tr></table>"
+            + "<p>Leve <b>2</b> &amp; pague&#160;1 &mdash; s&oacute; hoje</p>"
+            + "<script>if (a<b && c>d) { track(); }</script>"
+            + "<ul><li>Item um</li><li>Item dois</li></ul>"
+            + "<p>AT&T e &desconhecida; ficam como estão</p></body></html>";
+
+    private final GmailBodyExtractor extractor = new GmailBodyExtractor();
+
+    // ==================== HTML PARA TEXTO ====================
+
+    @Test
+    void removeTagsScriptsEComentarios() {
+        assertThat(html("<html><head><title>Título</title><style>p{color:red}</style></head><body>"
+                + "<!-- <p>oculto</p> --><p>Olá <b>mundo</b></p><script>if (a<b) x();</script>"
+                + "<p>Fim</p></body></html>"))
+                .isEqualTo("Olá mundo\n\nFim");
+    }
+
+    @Test
+    void tagsDeBlocoViramQuebrasDeLinha() {
+        assertThat(html("<ul><li>um</li><li>dois</li></ul><br>linha<div>bloco</div>"))
+                .isEqualTo("- um\n- dois\n\nlinha\n\nbloco");
+        assertThat(html("<table><tr><td>a</td><td>b</td></tr><tr><td>c</td></tr></table>"))
+                .isEqualTo("a b\n\nc");
+    }
+
+    @Test
+    void colapsaEspacos() {
+        assertThat(html("<p>  muitos\n\n   espaços\t aqui </p>")).isEqualTo("muitos espaços aqui");
+    }
+
+    @Test
+    void decodificaEntidades() {
+        assertThat(html("Caf&eacute; &amp; p&atilde;o&nbsp;&nbsp;&#8212; &#x41;&zwnj;B &lt;3 n&ordm; 1 &rarr;"))
+                .isEqualTo("Café & pão — AB <3 nº 1 →");
+    }
+
+    @Test
+    void entidadeInvalidaFicaLiteral() {
+        assertThat(html("&desconhecida; A & B")).isEqualTo("&desconhecida; A & B");
+        // Entidade aberta no fim do texto
+        assertThat(html("AT&T")).isEqualTo("AT&T");
+    }
+
+    @ParameterizedTest(name = "buffers de {0} caracteres")
+    @ValueSource(ints = { 1, 2, 3, 5, 7, 13, 64 })
+    void mesmoTextoComQualquerTamanhoDeBuffer(int chunk) {
+        assertThat(html(NEWSLETTER, chunk, Integer.MAX_VALUE)).isEqualTo(html(NEWSLETTER));
+    }
+
+    @Test
+    void textoDaNewsletter() {
+        assertThat(html(NEWSLETTER)).isEqualTo("Ofertas da semana\n\nCafé R$ 10\n\n"
+                + "Leve 2 & pague 1 — só hoje\n\n- Item um\n- Item dois\n\nAT&T e &desconhecida; ficam como estão");
+    }
+
+    @Test
+    void htmlParaNoLimiteDeCaracteres() {
+        StringBuilder out = new StringBuilder();
+        GmailBodyExtractor.HtmlTextSink sink = new GmailBodyExtractor.HtmlTextSink(out, 10);
+        char[] chars = "<p>abcdefghijklmnopqrstuvwxyz</p>".toCharArray();
+
+        assertThat(sink.write(chars, chars.length)).isFalse();
+        assertThat(sink.truncated()).isTrue();
+        assertThat(out).hasToString("abcdefghij");
+    }
+
+    // ==================== PERCURSO MIME ====================
+
+    @Test
+    void prefereTextoPuroDentroDeMultipartAninhado() {
+        Message message = message(multipart("multipart/mixed",
+                multipart("multipart/alternative",
+                        part("text/html", "<p>versão html</p>"),
+                        part("text/plain", "versão texto")),
+                attachment("text/plain", "notas.txt", "conteúdo do anexo")));
+
+        assertThat(extractor.extract(message)).isEqualTo("versão texto");
+    }
+
+    @Test
+    void semTextoPuroConverteOHtml() {
+        Message message = message(multipart("multipart/mixed",
+                multipart("multipart/related",
+                        part("text/html", "<div>Olá&nbsp;<b>Ana</b></div>"),
+                        attachment("image/png", "logo.png", "png")),
+                attachment("application/pdf", "boleto.pdf", "pdf")));
+
+        assertThat(extractor.extract(message)).isEqualTo("Olá Ana");
+    }
+
+    @Test
+    void anexoDeTextoNaoViraCorpo() {
+        Message message = message(multipart("multipart/mixed",
+                attachment("text/plain", "leia-me.txt", "anexo"),
+                part("text/html", "<p>corpo</p>")));
+
+        assertThat(extractor.extract(message)).isEqualTo("corpo");
+    }
+
+    @Test
+    void corpoDiretoNoPayload() {
+        assertThat(extractor.extract(message(part("text/plain", "Pode confirmar??? >>> sim"))))
+                .isEqualTo("Pode confirmar??? >>> sim");
+    }
+
+    @Test
+    void semTipoDeTextoUsaAPrimeiraParteComDados() {
+        Message message = message(multipart("multipart/mixed",
+                part("multipart/alternative"),
+                part("text/markdown", "# Título")));
+
+        assertThat(extractor.extract(message)).isEqualTo("# Título");
+    }
+
+    @Test
+    void usaOCharsetDaParte() {
+        MessagePart part = part("text/plain", "Atenção, reunião às 15h", StandardCharsets.ISO_8859_1);
+        part.setHeaders(List.of(new MessagePartHeader().setName("Content-Type")
+                .setValue("text/plain; charset=\"ISO-8859-1\"; format=flowed")));
+
+        assertThat(extractor.extract(message(part))).isEqualTo("Atenção, reunião às 15h");
+    }
+
+    @Test
+    void semCorpo() {
+        assertThat(extractor.extract(new Message())).isNull();
+        assertThat(extractor.extract(message(multipart("multipart/mixed",
+                part("text/plain"), attachment("application/pdf", "a.pdf", "pdf"))))).isNull();
+    }
+
+    @Test
+    void limiteDeCaracteres() {
+        String text = "0123456789".repeat(3_000);
+        Message message = message(part("text/plain", text));
+
+        assertThat(extractor.extract(message))
+                .startsWith(text.substring(0, 20_000))
+                .endsWith("[... conteúdo truncado]")
+                .hasSize(20_000 + "\n[... conteúdo truncado]".length());
+        assertThat(extractor.extractText(message, 100)).isEqualTo(text.substring(0, 100));
+        assertThat(extractor.extractText(message, text.length())).isEqualTo(text);
+    }
+
+    private static String html(String html) {
+        return html(html, html.length(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Passa o HTML pelo sink em pedaços de chunk caracteres, como o decode faz com os buffers
+     */
+    private static String html(String html, int chunk, int maxChars) {
+        StringBuilder out = new StringBuilder();
+        GmailBodyExtractor.HtmlTextSink sink = new GmailBodyExtractor.HtmlTextSink(out, maxChars);
+        char[] chars = html.toCharArray();
+        for (int start = 0; start < chars.length; start += chunk) {
+            int length = Math.min(chunk, chars.length - start);
+            if (!sink.write(Arrays.copyOfRange(chars, start, start + length), length)) {
+                break;
+            }
+        }
+        sink.finish();
+        return out.toString().strip();
+    }
+
+    private static Message message(MessagePart payload) {
+        return new Message().setId("m1").setPayload(payload);
+    }
+
+    private static MessagePart multipart(String mimeType, MessagePart... parts) {
+        return new MessagePart().setMimeType(mimeType).setParts(List.of(parts));
+    }
+
+    private static MessagePart part(String mimeType) {
+        return new MessagePart().setMimeType(mimeType).setBody(new MessagePartBody().setSize(0));
+    }
+
+    private static MessagePart part(String mimeType, String content) {
+        return part(mimeType, content, StandardCharsets.UTF_8);
+    }
+
+    private static MessagePart part(String mimeType, String content, Charset charset) {
+        String data = Base64.getUrlEncoder().encodeToString(content.getBytes(charset));
+        return new MessagePart().setMimeType(mimeType).setFilename("")
+                .setBody(new MessagePartBody().setData(data).setSize(content.length()));
+    }
+
+    private static MessagePart attachment(String mimeType, String filename, String content) {
+        return part(mimeType, content).setFilename(filename);
+    }
+}
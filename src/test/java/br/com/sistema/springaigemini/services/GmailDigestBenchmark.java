@@ -0,0 +1,287 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.google.api.services.gmail.model.Message;
+import com.google.api.services.gmail.model.MessagePart;
+import com.google.api.services.gmail.model.MessagePartBody;
+
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import br.com.sistema.springaigemini.support.Benchmark;
+import dev.langchain4j.model.googleai.GoogleAiGeminiChatModel;
+
+/**
+ * Tokens enviados ao modelo pelo digest de uma caixa sintética (600 emails: falhas de CI,
+ * transições do Jira, promoções, alertas de segurança e 40% de emails pessoais distintos),
+ * com o agrupamento do MailNearDuplicates e sem ele (limiar impossível: nenhum grupo).
+ *
+ * O modelo é um mock que registra o tamanho dos prompts de map e de reduce;
+ * tokens estimados em ~4 caracteres por token.
+ */
+@Tag(Benchmark.TAG)
+class GmailDigestBenchmark {
+
+    private static final int EMAILS = 600;
+    private static final Pattern IDS = Pattern.compile("### ID: (\\S+)");
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tokensDoDigestComESemAgrupamento() throws Exception {
+        Inbox inbox = inbox(EMAILS, 42);
+
+        PromptCounter grouped = digest(inbox, new MailNearDuplicates(0.7), "agrupado");
+        PromptCounter ungrouped = digest(inbox, new MailNearDuplicates(1.01), "sem-agrupamento");
+
+        Benchmark.report("Map sem agrupamento", ungrouped.describeMap());
+        Benchmark.report("Map com agrupamento", grouped.describeMap());
+        Benchmark.report("Reduce sem agrupamento", ungrouped.describeReduce());
+        Benchmark.report("Reduce com agrupamento", grouped.describeReduce());
+        Benchmark.report("Redução de tokens (map / reduce)", String.format("%.0f%% / %.0f%%",
+                100.0 * (1 - (double) grouped.mapChars.get() / ungrouped.mapChars.get()),
+                100.0 * (1 - (double) grouped.reduceChars.get() / ungrouped.reduceChars.get())));
+
+        MailNearDuplicates nearDuplicates = new MailNearDuplicates(0.7);
+        List<MailNearDuplicates.Cluster<MessageMetadata>> clusters = nearDuplicates.cluster(inbox.emails(),
+                GmailDigestBenchmark::clusterText);
+        Benchmark.report("Grupos", clusters.size() + " grupos para " + EMAILS + " emails");
+        Benchmark.measure("Agrupamento de " + EMAILS + " emails", 20, 50,
+                () -> nearDuplicates.cluster(inbox.emails(), GmailDigestBenchmark::clusterText));
+
+        // Emails pessoais nunca entram em grupos
+        assertThat(clusters).filteredOn(cluster -> cluster.members().stream().anyMatch(GmailDigestBenchmark::personal))
+                .allSatisfy(cluster -> assertThat(cluster.size()).isOne());
+        assertThat(grouped.mapChars.get()).isLessThan(ungrouped.mapChars.get());
+        assertThat(grouped.reduceChars.get()).isLessThan(ungrouped.reduceChars.get());
+    }
+
+    private PromptCounter digest(Inbox inbox, MailNearDuplicates nearDuplicates, String name) throws Exception {
+        PromptCounter counter = new PromptCounter();
+        GoogleAiGeminiChatModel chatModel = mock(GoogleAiGeminiChatModel.class);
+        when(chatModel.chat(anyString())).thenAnswer(invocation -> counter.answer(invocation.getArgument(0)));
+
+        GmailFetchService fetchService = mock(GmailFetchService.class);
+        when(fetchService.getMessages(anyList())).thenAnswer(invocation -> {
+            List<String> ids = invocation.getArgument(0);
+            return ids.stream().map(inbox.messages()::get).toList();
+        });
+
+        GmailMailboxStore store = mock(GmailMailboxStore.class);
+        when(store.isReady()).thenReturn(true);
+        when(store.latest(eq(EMAILS))).thenReturn(inbox.emails());
+        when(store.covers(anyInt(), anyInt())).thenReturn(true);
+
+        GmailDigestService service = new GmailDigestService(chatModel, fetchService, store, new GmailBodyExtractor(),
+                nearDuplicates, new SmileFactory(), dir.resolve(name + ".smile").toString(), 10, 4, 5000);
+        GmailDigestService.Digest digest = service.digest(EMAILS, null);
+
+        Benchmark.report("Digest " + name, digest.clusters() + " grupos, " + digest.newlySummarized()
+                + " emails resumidos");
+        return counter;
+    }
+
+    private static String clusterText(MessageMetadata email) {
+        // Mesmo texto que o GmailDigestService usa no agrupamento
+        return email.getFrom() + " " + email.getSubject() + " " + email.getSnippet();
+    }
+
+    private static boolean personal(MessageMetadata email) {
+        return email.getId().startsWith("pessoal-");
+    }
+
+    /**
+     * Conta o tamanho dos prompts; no map responde "ID|resumo" para cada email do lote
+     */
+    private static final class PromptCounter {
+
+        private final AtomicLong mapChars = new AtomicLong();
+        private final AtomicInteger mapCalls = new AtomicInteger();
+        private final AtomicLong reduceChars = new AtomicLong();
+        private final AtomicInteger reduceCalls = new AtomicInteger();
+
+        String answer(String prompt) {
+            if (!prompt.startsWith("Resuma cada email")) {
+                reduceChars.addAndGet(prompt.length());
+                reduceCalls.incrementAndGet();
+                return "- Tópico condensado dos emails";
+            }
+
+            mapChars.addAndGet(prompt.length());
+            mapCalls.incrementAndGet();
+            StringBuilder response = new StringBuilder();
+            Matcher ids = IDS.matcher(prompt);
+            while (ids.find()) {
+                response.append(ids.group(1)).append("|Resumo curto do email em uma frase\n");
+            }
+            return response.toString();
+        }
+
+        String describeMap() {
+            return describe(mapChars.get(), mapCalls.get());
+        }
+
+        String describeReduce() {
+            return describe(reduceChars.get(), reduceCalls.get());
+        }
+
+        private static String describe(long chars, int calls) {
+            return String.format("%,d caracteres (~%,d tokens) em %d chamadas", chars, chars / 4, calls);
+        }
+    }
+
+    // ==================== CAIXA SINTÉTICA ====================
+
+    private record Inbox(List<MessageMetadata> emails, Map<String, Message> messages) {}
+
+    private static final String[] REPOS = { "app-web", "api-pagamentos", "infra" };
+    private static final String[] WORKFLOWS = { "CI", "Testes de integração", "Deploy staging" };
+    private static final String[] STORES = { "Loja Tech", "Mercado Online", "Moda Já", "Livraria Central" };
+    private static final String[] TAGLINES = {
+            "Notebooks, celulares e acessórios com entrega expressa para todo o Brasil.",
+            "Hortifruti fresquinho e itens de limpeza com cashback no aplicativo.",
+            "Coleção de inverno: jaquetas, tricôs e botas para toda a família.",
+            "Lançamentos, best-sellers e box de séries com cupom para clientes fiéis." };
+    private static final String[] CAMPAIGNS = {
+            "Só hoje: %d%% de desconto em toda a loja",
+            "Frete grátis acima de R$ %d, aproveite",
+            "Seu carrinho está esperando: itens com até %d%% off",
+            "Ofertas relâmpago a partir de R$ %d" };
+    private static final String[] ISSUES = {
+            "Erro ao gerar boleto", "Tela de login lenta", "Exportar relatório em CSV", "Ajustar layout do checkout",
+            "Migrar fila para SQS", "Atualizar dependências do front", "Timeout na consulta de pedidos",
+            "Criar dashboard de vendas" };
+    private static final String[] STATUSES = { "A fazer", "Em andamento", "Revisão", "Concluído" };
+    private static final String[] PEOPLE = {
+            "Ana Souza", "Bruno Lima", "Carla Dias", "Diego Alves", "Elisa Rocha", "Fábio Nunes", "Gabriela Melo",
+            "Heitor Campos", "Isabela Prado", "João Pedro Reis", "Karina Lopes", "Lucas Barros" };
+    private static final String[] WORDS = (
+            "reunião proposta contrato viagem almoço aniversário relatório orçamento cliente fornecedor projeto prazo "
+            + "apresentação férias mudança escola médico consulta documento assinatura pagamento nota fiscal "
+            + "planilha entrevista currículo treinamento evento convite jantar churrasco futebol show ingresso "
+            + "apartamento aluguel condomínio reforma pintura carro revisão seguro banco investimento imposto "
+            + "declaração receita livro filme série música fotos vídeo receita bolo presente casamento batizado "
+            + "formatura palestra congresso artigo revisão tese orientação bolsa laboratório experimento dados "
+            + "servidor backup senha acesso impressora reembolso despesas hotel passagem voo atraso chegada saída "
+            + "amanhã segunda terça quarta quinta sexta sábado domingo manhã tarde noite semana mês ano urgente "
+            + "dúvida ajuda favor obrigado combinado confirmo pergunta resposta ideia sugestão opinião detalhe")
+            .split(" ");
+
+    /**
+     * Caixa sintética determinística (mais recentes primeiro)
+     */
+    private static Inbox inbox(int size, long seed) {
+        Random random = new Random(seed);
+        List<MessageMetadata> emails = new ArrayList<>(size);
+        Map<String, Message> messages = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            int kind = random.nextInt(10);
+            String id;
+            String from;
+            String subject;
+            String snippet;
+            String body;
+
+            if (kind < 4) {
+                id = "pessoal-" + i;
+                String person = PEOPLE[random.nextInt(PEOPLE.length)];
+                from = person + " <" + person.toLowerCase().replaceAll("[^a-z]", ".") + "@exemplo.com>";
+                subject = sentence(random, 3 + random.nextInt(4));
+                snippet = sentence(random, 15 + random.nextInt(10));
+                body = snippet + ". " + sentence(random, 60 + random.nextInt(80)) + ".\n\nAbraço,\n" + person;
+            } else if (kind < 6) {
+                id = "ci-" + i;
+                String repo = REPOS[random.nextInt(REPOS.length)];
+                String workflow = WORKFLOWS[random.nextInt(WORKFLOWS.length)];
+                from = "GitHub <notifications@github.com>";
+                subject = String.format("[empresa/%s] Run failed: %s - main (%07x)", repo, workflow,
+                        random.nextInt(1 << 28));
+                snippet = String.format("The workflow %s failed on main. Job test failed after %dm%ds. "
+                        + "View results https://github.com/empresa/%s/actions/runs/%d", workflow,
+                        1 + random.nextInt(20), random.nextInt(60), repo, 9_000_000 + random.nextInt(1_000_000));
+                body = snippet + "\n\n" + ("Error: expected 200 but got 500 at PedidoControllerIT.java:"
+                        + (40 + random.nextInt(200)) + "\n    at org.junit.Assert.assertEquals(Assert.java:117)\n")
+                        .repeat(12);
+            } else if (kind < 7) {
+                id = "jira-" + i;
+                String issue = ISSUES[random.nextInt(ISSUES.length)];
+                int status = random.nextInt(STATUSES.length - 1);
+                from = "Jira <jira@empresa.atlassian.net>";
+                subject = String.format("[JIRA] (PROJ-%d) %s", 100 + random.nextInt(900), issue);
+                snippet = String.format("%s alterou o status de %s para %s", PEOPLE[random.nextInt(PEOPLE.length)],
+                        STATUSES[status], STATUSES[status + 1]);
+                body = snippet + ".\n\n" + ("Ver item https://empresa.atlassian.net/browse/PROJ · Responder a "
+                        + "este email adiciona um comentário · Gerenciar notificações\n").repeat(6);
+            } else if (kind < 9) {
+                id = "promo-" + i;
+                int storeIndex = random.nextInt(STORES.length);
+                String store = STORES[storeIndex];
+                String campaign = CAMPAIGNS[random.nextInt(CAMPAIGNS.length)];
+                from = store + " <ofertas@" + store.toLowerCase().replace(" ", "") + ".com.br>";
+                subject = String.format(campaign, 10 + random.nextInt(60));
+                snippet = TAGLINES[storeIndex] + " Ofertas válidas por tempo limitado.";
+                body = snippet + "\n\n" + ("Produto em destaque por R$ " + (50 + random.nextInt(950))
+                        + ",90 à vista ou em até 10x sem juros. Comprar agora.\n").repeat(20)
+                        + "Para deixar de receber, clique aqui.";
+            } else {
+                id = "alerta-" + i;
+                from = "Google <no-reply@accounts.google.com>";
+                subject = "Alerta de segurança";
+                snippet = "Novo login na sua Conta do Google em um dispositivo Windows. Se foi você, não é "
+                        + "preciso fazer nada. Caso contrário, ajudaremos a proteger sua conta.";
+                body = snippet + "\n\nVerificar atividade https://myaccount.google.com/notifications\n"
+                        + "Você recebeu este email para informar sobre mudanças importantes na sua conta.";
+            }
+
+            emails.add(MessageMetadata.builder()
+                    .id(id)
+                    .from(from)
+                    .subject(subject)
+                    .snippet(snippet)
+                    .internalDate(1_700_000_000_000L - i * 600_000L)
+                    .labelIds(List.of("INBOX"))
+                    .build());
+            messages.put(id, new Message().setId(id).setSnippet(snippet).setPayload(new MessagePart()
+                    .setMimeType("text/plain")
+                    .setBody(new MessagePartBody().setData(Base64.getUrlEncoder()
+                            .encodeToString(body.getBytes(StandardCharsets.UTF_8))))));
+        }
+        return new Inbox(emails, messages);
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.gmail.Gmail;
+
+import br.com.sistema.springaigemini.models.Email;
+import br.com.sistema.springaigemini.stub.GmailStubMailbox;
+import br.com.sistema.springaigemini.stub.GmailStubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GmailEmailServiceTests {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GmailMailboxStore mailboxStore = mock(GmailMailboxStore.class);
+    private GmailStubServer server;
+    private GmailEmailService emailService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new GmailStubServer(new GmailStubMailbox(100, 42, 100, 0), new ObjectMapper(), meterRegistry,
+                new GmailStubServer.Settings(0, 0, 0, 0, 0, 0, 0, 42));
+        server.start();
+        Gmail gmail = new Gmail.Builder(new NetHttpTransport(), JacksonFactory.getDefaultInstance(), null)
+                .setRootUrl(server.rootUrl())
+                .setApplicationName("Gmail API Client (teste)")
+                .build();
+        GmailRequestExecutor executor = new GmailRequestExecutor(1_000_000, 3, 10, 100, 10);
+        emailService = new GmailEmailService(gmail, new GmailFetchService(gmail, executor), executor, mailboxStore,
+                mock(MailSearchIndex.class), new GmailBodyExtractor());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void tokenLocalComArmazenamentoIndisponivelNaoVaiParaOGmail() throws Exception {
+        when(mailboxStore.isReady()).thenReturn(false);
+        List<String> firstTwenty = ids(emailService.list(null, 20, false).emails());
+
+        // Token de uma página local anterior, depois que o armazenamento deixou de estar pronto
+        GmailEmailService.EmailPage page = emailService.list("local:10", 10, false);
+
+        assertThat(ids(page.emails())).isEqualTo(firstTwenty.subList(10, 20));
+        assertThat(page.emails()).extracting(Email::getNumero).startsWith(11, 12);
+        assertThat(page.nextPageToken()).isEqualTo("local:20");
+        assertThat(meterRegistry.find("gmail.stub.requests").tag("status", "400").counter()).isNull();
+    }
+
+    @Test
+    void buscaComTokenLocalTambemPaginaPeloDeslocamento() throws Exception {
+        when(mailboxStore.isReady()).thenReturn(false);
+        List<String> all = ids(emailService.search("in:inbox", null, 30).emails());
+
+        GmailEmailService.EmailPage page = emailService.search("in:inbox", "local:5", 5);
+
+        assertThat(ids(page.emails())).isEqualTo(all.subList(5, 10));
+    }
+
+    private static List<String> ids(List<Email> emails) {
+        return emails.stream().map(Email::getId).toList();
+    }
+}
@@ -0,0 +1,97 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.client.http.javanet.NetHttpTransport;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+
+import br.com.sistema.springaigemini.stub.GmailStubMailbox;
+import br.com.sistema.springaigemini.stub.GmailStubServer;
+import br.com.sistema.springaigemini.support.Benchmark;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Bytes por mensagem buscando as mesmas mensagens com format=full (getMessages)
+ * e com format=metadata + fields (getMessagesMetadata), contra o GmailStubServer.
+ *
+ * A caixa do stub tem newsletters HTML (10 a 70 KB) dos remetentes automáticos e
+ * anexos em parte dos emails pessoais. Sem latência nem falhas injetadas: os bytes
+ * contados (gmail.stub.response.bytes, sem gzip) são só os das respostas dos batches.
+ */
+@Tag(Benchmark.TAG)
+class GmailFetchBenchmark {
+
+    private static final int MAILBOX = 2_000;
+    private static final int FETCH = 500;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private GmailStubServer server;
+    private Gmail gmail;
+    private GmailFetchService fetchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new GmailStubServer(new GmailStubMailbox(MAILBOX, 42, MAILBOX, 0), new ObjectMapper(), meterRegistry,
+                new GmailStubServer.Settings(0, 0, 0, 0, 0, 0, 0, 42));
+        server.start();
+        gmail = new Gmail.Builder(new NetHttpTransport(), JacksonFactory.getDefaultInstance(), null)
+                .setRootUrl(server.rootUrl())
+                .setApplicationName("Gmail API Client (benchmark)")
+                .build();
+        // Sem cota no stub: o token bucket do executor não deve interferir no tempo
+        fetchService = new GmailFetchService(gmail, new GmailRequestExecutor(1_000_000, 3, 10, 100, 10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void bytesPorMensagemComESemMascara() throws Exception {
+        List<String> ids = gmail.users().messages().list("me").setMaxResults((long) FETCH).execute()
+                .getMessages().stream().map(Message::getId).toList();
+
+        long fullBytes = bytes(() -> fetchService.getMessages(ids));
+        long metadataBytes = bytes(() -> fetchService.getMessagesMetadata(ids));
+
+        Benchmark.report("format=full", describe(fullBytes, ids.size()));
+        Benchmark.report("format=metadata + fields", describe(metadataBytes, ids.size()));
+        Benchmark.report("Redução", String.format("%.1fx menos bytes", (double) fullBytes / metadataBytes));
+
+        Benchmark.measure("getMessages (" + ids.size() + " emails)", 2, 10, () -> fetchService.getMessages(ids));
+        Benchmark.measure("getMessagesMetadata (" + ids.size() + " emails)", 2, 10,
+                () -> fetchService.getMessagesMetadata(ids));
+
+        // Metadados trazem o que a listagem usa, sem corpo
+        List<Message> metadata = fetchService.getMessagesMetadata(ids);
+        assertThat(metadata).hasSize(ids.size()).allSatisfy(message -> {
+            assertThat(message.getPayload().getParts()).isNull();
+            assertThat(message.getPayload().getHeaders()).extracting("name")
+                    .containsExactlyInAnyOrderElementsOf(GmailFetchService.LISTING_HEADERS);
+        });
+        assertThat(GmailFetchService.toMetadata(metadata.get(0)).getSubject()).isNotBlank();
+        // Ordem de grandeza menor
+        assertThat(metadataBytes * 10).isLessThan(fullBytes);
+    }
+
+    private long bytes(Benchmark.Task task) throws Exception {
+        double before = meterRegistry.counter("gmail.stub.response.bytes").count();
+        task.run();
+        return (long) (meterRegistry.counter("gmail.stub.response.bytes").count() - before);
+    }
+
+    private static String describe(long bytes, int messages) {
+        return String.format("%,d bytes (%,d bytes por email)", bytes, bytes / messages);
+    }
+}
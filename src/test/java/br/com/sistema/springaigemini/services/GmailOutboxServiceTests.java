@@ -0,0 +1,170 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.api.services.gmail.Gmail;
+import com.google.api.services.gmail.model.Message;
+
+import br.com.sistema.springaigemini.enums.StatusEnvio;
+import br.com.sistema.springaigemini.models.OutboundEmail;
+
+class GmailOutboxServiceTests {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger sends = new AtomicInteger();
+    private Gmail gmail;
+    private GmailOutboxService outbox;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        gmail = mock(Gmail.class, RETURNS_DEEP_STUBS);
+        when(gmail.users().messages().send(eq("me"), any(Message.class)).execute())
+                .thenAnswer(invocation -> new Message().setId("gmail-" + sends.incrementAndGet()));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (outbox != null) {
+            outbox.stop();
+        }
+    }
+
+    @Test
+    void mesmoConteudoNaJanelaEhDeduplicado() throws Exception {
+        outbox = start();
+
+        OutboundEmail first = outbox.enqueue("Joao@Email.com ", "Oi", "corpo", null);
+        OutboundEmail again = outbox.enqueue("joao@email.com", "Oi", "corpo", null);
+        OutboundEmail other = outbox.enqueue("joao@email.com", "Oi", "outro corpo", null);
+
+        // Destinatário normalizado entra na chave; corpo diferente é outro email
+        assertThat(again.getId()).isEqualTo(first.getId());
+        assertThat(other.getId()).isNotEqualTo(first.getId());
+        assertThat(first.getIdempotencyKey()).startsWith("auto-");
+    }
+
+    @Test
+    void chaveInformadaDeduplicaMesmoComConteudoDiferente() throws Exception {
+        outbox = start();
+
+        OutboundEmail first = outbox.enqueue("a@email.com", "Pedido", "v1", "pedido-42");
+        OutboundEmail retry = outbox.enqueue("a@email.com", "Pedido", "v2", "pedido-42");
+
+        assertThat(retry.getId()).isEqualTo(first.getId());
+        awaitStatus(first.getId(), StatusEnvio.ENVIADO);
+        assertThat(sends).hasValue(1);
+    }
+
+    @Test
+    void replayRetomaPendentesIgnoraLinhaIncompletaECompacta() throws Exception {
+        Path journal = dir.resolve("outbox.ndjson");
+        long now = System.currentTimeMillis();
+        OutboundEmail pending = email("pendente", StatusEnvio.NA_FILA, now);
+        OutboundEmail sent = email("enviado", StatusEnvio.ENVIADO, now);
+        Files.writeString(journal, String.join("\n",
+                mapper.writeValueAsString(pending),
+                mapper.writeValueAsString(sent),
+                // Parou no meio do envio: volta para a fila
+                mapper.writeValueAsString(pending.toBuilder().status(StatusEnvio.ENVIANDO).attempts(1).build()),
+                "{\"id\":\"cortado\",\"sta"), StandardCharsets.UTF_8);
+
+        outbox = start();
+
+        awaitStatus("pendente", StatusEnvio.ENVIADO);
+        assertThat(outbox.get("pendente").getAttempts()).isEqualTo(2);
+        assertThat(outbox.get("enviado").getStatus()).isEqualTo(StatusEnvio.ENVIADO);
+        assertThat(outbox.get("cortado")).isNull();
+        assertThat(sends).hasValue(1);
+
+        // Compactado na inicialização: uma linha por email, mais as transições do reenvio
+        outbox.stop();
+        List<String> lines = Files.readAllLines(journal);
+        assertThat(lines).hasSize(2 + 2);
+        outbox = start();
+        assertThat(Files.readAllLines(journal)).hasSize(2);
+        assertThat(outbox.get("pendente").getGmailMessageId()).isEqualTo("gmail-1");
+    }
+
+    @Test
+    void finalizadosAntigosSaemNaCompactacao() throws Exception {
+        Path journal = dir.resolve("outbox.ndjson");
+        long old = System.currentTimeMillis() - 30L * 24 * 3600 * 1000;
+        Files.writeString(journal, mapper.writeValueAsString(email("antigo", StatusEnvio.ENVIADO, old)) + "\n"
+                + mapper.writeValueAsString(email("falhou", StatusEnvio.FALHOU, System.currentTimeMillis())) + "\n");
+
+        outbox = start();
+
+        assertThat(outbox.get("antigo")).isNull();
+        assertThat(outbox.get("falhou")).isNotNull();
+        assertThat(Files.readAllLines(journal)).hasSize(1);
+    }
+
+    @Test
+    void journalSoLegivelPeloDono() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Path journal = dir.resolve("outbox.ndjson");
+        Files.writeString(journal, "");
+        Files.setPosixFilePermissions(journal, PosixFilePermissions.fromString("rw-r--r--"));
+
+        outbox = start();
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(journal))).isEqualTo("rw-------");
+    }
+
+    private GmailOutboxService start() throws Exception {
+        GmailOutboxService service = new GmailOutboxService(gmail, new GmailRequestExecutor(1000, 1, 1, 1, 1),
+                mapper, dir.resolve("outbox.ndjson").toString(), 1, 3, 10, 100, 10, 7);
+        service.start();
+        return service;
+    }
+
+    private void awaitStatus(String id, StatusEnvio status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            OutboundEmail email = outbox.get(id);
+            if (email != null && email.getStatus() == status) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        assertThat(outbox.get(id).getStatus()).isEqualTo(status);
+    }
+
+    private static OutboundEmail email(String id, StatusEnvio status, long timestamp) {
+        return OutboundEmail.builder()
+                .id(id)
+                .idempotencyKey("chave-" + id)
+                .to("destino@email.com")
+                .subject("Assunto " + id)
+                .body("Corpo " + id)
+                .status(status)
+                .attempts(status == StatusEnvio.NA_FILA ? 0 : 1)
+                .nextAttemptAt(timestamp)
+                .createdAt(timestamp)
+                .updatedAt(timestamp)
+                .build();
+    }
+}
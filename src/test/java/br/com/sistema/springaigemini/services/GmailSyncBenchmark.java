@@ -0,0 +1,97 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.google.api.services.gmail.model.Message;
+
+import br.com.sistema.springaigemini.configurations.GmailStubConfig;
+import br.com.sistema.springaigemini.support.Benchmark;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sincronização e listagem contra o GmailStubServer, com a caixa e as falhas
+ * definidas em application-gmail-stub.properties (mesma semente → mesma caixa).
+ *
+ * Passa pelo caminho real: GmailRequestExecutor (cota e retry), batch do
+ * GmailFetchService, GmailMailboxStore e índice de busca.
+ */
+@Tag(Benchmark.TAG)
+@SpringBootTest
+@ActiveProfiles("gmail-stub")
+@Import(GmailStubConfig.class)
+class GmailSyncBenchmark {
+
+    private static final int LIST_PAGE_SIZE = 100;
+    private static final int LIST_MAX_MESSAGES = 1000;
+
+    @Autowired
+    private GmailSyncService syncService;
+
+    @Autowired
+    private GmailFetchService fetchService;
+
+    @Autowired
+    private GmailMailboxStore mailboxStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void sincronizacaoCompletaEIncremental() throws Exception {
+        Benchmark.measure("Sincronização completa", 0, 3, () -> {
+            // Sem historyId o sync() refaz a sincronização completa
+            mailboxStore.replaceAll(List.of(), null, false);
+            syncService.sync();
+        });
+
+        assertThat(mailboxStore.isReady()).isTrue();
+        // A caixa do stub é maior que gmail.sync.full-max-messages
+        assertThat(mailboxStore.isComplete()).isFalse();
+        Benchmark.report("Emails no store após a sincronização completa", mailboxStore.size());
+
+        Benchmark.measure("Sincronização incremental", 1, 10, syncService::sync);
+        reportStubRequests();
+    }
+
+    @Test
+    void listagemComMetadadosEmBatch() throws Exception {
+        AtomicInteger listed = new AtomicInteger();
+
+        Benchmark.measure("Listagem de " + LIST_MAX_MESSAGES + " emails (páginas de " + LIST_PAGE_SIZE + ")", 1, 5,
+                () -> {
+                    listed.set(0);
+                    try (GmailPageIterator pages = fetchService.pages(null, LIST_PAGE_SIZE, LIST_MAX_MESSAGES)) {
+                        while (pages.hasNext()) {
+                            List<Message> page = pages.next();
+                            listed.addAndGet(page.size());
+                        }
+                    }
+                });
+
+        // Partes que falharam de vez (após os retries) ficam de fora da página
+        assertThat(listed.get()).isPositive().isLessThanOrEqualTo(LIST_MAX_MESSAGES);
+        Benchmark.report("Emails listados na última execução", listed.get());
+        reportStubRequests();
+    }
+
+    /**
+     * Chamadas que chegaram ao stub, por status (inclui as falhas injetadas e os retries)
+     */
+    private void reportStubRequests() {
+        meterRegistry.find("gmail.stub.requests").counters().stream()
+                .sorted(Comparator.comparing(c -> c.getId().getTag("operation") + c.getId().getTag("status")))
+                .forEach(counter -> Benchmark.report("Stub " + counter.getId().getTag("operation") + " → "
+                        + counter.getId().getTag("status"), (long) counter.count()));
+    }
+}
@@ -0,0 +1,143 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class GmailThreadServiceTests {
+
+    @Test
+    void cortaNoCabecalhoDeRespostaDoGmailEmPortugues() {
+        String body = """
+                Pode ser na terça, às 10h.
+
+                Em seg., 3 de mar. de 2025 às 15:40, Ana Souza <ana@empresa.com> escreveu:
+                > Podemos marcar a reunião?
+                > Abraços
+                """;
+
+        assertThat(GmailThreadService.stripQuoted(body)).isEqualTo("Pode ser na terça, às 10h.");
+    }
+
+    @Test
+    void cortaNoCabecalhoDeRespostaDoGmailEmIngles() {
+        String body = """
+                Sounds good, thanks!
+
+                On Mon, Mar 3, 2025 at 3:40 PM Ana Souza <ana@empresa.com> wrote:
+                Can we schedule the meeting?
+                """;
+
+        assertThat(GmailThreadService.stripQuoted(body)).isEqualTo("Sounds good, thanks!");
+    }
+
+    @Test
+    void cabecalhoQuebradoEmDuasLinhas() {
+        String body = """
+                Combinado.
+
+                Em qua., 5 de mar. de 2025 às 09:12, Bruno Lima <
+                bruno@cliente.com> escreveu:
+
+                Segue a proposta revisada.
+                """;
+        String english = """
+                Done.
+
+                On Wed, Mar 5, 2025 at 9:12 AM Bruno Lima <bruno@cliente.com>
+                wrote:
+                Here is the revised proposal.
+                """;
+
+        assertThat(GmailThreadService.stripQuoted(body)).isEqualTo("Combinado.");
+        assertThat(GmailThreadService.stripQuoted(english)).isEqualTo("Done.");
+    }
+
+    @Test
+    void cortaNoBlocoDoOutlook() {
+        String body = """
+                Aprovado, podem seguir.
+
+                De: Carla Mendes <carla@empresa.com.br>
+                Enviado: quarta-feira, 5 de março de 2025 11:02
+                Para: Equipe <equipe@empresa.com.br>
+                Assunto: Orçamento do trimestre
+
+                Segue o orçamento para aprovação.
+                """;
+        String english = """
+                Approved.
+
+                *From:* Carla Mendes <carla@empresa.com.br>
+                *Sent:* Wednesday, March 5, 2025 11:02 AM
+                *To:* Team
+                Budget attached.
+                """;
+
+        assertThat(GmailThreadService.stripQuoted(body)).isEqualTo("Aprovado, podem seguir.");
+        assertThat(GmailThreadService.stripQuoted(english)).isEqualTo("Approved.");
+    }
+
+    @Test
+    void deSemEnviadoNaSequenciaNaoCorta() {
+        String body = """
+                De: o pessoal do financeiro, o pedido é urgente.
+                Preciso da resposta hoje.
+                """;
+
+        assertThat(GmailThreadService.stripQuoted(body))
+                .isEqualTo("De: o pessoal do financeiro, o pedido é urgente.\nPreciso da resposta hoje.");
+    }
+
+    @Test
+    void cortaNosSeparadoresDeEncaminhamento() {
+        assertThat(GmailThreadService.stripQuoted("""
+                Veja abaixo.
+
+                ---------- Forwarded message ---------
+                From: GitHub <noreply@github.com>
+                """)).isEqualTo("Veja abaixo.");
+        assertThat(GmailThreadService.stripQuoted("""
+                FYI
+
+                -----Mensagem original-----
+                De: Diego
+                """)).isEqualTo("FYI");
+        assertThat(GmailThreadService.stripQuoted("""
+                Encaminho para ciência.
+                ________________________________
+                De: Elisa
+                """)).isEqualTo("Encaminho para ciência.");
+    }
+
+    @Test
+    void descartaLinhasCitadasComMaior() {
+        String body = """
+                > Você revisou o contrato?
+                Revisei sim, está ok.
+                  >> versão anterior
+                Só falta a assinatura.
+                """;
+
+        assertThat(GmailThreadService.stripQuoted(body)).isEqualTo("Revisei sim, está ok.\nSó falta a assinatura.");
+    }
+
+    @Test
+    void textoDaMensagemParecidoComCabecalhoNaoCorta() {
+        String body = """
+                Li o relatório do Fábio.
+                Em resumo, ele escreveu:
+                as vendas caíram no último mês e precisamos agir.
+                On the other hand, he wrote:
+                the costs are under control.
+                """;
+
+        assertThat(GmailThreadService.stripQuoted(body)).isEqualTo(body.strip());
+    }
+
+    @Test
+    void colapsaLinhasEmBrancoEAceitaNull() {
+        assertThat(GmailThreadService.stripQuoted("um\n\n\n\ndois\r\n\r\ntrês  ")).isEqualTo("um\n\ndois\n\ntrês");
+        assertThat(GmailThreadService.stripQuoted(null)).isEmpty();
+    }
+}
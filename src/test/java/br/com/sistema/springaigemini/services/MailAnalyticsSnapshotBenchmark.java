@@ -0,0 +1,111 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.sistema.springaigemini.enums.AgrupamentoEmail;
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import br.com.sistema.springaigemini.support.Benchmark;
+
+/**
+ * Consultas do MailAnalyticsSnapshot (colunas mapeadas em memória) numa caixa
+ * sintética de 200 mil emails, contra o mesmo agrupamento por remetente feito
+ * com stream sobre os metadados do GmailMailboxStore.
+ */
+@Tag(Benchmark.TAG)
+class MailAnalyticsSnapshotBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int SENDERS = 2_000;
+    private static final long NOW = 1_735_689_600_000L; // 2025-01-01T00:00:00Z
+    private static final long DAY = 86_400_000L;
+    private static final String[] LABELS = { "IMPORTANT", "STARRED", "CATEGORY_PROMOTIONS", "CATEGORY_UPDATES",
+            "CATEGORY_SOCIAL", "Label_1", "Label_2", "Label_3" };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void consultasEm200MilEmails() throws Exception {
+        List<MessageMetadata> messages = messages(new Random(42));
+        GmailMailboxStore store = mock(GmailMailboxStore.class);
+        when(store.getHistoryId()).thenReturn(BigInteger.ONE);
+        when(store.size()).thenReturn(messages.size());
+        when(store.all()).thenReturn(messages);
+
+        MailAnalyticsSnapshot snapshot = new MailAnalyticsSnapshot(dir.resolve("analytics.bin").toString(), "UTC");
+        long start = System.nanoTime();
+        snapshot.rebuildIfChanged(store);
+        Benchmark.report("Reconstrução do snapshot", String.format("%,d emails em %.0f ms", snapshot.size(),
+                (System.nanoTime() - start) / 1e6));
+
+        for (AgrupamentoEmail groupBy : AgrupamentoEmail.values()) {
+            Benchmark.measure("groupBy " + groupBy.getValor() + " (caixa inteira)", 5, 30,
+                    () -> snapshot.groupBy(groupBy, null, null, 10));
+        }
+        Long lastMonth = NOW - 30 * DAY;
+        Benchmark.measure("groupBy remetente (últimos 30 dias, UNREAD)", 5, 30,
+                () -> snapshot.groupBy(AgrupamentoEmail.REMETENTE, lastMonth, "UNREAD", 10));
+        Benchmark.measure("groupBy dia (últimos 30 dias)", 5, 30,
+                () -> snapshot.groupBy(AgrupamentoEmail.DIA, lastMonth, null, 31));
+        Benchmark.measure("Stream sobre o store por remetente (referência)", 5, 30,
+                () -> groupBySender(store.all()));
+
+        // Mesmo remetente no topo pelos dois caminhos
+        MailAnalyticsSnapshot.Result top = snapshot.groupBy(AgrupamentoEmail.REMETENTE, null, null, 1);
+        Map.Entry<String, Long> expected = groupBySender(messages).entrySet().stream()
+                .max(Map.Entry.comparingByValue()).orElseThrow();
+        assertThat(top.matched()).isEqualTo(ROWS);
+        assertThat(top.buckets().get(0).count()).isEqualTo(expected.getValue().intValue());
+    }
+
+    /**
+     * Agrupamento sem o snapshot: percorre os objetos do store
+     */
+    private static Map<String, Long> groupBySender(List<MessageMetadata> messages) {
+        return messages.stream().collect(Collectors.groupingBy(
+                (Function<MessageMetadata, String>) m -> {
+                    String from = m.getFrom();
+                    int open = from.indexOf('<');
+                    return (open >= 0 ? from.substring(open + 1, from.length() - 1) : from).toLowerCase();
+                },
+                Collectors.counting()));
+    }
+
+    /**
+     * Remetentes com frequência decrescente (poucos mandam muito) ao longo de 2 anos
+     */
+    private static List<MessageMetadata> messages(Random random) {
+        List<MessageMetadata> messages = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            int sender = (int) (SENDERS * Math.pow(random.nextDouble(), 3));
+            List<String> labels = new ArrayList<>(List.of("INBOX"));
+            if (random.nextInt(4) == 0) {
+                labels.add("UNREAD");
+            }
+            labels.add(LABELS[random.nextInt(LABELS.length)]);
+            messages.add(MessageMetadata.builder()
+                    .id(Integer.toHexString(0x10000000 + i))
+                    .from("Remetente " + sender + " <remetente" + sender + "@dominio" + sender % 50 + ".com>")
+                    .subject("Assunto " + i)
+                    .internalDate(NOW - (long) (random.nextDouble() * 730 * DAY))
+                    .labelIds(labels)
+                    .build());
+        }
+        return messages;
+    }
+}
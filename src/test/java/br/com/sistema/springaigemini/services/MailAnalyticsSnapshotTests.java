@@ -0,0 +1,171 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.sistema.springaigemini.enums.AgrupamentoEmail;
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import br.com.sistema.springaigemini.services.MailAnalyticsSnapshot.Bucket;
+import br.com.sistema.springaigemini.services.MailAnalyticsSnapshot.LabelFilter;
+import br.com.sistema.springaigemini.services.MailAnalyticsSnapshot.Result;
+
+class MailAnalyticsSnapshotTests {
+
+    @TempDir
+    Path dir;
+
+    private final List<MessageMetadata> messages = List.of(
+            // 2024-01-01 foi uma segunda-feira
+            message("a", "Ana <ana@empresa.com>", "2024-01-01T10:15:00Z", "INBOX", "UNREAD"),
+            message("b", "ANA@empresa.com", "2024-01-01T10:45:00Z", "INBOX"),
+            message("c", "Bruno <bruno@cliente.com>", "2024-01-07T23:30:00Z", "INBOX", "IMPORTANT"),
+            // Segunda em UTC, ainda domingo em São Paulo
+            message("d", "Bruno <bruno@cliente.com>", "2024-01-08T01:00:00Z", "INBOX", "UNREAD"));
+
+    @Test
+    void gravaEMapeiaAsMesmasColunas() throws Exception {
+        MailAnalyticsSnapshot snapshot = snapshot("UTC");
+        snapshot.rebuildIfChanged(store(messages, 10));
+
+        MailAnalyticsSnapshot reloaded = snapshot("UTC");
+        reloaded.load();
+
+        assertThat(reloaded.isReady()).isTrue();
+        assertThat(reloaded.size()).isEqualTo(4);
+        for (AgrupamentoEmail groupBy : AgrupamentoEmail.values()) {
+            assertThat(reloaded.groupBy(groupBy, null, null, 10).buckets())
+                    .isEqualTo(snapshot.groupBy(groupBy, null, null, 10).buckets());
+        }
+    }
+
+    @Test
+    void agrupaPorRemetenteSemDiferenciarMaiusculas() throws Exception {
+        MailAnalyticsSnapshot snapshot = snapshot("UTC");
+        snapshot.rebuildIfChanged(store(messages, 10));
+
+        Result result = snapshot.groupBy(AgrupamentoEmail.REMETENTE, null, null, 10);
+
+        assertThat(result.buckets()).containsExactlyInAnyOrder(
+                new Bucket("ana@empresa.com", "Ana", 2),
+                new Bucket("bruno@cliente.com", "Bruno", 2));
+        assertThat(result.labelFilter()).isEqualTo(LabelFilter.NONE);
+    }
+
+    @Test
+    void diaDaSemanaEHoraEmUtc() throws Exception {
+        MailAnalyticsSnapshot snapshot = snapshot("UTC");
+        snapshot.rebuildIfChanged(store(messages, 10));
+
+        assertThat(counts(snapshot.groupBy(AgrupamentoEmail.DIA_SEMANA, null, null, 10)))
+                .containsExactly(3, 0, 0, 0, 0, 0, 1);
+        List<Bucket> hours = snapshot.groupBy(AgrupamentoEmail.HORA, null, null, 24).buckets();
+        assertThat(hours).hasSize(24);
+        assertThat(hours.get(10)).isEqualTo(new Bucket("10", "10h", 2));
+        assertThat(hours.get(23).count()).isEqualTo(1);
+        assertThat(hours.get(1).count()).isEqualTo(1);
+    }
+
+    @Test
+    void diaDaSemanaEHoraNoFusoConfigurado() throws Exception {
+        MailAnalyticsSnapshot snapshot = snapshot("America/Sao_Paulo");
+        snapshot.rebuildIfChanged(store(messages, 10));
+
+        // UTC-3: "c" vira domingo 20h e "d" domingo 22h
+        assertThat(counts(snapshot.groupBy(AgrupamentoEmail.DIA_SEMANA, null, null, 10)))
+                .containsExactly(2, 0, 0, 0, 0, 0, 2);
+        List<Bucket> hours = snapshot.groupBy(AgrupamentoEmail.HORA, null, null, 24).buckets();
+        assertThat(hours.get(7).count()).isEqualTo(2);
+        assertThat(hours.get(20).count()).isEqualTo(1);
+        assertThat(hours.get(22).count()).isEqualTo(1);
+        assertThat(snapshot.groupBy(AgrupamentoEmail.DIA, null, null, 10).buckets())
+                .extracting(Bucket::key).containsExactly("2024-01-01", "2024-01-07");
+    }
+
+    @Test
+    void filtraPorLabelEPeriodo() throws Exception {
+        MailAnalyticsSnapshot snapshot = snapshot("UTC");
+        snapshot.rebuildIfChanged(store(messages, 10));
+
+        Result unread = snapshot.groupBy(AgrupamentoEmail.REMETENTE, null, "unread", 10);
+        assertThat(unread.matched()).isEqualTo(2);
+        assertThat(unread.labelFilter()).isEqualTo(LabelFilter.TRACKED);
+
+        long since = Instant.parse("2024-01-02T00:00:00Z").toEpochMilli();
+        assertThat(snapshot.groupBy(AgrupamentoEmail.DIA, since, "INBOX", 10).matched()).isEqualTo(2);
+    }
+
+    @Test
+    void labelForaDasRastreadasNaoViraZero() throws Exception {
+        // Label_i aparece em 70 - i emails: Label_64 em diante ficam sem bit
+        List<MessageMetadata> many = new ArrayList<>();
+        for (int k = 0; k < 70; k++) {
+            String[] labels = new String[k + 1];
+            for (int i = 0; i <= k; i++) {
+                labels[i] = "Label_" + i;
+            }
+            many.add(message("m" + k, "Ana <ana@empresa.com>", "2024-01-01T10:00:00Z", labels));
+        }
+        MailAnalyticsSnapshot snapshot = snapshot("UTC");
+        snapshot.rebuildIfChanged(store(many, 20));
+
+        Result tracked = snapshot.groupBy(AgrupamentoEmail.REMETENTE, null, "Label_3", 10);
+        assertThat(tracked.labelFilter()).isEqualTo(LabelFilter.TRACKED);
+        assertThat(tracked.matched()).isEqualTo(67);
+
+        assertThat(snapshot.groupBy(AgrupamentoEmail.REMETENTE, null, "Label_65", 10).labelFilter())
+                .isEqualTo(LabelFilter.UNTRACKED);
+        assertThat(snapshot.groupBy(AgrupamentoEmail.REMETENTE, null, "Trabalho", 10).labelFilter())
+                .isEqualTo(LabelFilter.UNKNOWN);
+        assertThat(snapshot.groupBy(AgrupamentoEmail.LABEL, null, null, 100).buckets())
+                .hasSize(64)
+                .first().isEqualTo(new Bucket("Label_0", "Label_0", 70));
+    }
+
+    @Test
+    void naoReconstroiSemMudancaNaCaixa() throws Exception {
+        MailAnalyticsSnapshot snapshot = snapshot("UTC");
+        GmailMailboxStore store = store(messages, 10);
+        snapshot.rebuildIfChanged(store);
+        long modified = dir.resolve("analytics.bin").toFile().lastModified();
+
+        dir.resolve("analytics.bin").toFile().setLastModified(modified - 60_000);
+        snapshot.rebuildIfChanged(store);
+
+        assertThat(dir.resolve("analytics.bin").toFile().lastModified()).isEqualTo(modified - 60_000);
+    }
+
+    private MailAnalyticsSnapshot snapshot(String zone) {
+        return new MailAnalyticsSnapshot(dir.resolve("analytics.bin").toString(), zone);
+    }
+
+    private static GmailMailboxStore store(List<MessageMetadata> messages, long historyId) {
+        GmailMailboxStore store = mock(GmailMailboxStore.class);
+        when(store.getHistoryId()).thenReturn(BigInteger.valueOf(historyId));
+        when(store.size()).thenReturn(messages.size());
+        when(store.all()).thenReturn(messages);
+        return store;
+    }
+
+    private static List<Integer> counts(Result result) {
+        return result.buckets().stream().map(Bucket::count).toList();
+    }
+
+    private static MessageMetadata message(String id, String from, String date, String... labels) {
+        return MessageMetadata.builder()
+                .id(id)
+                .from(from)
+                .internalDate(Instant.parse(date).toEpochMilli())
+                .labelIds(List.of(labels))
+                .build();
+    }
+}
@@ -0,0 +1,98 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import br.com.sistema.springaigemini.services.MailNearDuplicates.Cluster;
+
+class MailNearDuplicatesTests {
+
+    private final MailNearDuplicates nearDuplicates = new MailNearDuplicates(0.7);
+
+    @Test
+    void normalizaAcentosNumerosEUrls() {
+        assertThat(MailNearDuplicates.normalize("  Build #1234 FALHOU — ação em https://ci.exemplo.com/run/99?x=1 !"))
+                .isEqualTo("build ## falhou acao em");
+        assertThat(MailNearDuplicates.normalize(null)).isEmpty();
+        assertThat(MailNearDuplicates.normalize("12/03 - 15:40")).isEqualTo("# # # #");
+    }
+
+    @Test
+    void notificacoesQueSoMudamNumerosFicamJuntas() {
+        List<String> emails = List.of(
+                "ci@github.com [app] Build #1201 failed on main: testes de integração quebraram",
+                "ana@empresa.com Almoço sexta? Pensei naquele restaurante novo perto do escritório",
+                "ci@github.com [app] Build #1202 failed on main: testes de integração quebraram",
+                "ofertas@loja.com Só hoje: 30% de desconto em notebooks selecionados",
+                "ci@github.com [app] Build #1203 failed on main: testes de integração quebraram",
+                "ofertas@loja.com Só hoje: 45% de desconto em notebooks selecionados");
+
+        List<Cluster<String>> clusters = nearDuplicates.cluster(emails, Function.identity());
+
+        // Ordem da entrada, com o primeiro email de cada grupo como representante
+        assertThat(clusters).extracting(Cluster::representative)
+                .containsExactly(emails.get(0), emails.get(1), emails.get(3));
+        assertThat(clusters).extracting(Cluster::size).containsExactly(3, 1, 2);
+        assertThat(clusters.get(0).members()).containsExactly(emails.get(0), emails.get(2), emails.get(4));
+    }
+
+    @Test
+    void emailsDiferentesNaoSeAgrupam() {
+        List<String> emails = List.of(
+                "ana@empresa.com Reunião de planejamento do trimestre, pode ser terça às 10h?",
+                "bruno@cliente.com Segue a proposta revisada com os valores que conversamos",
+                "carla@empresa.com Você viu o relatório de vendas de março? Tem algo estranho",
+                "suporte@banco.com Seu cartão final 1234 foi usado em uma compra internacional",
+                "ana@empresa.com Obrigada pelo feedback na apresentação de ontem!");
+
+        List<Cluster<String>> clusters = nearDuplicates.cluster(emails, Function.identity());
+
+        assertThat(clusters).hasSize(emails.size()).allSatisfy(cluster -> assertThat(cluster.size()).isOne());
+    }
+
+    @Test
+    void textoVazioNuncaAgrupa() {
+        List<String> emails = new ArrayList<>();
+        emails.add(null);
+        emails.add("");
+        emails.add("   ");
+
+        assertThat(nearDuplicates.cluster(emails, Function.identity())).hasSize(3);
+        assertThat(nearDuplicates.cluster(List.<String>of(), Function.identity())).isEmpty();
+    }
+
+    @Test
+    void limiarDeSimilaridade() {
+        List<String> emails = List.of(
+                "jira@empresa.com PROJ-101 movido de Em andamento para Revisão por Ana",
+                "jira@empresa.com PROJ-102 movido de Em andamento para Revisão por Ana",
+                "jira@empresa.com PROJ-103 movido de Revisão para Concluído por Bruno");
+
+        // Mesmo texto normalizado: agrupa até com limiar 1.0
+        assertThat(new MailNearDuplicates(1.0).cluster(emails, Function.identity()))
+                .extracting(Cluster::size).containsExactly(2, 1);
+        // Limiar baixo junta também a transição parecida
+        assertThat(new MailNearDuplicates(0.3).cluster(emails, Function.identity()))
+                .extracting(Cluster::size).containsExactly(3);
+    }
+
+    @Test
+    void assinaturaDeterministicaEEstimativaDeJaccard() {
+        String text = MailNearDuplicates.normalize("Seu pedido 123 foi enviado e chega amanhã");
+        long[] signature = nearDuplicates.signature(text);
+
+        assertThat(nearDuplicates.signature(text)).isEqualTo(signature);
+        assertThat(MailNearDuplicates.estimate(signature, signature)).isEqualTo(1.0);
+        assertThat(MailNearDuplicates.estimate(signature,
+                nearDuplicates.signature(MailNearDuplicates.normalize("Convite para o evento de lançamento"))))
+                .isLessThan(0.2);
+        assertThat(nearDuplicates.signature("")).isNull();
+        // Texto menor que um shingle ainda tem assinatura
+        assertThat(nearDuplicates.signature("oi")).hasSize(64);
+    }
+}
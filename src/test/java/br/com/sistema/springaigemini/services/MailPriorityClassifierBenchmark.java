@@ -0,0 +1,142 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import br.com.sistema.springaigemini.support.Benchmark;
+
+/**
+ * Treino incremental, qualidade do ranking e vazão da pontuação do
+ * MailPriorityClassifier numa caixa sintética (mesma semente → mesma caixa).
+ *
+ * Caixa: contatos de trabalho marcam estrela em boa parte dos emails, newsletters
+ * e notificações quase nunca. O treino usa as labels de uma parte da caixa; a
+ * avaliação ranqueia emails sem STARRED/IMPORTANT e confere com a classe real.
+ */
+@Tag(Benchmark.TAG)
+class MailPriorityClassifierBenchmark {
+
+    private static final int TRAIN = 16_000;
+    private static final int SYNCS = 4;
+    private static final int EVALUATE = 4_000;
+    private static final int TOP = 50;
+
+    private static final String[] WORK_TOPICS = { "reunião", "contrato", "proposta", "orçamento", "prazo",
+            "entrega", "aprovação", "relatório", "cliente", "planejamento" };
+    private static final String[] BULK_TOPICS = { "ofertas", "desconto", "newsletter", "novidades", "frete",
+            "cupom", "build", "notificação", "semanal", "promoção" };
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void treinoRankingEVazao() throws Exception {
+        Random random = new Random(42);
+        List<MessageMetadata> inbox = new ArrayList<>(TRAIN);
+        Set<String> important = new HashSet<>();
+        for (int i = 0; i < TRAIN + EVALUATE; i++) {
+            MessageMetadata message = message(random, i);
+            if (message.getLabelIds().contains("STARRED")) {
+                important.add(message.getId());
+            }
+            inbox.add(message);
+        }
+        List<MessageMetadata> training = inbox.subList(0, TRAIN);
+        // Avaliação: sem as labels que definem a classe
+        List<MessageMetadata> unlabeled = inbox.subList(TRAIN, inbox.size()).stream()
+                .map(m -> m.toBuilder().labelIds(List.of("INBOX", "UNREAD")).build())
+                .toList();
+
+        MailPriorityClassifier classifier = new MailPriorityClassifier(dir.resolve("priority.smile").toString(),
+                Set.of("STARRED", "IMPORTANT"), new SmileFactory());
+
+        // Sincronizações sucessivas: cada uma traz uma fatia nova da caixa
+        long trainMicros = 0;
+        for (int sync = 1; sync <= SYNCS; sync++) {
+            MailPriorityClassifier.TrainingResult result = classifier
+                    .train(store(training.subList(0, TRAIN * sync / SYNCS), sync));
+            trainMicros += result.elapsedMicros();
+            Benchmark.report("Treino " + sync + "/" + SYNCS, String.format("%,d emails, %,d atualizados, %.1f ms",
+                    result.examples(), result.updated(), result.elapsedMicros() / 1000.0));
+        }
+        Benchmark.report("Treino total", String.format("%.1f ms", trainMicros / 1000.0));
+
+        // Uma estrela a mais: só um exemplo volta ao treino
+        List<MessageMetadata> starred = new ArrayList<>(training);
+        int unstarred = 0;
+        while (important.contains(starred.get(unstarred).getId())) {
+            unstarred++;
+        }
+        starred.set(unstarred, starred.get(unstarred).toBuilder().labelIds(List.of("INBOX", "STARRED")).build());
+        MailPriorityClassifier.TrainingResult oneChange = classifier.train(store(starred, SYNCS + 1));
+        Benchmark.report("Retreino após uma estrela", oneChange.updated() + " exemplo(s) atualizado(s)");
+
+        GmailMailboxStore evaluation = store(unlabeled, SYNCS + 2);
+        List<MailPriorityClassifier.Scored> top = classifier.top(evaluation, TOP, m -> true);
+        long hits = top.stream().filter(s -> important.contains(s.message().getId())).count();
+        long baseRate = unlabeled.stream().filter(m -> important.contains(m.getId())).count();
+        Benchmark.report("precision@" + TOP, String.format("%.2f (taxa base %.2f)", (double) hits / TOP,
+                (double) baseRate / unlabeled.size()));
+
+        Benchmark.Result result = Benchmark.measure("top-20 de " + EVALUATE + " emails (features em cache)", 20, 200,
+                () -> classifier.top(evaluation, 20, m -> true));
+        Benchmark.report("Vazão da pontuação", String.format("%,.0f emails/ms", EVALUATE / result.medianMillis()));
+
+        assertThat(oneChange.updated()).isOne();
+        // Teto: os contatos mais marcados têm estrela em 60% dos emails
+        assertThat((double) hits / TOP).isGreaterThan(3.0 * baseRate / unlabeled.size());
+    }
+
+    private static GmailMailboxStore store(List<MessageMetadata> messages, long version) {
+        GmailMailboxStore store = mock(GmailMailboxStore.class);
+        when(store.version()).thenReturn(version);
+        when(store.all()).thenReturn(List.copyOf(messages));
+        return store;
+    }
+
+    /**
+     * 60 contatos de trabalho (estrela em 60% dos emails de 20 deles, 10% dos demais)
+     * e 40 remetentes automáticos (estrela em 1%)
+     */
+    private static MessageMetadata message(Random random, int i) {
+        boolean work = random.nextInt(100) < 35;
+        int sender = work ? random.nextInt(60) : random.nextInt(40);
+        String from = work ? "Contato " + sender + " <contato" + sender + "@empresa" + sender % 7 + ".com.br>"
+                : "Loja " + sender + " <news@loja" + sender + ".com>";
+        double starRate = work ? (sender < 20 ? 0.6 : 0.1) : 0.01;
+        String[] topics = work ? WORK_TOPICS : BULK_TOPICS;
+
+        List<String> labels = new ArrayList<>(List.of("INBOX"));
+        labels.add(work ? "CATEGORY_PERSONAL" : (sender % 2 == 0 ? "CATEGORY_PROMOTIONS" : "CATEGORY_UPDATES"));
+        if (random.nextInt(3) == 0) {
+            labels.add("UNREAD");
+        }
+        if (random.nextDouble() < starRate) {
+            labels.add("STARRED");
+        }
+
+        return MessageMetadata.builder()
+                .id(Integer.toHexString(0x10000000 + i))
+                .from(from)
+                .subject(topics[random.nextInt(topics.length)] + " " + topics[random.nextInt(topics.length)] + " " + i)
+                .snippet(topics[random.nextInt(topics.length)] + " " + topics[random.nextInt(topics.length)])
+                .internalDate(1_700_000_000_000L + i * 60_000L)
+                .labelIds(labels)
+                .build();
+    }
+}
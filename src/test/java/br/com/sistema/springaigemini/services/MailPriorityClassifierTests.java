@@ -0,0 +1,141 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import br.com.sistema.springaigemini.models.MessageMetadata;
+
+class MailPriorityClassifierTests {
+
+    @TempDir
+    Path dir;
+
+    private final List<MessageMetadata> messages = new ArrayList<>();
+    private GmailMailboxStore store;
+
+    @BeforeEach
+    void setUp() {
+        // Chefe: 3 de cada 4 com estrela; lojas: promoções nunca marcadas
+        for (int i = 0; i < 40; i++) {
+            messages.add(message("chefe" + i, "Chefe <chefe@empresa.com>", "Reunião de planejamento " + i,
+                    i % 4 == 0 ? List.of("INBOX", "UNREAD") : List.of("INBOX", "STARRED")));
+            messages.add(message("loja" + i, "Loja <ofertas@loja.com>", "Oferta imperdível " + i,
+                    List.of("INBOX", "UNREAD", "CATEGORY_PROMOTIONS")));
+        }
+        store = store(messages, 1);
+    }
+
+    @Test
+    void semTreinoNaoEstaPronto() {
+        MailPriorityClassifier classifier = classifier();
+
+        assertThat(classifier.isTrained()).isFalse();
+        assertThat(classifier.examples()).isZero();
+    }
+
+    @Test
+    void treinaEColocaOsParecidosComOsMarcadosNoTopo() {
+        MailPriorityClassifier classifier = classifier();
+
+        MailPriorityClassifier.TrainingResult result = classifier.train(store);
+
+        assertThat(result.examples()).isEqualTo(80);
+        assertThat(result.updated()).isEqualTo(80);
+        assertThat(classifier.isTrained()).isTrue();
+        assertThat(classifier.examples()).isEqualTo(80);
+
+        List<MailPriorityClassifier.Scored> top = classifier.top(store, 5, MessageMetadata::isUnread);
+        assertThat(top).hasSize(5)
+                .allSatisfy(scored -> assertThat(scored.message().getFrom()).contains("chefe@empresa.com"))
+                .isSortedAccordingTo((a, b) -> Double.compare(b.score(), a.score()));
+        assertThat(top.get(0).score()).isBetween(0.5, 1.0);
+        assertThat(classifier.score(messages.get(1))).isLessThan(0.5);
+    }
+
+    @Test
+    void treinoIncrementalSoComOQueMudou() {
+        MailPriorityClassifier classifier = classifier();
+        classifier.train(store);
+
+        // Caixa sem alteração: nada a fazer
+        assertThat(classifier.train(store).updated()).isZero();
+
+        // Usuário tirou a estrela de um email e chegou um email novo
+        List<MessageMetadata> next = new ArrayList<>(messages);
+        next.set(2, relabel(messages.get(2), List.of("INBOX")));
+        next.add(message("novo", "Chefe <chefe@empresa.com>", "Planejamento do trimestre", List.of("INBOX")));
+
+        MailPriorityClassifier.TrainingResult result = classifier.train(store(next, 2));
+
+        assertThat(result.examples()).isEqualTo(81);
+        assertThat(result.updated()).isEqualTo(2);
+        assertThat(classifier.examples()).isEqualTo(81);
+    }
+
+    @Test
+    void featuresRecalculadasQuandoAsLabelsMudam() {
+        MailPriorityClassifier classifier = classifier();
+        classifier.train(store);
+        MessageMetadata email = message("x", "Fulano <fulano@exemplo.com>", "Assunto qualquer", List.of("INBOX"));
+        double before = classifier.score(email);
+
+        // Mesmo ID, agora em promoções: a label entra nas features
+        double after = classifier.score(relabel(email, List.of("INBOX", "CATEGORY_PROMOTIONS")));
+
+        assertThat(after).isLessThan(before);
+        assertThat(classifier.score(email)).isEqualTo(before);
+    }
+
+    @Test
+    void modeloPersistidoContinuaDeOndeParou() {
+        MailPriorityClassifier classifier = classifier();
+        classifier.train(store);
+
+        MailPriorityClassifier reloaded = classifier();
+        reloaded.load();
+
+        assertThat(reloaded.isTrained()).isTrue();
+        assertThat(reloaded.examples()).isEqualTo(80);
+        assertThat(reloaded.score(messages.get(0))).isEqualTo(classifier.score(messages.get(0)));
+        // Emails já observados não geram novo treino depois de recarregar
+        assertThat(reloaded.train(store).updated()).isZero();
+    }
+
+    private MailPriorityClassifier classifier() {
+        return new MailPriorityClassifier(dir.resolve("priority.smile").toString(), Set.of("STARRED", "IMPORTANT"),
+                new SmileFactory());
+    }
+
+    private static GmailMailboxStore store(List<MessageMetadata> messages, long version) {
+        GmailMailboxStore store = mock(GmailMailboxStore.class);
+        when(store.version()).thenReturn(version);
+        when(store.all()).thenReturn(List.copyOf(messages));
+        return store;
+    }
+
+    private static MessageMetadata relabel(MessageMetadata message, List<String> labels) {
+        return message(message.getId(), message.getFrom(), message.getSubject(), labels);
+    }
+
+    private static MessageMetadata message(String id, String from, String subject, List<String> labels) {
+        return MessageMetadata.builder()
+                .id(id)
+                .from(from)
+                .subject(subject)
+                .internalDate(1_700_000_000_000L + id.hashCode())
+                .labelIds(labels)
+                .build();
+    }
+}
@@ -0,0 +1,117 @@
+package br.com.sistema.springaigemini.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import br.com.sistema.springaigemini.models.MessageMetadata;
+
+class MailSearchIndexTests {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tokenizaSemAcentosNemStopwords() {
+        assertThat(MailSearchIndex.tokenize("Reunião de Orçamento para o Q3"))
+                .containsExactly("reuniao", "orcamento", "q3");
+    }
+
+    @Test
+    void rankingBm25PrivilegiaAssuntoETermosRaros() {
+        MailSearchIndex index = newIndex(0.25);
+        index.add(message("a", "Relatório mensal", "equipe@empresa.com"), "segue o relatório de vendas");
+        index.add(message("b", "Almoço", "joao@empresa.com"), "vamos falar do relatório depois do almoço");
+        index.add(message("c", "Festa", "rh@empresa.com"), "confraternização de fim de ano");
+
+        List<MailSearchIndex.Hit> hits = index.search("relatório", 10);
+
+        // "a" tem o termo no assunto (peso dobrado) e no corpo
+        assertThat(hits).extracting(MailSearchIndex.Hit::messageId).containsExactly("a", "b");
+        assertThat(hits.get(0).score()).isGreaterThan(hits.get(1).score());
+        assertThat(index.search("confraternizacao", 10)).extracting(MailSearchIndex.Hit::messageId)
+                .containsExactly("c");
+    }
+
+    @Test
+    void removidosViramTombstoneESaemDaBusca() {
+        MailSearchIndex index = newIndex(0.9);
+        index.add(message("a", "Fatura vencida", "banco@banco.com"), null);
+        index.add(message("b", "Fatura paga", "banco@banco.com"), null);
+
+        index.remove("a");
+
+        assertThat(index.contains("a")).isFalse();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("fatura", 10)).extracting(MailSearchIndex.Hit::messageId).containsExactly("b");
+        // Abaixo do limite: tombstone fica até a próxima compactação
+        assertThat(index.compactIfNeeded()).isFalse();
+    }
+
+    @Test
+    void reindexarSubstituiODocumentoAnterior() {
+        MailSearchIndex index = newIndex(0.25);
+        index.add(message("a", "Rascunho", "eu@empresa.com"), "versão antiga");
+        index.add(message("a", "Proposta final", "eu@empresa.com"), "versão nova");
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("rascunho", 10)).isEmpty();
+        assertThat(index.search("proposta", 10)).extracting(MailSearchIndex.Hit::messageId).containsExactly("a");
+    }
+
+    @Test
+    void compactacaoMantemResultadosESobreviveAoRecarregar() throws Exception {
+        MailSearchIndex index = newIndex(0.25);
+        for (int i = 0; i < 20; i++) {
+            index.add(message("m" + i, "Pedido " + i, "loja@loja.com"), i % 2 == 0 ? "entrega expressa" : "retirada");
+        }
+        for (int i = 1; i < 20; i += 2) {
+            index.remove("m" + i);
+        }
+        List<MailSearchIndex.Hit> before = index.search("entrega", 20);
+
+        assertThat(index.compactIfNeeded()).isTrue();
+        assertThat(index.compactIfNeeded()).isFalse();
+        assertThat(index.size()).isEqualTo(10);
+        assertThat(index.search("retirada", 10)).isEmpty();
+        // Mesmos documentos e mesmos scores (empates podem trocar de ordem com os docIds novos)
+        assertThat(index.search("entrega", 20)).hasSize(10).containsExactlyInAnyOrderElementsOf(before);
+
+        index.persist();
+        MailSearchIndex reloaded = newIndex(0.25);
+        reloaded.load();
+        assertThat(reloaded.indexedIds()).isEqualTo(index.indexedIds());
+        assertThat(reloaded.search("entrega", 20)).containsExactlyInAnyOrderElementsOf(before);
+
+        // Postings de um termo existente continuam a partir dos docIds renumerados
+        reloaded.add(message("novo", "Entrega agendada", "loja@loja.com"), null);
+        assertThat(reloaded.search("entrega", 20)).hasSize(11);
+        assertThat(reloaded.search("agendada", 1)).extracting(MailSearchIndex.Hit::messageId)
+                .containsExactly("novo");
+    }
+
+    @Test
+    void detectaOperadoresDoGmail() {
+        assertThat(MailSearchIndex.usesGmailOperators("from:joao@email.com")).isTrue();
+        assertThat(MailSearchIndex.usesGmailOperators("fatura -paga")).isTrue();
+        assertThat(MailSearchIndex.usesGmailOperators("\"frase exata\"")).isTrue();
+        assertThat(MailSearchIndex.usesGmailOperators("fatura de junho")).isFalse();
+    }
+
+    private MailSearchIndex newIndex(double compactRatio) {
+        return new MailSearchIndex(dir.resolve("index.bin").toString(), compactRatio);
+    }
+
+    private static MessageMetadata message(String id, String subject, String from) {
+        return MessageMetadata.builder()
+                .id(id)
+                .subject(subject)
+                .from(from)
+                .internalDate(System.currentTimeMillis())
+                .build();
+    }
+}
@@ -0,0 +1,578 @@
+package br.com.sistema.springaigemini.stub;
+
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Caixa de email gerada para o GmailStubServer (em memória, determinística pela semente).
+ *
+ * - Remetentes com frequência desigual (poucos mandam muito), conversas com "Re:",
+ *   labels de sistema (INBOX, UNREAD, IMPORTANT, STARRED, CATEGORY_*) e corpo em texto/HTML
+ * - No format=full, remetentes automáticos vêm com HTML de newsletter (tabelas, estilos inline,
+ *   10 a 70 KB) e parte dos emails pessoais com um anexo (só attachmentId e size, como na API)
+ * - Histórico (users.history.list) com messageAdded, messageDeleted, labelAdded e labelRemoved;
+ *   só os últimos registros ficam guardados, como no Gmail (historyId antigo → 404)
+ * - Chegada contínua de emails novos (arrivals-per-minute), para exercitar a sincronização incremental
+ *
+ * As respostas são montadas como Map no mesmo formato JSON da API do Gmail.
+ */
+public class GmailStubMailbox {
+
+    private static final String ADDRESS = "usuario@stub.local";
+    private static final DateTimeFormatter RFC_1123 = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    private static final String[] FIRST_NAMES = {"Ana", "Bruno", "Carla", "Diego", "Elisa", "Fábio", "Gabriela",
+            "Henrique", "Isabela", "João", "Karina", "Lucas", "Mariana", "Nicolas", "Olívia", "Paulo"};
+    private static final String[] DOMAINS = {"empresa.com.br", "cliente.com", "gmail.com", "fornecedor.com.br",
+            "universidade.edu.br", "startup.io"};
+    private static final String[] AUTOMATED = {"GitHub <notifications@github.com>", "Jira <jira@acme.atlassian.net>",
+            "LinkedIn <jobs-noreply@linkedin.com>", "Loja XPTO <ofertas@xpto.com.br>", "Banco <alertas@banco.com.br>",
+            "Google <no-reply@accounts.google.com>", "Newsletter Tech <news@portal.tech>"};
+    private static final String[] TOPICS = {"reunião", "projeto", "orçamento", "contrato", "relatório", "entrega",
+            "proposta", "prazo", "fatura", "revisão", "viagem", "treinamento", "deploy", "contratação", "pagamento"};
+    private static final String[] WORDS = {"segue", "abaixo", "informações", "sobre", "conforme", "combinado",
+            "precisamos", "alinhar", "próxima", "semana", "obrigado", "retorno", "possível", "amanhã", "documento",
+            "anexo", "valores", "equipe", "cliente", "aprovação", "versão", "final", "ajustes", "pendentes", "hoje"};
+    private static final String[] CATEGORIES = {"CATEGORY_PERSONAL", "CATEGORY_UPDATES", "CATEGORY_PROMOTIONS",
+            "CATEGORY_SOCIAL", "CATEGORY_FORUMS"};
+    private static final Set<String> AUTOMATED_SENDERS = Set.of(AUTOMATED);
+    private static final String[] ATTACHMENTS = {"proposta.pdf", "relatorio.xlsx", "contrato.pdf", "fotos.zip",
+            "apresentacao.pptx"};
+    private static final String[] SYSTEM_LABELS = {"INBOX", "SENT", "UNREAD", "IMPORTANT", "STARRED", "TRASH", "SPAM",
+            "DRAFT", "CATEGORY_PERSONAL", "CATEGORY_UPDATES", "CATEGORY_PROMOTIONS", "CATEGORY_SOCIAL",
+            "CATEGORY_FORUMS"};
+
+    /** Mensagem da caixa gerada (labels mutáveis) */
+    static final class StubMessage {
+        final String id;
+        final String threadId;
+        final String from;
+        final String to;
+        final String subject;
+        final long internalDate;
+        final String body;
+        final Set<String> labelIds;
+        long historyId;
+
+        StubMessage(String id, String threadId, String from, String to, String subject, long internalDate,
+                    String body, Set<String> labelIds) {
+            this.id = id;
+            this.threadId = threadId;
+            this.from = from;
+            this.to = to;
+            this.subject = subject;
+            this.internalDate = internalDate;
+            this.body = body;
+            this.labelIds = labelIds;
+        }
+
+        String snippet() {
+            return body.length() > 160 ? body.substring(0, 160) : body;
+        }
+    }
+
+    private enum ChangeType { ADDED, DELETED, LABELS_ADDED, LABELS_REMOVED }
+
+    private record Change(long historyId, ChangeType type, String messageId, String threadId,
+                          List<String> labelIds, List<String> changedLabels) {}
+
+    private final Random random;
+    private final String[] senders;
+    private final int historyRetention;
+    private final double arrivalsPerMinute;
+
+    /** Mais recentes primeiro */
+    private final List<StubMessage> ordered = new ArrayList<>();
+    private final Map<String, StubMessage> byId = new HashMap<>();
+    private final List<Change> history = new ArrayList<>();
+    private long nextHistoryId = 100_000;
+    private long nextId;
+    private long clock;
+    private final long startNanos = System.nanoTime();
+    private long arrived;
+
+    public GmailStubMailbox(int size, long seed, int historyRetention, double arrivalsPerMinute) {
+        this.random = new Random(seed);
+        this.historyRetention = historyRetention;
+        this.arrivalsPerMinute = arrivalsPerMinute;
+        this.nextId = 0x18a0000000000L + random.nextInt(1 << 20);
+
+        this.senders = new String[64];
+        for (int i = 0; i < senders.length; i++) {
+            String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+            String domain = DOMAINS[random.nextInt(DOMAINS.length)];
+            senders[i] = String.format("%s <%s.%d@%s>", first, stripAccents(first).toLowerCase(Locale.ROOT), i, domain);
+        }
+
+        // Gerada do mais antigo para o mais recente, um email a cada ~20 minutos
+        this.clock = Instant.parse("2026-01-01T00:00:00Z").toEpochMilli();
+        for (int i = 0; i < size; i++) {
+            insert(generate());
+        }
+    }
+
+    // ==================== LEITURA ====================
+
+    public synchronized Map<String, Object> profile() {
+        arrive();
+        Set<String> threads = new LinkedHashSet<>();
+        ordered.forEach(m -> threads.add(m.threadId));
+        return json("emailAddress", ADDRESS, "messagesTotal", ordered.size(), "threadsTotal", threads.size(),
+                "historyId", String.valueOf(nextHistoryId - 1));
+    }
+
+    /**
+     * users.messages.list: mais recentes primeiro, filtro por labelIds e por uma busca simples
+     * (is:unread, is:starred, in:inbox, label:X, from:X e palavras do assunto/snippet)
+     */
+    public synchronized Map<String, Object> list(String query, List<String> labelIds, int maxResults,
+                                                 String pageToken) {
+        arrive();
+        int offset = pageToken != null ? Integer.parseInt(pageToken) : 0;
+        List<Map<String, Object>> page = new ArrayList<>();
+        int index = offset;
+        for (; index < ordered.size() && page.size() < maxResults; index++) {
+            StubMessage message = ordered.get(index);
+            if (matches(message, query, labelIds)) {
+                page.add(json("id", message.id, "threadId", message.threadId));
+            }
+        }
+        boolean more = index < ordered.size();
+        return json("messages", page.isEmpty() ? null : page,
+                "nextPageToken", more ? String.valueOf(index) : null,
+                "resultSizeEstimate", page.size());
+    }
+
+    /**
+     * users.messages.get nos formatos minimal, metadata, full e raw (null = não existe)
+     */
+    public synchronized Map<String, Object> get(String id, String format, List<String> metadataHeaders) {
+        StubMessage message = byId.get(id);
+        if (message == null) {
+            return null;
+        }
+        Map<String, Object> json = minimal(message);
+        switch (format == null ? "full" : format.toLowerCase(Locale.ROOT)) {
+            case "minimal" -> { }
+            case "metadata" -> json.put("payload", json("mimeType", "multipart/alternative",
+                    "headers", headers(message, metadataHeaders)));
+            case "raw" -> json.put("raw", BASE64_URL.encodeToString(rfc822(message).getBytes(StandardCharsets.UTF_8)));
+            default -> json.put("payload", fullPayload(message));
+        }
+        return json;
+    }
+
+    /**
+     * users.history.list a partir de startHistoryId (null = historyId antigo demais, 404)
+     */
+    public synchronized Map<String, Object> history(long startHistoryId, int maxResults, String pageToken) {
+        arrive();
+        long oldest = history.isEmpty() ? nextHistoryId : history.get(0).historyId();
+        if (startHistoryId < oldest - 1) {
+            return null;
+        }
+
+        int offset = pageToken != null ? Integer.parseInt(pageToken) : firstAfter(startHistoryId);
+        List<Map<String, Object>> records = new ArrayList<>();
+        int index = offset;
+        for (; index < history.size() && records.size() < maxResults; index++) {
+            records.add(toJson(history.get(index)));
+        }
+        boolean more = index < history.size();
+        return json("history", records.isEmpty() ? null : records,
+                "nextPageToken", more ? String.valueOf(index) : null,
+                "historyId", String.valueOf(nextHistoryId - 1));
+    }
+
+    public synchronized Map<String, Object> labels() {
+        List<Map<String, Object>> labels = new ArrayList<>();
+        for (String label : SYSTEM_LABELS) {
+            labels.add(json("id", label, "name", label, "type", "system"));
+        }
+        return json("labels", labels);
+    }
+
+    public synchronized Map<String, Object> label(String id) {
+        if (!List.of(SYSTEM_LABELS).contains(id)) {
+            return null;
+        }
+        int total = 0;
+        int unread = 0;
+        Set<String> threads = new LinkedHashSet<>();
+        Set<String> unreadThreads = new LinkedHashSet<>();
+        for (StubMessage message : ordered) {
+            if (message.labelIds.contains(id)) {
+                total++;
+                threads.add(message.threadId);
+                if (message.labelIds.contains("UNREAD")) {
+                    unread++;
+                    unreadThreads.add(message.threadId);
+                }
+            }
+        }
+        return json("id", id, "name", id, "type", "system", "messagesTotal", total, "messagesUnread", unread,
+                "threadsTotal", threads.size(), "threadsUnread", unreadThreads.size());
+    }
+
+    // ==================== ESCRITA ====================
+
+    /**
+     * users.messages.modify (null = não existe)
+     */
+    public synchronized Map<String, Object> modify(String id, Collection<String> add, Collection<String> remove) {
+        StubMessage message = byId.get(id);
+        if (message == null) {
+            return null;
+        }
+        List<String> added = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        if (add != null) {
+            add.stream().filter(message.labelIds::add).forEach(added::add);
+        }
+        if (remove != null) {
+            remove.stream().filter(message.labelIds::remove).forEach(removed::add);
+        }
+        if (!added.isEmpty()) {
+            record(ChangeType.LABELS_ADDED, message, added);
+        }
+        if (!removed.isEmpty()) {
+            record(ChangeType.LABELS_REMOVED, message, removed);
+        }
+        return minimal(message);
+    }
+
+    public synchronized boolean delete(String id) {
+        StubMessage message = byId.remove(id);
+        if (message == null) {
+            return false;
+        }
+        ordered.remove(message);
+        record(ChangeType.DELETED, message, null);
+        return true;
+    }
+
+    /**
+     * users.messages.send: o email (raw RFC 822 em base64url) entra com a label SENT
+     */
+    public synchronized Map<String, Object> send(String raw, String threadId) {
+        String mime = raw != null ? new String(Base64.getUrlDecoder().decode(raw), StandardCharsets.UTF_8) : "";
+        String[] sections = mime.split("\r?\n\r?\n", 2);
+        Map<String, String> headers = parseHeaders(sections[0]);
+
+        clock = Math.max(clock, System.currentTimeMillis());
+        String id = nextId();
+        StubMessage message = new StubMessage(id, threadId != null ? threadId : id,
+                headers.getOrDefault("from", ADDRESS), headers.getOrDefault("to", ""),
+                headers.getOrDefault("subject", ""), clock,
+                sections.length > 1 ? sections[1].strip() : "", new LinkedHashSet<>(List.of("SENT")));
+        insert(message);
+        return json("id", message.id, "threadId", message.threadId, "labelIds", List.copyOf(message.labelIds));
+    }
+
+    public synchronized int size() {
+        return ordered.size();
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    /**
+     * Emails que "chegaram" desde a criação da caixa, conforme arrivals-per-minute
+     */
+    private void arrive() {
+        if (arrivalsPerMinute <= 0) {
+            return;
+        }
+        double minutes = (System.nanoTime() - startNanos) / 60e9;
+        long expected = (long) (minutes * arrivalsPerMinute);
+        while (arrived < expected) {
+            clock = Math.max(clock, System.currentTimeMillis());
+            insert(generate());
+            arrived++;
+        }
+    }
+
+    private StubMessage generate() {
+        clock += 60_000L + random.nextInt(40 * 60_000);
+
+        // Resposta em uma conversa recente
+        if (!ordered.isEmpty() && random.nextDouble() < 0.25) {
+            StubMessage previous = ordered.get(random.nextInt(Math.min(20, ordered.size())));
+            String subject = previous.subject.startsWith("Re: ") ? previous.subject : "Re: " + previous.subject;
+            return new StubMessage(nextId(), previous.threadId, previous.to.isEmpty() ? pickSender() : previous.to,
+                    previous.from, subject, clock, sentence(25 + random.nextInt(60)), labels(false));
+        }
+
+        boolean automated = random.nextDouble() < 0.45;
+        String from = automated ? AUTOMATED[random.nextInt(AUTOMATED.length)] : pickSender();
+        String topic = TOPICS[random.nextInt(TOPICS.length)];
+        String subject = automated
+                ? String.format("[%s] Atualização #%d: %s", from.substring(0, from.indexOf(' ')),
+                        1000 + random.nextInt(9000), topic)
+                : String.format("%s %s", capitalize(topic), WORDS[random.nextInt(WORDS.length)]);
+        String id = nextId();
+        return new StubMessage(id, id, from, ADDRESS, subject, clock, sentence(30 + random.nextInt(150)),
+                labels(automated));
+    }
+
+    private Set<String> labels(boolean automated) {
+        Set<String> labels = new LinkedHashSet<>();
+        labels.add("INBOX");
+        if (random.nextDouble() < 0.3) {
+            labels.add("UNREAD");
+        }
+        if (!automated && random.nextDouble() < 0.35) {
+            labels.add("IMPORTANT");
+        }
+        if (!automated && random.nextDouble() < 0.05) {
+            labels.add("STARRED");
+        }
+        labels.add(automated ? CATEGORIES[1 + random.nextInt(CATEGORIES.length - 1)] : CATEGORIES[0]);
+        return labels;
+    }
+
+    /** Remetentes com distribuição desigual: os primeiros mandam bem mais */
+    private String pickSender() {
+        double u = random.nextDouble();
+        return senders[(int) (u * u * u * senders.length)];
+    }
+
+    private String sentence(int words) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = random.nextDouble() < 0.1 ? TOPICS[random.nextInt(TOPICS.length)]
+                    : WORDS[random.nextInt(WORDS.length)];
+            sb.append(i == 0 ? capitalize(word) : word).append(i % 12 == 11 ? ". " : " ");
+        }
+        return sb.toString().strip() + ".";
+    }
+
+    private void insert(StubMessage message) {
+        byId.put(message.id, message);
+        // Geração inicial vai do mais antigo ao mais recente: cada novo email fica no topo
+        ordered.add(0, message);
+        record(ChangeType.ADDED, message, null);
+    }
+
+    private void record(ChangeType type, StubMessage message, List<String> changedLabels) {
+        long historyId = nextHistoryId++;
+        message.historyId = historyId;
+        history.add(new Change(historyId, type, message.id, message.threadId, List.copyOf(message.labelIds),
+                changedLabels));
+        if (history.size() > historyRetention) {
+            history.subList(0, history.size() - historyRetention).clear();
+        }
+    }
+
+    private int firstAfter(long startHistoryId) {
+        int low = 0;
+        int high = history.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (history.get(mid).historyId() <= startHistoryId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Map<String, Object> toJson(Change change) {
+        Map<String, Object> message = json("id", change.messageId(), "threadId", change.threadId(),
+                "labelIds", change.type() == ChangeType.DELETED ? null : change.labelIds());
+        Map<String, Object> item = change.changedLabels() != null
+                ? json("message", message, "labelIds", change.changedLabels())
+                : json("message", message);
+        String key = switch (change.type()) {
+            case ADDED -> "messagesAdded";
+            case DELETED -> "messagesDeleted";
+            case LABELS_ADDED -> "labelsAdded";
+            case LABELS_REMOVED -> "labelsRemoved";
+        };
+        return json("id", String.valueOf(change.historyId()), "messages", List.of(message), key, List.of(item));
+    }
+
+    private boolean matches(StubMessage message, String query, List<String> labelIds) {
+        if (labelIds != null && !message.labelIds.containsAll(labelIds)) {
+            return false;
+        }
+        if (query == null || query.isBlank()) {
+            return true;
+        }
+        String text = (message.from + " " + message.subject + " " + message.snippet()).toLowerCase(Locale.ROOT);
+        for (String term : query.toLowerCase(Locale.ROOT).split("\\s+")) {
+            boolean ok;
+            if (term.startsWith("is:") || term.startsWith("in:") || term.startsWith("label:")) {
+                String label = term.substring(term.indexOf(':') + 1).toUpperCase(Locale.ROOT);
+                ok = message.labelIds.contains(label);
+            } else if (term.startsWith("from:")) {
+                ok = message.from.toLowerCase(Locale.ROOT).contains(term.substring(5));
+            } else if (term.startsWith("-") && term.length() > 1) {
+                ok = !text.contains(term.substring(1));
+            } else {
+                ok = text.contains(term);
+            }
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Map<String, Object> minimal(StubMessage message) {
+        return json("id", message.id, "threadId", message.threadId, "labelIds", List.copyOf(message.labelIds),
+                "snippet", message.snippet(), "historyId", String.valueOf(message.historyId),
+                "internalDate", String.valueOf(message.internalDate),
+                "sizeEstimate", rfc822(message).length());
+    }
+
+    private List<Map<String, Object>> headers(StubMessage message, List<String> only) {
+        Map<String, String> all = new LinkedHashMap<>();
+        all.put("From", message.from);
+        all.put("To", message.to);
+        all.put("Subject", message.subject);
+        all.put("Date", RFC_1123.format(Instant.ofEpochMilli(message.internalDate)));
+        all.put("Message-ID", "<" + message.id + "@stub.local>");
+
+        List<Map<String, Object>> headers = new ArrayList<>();
+        all.forEach((name, value) -> {
+            if (only == null || only.isEmpty() || only.stream().anyMatch(name::equalsIgnoreCase)) {
+                headers.add(json("name", name, "value", value));
+            }
+        });
+        return headers;
+    }
+
+    /**
+     * Payload do format=full. O conteúdo extra (newsletter, anexo) sai de uma semente
+     * derivada do ID, então a mesma mensagem tem sempre o mesmo payload.
+     */
+    private Map<String, Object> fullPayload(StubMessage message) {
+        // IDs sequenciais dariam sementes vizinhas (e primeiros sorteios parecidos): espalha antes
+        Random content = new Random(message.id.hashCode() * 0x9E3779B97F4A7C15L);
+        boolean automated = AUTOMATED_SENDERS.contains(message.from);
+        byte[] text = message.body.getBytes(StandardCharsets.UTF_8);
+        byte[] html = (automated ? newsletter(message, content) : "<div><p>" + message.body + "</p></div>")
+                .getBytes(StandardCharsets.UTF_8);
+        boolean withAttachment = !automated && content.nextDouble() < 0.2;
+        String partPrefix = withAttachment ? "0." : "";
+
+        Map<String, Object> alternative = json("partId", withAttachment ? "0" : "",
+                "mimeType", "multipart/alternative", "filename", "",
+                "headers", withAttachment ? List.of(json("name", "Content-Type", "value", "multipart/alternative"))
+                        : headers(message, null),
+                "body", json("size", 0),
+                "parts", List.of(
+                        json("partId", partPrefix + "0", "mimeType", "text/plain", "filename", "",
+                                "headers", List.of(json("name", "Content-Type", "value", "text/plain; charset=UTF-8")),
+                                "body", json("size", text.length, "data", BASE64_URL.encodeToString(text))),
+                        json("partId", partPrefix + "1", "mimeType", "text/html", "filename", "",
+                                "headers", List.of(json("name", "Content-Type", "value", "text/html; charset=UTF-8")),
+                                "body", json("size", html.length, "data", BASE64_URL.encodeToString(html)))));
+        if (!withAttachment) {
+            return alternative;
+        }
+
+        // Email com anexo: multipart/mixed com o corpo e a referência ao anexo
+        String filename = ATTACHMENTS[content.nextInt(ATTACHMENTS.length)];
+        byte[] attachmentId = new byte[300];
+        content.nextBytes(attachmentId);
+        return json("partId", "", "mimeType", "multipart/mixed", "filename", "",
+                "headers", headers(message, null),
+                "body", json("size", 0),
+                "parts", List.of(alternative,
+                        json("partId", "1", "mimeType", "application/octet-stream", "filename", filename,
+                                "headers", List.of(
+                                        json("name", "Content-Type", "value", "application/octet-stream; name=\""
+                                                + filename + "\""),
+                                        json("name", "Content-Disposition", "value", "attachment; filename=\""
+                                                + filename + "\"")),
+                                "body", json("attachmentId", BASE64_URL.encodeToString(attachmentId),
+                                        "size", 50_000 + content.nextInt(2_000_000)))));
+    }
+
+    /**
+     * HTML no formato de email marketing: tabelas com estilos inline, links de
+     * rastreamento e pixel, com o corpo da mensagem no topo
+     */
+    private static String newsletter(StubMessage message, Random content) {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><style>")
+                .append("body{margin:0;padding:0}table{border-collapse:collapse}")
+                .append("@media only screen and (max-width:600px){.col{width:100%!important}}".repeat(10))
+                .append("</style></head><body><table role=\"presentation\" width=\"100%\">")
+                .append("<tr><td style=\"padding:24px;font-family:Arial,sans-serif;font-size:16px\">")
+                .append(message.body).append("</td></tr>");
+        int rows = 20 + content.nextInt(100);
+        for (int i = 0; i < rows; i++) {
+            html.append("<tr><td class=\"col\" style=\"padding:16px 24px;font-family:Arial,Helvetica,sans-serif;")
+                    .append("font-size:14px;line-height:20px;color:#333333\" align=\"left\" valign=\"top\">")
+                    .append("<a href=\"https://click.stub.local/?qs=").append(Long.toHexString(content.nextLong()))
+                    .append(Long.toHexString(content.nextLong())).append("\" style=\"color:#333333\">")
+                    .append("<img src=\"https://cdn.stub.local/img/").append(i).append(".jpg\" width=\"180\" ")
+                    .append("height=\"180\" alt=\"\" style=\"display:block;border:0\"></a>")
+                    .append("<p style=\"margin:8px 0\">Item ").append(i + 1).append(" por R$&nbsp;")
+                    .append(10 + content.nextInt(990)).append(",90 &agrave; vista</p></td></tr>");
+        }
+        return html.append("</table><img src=\"https://open.stub.local/pixel/")
+                .append(Long.toHexString(content.nextLong())).append(".gif\" width=\"1\" height=\"1\" alt=\"\">")
+                .append("</body></html>").toString();
+    }
+
+    private String rfc822(StubMessage message) {
+        return "From: " + message.from + "\r\nTo: " + message.to + "\r\nSubject: " + message.subject
+                + "\r\nDate: " + RFC_1123.format(Instant.ofEpochMilli(message.internalDate))
+                + "\r\nContent-Type: text/plain; charset=UTF-8\r\n\r\n" + message.body;
+    }
+
+    private static Map<String, String> parseHeaders(String section) {
+        Map<String, String> headers = new HashMap<>();
+        for (String line : section.split("\r?\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.putIfAbsent(line.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                        line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    private String nextId() {
+        return Long.toHexString(nextId++);
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static String stripAccents(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}+", "");
+    }
+
+    /**
+     * Map JSON na ordem dos pares (valores null são omitidos, como na API)
+     */
+    static Map<String, Object> json(Object... keyValues) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            if (keyValues[i + 1] != null) {
+                json.put((String) keyValues[i], keyValues[i + 1]);
+            }
+        }
+        return json;
+    }
+}
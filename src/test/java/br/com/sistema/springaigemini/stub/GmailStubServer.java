@@ -0,0 +1,575 @@
+package br.com.sistema.springaigemini.stub;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servidor HTTP local que imita a API REST do Gmail, para testes de carga e latência
+ * sem tocar no Gmail real (perfil "gmail-stub" nos testes, ver GmailStubConfig).
+ *
+ * Endpoints (mesmos caminhos da API, usuário ignorado):
+ * - GET  users/{u}/profile, users/{u}/labels, users/{u}/labels/{id}
+ * - GET  users/{u}/messages (q, labelIds, maxResults, pageToken)
+ * - GET  users/{u}/messages/{id} (format=minimal|metadata|full|raw, metadataHeaders)
+ * - POST users/{u}/messages/{id}/modify, messages/batchModify, messages/batchDelete, messages/send
+ * - DELETE users/{u}/messages/{id}
+ * - GET  users/{u}/history (startHistoryId, maxResults, pageToken)
+ * - POST batch/gmail/v1 (multipart/mixed, como o BatchRequest do google-api-client)
+ *
+ * Partial response: o parâmetro fields ("id,payload/headers", "labels(id,name)") filtra
+ * a resposta JSON como no Gmail.
+ *
+ * Falhas injetadas, reprodutíveis pela semente:
+ * - Latência fixa + jitter por requisição (e por item de um batch)
+ * - 429 rateLimitExceeded e 5xx (500/503 backendError) com probabilidade configurável,
+ *   também em partes isoladas de um batch
+ * - Cota por segundo (quota units, mesmos custos do Gmail): acima dela, 403 userRateLimitExceeded
+ *
+ * Métricas:
+ * - gmail.stub.requests{operation,status}: quantas chamadas o cliente fez e com qual resultado
+ * - gmail.stub.response.bytes: bytes enviados nos corpos das respostas (sem gzip), batches inclusive
+ */
+@Slf4j
+public class GmailStubServer {
+
+    private static final String API_PREFIX = "/gmail/v1/users/";
+    private static final String BATCH_PATH = "/batch/gmail/v1";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_HISTORY_PAGE = 500;
+
+    private static final Pattern MESSAGE = Pattern.compile("messages/([^/]+)");
+    private static final Pattern MODIFY = Pattern.compile("messages/([^/]+)/modify");
+    private static final Pattern LABEL = Pattern.compile("labels/([^/]+)");
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+    private static final Pattern CONTENT_ID = Pattern.compile("(?im)^content-id:\\s*<?([^>\\r\\n]+)>?");
+
+    /**
+     * Parâmetros do servidor e das falhas injetadas
+     *
+     * @param port porta (0 = qualquer porta livre)
+     * @param unitsPerSecond cota por segundo em quota units (0 = sem limite)
+     */
+    public record Settings(int port, long latencyMillis, long jitterMillis, long batchItemLatencyMillis,
+                           double quotaErrorRate, double serverErrorRate, double unitsPerSecond, long seed) {}
+
+    /** Resposta de uma chamada (body null = sem conteúdo) */
+    private record Reply(int status, Object body) {}
+
+    private final GmailStubMailbox mailbox;
+    private final ObjectMapper mapper;
+    private final MeterRegistry meterRegistry;
+    private final Settings settings;
+    private final Random random;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // Janela da cota por segundo
+    private long windowSecond;
+    private double windowUnits;
+
+    public GmailStubServer(GmailStubMailbox mailbox, ObjectMapper mapper, MeterRegistry meterRegistry,
+                           Settings settings) {
+        this.mailbox = mailbox;
+        this.mapper = mapper;
+        this.meterRegistry = meterRegistry;
+        this.settings = settings;
+        this.random = new Random(settings.seed());
+    }
+
+    public void start() throws IOException {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), settings.port()), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        log.info("🧪 Gmail stub em {} ({} emails, latência {}±{} ms, 429 {}%, 5xx {}%, cota {} units/s)",
+                rootUrl(), mailbox.size(), settings.latencyMillis(), settings.jitterMillis(),
+                settings.quotaErrorRate() * 100, settings.serverErrorRate() * 100, settings.unitsPerSecond());
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * URL base para o Gmail.Builder (setRootUrl)
+     */
+    public String rootUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    // ==================== HTTP ====================
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String path = exchange.getRequestURI().getPath();
+
+            if (BATCH_PATH.equals(path) && "POST".equals(exchange.getRequestMethod())) {
+                handleBatch(exchange, body);
+                return;
+            }
+
+            sleep(requestLatency(0));
+            Reply reply = dispatch(exchange.getRequestMethod(), exchange.getRequestURI(), body);
+            byte[] json = reply.body() != null ? mapper.writeValueAsBytes(reply.body()) : null;
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+            exchange.sendResponseHeaders(reply.status(), json != null ? json.length : -1);
+            if (json != null) {
+                countBytes(json.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(json);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("⚠️ Gmail stub: erro em {} {}: {}", exchange.getRequestMethod(), exchange.getRequestURI(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Batch multipart/mixed: cada parte é uma requisição HTTP completa, respondida na mesma ordem
+     */
+    private void handleBatch(HttpExchange exchange, byte[] body) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        Matcher boundaryMatcher = BOUNDARY.matcher(contentType != null ? contentType : "");
+        if (!boundaryMatcher.find()) {
+            sendError(exchange, 400, "badRequest", "Batch sem boundary");
+            return;
+        }
+
+        List<String> parts = splitParts(new String(body, StandardCharsets.UTF_8), boundaryMatcher.group(1));
+        sleep(requestLatency(parts.size()));
+
+        // Falha do batch inteiro (antes de olhar as partes)
+        if (roll(settings.serverErrorRate())) {
+            count("batch", 503);
+            sendError(exchange, 503, "backendError", "Backend Error");
+            return;
+        }
+
+        String boundary = "batch_stub_" + Long.toHexString(nextLong());
+        StringBuilder response = new StringBuilder();
+        for (String part : parts) {
+            Matcher id = CONTENT_ID.matcher(part);
+            String contentId = id.find() ? id.group(1).trim() : "";
+            Reply reply = dispatchPart(part);
+            String json = reply.body() != null ? mapper.writeValueAsString(reply.body()) : "";
+            int length = json.getBytes(StandardCharsets.UTF_8).length;
+
+            response.append("--").append(boundary).append("\r\n")
+                    .append("Content-Type: application/http\r\n")
+                    .append("Content-ID: <response-").append(contentId).append(">\r\n\r\n")
+                    .append("HTTP/1.1 ").append(reply.status()).append(' ').append(reason(reply.status())).append("\r\n")
+                    .append("Content-Type: application/json; charset=UTF-8\r\n")
+                    .append("Content-Length: ").append(length).append("\r\n\r\n")
+                    .append(json).append("\r\n");
+        }
+        response.append("--").append(boundary).append("--\r\n");
+        count("batch", 200);
+
+        byte[] bytes = response.toString().getBytes(StandardCharsets.UTF_8);
+        countBytes(bytes.length);
+        exchange.getResponseHeaders().set("Content-Type", "multipart/mixed; boundary=" + boundary);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Parte do batch: cabeçalhos da parte, linha em branco, requisição HTTP (linha, cabeçalhos, corpo)
+     */
+    private Reply dispatchPart(String part) throws IOException {
+        String[] sections = part.split("\r?\n\r?\n", 3);
+        if (sections.length < 2) {
+            return error(400, "badRequest", "Parte do batch inválida");
+        }
+        String[] requestLine = sections[1].lines().findFirst().orElse("").split(" ");
+        if (requestLine.length < 2) {
+            return error(400, "badRequest", "Parte do batch inválida");
+        }
+        byte[] body = sections.length > 2 ? sections[2].strip().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return dispatch(requestLine[0], URI.create(requestLine[1]), body);
+    }
+
+    private List<String> splitParts(String body, String boundary) {
+        List<String> parts = new ArrayList<>();
+        for (String part : body.split("--" + Pattern.quote(boundary))) {
+            String trimmed = part.strip();
+            if (!trimmed.isEmpty() && !trimmed.equals("--")) {
+                parts.add(trimmed);
+            }
+        }
+        return parts;
+    }
+
+    // ==================== ROTAS ====================
+
+    /**
+     * Executa uma chamada da API (requisição simples ou parte de um batch), com as falhas injetadas
+     */
+    private Reply dispatch(String method, URI uri, byte[] body) throws IOException {
+        String path = uri.getPath();
+        if (!path.startsWith(API_PREFIX)) {
+            return error(404, "notFound", "Not Found");
+        }
+        // "users/{userId}/..." → "..."
+        String route = path.substring(API_PREFIX.length());
+        route = route.indexOf('/') >= 0 ? route.substring(route.indexOf('/') + 1) : "";
+        Map<String, List<String>> params = params(uri.getRawQuery());
+
+        String operation = operation(method, route);
+        Reply fault = fault(units(operation));
+        if (fault != null) {
+            count(operation, fault.status());
+            return fault;
+        }
+
+        Reply reply = route(method, route, operation, params, body);
+        count(operation, reply.status());
+        String fields = first(params, "fields");
+        return reply.status() == 200 && fields != null ? ok(partial(reply.body(), fields)) : reply;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Reply route(String method, String route, String operation, Map<String, List<String>> params,
+                        byte[] body) throws IOException {
+        Map<String, Object> json = body.length > 0 ? mapper.readValue(body, Map.class) : Map.of();
+        Matcher matcher;
+
+        switch (operation) {
+            case "profile":
+                return ok(mailbox.profile());
+            case "labels.list":
+                return ok(mailbox.labels());
+            case "labels.get":
+                matcher = LABEL.matcher(route);
+                matcher.matches();
+                return okOrNotFound(mailbox.label(matcher.group(1)));
+            case "messages.list":
+                return ok(mailbox.list(first(params, "q"), params.get("labelIds"),
+                        pageSize(first(params, "maxResults"), MAX_PAGE_SIZE), first(params, "pageToken")));
+            case "messages.get":
+                matcher = MESSAGE.matcher(route);
+                matcher.matches();
+                return okOrNotFound(mailbox.get(matcher.group(1), first(params, "format"),
+                        params.get("metadataHeaders")));
+            case "messages.modify":
+                matcher = MODIFY.matcher(route);
+                matcher.matches();
+                return okOrNotFound(mailbox.modify(matcher.group(1), (List<String>) json.get("addLabelIds"),
+                        (List<String>) json.get("removeLabelIds")));
+            case "messages.delete":
+                matcher = MESSAGE.matcher(route);
+                matcher.matches();
+                return mailbox.delete(matcher.group(1)) ? new Reply(204, null) : notFound();
+            case "messages.batchModify":
+                for (String id : (List<String>) json.getOrDefault("ids", List.of())) {
+                    mailbox.modify(id, (List<String>) json.get("addLabelIds"), (List<String>) json.get("removeLabelIds"));
+                }
+                return new Reply(204, null);
+            case "messages.batchDelete":
+                for (String id : (List<String>) json.getOrDefault("ids", List.of())) {
+                    mailbox.delete(id);
+                }
+                return new Reply(204, null);
+            case "messages.send":
+                return ok(mailbox.send((String) json.get("raw"), (String) json.get("threadId")));
+            case "history":
+                String start = first(params, "startHistoryId");
+                if (start == null) {
+                    return error(400, "invalidArgument", "startHistoryId é obrigatório");
+                }
+                return okOrNotFound(mailbox.history(Long.parseLong(start),
+                        pageSize(first(params, "maxResults"), MAX_HISTORY_PAGE), first(params, "pageToken")));
+            default:
+                return error(404, "notFound", "Rota não implementada no stub: " + method + " " + route);
+        }
+    }
+
+    private String operation(String method, String route) {
+        if (route.equals("profile")) return "profile";
+        if (route.equals("labels")) return "labels.list";
+        if (LABEL.matcher(route).matches()) return "labels.get";
+        if (route.equals("history")) return "history";
+        if (route.equals("messages")) return "messages.list";
+        if (route.equals("messages/send")) return "messages.send";
+        if (route.equals("messages/batchModify")) return "messages.batchModify";
+        if (route.equals("messages/batchDelete")) return "messages.batchDelete";
+        if (MODIFY.matcher(route).matches()) return "messages.modify";
+        if (MESSAGE.matcher(route).matches()) return "DELETE".equals(method) ? "messages.delete" : "messages.get";
+        return "unknown";
+    }
+
+    /** Custo em quota units de cada operação (tabela do Gmail) */
+    private int units(String operation) {
+        return switch (operation) {
+            case "profile", "labels.list", "labels.get" -> 1;
+            case "history" -> 2;
+            case "messages.delete" -> 10;
+            case "messages.batchModify", "messages.batchDelete" -> 50;
+            case "messages.send" -> 100;
+            default -> 5;
+        };
+    }
+
+    // ==================== FALHAS INJETADAS ====================
+
+    private Reply fault(int units) {
+        if (overQuota(units)) {
+            return error(403, "userRateLimitExceeded", "User-rate limit exceeded", "usageLimits");
+        }
+        if (roll(settings.quotaErrorRate())) {
+            return error(429, "rateLimitExceeded", "Too many concurrent requests for user", "usageLimits");
+        }
+        if (roll(settings.serverErrorRate())) {
+            return roll(0.5) ? error(500, "backendError", "Backend Error") : error(503, "backendError", "Backend Error");
+        }
+        return null;
+    }
+
+    private synchronized boolean overQuota(int units) {
+        if (settings.unitsPerSecond() <= 0) {
+            return false;
+        }
+        long second = System.nanoTime() / 1_000_000_000L;
+        if (second != windowSecond) {
+            windowSecond = second;
+            windowUnits = 0;
+        }
+        if (windowUnits + units > settings.unitsPerSecond()) {
+            return true;
+        }
+        windowUnits += units;
+        return false;
+    }
+
+    private long requestLatency(int batchItems) {
+        long jitter = settings.jitterMillis() > 0 ? (long) (nextDouble() * settings.jitterMillis()) : 0;
+        return settings.latencyMillis() + jitter + batchItems * settings.batchItemLatencyMillis();
+    }
+
+    private boolean roll(double probability) {
+        return probability > 0 && nextDouble() < probability;
+    }
+
+    private synchronized double nextDouble() {
+        return random.nextDouble();
+    }
+
+    private synchronized long nextLong() {
+        return random.nextLong();
+    }
+
+    // ==================== PARTIAL RESPONSE ====================
+
+    /**
+     * Aplica a máscara fields à resposta: "a,b/c" mantém a e b.c; "b(c,d)" mantém b.c e b.d.
+     * Em listas, a máscara vale para cada elemento.
+     */
+    static Object partial(Object body, String fields) {
+        return mask(body, parseFields(fields, new int[] {0}));
+    }
+
+    /**
+     * Árvore da máscara: campo → subcampos (null = campo inteiro)
+     */
+    private static Map<String, Object> parseFields(String fields, int[] position) {
+        Map<String, Object> tree = new LinkedHashMap<>();
+        while (position[0] < fields.length()) {
+            char c = fields.charAt(position[0]);
+            if (c == ')') {
+                position[0]++;
+                break;
+            }
+            if (c == ',' || c == ' ') {
+                position[0]++;
+                continue;
+            }
+            parseField(fields, position, tree);
+        }
+        return tree;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void parseField(String fields, int[] position, Map<String, Object> tree) {
+        int start = position[0];
+        while (position[0] < fields.length() && ",/()".indexOf(fields.charAt(position[0])) < 0) {
+            position[0]++;
+        }
+        String name = fields.substring(start, position[0]).trim();
+        char next = position[0] < fields.length() ? fields.charAt(position[0]) : ',';
+
+        Map<String, Object> children = null;
+        if (next == '/' || next == '(') {
+            position[0]++;
+            Object existing = tree.get(name);
+            children = existing instanceof Map ? (Map<String, Object>) existing : new LinkedHashMap<>();
+            if (next == '/') {
+                parseField(fields, position, children);
+            } else {
+                children.putAll(parseFields(fields, position));
+            }
+        }
+        // Campo já pedido inteiro em outro ponto da máscara continua inteiro
+        if (!tree.containsKey(name) || tree.get(name) != null) {
+            tree.put(name, children);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object mask(Object value, Map<String, Object> tree) {
+        if (tree == null) {
+            return value;
+        }
+        if (value instanceof List<?> list) {
+            return list.stream().map(item -> mask(item, tree)).toList();
+        }
+        if (!(value instanceof Map<?, ?> map)) {
+            return value;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        tree.forEach((name, children) -> {
+            Object field = map.get(name);
+            if (field != null) {
+                result.put(name, mask(field, (Map<String, Object>) children));
+            }
+        });
+        return result;
+    }
+
+    // ==================== MÉTODOS AUXILIARES PRIVADOS ====================
+
+    private Reply ok(Object body) {
+        return new Reply(200, body);
+    }
+
+    private Reply okOrNotFound(Object body) {
+        return body != null ? ok(body) : notFound();
+    }
+
+    private Reply notFound() {
+        return error(404, "notFound", "Requested entity was not found.");
+    }
+
+    private Reply error(int code, String reason, String message) {
+        return error(code, reason, message, "global");
+    }
+
+    /**
+     * Erro no formato JSON do Google (lido pelo GoogleJsonResponseException)
+     */
+    private Reply error(int code, String reason, String message, String domain) {
+        return new Reply(code, GmailStubMailbox.json("error", GmailStubMailbox.json(
+                "code", code,
+                "message", message,
+                "errors", List.of(GmailStubMailbox.json("message", message, "domain", domain, "reason", reason)),
+                "status", status(code))));
+    }
+
+    private void sendError(HttpExchange exchange, int code, String reason, String message) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(error(code, reason, message).body());
+        countBytes(json.length);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(code, json.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(json);
+        }
+    }
+
+    private static String status(int code) {
+        return switch (code) {
+            case 400 -> "INVALID_ARGUMENT";
+            case 403 -> "PERMISSION_DENIED";
+            case 404 -> "NOT_FOUND";
+            case 429 -> "RESOURCE_EXHAUSTED";
+            case 503 -> "UNAVAILABLE";
+            default -> "INTERNAL";
+        };
+    }
+
+    private static String reason(int code) {
+        return switch (code) {
+            case 200 -> "OK";
+            case 204 -> "No Content";
+            case 400 -> "Bad Request";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            case 429 -> "Too Many Requests";
+            case 503 -> "Service Unavailable";
+            default -> "Internal Server Error";
+        };
+    }
+
+    private void count(String operation, int status) {
+        meterRegistry.counter("gmail.stub.requests", "operation", operation, "status", String.valueOf(status))
+                .increment();
+    }
+
+    private void countBytes(int length) {
+        meterRegistry.counter("gmail.stub.response.bytes").increment(length);
+    }
+
+    private static Map<String, List<String>> params(String rawQuery) {
+        Map<String, List<String>> params = new LinkedHashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+        }
+        return params;
+    }
+
+    private static String first(Map<String, List<String>> params, String key) {
+        List<String> values = params.get(key);
+        return values != null && !values.isEmpty() ? values.get(0) : null;
+    }
+
+    private static int pageSize(String value, int max) {
+        int size = value != null ? Integer.parseInt(value) : DEFAULT_PAGE_SIZE;
+        return Math.max(1, Math.min(size, max));
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
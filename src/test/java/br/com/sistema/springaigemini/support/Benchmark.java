@@ -0,0 +1,66 @@
+package br.com.sistema.springaigemini.support;
+
+import java.util.Arrays;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Medição simples para os testes marcados com @Tag("benchmark") (mvn test -Pbenchmark).
+ *
+ * Aquece o JIT, repete a tarefa e reporta mediana e p90 em ms no log do teste,
+ * junto com a versão da JVM: os números publicados saem daqui, com o mesmo pom.
+ */
+@Slf4j
+public final class Benchmark {
+
+    public static final String TAG = "benchmark";
+
+    private Benchmark() {}
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    /**
+     * Resultado de uma medição (tempos em nanossegundos)
+     */
+    public record Result(String name, long medianNanos, long p90Nanos, int runs) {
+
+        public double medianMillis() {
+            return medianNanos / 1e6;
+        }
+
+        public double p90Millis() {
+            return p90Nanos / 1e6;
+        }
+    }
+
+    public static Result measure(String name, int warmup, int runs, Task task) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            task.run();
+        }
+
+        long[] times = new long[runs];
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            task.run();
+            times[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(times);
+
+        Result result = new Result(name, times[runs / 2], times[Math.min(runs - 1, (int) Math.ceil(runs * 0.9) - 1)],
+                runs);
+        log.info("⏱️ {} | mediana {} ms | p90 {} ms | {} execuções | Java {}", name,
+                String.format("%.3f", result.medianMillis()), String.format("%.3f", result.p90Millis()), runs,
+                Runtime.version());
+        return result;
+    }
+
+    /**
+     * Registra um valor medido que não é tempo (bytes, tokens, contagens)
+     */
+    public static void report(String name, Object value) {
+        log.info("📏 {} | {}", name, value);
+    }
+}
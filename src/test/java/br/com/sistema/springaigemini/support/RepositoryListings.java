@@ -0,0 +1,67 @@
+package br.com.sistema.springaigemini.support;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Listagens sintéticas no formato de GithubAssistantTools.listRepositoryFilesRecursively
+ * ("type|name|path|size" por linha), para testes e benchmarks da árvore de arquivos.
+ *
+ * Mesma semente → mesma listagem.
+ */
+public final class RepositoryListings {
+
+    private static final String[] FOLDERS = { "src", "main", "java", "test", "resources", "config", "service",
+            "controller", "model", "util", "docs", "web", "api", "core", "internal" };
+    private static final String[] EXTENSIONS = { "java", "xml", "md", "json", "properties", "ts", "yml", "png" };
+    private static final int MAX_DEPTH = 8;
+
+    private RepositoryListings() {}
+
+    /**
+     * Gera uma listagem com "files" arquivos espalhados por pastas de até MAX_DEPTH níveis
+     */
+    public static String generate(int files, long seed) {
+        Random random = new Random(seed);
+        List<String> folders = new ArrayList<>();
+        Set<String> known = new HashSet<>();
+        folders.add("");
+        StringBuilder listing = new StringBuilder(files * 48);
+
+        for (int i = 0; i < files; i++) {
+            String folder = folders.get(random.nextInt(folders.size()));
+
+            if (random.nextInt(8) == 0 && depth(folder) < MAX_DEPTH) {
+                String name = FOLDERS[random.nextInt(FOLDERS.length)] + random.nextInt(100);
+                String path = folder.isEmpty() ? name : folder + "/" + name;
+                if (known.add(path)) {
+                    folders.add(path);
+                    listing.append("folder|").append(name).append('|').append(path).append('\n');
+                }
+                folder = path;
+            }
+
+            String name = "File" + i + "." + EXTENSIONS[random.nextInt(EXTENSIONS.length)];
+            listing.append("file|").append(name).append('|')
+                    .append(folder.isEmpty() ? name : folder + "/" + name).append('|')
+                    .append(random.nextInt(100_000)).append('\n');
+        }
+        return listing.toString();
+    }
+
+    private static int depth(String folder) {
+        if (folder.isEmpty()) {
+            return 0;
+        }
+        int depth = 1;
+        for (int i = 0; i < folder.length(); i++) {
+            if (folder.charAt(i) == '/') {
+                depth++;
+            }
+        }
+        return depth;
+    }
+}
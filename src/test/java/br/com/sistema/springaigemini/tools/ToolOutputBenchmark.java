@@ -0,0 +1,195 @@
+package br.com.sistema.springaigemini.tools;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import br.com.sistema.springaigemini.configurations.GmailStubConfig;
+import br.com.sistema.springaigemini.models.MessageMetadata;
+import br.com.sistema.springaigemini.serializers.ToolOutputFormatter;
+import br.com.sistema.springaigemini.services.GmailMailboxStore;
+import br.com.sistema.springaigemini.services.GmailSyncService;
+import br.com.sistema.springaigemini.support.Benchmark;
+
+/**
+ * Tokens e latência das tools nos modos compact e rich, repetindo o mesmo conjunto
+ * gravado de conversas contra o GmailStubServer (sem latência, falhas nem emails novos,
+ * para os dois modos verem exatamente a mesma caixa).
+ *
+ * Custo em tokens de entrada: cada chamada ao modelo reenvia o histórico inteiro da
+ * conversa. Um turno com k tools faz k + 1 chamadas (a pergunta e cada resultado de tool),
+ * então o que uma tool retorna é pago de novo em todas as chamadas seguintes.
+ * Prompt de sistema, especificação das tools e respostas do modelo são iguais nos dois
+ * modos e ficam fora da conta. Tokens estimados em ~4 caracteres por token.
+ *
+ * A latência medida aqui é a das tools; a do Gemini, com tokens reais, sai do
+ * ChatUsageMetrics (assistant.chat.latency e assistant.chat.tokens, tag output).
+ */
+@Tag(Benchmark.TAG)
+@SpringBootTest(properties = {
+        "gmail.stub.latency-ms=0",
+        "gmail.stub.jitter-ms=0",
+        "gmail.stub.batch-item-latency-ms=0",
+        "gmail.stub.quota-error-rate=0",
+        "gmail.stub.server-error-rate=0",
+        "gmail.stub.units-per-second=0",
+        "gmail.stub.arrivals-per-minute=0" })
+@ActiveProfiles("gmail-stub")
+@Import(GmailStubConfig.class)
+class ToolOutputBenchmark {
+
+    private static final int WARMUP = 2;
+    private static final int RUNS = 10;
+
+    @Autowired
+    private GmailAssistantTools tools;
+
+    @Autowired
+    private GmailSyncService syncService;
+
+    @Autowired
+    private GmailMailboxStore mailboxStore;
+
+    /**
+     * Uma chamada de tool gravada
+     */
+    @FunctionalInterface
+    private interface Call {
+        String invoke(GmailAssistantTools tools);
+    }
+
+    private record ToolCall(String tool, Call call) {}
+
+    private record Turn(String question, List<ToolCall> calls) {}
+
+    private record Conversation(String name, List<Turn> turns) {}
+
+    /**
+     * Totais de uma repetição das conversas em um modo
+     */
+    private record Replay(long toolChars, long inputChars, Map<String, Long> charsByTool, List<String> outputs) {}
+
+    @Test
+    void compactoContraRich() throws Exception {
+        syncService.sync();
+        assertThat(mailboxStore.isReady()).isTrue();
+
+        List<Conversation> conversations = conversations(
+                mailboxStore.latest(3).stream().map(MessageMetadata::getId).toList());
+
+        Replay compact = replay(conversations, ToolOutputFormatter.MODE_COMPACT);
+        Replay rich = replay(conversations, ToolOutputFormatter.MODE_RICH);
+
+        int calls = conversations.stream().flatMap(c -> c.turns().stream()).mapToInt(t -> t.calls().size()).sum();
+        Benchmark.report("Conversas gravadas", conversations.size() + " conversas, " + calls + " chamadas de tools");
+        rich.charsByTool().forEach((tool, richChars) -> Benchmark.report("Saída de " + tool,
+                compare(compact.charsByTool().get(tool), richChars)));
+        Benchmark.report("Saída das tools (total)", compare(compact.toolChars(), rich.toolChars()));
+        Benchmark.report("Tokens de entrada acumulados nas chamadas ao modelo",
+                compare(compact.inputChars(), rich.inputChars()));
+
+        Benchmark.measure("Conversas com saída compact", WARMUP, RUNS,
+                () -> replay(conversations, ToolOutputFormatter.MODE_COMPACT));
+        Benchmark.measure("Conversas com saída rich", WARMUP, RUNS,
+                () -> replay(conversations, ToolOutputFormatter.MODE_RICH));
+
+        // Mesma caixa nos dois modos: nenhuma tool falhou e os IDs listados estão nas duas saídas
+        assertThat(compact.outputs()).hasSameSizeAs(rich.outputs())
+                .noneMatch(text -> text.startsWith("Erro"));
+        assertThat(rich.outputs()).noneMatch(text -> text.startsWith("❌"));
+        for (String id : mailboxStore.latest(3).stream().map(MessageMetadata::getId).toList()) {
+            assertThat(compact.outputs().get(0)).contains(id);
+            assertThat(rich.outputs().get(0)).contains(id);
+        }
+        assertThat(compact.toolChars()).isLessThan(rich.toolChars());
+        assertThat(compact.inputChars()).isLessThan(rich.inputChars());
+    }
+
+    /**
+     * Conversas típicas do assistente, com os IDs dos emails mais recentes da caixa
+     */
+    private static List<Conversation> conversations(List<String> ids) {
+        return List.of(
+                new Conversation("caixa de entrada", List.of(
+                        new Turn("Quais são meus últimos emails?", List.of(
+                                new ToolCall("listEmails", t -> t.listEmails(20)))),
+                        new Turn("Abre o primeiro e me diz se tem anexo", List.of(
+                                new ToolCall("getEmailContent", t -> t.getEmailContent(ids.get(0))),
+                                new ToolCall("listAttachments", t -> t.listAttachments(ids.get(0))))),
+                        new Turn("Marca esse como lido", List.of(
+                                new ToolCall("markAsRead", t -> t.markAsRead(ids.get(0))))),
+                        new Turn("Desfaz, deixa como não lido", List.of(
+                                new ToolCall("markAsUnread", t -> t.markAsUnread(ids.get(0))))))),
+                new Conversation("não lidos", List.of(
+                        new Turn("Quantos emails não lidos eu tenho?", List.of(
+                                new ToolCall("countEmails", t -> t.countEmails("INBOX")))),
+                        new Turn("Quais são os mais recentes?", List.of(
+                                new ToolCall("listUnreadEmails", t -> t.listUnreadEmails(15)))),
+                        new Turn("O que diz o segundo?", List.of(
+                                new ToolCall("getEmailContent", t -> t.getEmailContent(ids.get(1))))))),
+                new Conversation("busca", List.of(
+                        new Turn("Procura os emails sobre contrato", List.of(
+                                new ToolCall("searchEmails", t -> t.searchEmails("contrato", 10)))),
+                        new Turn("E sobre orçamento?", List.of(
+                                new ToolCall("searchEmails", t -> t.searchEmails("orçamento", 10)))),
+                        new Turn("Abre o terceiro email da caixa", List.of(
+                                new ToolCall("getEmailContent", t -> t.getEmailContent(ids.get(2))))))),
+                new Conversation("estatísticas", List.of(
+                        new Turn("Quem mais me manda email?", List.of(
+                                new ToolCall("analyzeInbox", t -> t.analyzeInbox("remetente", 0, null, 10)))),
+                        new Turn("E em que dias da semana chegam mais?", List.of(
+                                new ToolCall("analyzeInbox", t -> t.analyzeInbox("dia_semana", 0, null, 7)))),
+                        new Turn("Quantos estão com estrela?", List.of(
+                                new ToolCall("countEmails", t -> t.countEmails("STARRED")))))));
+    }
+
+    /**
+     * Repete as conversas com as tools no modo indicado e soma os caracteres
+     * que entram no contexto do modelo
+     */
+    private Replay replay(List<Conversation> conversations, String mode) {
+        Object previous = ReflectionTestUtils.getField(tools, "output");
+        ReflectionTestUtils.setField(tools, "output", new ToolOutputFormatter(mode));
+        try {
+            long toolChars = 0;
+            long inputChars = 0;
+            Map<String, Long> charsByTool = new LinkedHashMap<>();
+            List<String> outputs = new ArrayList<>();
+
+            for (Conversation conversation : conversations) {
+                long history = 0;
+                for (Turn turn : conversation.turns()) {
+                    history += turn.question().length();
+                    inputChars += history;
+                    for (ToolCall call : turn.calls()) {
+                        String output = call.call().invoke(tools);
+                        outputs.add(output);
+                        toolChars += output.length();
+                        charsByTool.merge(call.tool(), (long) output.length(), Long::sum);
+                        history += output.length();
+                        inputChars += history;
+                    }
+                }
+            }
+            return new Replay(toolChars, inputChars, charsByTool, outputs);
+        } finally {
+            ReflectionTestUtils.setField(tools, "output", previous);
+        }
+    }
+
+    private static String compare(long compactChars, long richChars) {
+        return String.format("compact %,d caracteres (~%,d tokens) | rich %,d caracteres (~%,d tokens) | %.1f%% menos",
+                compactChars, compactChars / 4, richChars, richChars / 4, 100.0 * (richChars - compactChars) / richChars);
+    }
+}